@@ -0,0 +1,35 @@
+package com.okbasalman.product_service.benchmark;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductEntity;
+import com.okbasalman.product_service.domain.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity graph to domain model on reads (blob load plus base64 encode per image),
+ * and create DTO to entity graph on writes (base64 decode plus hashing per image).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityMappingBenchmark {
+
+    @Benchmark
+    public Product entityToDomain(ProductShape shape) {
+        return shape.entityMapper.mapToProduct(shape.entity);
+    }
+
+    @Benchmark
+    public ProductEntity createDtoToEntity(ProductShape shape) {
+        return shape.entityMapper.mapToProductEntity(shape.createDto);
+    }
+}
@@ -0,0 +1,35 @@
+package com.okbasalman.product_service.benchmark;
+
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.product_service.adapter.input.grpc.ProductGrpcMapper;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain model to gRPC message and back, without serialization.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrpcMappingBenchmark {
+
+    @Benchmark
+    public ProductResponse mapToProductResponse(ProductShape shape) {
+        return ProductGrpcMapper.mapToProductResponse(shape.product);
+    }
+
+    @Benchmark
+    public ProductCreateDto mapToProductCreateDto(ProductShape shape) {
+        return ProductGrpcMapper.mapToProductCreateDto(shape.createRequest);
+    }
+}
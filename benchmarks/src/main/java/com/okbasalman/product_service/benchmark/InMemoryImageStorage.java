@@ -0,0 +1,121 @@
+package com.okbasalman.product_service.benchmark;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.StoredImage;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+import com.okbasalman.product_service.domain.port.output.ImageUpload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps blobs in memory under the same SHA-256 keys as the filesystem store,
+ * so the benchmarks measure hashing and mapping rather than disk I/O.
+ */
+class InMemoryImageStorage implements ImageStoragePort {
+
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public StoredImage store(byte[] data) {
+        String contentHash = sha256(data);
+        blobs.putIfAbsent(contentHash, data);
+        return new StoredImage(contentHash, data.length);
+    }
+
+    @Override
+    public byte[] load(String contentHash) {
+        byte[] data = blobs.get(contentHash);
+        if (data == null) {
+            throw new RuntimeException("Image not found with hash: " + contentHash);
+        }
+        return data;
+    }
+
+    @Override
+    public ImageUpload startUpload() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        return new ImageUpload() {
+            @Override
+            public void write(ByteBuffer chunk) {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                buffer.writeBytes(bytes);
+            }
+
+            @Override
+            public long size() {
+                return buffer.size();
+            }
+
+            @Override
+            public StoredImage complete() {
+                return store(buffer.toByteArray());
+            }
+
+            @Override
+            public void abort() {
+                buffer.reset();
+            }
+        };
+    }
+
+    @Override
+    public InputStream openStream(String contentHash) {
+        return new ByteArrayInputStream(load(contentHash));
+    }
+
+    @Override
+    public Optional<StoredImage> find(String contentHash) {
+        byte[] data = blobs.get(contentHash);
+        return data == null ? Optional.empty() : Optional.of(new StoredImage(contentHash, data.length));
+    }
+
+    @Override
+    public boolean hasRendition(String contentHash, ImageRendition rendition) {
+        return blobs.containsKey(renditionKey(contentHash, rendition));
+    }
+
+    @Override
+    public void storeRendition(String contentHash, ImageRendition rendition, byte[] data) {
+        blobs.put(renditionKey(contentHash, rendition), data);
+    }
+
+    @Override
+    public Optional<byte[]> loadRendition(String contentHash, ImageRendition rendition) {
+        return Optional.ofNullable(blobs.get(renditionKey(contentHash, rendition)));
+    }
+
+    // The benchmarks never sweep, so modification times are not kept.
+    @Override
+    public Stream<String> findBlobsModifiedBefore(Instant cutoff) {
+        return Stream.empty();
+    }
+
+    @Override
+    public boolean deleteIfModifiedBefore(String contentHash, Instant cutoff) {
+        return false;
+    }
+
+    private static String renditionKey(String contentHash, ImageRendition rendition) {
+        return rendition == ImageRendition.ORIGINAL ? contentHash : contentHash + "." + rendition;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.okbasalman.product_service.benchmark;
+
+import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.grpc.ProductVariantCreateRequest;
+import com.okbasalman.product_service.adapter.input.grpc.ProductGrpcMapper;
+import com.okbasalman.product_service.adapter.output.ProductEntityMapper;
+import com.okbasalman.product_service.adapter.output.entity.ProductEntity;
+import com.okbasalman.product_service.adapter.output.entity.ProductImageEntity;
+import com.okbasalman.product_service.adapter.output.entity.ProductVariantEntity;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.model.StoredImage;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * One product of a given shape in every form the hot path sees it: the loaded entity graph,
+ * the domain model, the create request and the encoded response. Image sizes vary around
+ * {@code imageBytes} so that not every blob is the same length.
+ */
+@State(Scope.Benchmark)
+public class ProductShape {
+
+    private static final Size[] SIZES = Size.values();
+    private static final String[] COLORS = {"black", "white", "navy", "red", "olive", "sand"};
+
+    @Param({"1", "10", "50"})
+    public int variants;
+
+    @Param({"0", "3", "10"})
+    public int imagesPerVariant;
+
+    @Param({"4096", "65536"})
+    public int imageBytes;
+
+    public InMemoryImageStorage imageStorage;
+    public ProductEntityMapper entityMapper;
+    public ProductEntity entity;
+    public Product product;
+    public ProductCreateDto createDto;
+    public CreateProductRequest createRequest;
+    public ProductResponse response;
+    public byte[] encodedResponse;
+    public byte[] encodedCreateRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        imageStorage = new InMemoryImageStorage();
+        entityMapper = new ProductEntityMapper(imageStorage);
+
+        CreateProductRequest.Builder request = CreateProductRequest.newBuilder()
+                .setName("Product with " + variants + " variants")
+                .setDescription("A product used to benchmark mapping and serialization.")
+                .setSeason(Season.SUMMER.name());
+        entity = new ProductEntity();
+        entity.setId(1L);
+        entity.setName(request.getName());
+        entity.setDescription(request.getDescription());
+        entity.setSeason(Season.SUMMER);
+        entity.setVariants(new ArrayList<>());
+
+        long nextId = 1;
+        for (int v = 0; v < variants; v++) {
+            ProductVariantCreateRequest.Builder variantRequest = ProductVariantCreateRequest.newBuilder()
+                    .setPrice(10 + random.nextInt(9000) / 100.0)
+                    .setStock(random.nextInt(500))
+                    .setColor(COLORS[v % COLORS.length])
+                    .setSize(SIZES[v % SIZES.length].name());
+            ProductVariantEntity variantEntity = new ProductVariantEntity();
+            variantEntity.setId(nextId++);
+            variantEntity.setPrice(ProductGrpcMapper.mapToPrice(variantRequest.getPrice()));
+            variantEntity.setStock(variantRequest.getStock());
+            variantEntity.setColor(variantRequest.getColor());
+            variantEntity.setSize(SIZES[v % SIZES.length]);
+            variantEntity.setProduct(entity);
+            variantEntity.setImages(new ArrayList<>());
+
+            for (int i = 0; i < imagesPerVariant; i++) {
+                byte[] data = jpeg(random, imageBytes / 2 + random.nextInt(imageBytes));
+                variantRequest.addBase64Images("data:image/jpeg;base64," + Base64.getEncoder().encodeToString(data));
+                StoredImage stored = imageStorage.store(data);
+                ProductImageEntity imageEntity = new ProductImageEntity();
+                imageEntity.setId(nextId++);
+                imageEntity.setContentHash(stored.getContentHash());
+                imageEntity.setSizeBytes(stored.getSizeBytes());
+                imageEntity.setContentType("image/jpeg");
+                imageEntity.setDataUri(true);
+                imageEntity.setProductVariant(variantEntity);
+                variantEntity.getImages().add(imageEntity);
+            }
+            request.addVariants(variantRequest);
+            entity.getVariants().add(variantEntity);
+        }
+
+        createRequest = request.build();
+        createDto = ProductGrpcMapper.mapToProductCreateDto(createRequest);
+        product = entityMapper.mapToProduct(entity);
+        response = ProductGrpcMapper.mapToProductResponse(product);
+        encodedResponse = response.toByteArray();
+        encodedCreateRequest = createRequest.toByteArray();
+    }
+
+    private static byte[] jpeg(Random random, int length) {
+        byte[] data = new byte[Math.max(length, 4)];
+        random.nextBytes(data);
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xD8;
+        data[2] = (byte) 0xFF;
+        return data;
+    }
+}
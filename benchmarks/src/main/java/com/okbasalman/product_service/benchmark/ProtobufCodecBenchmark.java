@@ -0,0 +1,40 @@
+package com.okbasalman.product_service.benchmark;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire encoding of the messages the service writes and reads most.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtobufCodecBenchmark {
+
+    @Benchmark
+    public byte[] encodeProductResponse(ProductShape shape) {
+        return shape.response.toByteArray();
+    }
+
+    @Benchmark
+    public ProductResponse decodeProductResponse(ProductShape shape) throws InvalidProtocolBufferException {
+        return ProductResponse.parseFrom(shape.encodedResponse);
+    }
+
+    @Benchmark
+    public CreateProductRequest decodeCreateProductRequest(ProductShape shape) throws InvalidProtocolBufferException {
+        return CreateProductRequest.parseFrom(shape.encodedCreateRequest);
+    }
+}
@@ -0,0 +1,72 @@
+package com.okbasalman.product_service.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.ProductImageResponse;
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.grpc.ProductVariantResponse;
+import com.okbasalman.product_service.adapter.output.entity.ProductImageEntity;
+
+class ProductShapeTest {
+
+    @Test
+    void everyFormHoldsTheSameProduct() throws Exception {
+        ProductShape shape = shape(10, 3, 4096);
+
+        assertThat(shape.entity.getVariants()).hasSize(10);
+        assertThat(shape.createDto.getVariants()).hasSize(10)
+                .allSatisfy(variant -> assertThat(variant.getBase64Images()).hasSize(3));
+        assertThat(shape.product.getVariants()).hasSize(10);
+        assertThat(shape.response.getVariantsList()).hasSize(10)
+                .allSatisfy(variant -> assertThat(variant.getImagesList()).hasSize(3));
+        assertThat(ProductResponse.parseFrom(shape.encodedResponse)).isEqualTo(shape.response);
+        assertThat(CreateProductRequest.parseFrom(shape.encodedCreateRequest)).isEqualTo(shape.createRequest);
+    }
+
+    @Test
+    void responsesCarryTheStoredImages() {
+        ProductShape shape = shape(1, 3, 4096);
+
+        ProductImageEntity stored = shape.entity.getVariants().get(0).getImages().get(0);
+        ProductImageResponse image = shape.response.getVariants(0).getImages(0);
+
+        assertThat(image.getSizeBytes()).isEqualTo(stored.getSizeBytes());
+        assertThat(image.getBase64Data()).startsWith("data:image/jpeg;base64,");
+        assertThat(shape.imageStorage.load(stored.getContentHash())).hasSize((int) stored.getSizeBytes());
+    }
+
+    @Test
+    void imageSizesVaryAroundTheParameter() {
+        ProductShape shape = shape(10, 10, 4096);
+
+        assertThat(shape.response.getVariantsList().stream()
+                .flatMap(variant -> variant.getImagesList().stream())
+                .mapToLong(ProductImageResponse::getSizeBytes)
+                .distinct()
+                .count()).isGreaterThan(1);
+        assertThat(shape.response.getVariantsList().stream()
+                .flatMap(variant -> variant.getImagesList().stream()))
+                .allSatisfy(image -> assertThat(image.getSizeBytes()).isBetween(2048L, 6144L));
+    }
+
+    @Test
+    void productsWithoutImagesHaveNone() {
+        ProductShape shape = shape(50, 0, 65536);
+
+        assertThat(shape.response.getVariantsList()).hasSize(50)
+                .extracting(ProductVariantResponse::getImagesCount)
+                .containsOnly(0);
+    }
+
+    private static ProductShape shape(int variants, int imagesPerVariant, int imageBytes) {
+        ProductShape shape = new ProductShape();
+        shape.variants = variants;
+        shape.imagesPerVariant = imagesPerVariant;
+        shape.imageBytes = imageBytes;
+        shape.setUp();
+        return shape;
+    }
+}
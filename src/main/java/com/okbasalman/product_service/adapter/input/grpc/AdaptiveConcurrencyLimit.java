@@ -0,0 +1,91 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one method that follows its latency, in the style of Netflix's
+ * gradient limiter. A slow moving average of latency stands for the method's latency without
+ * queueing. While recent latency stays close to it, the limit grows by about its square root
+ * per sample. When recent latency rises above it, the limit shrinks in proportion. A call that
+ * runs out of time cuts the limit multiplicatively, as in AIMD.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    // recent latency may exceed the baseline by this factor before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // guarded by this
+    private double shortLatency;
+    private double longLatency;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // The call completed, successfully or not, after latencyNanos.
+    void onCompleted(long latencyNanos) {
+        update(inFlight.getAndDecrement(), latencyNanos);
+    }
+
+    // The call ran out of time, which says the method is overloaded.
+    synchronized void onDropped() {
+        inFlight.decrementAndGet();
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    // The call ended without a meaningful latency, e.g. its client cancelled it.
+    void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(int inFlightBefore, long latencyNanos) {
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+        }
+        shortLatency += (latencyNanos - shortLatency) * SHORT_ALPHA;
+        longLatency += (latencyNanos - longLatency) * LONG_ALPHA;
+        // after a long overload the baseline itself has drifted up; let it recover quickly
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+        // with most permits unused the latency says nothing about the limit
+        if (inFlightBefore < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
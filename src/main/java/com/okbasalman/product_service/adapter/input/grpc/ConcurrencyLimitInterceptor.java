@@ -0,0 +1,206 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sheds load before it reaches the database. Unary calls of each method share an
+ * {@link AdaptiveConcurrencyLimit}; a call over the limit is rejected straight away with
+ * RESOURCE_EXHAUSTED instead of queueing for a connection. Streaming calls are long-lived
+ * and their duration says nothing about load, so they are not limited.
+ *
+ * <p>Any call whose client has cancelled it or whose deadline has passed by the time it is
+ * dispatched is ended without running the handler. Such calls, and calls that finish past their
+ * deadline, are counted as product.grpc.server.dropped rather than as latency samples.
+ */
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    private final MeterRegistry registry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitInterceptor(MeterRegistry registry, int initialLimit, int minLimit, int maxLimit) {
+        this.registry = registry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (Context.current().isCancelled()) {
+            call.close(cancellationStatus(), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        if (call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+            return next.startCall(call, headers);
+        }
+
+        String method = call.getMethodDescriptor().getFullMethodName();
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(method, this::register);
+        if (!limit.tryAcquire()) {
+            Counter.builder("product.grpc.server.rejected")
+                    .tag("method", method)
+                    .register(registry)
+                    .increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription(
+                    "Too many concurrent " + method + " calls; retry with backoff."), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        Permit permit = new Permit(limit, method, Context.current().getDeadline());
+        ServerCall<ReqT, RespT> limitedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                permit.closed();
+                super.close(status, trailers);
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(limitedCall, headers);
+        } catch (RuntimeException e) {
+            permit.closed();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onHalfClose() {
+                // a unary handler runs here, possibly after waiting for an executor thread
+                if (!permit.handlerStarting()) {
+                    return;
+                }
+                try {
+                    super.onHalfClose();
+                } finally {
+                    permit.handlerReturned();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                permit.cancelled();
+                super.onCancel();
+            }
+        };
+    }
+
+    private AdaptiveConcurrencyLimit register(String method) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        Gauge.builder("product.grpc.server.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .tag("method", method)
+                .register(registry);
+        Gauge.builder("product.grpc.server.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .tag("method", method)
+                .register(registry);
+        return limit;
+    }
+
+    private static Status cancellationStatus() {
+        Deadline deadline = Context.current().getDeadline();
+        return deadline != null && deadline.isExpired()
+                ? Status.DEADLINE_EXCEEDED.withDescription("Deadline passed before the call could run.")
+                : Status.CANCELLED.withDescription("Call cancelled by the client.");
+    }
+
+    /**
+     * Held until the handler is done with the call: it has returned and the call is closed, or the
+     * call was cancelled before the handler started. A cancellation while the handler runs does not
+     * free the permit, since the handler still holds a thread and usually a connection.
+     */
+    private final class Permit {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final String method;
+        private final Deadline deadline;
+        private final long startNanos = System.nanoTime();
+
+        // guarded by this
+        private boolean handlerStarted;
+        private boolean handlerReturned;
+        private boolean closed;
+        private boolean released;
+
+        private Permit(AdaptiveConcurrencyLimit limit, String method, Deadline deadline) {
+            this.limit = limit;
+            this.method = method;
+            this.deadline = deadline;
+        }
+
+        // Whether the handler may run; false if the call was cancelled before it got the chance.
+        private boolean handlerStarting() {
+            synchronized (this) {
+                if (!released && !Context.current().isCancelled()) {
+                    handlerStarted = true;
+                    return true;
+                }
+            }
+            cancelled();
+            return false;
+        }
+
+        private synchronized void handlerReturned() {
+            handlerReturned = true;
+            if (closed) {
+                release();
+            }
+        }
+
+        private synchronized void closed() {
+            closed = true;
+            if (!handlerStarted || handlerReturned) {
+                release();
+            }
+        }
+
+        // An asynchronous handler still running keeps the permit until it closes the call.
+        private synchronized void cancelled() {
+            if (!handlerStarted) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (deadline != null && deadline.isExpired()) {
+                recordDrop("deadline");
+                limit.onDropped();
+            } else if (!handlerStarted && !closed) {
+                recordDrop("cancelled");
+                limit.onIgnored();
+            } else {
+                limit.onCompleted(System.nanoTime() - startNanos);
+            }
+        }
+
+        private void recordDrop(String reason) {
+            Counter.builder("product.grpc.server.dropped")
+                    .tag("method", method)
+                    .tag("reason", reason)
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.google.protobuf.ByteString;
+import com.okbasalman.grpc.ProductResponse;
+
+/**
+ * A {@link ProductResponse} that has already been serialized, so it can be written to
+ * the wire again and again without rebuilding or re-encoding the message.
+ */
+public final class EncodedProductResponse {
+
+    private final ByteString bytes;
+    private final long version;
+
+    public EncodedProductResponse(ByteString bytes, long version) {
+        this.bytes = bytes;
+        this.version = version;
+    }
+
+    public static EncodedProductResponse of(ProductResponse response) {
+        return new EncodedProductResponse(response.toByteString(), response.getVersion());
+    }
+
+    public ByteString getBytes() {
+        return bytes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return bytes.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.google.protobuf.ByteString;
+import com.okbasalman.grpc.ProductResponse;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor.Marshaller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Marshals pre-encoded responses straight from their {@link ByteString}. The stream is
+ * {@link KnownLength} and {@link Drainable}, so gRPC frames it with a single copy into
+ * its transport buffer instead of serializing a message tree.
+ */
+public final class EncodedProductResponseMarshaller implements Marshaller<EncodedProductResponse> {
+
+    public static final EncodedProductResponseMarshaller INSTANCE = new EncodedProductResponseMarshaller();
+
+    private EncodedProductResponseMarshaller() {
+    }
+
+    @Override
+    public InputStream stream(EncodedProductResponse value) {
+        return new EncodedInputStream(value.getBytes());
+    }
+
+    @Override
+    public EncodedProductResponse parse(InputStream stream) {
+        try {
+            return EncodedProductResponse.of(ProductResponse.parseFrom(stream));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class EncodedInputStream extends InputStream implements KnownLength, Drainable {
+
+        private ByteString bytes;
+        private InputStream partial;
+
+        private EncodedInputStream(ByteString bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            if (partial != null) {
+                return (int) partial.transferTo(target);
+            }
+            int written = bytes.size();
+            bytes.writeTo(target);
+            bytes = ByteString.EMPTY;
+            return written;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return current().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return current().read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return partial != null ? partial.available() : bytes.size();
+        }
+
+        private InputStream current() {
+            if (partial == null) {
+                partial = bytes.newInput();
+            }
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.google.protobuf.MessageLite;
+import com.okbasalman.product_service.adapter.output.jdbc.QueryCounter;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records, per gRPC method: latency by status code, request and response payload sizes,
+ * and the number of SQL statements and rows the call needed. SQL is attributed by running
+ * every listener callback under the call's {@link QueryCounter}.
+ */
+public class GrpcMetricsInterceptor implements ServerInterceptor {
+
+    private final MeterRegistry registry;
+
+    public GrpcMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        CallMetrics metrics = new CallMetrics(call.getMethodDescriptor().getFullMethodName());
+        ServerCall<ReqT, RespT> measuredCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                metrics.responseBytes.addAndGet(sizeOf(message));
+                super.sendMessage(message);
+            }
+
+            @Override
+            public void close(Status status, Metadata trailers) {
+                metrics.record(status);
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> listener = metrics.queries.callWith(() -> next.startCall(measuredCall, headers));
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onMessage(ReqT message) {
+                metrics.requestBytes.addAndGet(sizeOf(message));
+                metrics.queries.runWith(() -> super.onMessage(message));
+            }
+
+            @Override
+            public void onHalfClose() {
+                metrics.queries.runWith(super::onHalfClose);
+            }
+
+            @Override
+            public void onReady() {
+                metrics.queries.runWith(super::onReady);
+            }
+
+            @Override
+            public void onCancel() {
+                metrics.record(Status.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+
+    private static long sizeOf(Object message) {
+        if (message instanceof MessageLite protobuf) {
+            return protobuf.getSerializedSize();
+        }
+        if (message instanceof EncodedProductResponse encoded) {
+            return encoded.size();
+        }
+        return 0;
+    }
+
+    private final class CallMetrics {
+
+        private final String method;
+        private final long startNanos = System.nanoTime();
+        private final QueryCounter queries = new QueryCounter();
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private CallMetrics(String method) {
+            this.method = method;
+        }
+
+        private void record(Status status) {
+            if (!recorded.compareAndSet(false, true)) {
+                return;
+            }
+            Timer.builder("product.grpc.server.calls")
+                    .tags("method", method, "status", status.getCode().name())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            summary("product.grpc.server.request.size", "bytes").record(requestBytes.get());
+            summary("product.grpc.server.response.size", "bytes").record(responseBytes.get());
+            summary("product.grpc.server.sql.statements", "statements").record(queries.getStatements());
+            summary("product.grpc.server.sql.rows", "rows").record(queries.getRows());
+        }
+
+        private DistributionSummary summary(String name, String baseUnit) {
+            return DistributionSummary.builder(name)
+                    .baseUnit(baseUnit)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.google.protobuf.ByteString;
+import com.okbasalman.grpc.ImageChunk;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an image from storage one chunk at a time and only while the transport is ready,
+ * so a slow client never makes the server buffer more than a chunk. Like
+ * {@link ProductStreamer}, every callback runs on the call's serializing executor.
+ */
+class ImageDownloadStreamer {
+
+    private final ServerCallStreamObserver<ImageChunk> observer;
+    private final ProductImage image;
+    private final InputStream content;
+    private final byte[] buffer;
+
+    private boolean first = true;
+    private boolean finished;
+
+    ImageDownloadStreamer(ServerCallStreamObserver<ImageChunk> observer, ProductImage image, InputStream content,
+                          int chunkSize) {
+        this.observer = observer;
+        this.image = image;
+        this.content = content;
+        this.buffer = new byte[chunkSize];
+    }
+
+    void start() {
+        observer.setOnCancelHandler(this::finish);
+        observer.setOnReadyHandler(this::drain);
+        drain();
+    }
+
+    private void drain() {
+        try {
+            while (!finished && observer.isReady()) {
+                int read = content.readNBytes(buffer, 0, buffer.length);
+                if (read > 0 || first) {
+                    ImageChunk.Builder chunk = ImageChunk.newBuilder()
+                            .setChunk(ByteString.copyFrom(buffer, 0, read));
+                    if (first) {
+                        chunk.setSizeBytes(image.getSizeBytes());
+                        if (image.getContentType() != null) {
+                            chunk.setContentType(image.getContentType());
+                        }
+                        first = false;
+                    }
+                    observer.onNext(chunk.build());
+                }
+                if (read < buffer.length) {
+                    finish();
+                    observer.onCompleted();
+                }
+            }
+        } catch (Exception e) {
+            finish();
+            observer.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            content.close();
+        } catch (IOException e) {
+            // nothing left to read from it
+        }
+    }
+}
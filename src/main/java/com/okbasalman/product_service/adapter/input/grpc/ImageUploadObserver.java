@@ -0,0 +1,97 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.google.protobuf.ByteString;
+import com.okbasalman.grpc.UploadImageRequest;
+import com.okbasalman.grpc.UploadImageResponse;
+import com.okbasalman.product_service.domain.model.StoredImage;
+import com.okbasalman.product_service.domain.port.output.ImageUpload;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Writes each streamed chunk to storage as it arrives, so a request never holds more
+ * than the chunk in flight. Nothing becomes visible unless the client completes the stream.
+ */
+class ImageUploadObserver implements StreamObserver<UploadImageRequest> {
+
+    private final StreamObserver<UploadImageResponse> responseObserver;
+    private final Supplier<ImageUpload> uploadStarter;
+    private final long maxBytes;
+
+    private ImageUpload upload;
+    private String contentType;
+    private boolean finished;
+
+    ImageUploadObserver(StreamObserver<UploadImageResponse> responseObserver, Supplier<ImageUpload> uploadStarter,
+                        long maxBytes) {
+        this.responseObserver = responseObserver;
+        this.uploadStarter = uploadStarter;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void onNext(UploadImageRequest request) {
+        if (finished) {
+            return;
+        }
+        try {
+            if (upload == null) {
+                upload = uploadStarter.get();
+                contentType = request.getContentType();
+            }
+            ByteString chunk = request.getChunk();
+            if (upload.size() + chunk.size() > maxBytes) {
+                fail(Status.RESOURCE_EXHAUSTED.withDescription("Images are limited to " + maxBytes + " bytes."));
+                return;
+            }
+            for (ByteBuffer buffer : chunk.asReadOnlyByteBufferList()) {
+                upload.write(buffer);
+            }
+        } catch (Exception e) {
+            fail(Status.INTERNAL.withDescription(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // The client went away; drop whatever was written.
+        finished = true;
+        if (upload != null) {
+            upload.abort();
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        if (finished) {
+            return;
+        }
+        if (upload == null || upload.size() == 0) {
+            fail(Status.INVALID_ARGUMENT.withDescription("Image data is required."));
+            return;
+        }
+        try {
+            StoredImage stored = upload.complete();
+            finished = true;
+            responseObserver.onNext(UploadImageResponse.newBuilder()
+                    .setUploadId(stored.getContentHash())
+                    .setSizeBytes(stored.getSizeBytes())
+                    .setContentType(contentType)
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            fail(Status.INTERNAL.withDescription(e.getMessage()));
+        }
+    }
+
+    private void fail(Status status) {
+        finished = true;
+        if (upload != null) {
+            upload.abort();
+        }
+        responseObserver.onError(status.asRuntimeException());
+    }
+}
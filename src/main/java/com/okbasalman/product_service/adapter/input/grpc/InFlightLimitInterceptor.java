@@ -0,0 +1,84 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A fixed cap on unary calls in flight across all methods. On virtual threads nothing else bounds
+ * how many calls are waiting for a database connection at once, so this holds whether or not the
+ * per-method {@link ConcurrencyLimitInterceptor} is enabled. A call over the cap is rejected with
+ * RESOURCE_EXHAUSTED. Streaming calls are long-lived and are not counted, as there.
+ *
+ * <p>A permit is returned once the call completes or is cancelled. Listener callbacks of a call
+ * run one after another, so that is never before a running handler has returned.
+ */
+public class InFlightLimitInterceptor implements ServerInterceptor {
+
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public InFlightLimitInterceptor(MeterRegistry registry, int maxInFlight) {
+        this.permits = new Semaphore(maxInFlight);
+        this.rejected = Counter.builder("product.grpc.server.in.flight.rejected").register(registry);
+        Gauge.builder("product.grpc.server.in.flight", permits, available -> maxInFlight - available.availablePermits())
+                .register(registry);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+            return next.startCall(call, headers);
+        }
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Too many calls in flight; retry with backoff."),
+                    new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(call, headers);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    release.run();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+    }
+}
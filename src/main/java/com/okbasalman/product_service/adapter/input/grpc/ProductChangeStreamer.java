@@ -0,0 +1,119 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.okbasalman.grpc.ProductChangeEvent;
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.service.ProductChangeFeed;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Writes changes from the {@link ProductChangeFeed} to one watcher while the transport is
+ * ready. Drains are triggered both by the call (ready, cancel) and by the feed's poller, so
+ * they are serialized with a work-in-progress counter instead of relying on the call executor.
+ *
+ * <p>When the feed reports a change that committed after the watcher had already read past its
+ * sequence, the stream ends with {@code OUT_OF_RANGE}, as for a resume point that is no longer
+ * retained, so the client resyncs. A report that races with reading the change itself can end
+ * a stream that did see it; that only costs the client a resync.
+ */
+class ProductChangeStreamer implements ProductChangeFeed.Subscriber {
+
+    private final ServerCallStreamObserver<ProductChangeEvent> observer;
+    private final ProductChangeFeed feed;
+    private final Function<ProductChange, ProductChangeEvent> mapper;
+    private final int batchSize;
+
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Deque<ProductChange> buffer = new ArrayDeque<>();
+    private final Queue<Long> lateChanges = new ConcurrentLinkedQueue<>();
+    private long cursor;
+    private volatile boolean finished;
+
+    ProductChangeStreamer(ServerCallStreamObserver<ProductChangeEvent> observer, ProductChangeFeed feed,
+                          Function<ProductChange, ProductChangeEvent> mapper, long afterSequence, int batchSize) {
+        this.observer = observer;
+        this.feed = feed;
+        this.mapper = mapper;
+        this.cursor = afterSequence;
+        this.batchSize = batchSize;
+    }
+
+    void start() {
+        observer.setOnCancelHandler(() -> {
+            finished = true;
+            feed.unsubscribe(this);
+        });
+        observer.setOnReadyHandler(this::drain);
+        feed.subscribe(this);
+        drain();
+    }
+
+    @Override
+    public void onChangesAvailable() {
+        drain();
+    }
+
+    @Override
+    public void onLateChange(long sequence) {
+        lateChanges.add(sequence);
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drainOnce();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce() {
+        try {
+            while (!finished && observer.isReady()) {
+                if (missedLateChange()) {
+                    return;
+                }
+                if (buffer.isEmpty()) {
+                    buffer.addAll(feed.read(cursor, batchSize));
+                    if (buffer.isEmpty()) {
+                        return;
+                    }
+                }
+                ProductChange change = buffer.poll();
+                observer.onNext(mapper.apply(change));
+                cursor = change.getSequence();
+            }
+        } catch (Exception e) {
+            finish(Status.INTERNAL.withDescription(e.getMessage()));
+        }
+    }
+
+    private boolean missedLateChange() {
+        long readThrough = buffer.isEmpty() ? cursor : buffer.peekLast().getSequence();
+        Long sequence;
+        while ((sequence = lateChanges.poll()) != null) {
+            if (sequence <= readThrough) {
+                finish(Status.OUT_OF_RANGE.withDescription("Change " + sequence
+                        + " committed after this watch had passed it; resync and watch from the latest sequence."));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void finish(Status status) {
+        finished = true;
+        feed.unsubscribe(this);
+        observer.onError(status.asRuntimeException());
+    }
+}
@@ -1,49 +1,163 @@
 package com.okbasalman.product_service.adapter.input.grpc;
 
 import com.google.protobuf.Empty;
+import com.okbasalman.grpc.BulkAdjustRequest;
+import com.okbasalman.grpc.BulkAdjustResponse;
 import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.DecreaseStockBatchRequest;
+import com.okbasalman.grpc.DecreaseStockBatchResponse;
 import com.okbasalman.grpc.DecreaseStockRequest;
 import com.okbasalman.grpc.DeleteProductRequest;
 import com.okbasalman.grpc.DeleteProductResponse;
+import com.okbasalman.grpc.DownloadImageRequest;
 import com.okbasalman.grpc.GetProductByIdRequest;
+import com.okbasalman.grpc.GetProductsByIdsRequest;
+import com.okbasalman.grpc.GetProductsPageRequest;
+import com.okbasalman.grpc.ImageChunk;
+import com.okbasalman.grpc.ImportProductsResponse;
+import com.okbasalman.grpc.ProductChangeEvent;
 import com.okbasalman.grpc.ProductImageResponse;
 import com.okbasalman.grpc.ProductListResponse;
+import com.okbasalman.grpc.ProductPageResponse;
+import com.okbasalman.grpc.ProductProjection;
 import com.okbasalman.grpc.ProductResponse;
-import com.okbasalman.grpc.ProductServiceGrpc.ProductServiceImplBase;
+import com.okbasalman.grpc.ProductServiceGrpc;
 import com.okbasalman.grpc.ProductVariantResponse;
+import com.okbasalman.grpc.ReserveStockRequest;
+import com.okbasalman.grpc.SearchProductsRequest;
+import com.okbasalman.grpc.SearchProductsResponse;
+import com.okbasalman.grpc.StockLevelResponse;
+import com.okbasalman.grpc.StockLineResult;
+import com.okbasalman.grpc.StockReservationRequest;
+import com.okbasalman.grpc.StockReservationResponse;
+import com.okbasalman.grpc.StreamProductsRequest;
 import com.okbasalman.grpc.UpdateProductRequest;
+import com.okbasalman.grpc.UploadImageRequest;
+import com.okbasalman.grpc.UploadImageResponse;
+import com.okbasalman.grpc.WatchProductsRequest;
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
 import com.okbasalman.product_service.domain.dto.DeleteProductResultDto;
 import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
 import com.okbasalman.product_service.domain.dto.ProductVariantCreateDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
+import com.okbasalman.product_service.domain.dto.StockLineResultDto;
+import com.okbasalman.product_service.domain.exception.ProductLookupTimeoutException;
+import com.okbasalman.product_service.domain.exception.StaleProductVersionException;
+import com.okbasalman.product_service.domain.model.ImageRendition;
 import com.okbasalman.product_service.domain.model.Product;
 import com.okbasalman.product_service.domain.model.ProductImage;
 import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
 import com.okbasalman.product_service.domain.model.Season;
 import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
 import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ProductChangeFeed;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
+import io.grpc.BindableService;
+import io.grpc.Context;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
 import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.springframework.grpc.server.service.GrpcService;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @GrpcService
-public class ProductGrpcController extends ProductServiceImplBase {
+public class ProductGrpcController implements ProductServiceGrpc.AsyncService, BindableService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_IDS_PER_REQUEST = 500;
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int WATCH_BATCH_SIZE = 500;
+    private static final int BULK_ADJUST_CHUNK_SIZE = 500;
+    // Each chunk binds the ids not yet passed; Postgres allows at most 32767 bind parameters.
+    private static final int MAX_BULK_ADJUST_IDS = 10_000;
+    private static final int IMAGE_CHUNK_SIZE = 64 * 1024;
+    private static final long MAX_IMAGE_BYTES = 32L * 1024 * 1024;
+    private static final Duration DEFAULT_RESERVATION_TTL = Duration.ofMinutes(15);
+    private static final Duration MAX_RESERVATION_TTL = Duration.ofHours(1);
+
+    private static final MethodDescriptor<GetProductByIdRequest, EncodedProductResponse> GET_PRODUCT_BY_ID_ENCODED =
+            ProductServiceGrpc.getGetProductByIdMethod().toBuilder(
+                    ProtoUtils.marshaller(GetProductByIdRequest.getDefaultInstance()),
+                    EncodedProductResponseMarshaller.INSTANCE
+            ).build();
 
     private final ProductUseCase productUseCase;
+    private final ProductResponseCache productResponseCache;
+    private final ProductReads productReads;
+    private final ProductChangeFeed productChangeFeed;
+    private final HotStockLedger hotStockLedger;
 
-    public ProductGrpcController(ProductUseCase productUseCase) {
+    public ProductGrpcController(ProductUseCase productUseCase, ProductResponseCache productResponseCache,
+                                 ProductLookupCoalescer productLookupCoalescer, ProductChangeFeed productChangeFeed,
+                                 HotStockLedger hotStockLedger) {
         this.productUseCase = productUseCase;
+        this.productResponseCache = productResponseCache;
+        this.productReads = new ProductReads(productUseCase, productLookupCoalescer, hotStockLedger);
+        this.productChangeFeed = productChangeFeed;
+        this.hotStockLedger = hotStockLedger;
     }
 
+    /**
+     * Binds GetProductById with a marshaller for pre-encoded responses so cached
+     * products are written to the wire as-is; every other method keeps the generated binding.
+     * The generated base class makes bindService final, so this implements the service interface.
+     */
     @Override
-    public void getProductById(GetProductByIdRequest request, StreamObserver<ProductResponse> responseObserver) {
+    public ServerServiceDefinition bindService() {
+        ServerServiceDefinition generated = ProductServiceGrpc.bindService(this);
+        ServiceDescriptor generatedDescriptor = generated.getServiceDescriptor();
+
+        ServiceDescriptor.Builder descriptor = ServiceDescriptor.newBuilder(generatedDescriptor.getName())
+                .setSchemaDescriptor(generatedDescriptor.getSchemaDescriptor())
+                .addMethod(GET_PRODUCT_BY_ID_ENCODED);
+        List<ServerMethodDefinition<?, ?>> retained = generated.getMethods().stream()
+                .filter(method -> !method.getMethodDescriptor().getFullMethodName()
+                        .equals(GET_PRODUCT_BY_ID_ENCODED.getFullMethodName()))
+                .collect(Collectors.toList());
+        retained.forEach(method -> descriptor.addMethod(method.getMethodDescriptor()));
+
+        ServerServiceDefinition.Builder definition = ServerServiceDefinition.builder(descriptor.build())
+                .addMethod(GET_PRODUCT_BY_ID_ENCODED, ServerCalls.asyncUnaryCall(this::getProductByIdEncoded));
+        retained.forEach(definition::addMethod);
+        return definition.build();
+    }
+
+    private void getProductByIdEncoded(GetProductByIdRequest request, StreamObserver<EncodedProductResponse> responseObserver) {
         try {
-            Product product = productUseCase.getProductById(request.getId());
-            ProductResponse response = mapToProductResponse(product);
+            Projection projection = ProductGrpcMapper.mapToProjection(request.getProjection());
+            ImageRendition rendition = ProductGrpcMapper.mapToImageRendition(request.getRendition());
+            EncodedProductResponse response = request.hasIfVersion()
+                    ? getProductByIdIfModified(request.getId(), request.getIfVersion(), projection, rendition)
+                    : getProductById(request.getId(), projection, rendition);
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (ProductLookupTimeoutException e) {
+            responseObserver.onError(Status.DEADLINE_EXCEEDED.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
         } catch (RuntimeException e) {
             responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
@@ -51,38 +165,194 @@ public class ProductGrpcController extends ProductServiceImplBase {
         }
     }
 
+    // Only originals go through the response cache; renditions are read from their files each time.
+    private EncodedProductResponse getProductById(Long id, Projection projection, ImageRendition rendition) {
+        if (projection == Projection.FULL && rendition == ImageRendition.ORIGINAL) {
+            return productResponseCache.get(id, key -> ProductGrpcMapper.mapToProductResponse(
+                    productReads.getProductById(key, projection, rendition)));
+        }
+        return EncodedProductResponse.of(ProductGrpcMapper.mapToProductResponse(
+                productReads.getProductById(id, projection, rendition)));
+    }
+
+    /**
+     * Compares against a version-only query on the primary, so an unchanged product is never loaded.
+     * A changed one is served from the response cache only if the cached copy has that version, and
+     * loaded past it otherwise.
+     */
+    private EncodedProductResponse getProductByIdIfModified(Long id, long ifVersion, Projection projection,
+                                                            ImageRendition rendition) {
+        long version = productReads.currentVersion(id);
+        if (version == ifVersion) {
+            return EncodedProductResponse.of(ProductGrpcMapper.mapToNotModifiedResponse(id, version));
+        }
+        if (projection != Projection.FULL || rendition != ImageRendition.ORIGINAL) {
+            return getProductById(id, projection, rendition);
+        }
+        EncodedProductResponse cached = productResponseCache.getIfPresent(id);
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
+        return cached == null
+                ? getProductById(id, projection, rendition)
+                : EncodedProductResponse.of(ProductGrpcMapper.mapToProductResponse(
+                        productReads.getProductById(id, projection, rendition)));
+    }
+
     @Override
-    public void getAllProducts(Empty request, StreamObserver<ProductListResponse> responseObserver) {
+    public void getProductsByIds(GetProductsByIdsRequest request, StreamObserver<ProductListResponse> responseObserver) {
         try {
-            List<Product> products = productUseCase.getAllProducts();
+            if (request.getIdsCount() > MAX_IDS_PER_REQUEST) {
+                throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST + " ids can be requested at once.");
+            }
+            Map<Long, ProductResponse> responses = new HashMap<>();
+            productReads.unchangedVersions(request.getIdsList(), request.getKnownVersionsMap()).forEach((id, version) ->
+                    responses.put(id, ProductGrpcMapper.mapToNotModifiedResponse(id, version)));
+            List<Long> changed = request.getIdsList().stream()
+                    .filter(id -> !responses.containsKey(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!changed.isEmpty()) {
+                Projection projection = ProductGrpcMapper.mapToProjection(request.getProjection());
+                ImageRendition rendition = ProductGrpcMapper.mapToImageRendition(request.getRendition());
+                productReads.getProductsByIds(changed, projection, rendition)
+                        .forEach(product -> responses.put(product.getId(), ProductGrpcMapper.mapToProductResponse(product)));
+            }
             ProductListResponse response = ProductListResponse.newBuilder()
-                    .addAllProducts(products.stream().map(this::mapToProductResponse).collect(Collectors.toList()))
+                    .addAllProducts(request.getIdsList().stream()
+                            .distinct()
+                            .map(responses::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList()))
                     .build();
             responseObserver.onNext(response);
             responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
             responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
         }
     }
 
     @Override
-    public void createProduct(CreateProductRequest request, StreamObserver<ProductResponse> responseObserver) {
+    public void getAllProducts(Empty request, StreamObserver<ProductListResponse> responseObserver) {
         try {
-            
-            if (request.getName().trim().isEmpty()) {
-                throw new IllegalArgumentException("Product name is required.");
+            // Read page by page so a call whose client has given up stops before the next query. Each
+            // page is its own read transaction, so the list is not a snapshot (see product.proto).
+            ProductListResponse.Builder response = ProductListResponse.newBuilder();
+            long afterId = 0;
+            List<Product> page;
+            do {
+                if (Context.current().isCancelled()) {
+                    responseObserver.onError(Status.CANCELLED.withDescription("Call cancelled.").asRuntimeException());
+                    return;
+                }
+                page = productReads.getProductsPage(afterId, MAX_PAGE_SIZE, Projection.FULL, ImageRendition.ORIGINAL);
+                page.forEach(product -> response.addProducts(ProductGrpcMapper.mapToProductResponse(product)));
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == MAX_PAGE_SIZE);
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void streamAllProducts(StreamProductsRequest request, StreamObserver<ProductResponse> responseObserver) {
+        Projection projection;
+        ImageRendition rendition;
+        try {
+            projection = ProductGrpcMapper.mapToProjection(request.getProjection());
+            rendition = ProductGrpcMapper.mapToImageRendition(request.getRendition());
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+        new ProductStreamer(
+                (ServerCallStreamObserver<ProductResponse>) responseObserver,
+                (afterId, limit) -> productReads.getProductsPage(afterId, limit, projection, rendition),
+                ProductGrpcMapper::mapToProductResponse,
+                boundedPageSize(request.getBatchSize())
+        ).start();
+    }
+
+    @Override
+    public void watchProducts(WatchProductsRequest request, StreamObserver<ProductChangeEvent> responseObserver) {
+        long afterSequence;
+        try {
+            afterSequence = request.getFromLatest() ? productChangeFeed.watermark() : request.getAfterSequence();
+            if (!productChangeFeed.canResumeFrom(afterSequence)) {
+                responseObserver.onError(Status.OUT_OF_RANGE
+                        .withDescription("Changes after sequence " + afterSequence + " are no longer retained; resync and watch from the latest sequence.")
+                        .asRuntimeException());
+                return;
             }
-            if (request.getVariantsList() == null || request.getVariantsList().isEmpty()) {
-                throw new IllegalArgumentException("At least one product variant is required.");
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+        new ProductChangeStreamer(
+                (ServerCallStreamObserver<ProductChangeEvent>) responseObserver,
+                productChangeFeed,
+                ProductGrpcMapper::mapToProductChangeEvent,
+                afterSequence,
+                WATCH_BATCH_SIZE
+        ).start();
+    }
+
+    @Override
+    public void getProductsPage(GetProductsPageRequest request, StreamObserver<ProductPageResponse> responseObserver) {
+        try {
+            if (request.getAfterId() < 0) {
+                throw new IllegalArgumentException("afterId must not be negative.");
             }
-            
-            ProductCreateDto dto = mapToProductCreateDto(request);
+            int pageSize = boundedPageSize(request.getPageSize());
+            Projection projection = ProductGrpcMapper.mapToProjection(request.getProjection());
+            ImageRendition rendition = ProductGrpcMapper.mapToImageRendition(request.getRendition());
+            List<Product> products = productReads.getProductsPage(request.getAfterId(), pageSize, projection, rendition);
+
+            ProductPageResponse.Builder response = ProductPageResponse.newBuilder()
+                    .setHasMore(products.size() == pageSize)
+                    .setNextAfterId(products.isEmpty() ? request.getAfterId() : products.get(products.size() - 1).getId());
+            products.forEach(product -> response.addProducts(ProductGrpcMapper.mapToProductResponse(product)));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void searchProducts(SearchProductsRequest request, StreamObserver<SearchProductsResponse> responseObserver) {
+        try {
+            ProductSearchQueryDto query = ProductGrpcMapper.mapToProductSearchQueryDto(request);
+            query.setPageSize(boundedPageSize(request.getPageSize()));
+            responseObserver.onNext(ProductGrpcMapper.mapToSearchProductsResponse(productReads.searchProducts(query)));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void createProduct(CreateProductRequest request, StreamObserver<ProductResponse> responseObserver) {
+        try {
+            ProductCreateDto dto = validateAndMapCreateRequest(request);
 
             
             Product createdProduct = productUseCase.createProduct(dto);
 
             
-            ProductResponse response = mapToProductResponse(createdProduct);
+            ProductResponse response = ProductGrpcMapper.mapToProductResponse(createdProduct);
             responseObserver.onNext(response);
             responseObserver.onCompleted();
         } catch (IllegalArgumentException e) {
@@ -92,6 +362,38 @@ public class ProductGrpcController extends ProductServiceImplBase {
         }
     }
 
+    @Override
+    public StreamObserver<CreateProductRequest> importProducts(StreamObserver<ImportProductsResponse> responseObserver) {
+        return new ProductImportObserver(responseObserver, this::validateAndMapCreateRequest,
+                productUseCase::importProducts, IMPORT_CHUNK_SIZE);
+    }
+
+    @Override
+    public StreamObserver<UploadImageRequest> uploadImage(StreamObserver<UploadImageResponse> responseObserver) {
+        return new ImageUploadObserver(responseObserver, productUseCase::startImageUpload, MAX_IMAGE_BYTES);
+    }
+
+    @Override
+    public void downloadImage(DownloadImageRequest request, StreamObserver<ImageChunk> responseObserver) {
+        ProductImage image;
+        InputStream content;
+        try {
+            if (request.getImageId() == 0) {
+                throw new IllegalArgumentException("Image ID is required.");
+            }
+            image = productUseCase.getImage(request.getImageId());
+            content = productUseCase.openImage(image.getContentHash());
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+        new ImageDownloadStreamer((ServerCallStreamObserver<ImageChunk>) responseObserver, image, content,
+                IMAGE_CHUNK_SIZE).start();
+    }
+
     @Override
     public void updateProduct(UpdateProductRequest request, StreamObserver<ProductResponse> responseObserver) {
         try {
@@ -107,16 +409,18 @@ public class ProductGrpcController extends ProductServiceImplBase {
             }
 
             
-            Product productToBeUpdated = mapToProduct(request);
+            Product productToBeUpdated = ProductGrpcMapper.mapToProduct(request);
 
             
             Product updatedProduct = productUseCase.updateProduct(productToBeUpdated);
 
-            ProductResponse response = mapToProductResponse(updatedProduct);
+            ProductResponse response = ProductGrpcMapper.mapToProductResponse(updatedProduct);
             responseObserver.onNext(response);
             responseObserver.onCompleted();
         } catch (IllegalArgumentException e) {
             responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (StaleProductVersionException e) {
+            responseObserver.onError(Status.ABORTED.withDescription(e.getMessage()).asRuntimeException());
         } catch (RuntimeException e) {
             responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
         } catch (Exception e) {
@@ -153,9 +457,16 @@ public class ProductGrpcController extends ProductServiceImplBase {
                 throw new IllegalArgumentException("Quantity must be greater than zero.");
             }
 
-            Product updatedProduct = productUseCase.decreaseStock(request.getProductVariantId(), request.getQuantity());
+            Product updatedProduct;
+            if (hotStockLedger.isHot(request.getProductVariantId())) {
+                StockLevel stockLevel = hotStockLedger.decreaseStockLevel(request.getProductVariantId(), request.getQuantity());
+                updatedProduct = productUseCase.getProductById(stockLevel.getProductId());
+            } else {
+                updatedProduct = productUseCase.decreaseStock(request.getProductVariantId(), request.getQuantity());
+            }
 
-            ProductResponse response = mapToProductResponse(updatedProduct);
+            // the product may have other variants that are hot
+            ProductResponse response = ProductGrpcMapper.mapToProductResponse(hotStockLedger.applyTo(updatedProduct));
             responseObserver.onNext(response);
             responseObserver.onCompleted();
         } catch (IllegalArgumentException e) {
@@ -167,82 +478,188 @@ public class ProductGrpcController extends ProductServiceImplBase {
         }
     }
 
-    //region Mappers
-    private ProductResponse mapToProductResponse(Product product) {
-        return ProductResponse.newBuilder()
-                .setId(product.getId())
-                .setName(product.getName())
-                .setDescription(product.getDescription())
-                .setSeason(product.getSeason().name())
-                .addAllVariants(product.getVariants().stream()
-                        .map(this::mapToProductVariantResponse)
-                        .collect(Collectors.toList()))
-                .build();
-    }
-
-    private ProductVariantResponse mapToProductVariantResponse(ProductVariant variant) {
-        return ProductVariantResponse.newBuilder()
-                .setId(variant.getId())
-                .setPrice(variant.getPrice())
-                .setStock(variant.getStock())
-                .setColor(variant.getColor())
-                .setSize(variant.getSize().name())
-                .addAllImages(variant.getImages().stream()
-                        .map(this::mapToProductImageResponse)
-                        .collect(Collectors.toList()))
-                .build();
-    }
-
-    private ProductImageResponse mapToProductImageResponse(ProductImage image) {
-        return ProductImageResponse.newBuilder()
-                .setId(image.getId())
-                .setBase64Data(image.getBase64Data())
-                .build();
-    }
-
-    private ProductCreateDto mapToProductCreateDto(CreateProductRequest request) {
-        System.out.println("GRPC Controller: Mapping CreateProductRequest for product: " + request.getName());
-
-        ProductCreateDto dto = new ProductCreateDto();
-        dto.setName(request.getName());
-        dto.setDescription(request.getDescription());
-        dto.setSeason(Season.valueOf(request.getSeason()));
-        dto.setVariants(request.getVariantsList().stream()
-                .map(variantRequest -> {
-                    ProductVariantCreateDto variantDto = new ProductVariantCreateDto();
-                    variantDto.setPrice(variantRequest.getPrice());
-                    variantDto.setStock(variantRequest.getStock());
-                    variantDto.setColor(variantRequest.getColor());
-                    variantDto.setSize(Size.valueOf(variantRequest.getSize()));
-                    variantDto.setBase64Images(variantRequest.getBase64ImagesList());
-
-                    System.out.println("GRPC Controller: Variant with color " + variantDto.getColor() + " has " + variantDto.getBase64Images().size() + " images.");
-
-                    return variantDto;
-                }).collect(Collectors.toList()));
-        return dto;
-    }
-
-    private Product mapToProduct(UpdateProductRequest request) {
-        Product product = new Product();
-        product.setId(request.getId());
-        product.setName(request.getName());
-        product.setDescription(request.getDescription());
-        product.setSeason(Season.valueOf(request.getSeason()));
-        product.setVariants(request.getVariantsList().stream()
-                .map(variantRequest -> {
-                    ProductVariant variant = new ProductVariant();
-                    variant.setId(variantRequest.getId());
-                    variant.setPrice(variantRequest.getPrice());
-                    variant.setStock(variantRequest.getStock());
-                    variant.setColor(variantRequest.getColor());
-                    variant.setSize(Size.valueOf(variantRequest.getSize()));
-                    variant.setImages(variantRequest.getImagesList().stream()
-                            .map(imageRequest -> new ProductImage(imageRequest.getId(), imageRequest.getBase64Data()))
-                            .collect(Collectors.toList()));
-                    return variant;
-                }).collect(Collectors.toList()));
-        return product;
-    }
-    //endregion
-}
\ No newline at end of file
+    @Override
+    public void decreaseStockLevel(DecreaseStockRequest request, StreamObserver<StockLevelResponse> responseObserver) {
+        try {
+            if (request.getProductVariantId() == 0) {
+                throw new IllegalArgumentException("Product variant ID is required.");
+            }
+            if (request.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero.");
+            }
+
+            StockLevel stockLevel = hotStockLedger.isHot(request.getProductVariantId())
+                    ? hotStockLedger.decreaseStockLevel(request.getProductVariantId(), request.getQuantity())
+                    : productUseCase.decreaseStockLevel(request.getProductVariantId(), request.getQuantity());
+
+            responseObserver.onNext(ProductGrpcMapper.mapToStockLevelResponse(stockLevel));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.FAILED_PRECONDITION.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void decreaseStockBatch(DecreaseStockBatchRequest request, StreamObserver<DecreaseStockBatchResponse> responseObserver) {
+        try {
+            if (request.getLinesList().isEmpty()) {
+                throw new IllegalArgumentException("At least one stock line is required.");
+            }
+            for (DecreaseStockRequest line : request.getLinesList()) {
+                if (line.getProductVariantId() == 0) {
+                    throw new IllegalArgumentException("Product variant ID is required.");
+                }
+                if (line.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Quantity must be greater than zero.");
+                }
+            }
+
+            StockBatchResultDto result = productUseCase.decreaseStockBatch(request.getLinesList().stream()
+                    .map(line -> new StockLineDto(line.getProductVariantId(), line.getQuantity()))
+                    .collect(Collectors.toList()));
+
+            DecreaseStockBatchResponse response = DecreaseStockBatchResponse.newBuilder()
+                    .setSuccess(result.isSuccess())
+                    .addAllLines(result.getLines().stream()
+                            .map(ProductGrpcMapper::mapToStockLineResult)
+                            .collect(Collectors.toList()))
+                    .build();
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void reserveStock(ReserveStockRequest request, StreamObserver<StockReservationResponse> responseObserver) {
+        try {
+            if (request.getProductVariantId() == 0) {
+                throw new IllegalArgumentException("Product variant ID is required.");
+            }
+            if (request.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero.");
+            }
+            Duration ttl = DEFAULT_RESERVATION_TTL;
+            if (request.hasTtlSeconds()) {
+                if (request.getTtlSeconds() <= 0 || request.getTtlSeconds() > MAX_RESERVATION_TTL.toSeconds()) {
+                    throw new IllegalArgumentException("TTL must be between 1 and " + MAX_RESERVATION_TTL.toSeconds() + " seconds.");
+                }
+                ttl = Duration.ofSeconds(request.getTtlSeconds());
+            }
+
+            StockReservation reservation = productUseCase.reserveStock(request.getProductVariantId(), request.getQuantity(), ttl);
+
+            responseObserver.onNext(ProductGrpcMapper.mapToStockReservationResponse(reservation));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.FAILED_PRECONDITION.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void commitStockReservation(StockReservationRequest request, StreamObserver<StockLevelResponse> responseObserver) {
+        try {
+            if (request.getReservationId() == 0) {
+                throw new IllegalArgumentException("Reservation ID is required.");
+            }
+
+            StockLevel stockLevel = productUseCase.commitReservation(request.getReservationId());
+
+            responseObserver.onNext(ProductGrpcMapper.mapToStockLevelResponse(stockLevel));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.FAILED_PRECONDITION.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void releaseStockReservation(StockReservationRequest request, StreamObserver<StockLevelResponse> responseObserver) {
+        try {
+            if (request.getReservationId() == 0) {
+                throw new IllegalArgumentException("Reservation ID is required.");
+            }
+
+            StockLevel stockLevel = productUseCase.releaseReservation(request.getReservationId());
+
+            responseObserver.onNext(ProductGrpcMapper.mapToStockLevelResponse(stockLevel));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void bulkAdjust(BulkAdjustRequest request, StreamObserver<BulkAdjustResponse> responseObserver) {
+        try {
+            if (request.getFilter().getProductIdsCount() > MAX_BULK_ADJUST_IDS) {
+                throw new IllegalArgumentException("At most " + MAX_BULK_ADJUST_IDS + " product ids can be adjusted at once.");
+            }
+            BulkAdjustDto adjustment = ProductGrpcMapper.mapToBulkAdjustDto(request);
+
+            // Each chunk commits on its own, so no transaction holds locks on more than a chunk of products.
+            int adjustedVariants = 0;
+            int adjustedProducts = 0;
+            long afterId = 0;
+            BulkAdjustResultDto chunk;
+            do {
+                if (Context.current().isCancelled()) {
+                    responseObserver.onError(Status.CANCELLED.withDescription("Call cancelled after adjusting "
+                            + adjustedProducts + " products.").asRuntimeException());
+                    return;
+                }
+                chunk = productUseCase.bulkAdjust(adjustment, afterId, BULK_ADJUST_CHUNK_SIZE);
+                adjustedVariants += chunk.getAdjustedVariants();
+                adjustedProducts += chunk.getAdjustedProductIds().size();
+                if (!chunk.getAdjustedProductIds().isEmpty()) {
+                    afterId = chunk.getAdjustedProductIds().get(chunk.getAdjustedProductIds().size() - 1);
+                }
+            } while (chunk.getAdjustedProductIds().size() == BULK_ADJUST_CHUNK_SIZE);
+
+            responseObserver.onNext(BulkAdjustResponse.newBuilder()
+                    .setAdjustedVariants(adjustedVariants)
+                    .setAdjustedProducts(adjustedProducts)
+                    .build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    private ProductCreateDto validateAndMapCreateRequest(CreateProductRequest request) {
+        if (request.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Product name is required.");
+        }
+        if (request.getVariantsList() == null || request.getVariantsList().isEmpty()) {
+            throw new IllegalArgumentException("At least one product variant is required.");
+        }
+        return ProductGrpcMapper.mapToProductCreateDto(request);
+    }
+
+    private int boundedPageSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,351 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.okbasalman.grpc.BulkAdjustFilter;
+import com.okbasalman.grpc.BulkAdjustRequest;
+import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.FacetCount;
+import com.okbasalman.grpc.ProductChangeEvent;
+import com.okbasalman.grpc.ProductImageRendition;
+import com.okbasalman.grpc.ProductImageResponse;
+import com.okbasalman.grpc.ProductProjection;
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.grpc.ProductVariantResponse;
+import com.okbasalman.grpc.SearchProductsRequest;
+import com.okbasalman.grpc.SearchProductsResponse;
+import com.okbasalman.grpc.StockLevelResponse;
+import com.okbasalman.grpc.StockLineResult;
+import com.okbasalman.grpc.StockReservationResponse;
+import com.okbasalman.grpc.UpdateProductRequest;
+import com.okbasalman.grpc.UploadedImage;
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+import com.okbasalman.product_service.domain.dto.ProductVariantCreateDto;
+import com.okbasalman.product_service.domain.dto.StockLineResultDto;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashSet;
+import java.util.stream.Collectors;
+
+/**
+ * Conversions between the gRPC messages and the domain model.
+ */
+@Slf4j
+public final class ProductGrpcMapper {
+
+    private ProductGrpcMapper() {
+    }
+
+    public static ProductResponse mapToProductResponse(Product product) {
+        ProductResponse.Builder response = ProductResponse.newBuilder()
+                .setId(product.getId())
+                .setName(product.getName())
+                .setSeason(product.getSeason().name())
+                .addAllVariants(product.getVariants().stream()
+                        .map(ProductGrpcMapper::mapToProductVariantResponse)
+                        .collect(Collectors.toList()));
+        if (product.getDescription() != null) {
+            response.setDescription(product.getDescription());
+        }
+        if (product.getMinPrice() != null) {
+            response.setMinPrice(product.getMinPrice().doubleValue());
+        }
+        if (product.getVersion() != null) {
+            response.setVersion(product.getVersion());
+        }
+        return response.build();
+    }
+
+    // The reverse of mapToProductResponse, for responses read back from a catalog snapshot.
+    public static Product mapToProduct(ProductResponse response) {
+        Product product = new Product();
+        product.setId(response.getId());
+        product.setName(response.getName());
+        product.setDescription(response.getDescription().isEmpty() ? null : response.getDescription());
+        product.setSeason(Season.valueOf(response.getSeason()));
+        product.setVariants(response.getVariantsList().stream()
+                .map(variantResponse -> {
+                    ProductVariant variant = new ProductVariant();
+                    variant.setId(variantResponse.getId());
+                    variant.setPrice(mapToPrice(variantResponse.getPrice()));
+                    variant.setStock(variantResponse.getStock());
+                    variant.setColor(variantResponse.getColor());
+                    variant.setSize(Size.valueOf(variantResponse.getSize()));
+                    variant.setImages(variantResponse.getImagesList().stream()
+                            .map(imageResponse -> {
+                                ProductImage image = new ProductImage();
+                                image.setId(imageResponse.getId());
+                                image.setSizeBytes(imageResponse.getSizeBytes());
+                                if (!imageResponse.getBase64Data().isEmpty()) {
+                                    image.setBase64Data(imageResponse.getBase64Data());
+                                }
+                                if (!imageResponse.getContentType().isEmpty()) {
+                                    image.setContentType(imageResponse.getContentType());
+                                }
+                                return image;
+                            })
+                            .collect(Collectors.toList()));
+                    return variant;
+                }).collect(Collectors.toList()));
+        if (!product.getVariants().isEmpty()) {
+            product.setMinPrice(mapToPrice(response.getMinPrice()));
+        }
+        product.setVersion(response.getVersion());
+        return product;
+    }
+
+    public static ProductResponse mapToNotModifiedResponse(Long id, long version) {
+        return ProductResponse.newBuilder()
+                .setId(id)
+                .setVersion(version)
+                .setNotModified(true)
+                .build();
+    }
+
+    public static Projection mapToProjection(ProductProjection projection) {
+        return switch (projection) {
+            case FULL -> Projection.FULL;
+            case NO_IMAGES -> Projection.NO_IMAGES;
+            case SUMMARY -> Projection.SUMMARY;
+            case IMAGE_REFS -> Projection.IMAGE_REFS;
+            default -> throw new IllegalArgumentException("Unknown projection: " + projection);
+        };
+    }
+
+    public static ImageRendition mapToImageRendition(ProductImageRendition rendition) {
+        return switch (rendition) {
+            case ORIGINAL -> ImageRendition.ORIGINAL;
+            case THUMBNAIL -> ImageRendition.THUMBNAIL;
+            case MEDIUM -> ImageRendition.MEDIUM;
+            default -> throw new IllegalArgumentException("Unknown image rendition: " + rendition);
+        };
+    }
+
+    public static ProductVariantResponse mapToProductVariantResponse(ProductVariant variant) {
+        return ProductVariantResponse.newBuilder()
+                .setId(variant.getId())
+                .setPrice(variant.getPrice().doubleValue())
+                .setStock(variant.getStock())
+                .setColor(variant.getColor())
+                .setSize(variant.getSize().name())
+                .addAllImages(variant.getImages().stream()
+                        .map(ProductGrpcMapper::mapToProductImageResponse)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    public static ProductImageResponse mapToProductImageResponse(ProductImage image) {
+        ProductImageResponse.Builder response = ProductImageResponse.newBuilder()
+                .setId(image.getId())
+                .setSizeBytes(image.getSizeBytes());
+        if (image.getBase64Data() != null) {
+            response.setBase64Data(image.getBase64Data());
+        }
+        if (image.getContentType() != null) {
+            response.setContentType(image.getContentType());
+        }
+        return response.build();
+    }
+
+    public static StockLevelResponse mapToStockLevelResponse(StockLevel stockLevel) {
+        return StockLevelResponse.newBuilder()
+                .setProductVariantId(stockLevel.getProductVariantId())
+                .setProductId(stockLevel.getProductId())
+                .setStock(stockLevel.getStock())
+                .build();
+    }
+
+    public static StockReservationResponse mapToStockReservationResponse(StockReservation reservation) {
+        return StockReservationResponse.newBuilder()
+                .setReservationId(reservation.getId())
+                .setProductVariantId(reservation.getProductVariantId())
+                .setProductId(reservation.getProductId())
+                .setQuantity(reservation.getQuantity())
+                .setExpiresAtMillis(reservation.getExpiresAt().toEpochMilli())
+                .setAvailableStock(reservation.getAvailableStock())
+                .build();
+    }
+
+    public static StockLineResult mapToStockLineResult(StockLineResultDto line) {
+        StockLineResult.Builder result = StockLineResult.newBuilder()
+                .setProductVariantId(line.getProductVariantId())
+                .setRequested(line.getRequested())
+                .setStock(line.getStock())
+                .setFound(line.isFound())
+                .setSufficient(line.isSufficient());
+        if (line.getProductId() != null) {
+            result.setProductId(line.getProductId());
+        }
+        return result.build();
+    }
+
+    public static ProductCreateDto mapToProductCreateDto(CreateProductRequest request) {
+        log.debug("Mapping CreateProductRequest for product: {}", request.getName());
+
+        ProductCreateDto dto = new ProductCreateDto();
+        dto.setName(request.getName());
+        dto.setDescription(request.getDescription());
+        dto.setSeason(Season.valueOf(request.getSeason()));
+        dto.setVariants(request.getVariantsList().stream()
+                .map(variantRequest -> {
+                    ProductVariantCreateDto variantDto = new ProductVariantCreateDto();
+                    variantDto.setPrice(mapToPrice(variantRequest.getPrice()));
+                    variantDto.setStock(variantRequest.getStock());
+                    variantDto.setColor(variantRequest.getColor());
+                    variantDto.setSize(Size.valueOf(variantRequest.getSize()));
+                    variantDto.setBase64Images(variantRequest.getBase64ImagesList());
+                    variantDto.setUploadedImages(variantRequest.getUploadedImagesList().stream()
+                            .map(ProductGrpcMapper::mapToUploadedImage)
+                            .collect(Collectors.toList()));
+                    log.debug("Variant with color {} has {} images.", variantDto.getColor(), variantDto.getBase64Images().size());
+                    return variantDto;
+                }).collect(Collectors.toList()));
+        return dto;
+    }
+
+    public static Product mapToProduct(UpdateProductRequest request) {
+        Product product = new Product();
+        product.setId(request.getId());
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setSeason(Season.valueOf(request.getSeason()));
+        if (request.hasExpectedVersion()) {
+            product.setVersion(request.getExpectedVersion());
+        }
+        product.setVariants(request.getVariantsList().stream()
+                .map(variantRequest -> {
+                    ProductVariant variant = new ProductVariant();
+                    variant.setId(variantRequest.getId());
+                    variant.setPrice(mapToPrice(variantRequest.getPrice()));
+                    variant.setStock(variantRequest.getStock());
+                    variant.setColor(variantRequest.getColor());
+                    variant.setSize(Size.valueOf(variantRequest.getSize()));
+                    variant.setImages(variantRequest.getImagesList().stream()
+                            .map(imageRequest -> {
+                                ProductImage image = imageRequest.hasUploaded()
+                                        ? mapToUploadedImage(imageRequest.getUploaded())
+                                        : new ProductImage();
+                                image.setId(imageRequest.getId());
+                                image.setBase64Data(imageRequest.getBase64Data());
+                                return image;
+                            })
+                            .collect(Collectors.toList()));
+                    return variant;
+                }).collect(Collectors.toList()));
+        return product;
+    }
+
+    // v1 sends prices as doubles; they are kept to the cent.
+    public static BigDecimal mapToPrice(double price) {
+        return BigDecimal.valueOf(price).setScale(ProductVariant.PRICE_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    public static ProductImage mapToUploadedImage(UploadedImage uploaded) {
+        if (uploaded.getUploadId().isEmpty()) {
+            throw new IllegalArgumentException("Upload id is required for uploaded images.");
+        }
+        ProductImage image = new ProductImage();
+        image.setUploadId(uploaded.getUploadId());
+        image.setContentType(uploaded.getContentType());
+        return image;
+    }
+
+    public static ProductSearchQueryDto mapToProductSearchQueryDto(SearchProductsRequest request) {
+        ProductSearchQueryDto query = new ProductSearchQueryDto();
+        query.setText(request.getText());
+        query.setSeasons(request.getSeasonsList().stream()
+                .map(Season::valueOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        query.setSizes(request.getSizesList().stream()
+                .map(Size::valueOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        query.setColors(new LinkedHashSet<>(request.getColorsList()));
+        query.setMinPrice(request.hasMinPrice() ? BigDecimal.valueOf(request.getMinPrice()) : null);
+        query.setMaxPrice(request.hasMaxPrice() ? BigDecimal.valueOf(request.getMaxPrice()) : null);
+        query.setInStockOnly(request.getInStockOnly());
+        query.setAfterId(request.getAfterId());
+        query.setPageSize(request.getPageSize());
+        return query;
+    }
+
+    public static BulkAdjustDto mapToBulkAdjustDto(BulkAdjustRequest request) {
+        BulkAdjustFilter filter = request.getFilter();
+        BulkAdjustDto dto = new BulkAdjustDto();
+        dto.setSeason(filter.hasSeason() ? Season.valueOf(filter.getSeason()) : null);
+        dto.setSize(filter.hasSize() ? Size.valueOf(filter.getSize()) : null);
+        dto.setColor(filter.hasColor() ? filter.getColor().trim().toLowerCase() : null);
+        dto.setProductIds(filter.getProductIdsList());
+        dto.setMinPrice(filter.hasMinPrice() ? BigDecimal.valueOf(filter.getMinPrice()) : null);
+        dto.setMaxPrice(filter.hasMaxPrice() ? BigDecimal.valueOf(filter.getMaxPrice()) : null);
+        switch (request.getAdjustmentCase()) {
+            case PRICEPERCENT -> {
+                if (request.getPricePercent() <= -100) {
+                    throw new IllegalArgumentException("Price percent must be greater than -100.");
+                }
+                dto.setOperation(BulkAdjustDto.Operation.PRICE_PERCENT);
+                dto.setAmount(BigDecimal.valueOf(request.getPricePercent()));
+            }
+            case PRICEDELTA -> {
+                dto.setOperation(BulkAdjustDto.Operation.PRICE_DELTA);
+                dto.setAmount(BigDecimal.valueOf(request.getPriceDelta()));
+            }
+            case SETSTOCK -> {
+                if (request.getSetStock() < 0) {
+                    throw new IllegalArgumentException("Stock cannot be set below zero.");
+                }
+                dto.setOperation(BulkAdjustDto.Operation.SET_STOCK);
+                dto.setAmount(BigDecimal.valueOf(request.getSetStock()));
+            }
+            case ADDSTOCK -> {
+                dto.setOperation(BulkAdjustDto.Operation.ADD_STOCK);
+                dto.setAmount(BigDecimal.valueOf(request.getAddStock()));
+            }
+            default -> throw new IllegalArgumentException("An adjustment is required.");
+        }
+        return dto;
+    }
+
+    public static SearchProductsResponse mapToSearchProductsResponse(ProductSearchResultDto result) {
+        SearchProductsResponse.Builder response = SearchProductsResponse.newBuilder()
+                .addAllProductIds(result.getProductIds())
+                .setTotal(result.getTotal())
+                .setHasMore(result.isHasMore());
+        if (result.getNextAfterId() != null) {
+            response.setNextAfterId(result.getNextAfterId());
+        }
+        result.getSeasonCounts().forEach((season, count) -> response.addSeasons(mapToFacetCount(season.name(), count)));
+        result.getSizeCounts().forEach((size, count) -> response.addSizes(mapToFacetCount(size.name(), count)));
+        result.getColorCounts().forEach((color, count) -> response.addColors(mapToFacetCount(color, count)));
+        return response.build();
+    }
+
+    private static FacetCount mapToFacetCount(String value, int count) {
+        return FacetCount.newBuilder()
+                .setValue(value)
+                .setCount(count)
+                .build();
+    }
+
+    public static ProductChangeEvent mapToProductChangeEvent(ProductChange change) {
+        return ProductChangeEvent.newBuilder()
+                .setSequence(change.getSequence())
+                .setProductId(change.getProductId())
+                .setType(change.getType().name())
+                .setChangedAtMillis(change.getChangedAt().toEpochMilli())
+                .build();
+    }
+}
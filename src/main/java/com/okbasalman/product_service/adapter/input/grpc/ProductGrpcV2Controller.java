@@ -0,0 +1,208 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.okbasalman.grpc.v2.CreateProductRequest;
+import com.okbasalman.grpc.v2.GetProductByIdRequest;
+import com.okbasalman.grpc.v2.GetProductsByIdsRequest;
+import com.okbasalman.grpc.v2.GetProductsPageRequest;
+import com.okbasalman.grpc.v2.ProductList;
+import com.okbasalman.grpc.v2.ProductPage;
+import com.okbasalman.grpc.v2.ProductServiceGrpc.ProductServiceImplBase;
+import com.okbasalman.grpc.v2.SearchProductsRequest;
+import com.okbasalman.grpc.v2.SearchProductsResponse;
+import com.okbasalman.grpc.v2.UpdateProductRequest;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.exception.ProductLookupTimeoutException;
+import com.okbasalman.product_service.domain.exception.StaleProductVersionException;
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.springframework.grpc.server.service.GrpcService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The v2 catalog API. It serves the same products through the same use case as
+ * {@link ProductGrpcController} and only differs in how they are encoded.
+ */
+@GrpcService
+public class ProductGrpcV2Controller extends ProductServiceImplBase {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_IDS_PER_REQUEST = 500;
+
+    private final ProductUseCase productUseCase;
+    private final ProductReads productReads;
+
+    public ProductGrpcV2Controller(ProductUseCase productUseCase, ProductLookupCoalescer productLookupCoalescer,
+                                   HotStockLedger hotStockLedger) {
+        this.productUseCase = productUseCase;
+        this.productReads = new ProductReads(productUseCase, productLookupCoalescer, hotStockLedger);
+    }
+
+    @Override
+    public void getProductById(GetProductByIdRequest request, StreamObserver<com.okbasalman.grpc.v2.Product> responseObserver) {
+        try {
+            Projection projection = ProductGrpcV2Mapper.mapToProjection(request.getProjection());
+            ImageRendition rendition = ProductGrpcV2Mapper.mapToImageRendition(request.getRendition());
+            com.okbasalman.grpc.v2.Product response;
+            if (request.hasIfVersion() && productReads.currentVersion(request.getId()) == request.getIfVersion()) {
+                response = ProductGrpcV2Mapper.mapToNotModifiedProduct(request.getId(), request.getIfVersion());
+            } else {
+                response = ProductGrpcV2Mapper.mapToProduct(productReads.getProductById(request.getId(), projection, rendition));
+            }
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (ProductLookupTimeoutException e) {
+            responseObserver.onError(Status.DEADLINE_EXCEEDED.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getProductsByIds(GetProductsByIdsRequest request, StreamObserver<ProductList> responseObserver) {
+        try {
+            if (request.getIdsCount() > MAX_IDS_PER_REQUEST) {
+                throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST + " ids can be requested at once.");
+            }
+            Map<Long, com.okbasalman.grpc.v2.Product> responses = new HashMap<>();
+            productReads.unchangedVersions(request.getIdsList(), request.getKnownVersionsMap()).forEach((id, version) ->
+                    responses.put(id, ProductGrpcV2Mapper.mapToNotModifiedProduct(id, version)));
+            List<Long> changed = request.getIdsList().stream()
+                    .filter(id -> !responses.containsKey(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!changed.isEmpty()) {
+                Projection projection = ProductGrpcV2Mapper.mapToProjection(request.getProjection());
+                ImageRendition rendition = ProductGrpcV2Mapper.mapToImageRendition(request.getRendition());
+                productReads.getProductsByIds(changed, projection, rendition)
+                        .forEach(product -> responses.put(product.getId(), ProductGrpcV2Mapper.mapToProduct(product)));
+            }
+            ProductList response = ProductList.newBuilder()
+                    .addAllProducts(request.getIdsList().stream()
+                            .distinct()
+                            .map(responses::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList()))
+                    .build();
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getProductsPage(GetProductsPageRequest request, StreamObserver<ProductPage> responseObserver) {
+        try {
+            if (request.getAfterId() < 0) {
+                throw new IllegalArgumentException("afterId must not be negative.");
+            }
+            int pageSize = boundedPageSize(request.getPageSize());
+            Projection projection = ProductGrpcV2Mapper.mapToProjection(request.getProjection());
+            ImageRendition rendition = ProductGrpcV2Mapper.mapToImageRendition(request.getRendition());
+            List<Product> products = productReads.getProductsPage(request.getAfterId(), pageSize, projection, rendition);
+
+            ProductPage.Builder response = ProductPage.newBuilder()
+                    .setHasMore(products.size() == pageSize)
+                    .setNextAfterId(products.isEmpty() ? request.getAfterId() : products.get(products.size() - 1).getId());
+            products.forEach(product -> response.addProducts(ProductGrpcV2Mapper.mapToProduct(product)));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void searchProducts(SearchProductsRequest request, StreamObserver<SearchProductsResponse> responseObserver) {
+        try {
+            ProductSearchQueryDto query = ProductGrpcV2Mapper.mapToProductSearchQueryDto(request);
+            query.setPageSize(boundedPageSize(request.getPageSize()));
+            responseObserver.onNext(ProductGrpcV2Mapper.mapToSearchProductsResponse(productReads.searchProducts(query)));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (IllegalStateException e) {
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void createProduct(CreateProductRequest request, StreamObserver<com.okbasalman.grpc.v2.Product> responseObserver) {
+        try {
+            if (request.getName().trim().isEmpty()) {
+                throw new IllegalArgumentException("Product name is required.");
+            }
+            if (request.getVariantsCount() == 0) {
+                throw new IllegalArgumentException("At least one product variant is required.");
+            }
+
+            Product createdProduct = productUseCase.createProduct(ProductGrpcV2Mapper.mapToProductCreateDto(request));
+
+            responseObserver.onNext(ProductGrpcV2Mapper.mapToProduct(createdProduct));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void updateProduct(UpdateProductRequest request, StreamObserver<com.okbasalman.grpc.v2.Product> responseObserver) {
+        try {
+            if (request.getId() == 0) {
+                throw new IllegalArgumentException("Product ID is required for update.");
+            }
+            if (request.getName().trim().isEmpty()) {
+                throw new IllegalArgumentException("Product name is required.");
+            }
+            if (request.getVariantsCount() == 0) {
+                throw new IllegalArgumentException("At least one product variant is required.");
+            }
+
+            Product updatedProduct = productUseCase.updateProduct(ProductGrpcV2Mapper.mapToProduct(request));
+
+            responseObserver.onNext(ProductGrpcV2Mapper.mapToProduct(updatedProduct));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        } catch (StaleProductVersionException e) {
+            responseObserver.onError(Status.ABORTED.withDescription(e.getMessage()).asRuntimeException());
+        } catch (RuntimeException e) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    private int boundedPageSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+}
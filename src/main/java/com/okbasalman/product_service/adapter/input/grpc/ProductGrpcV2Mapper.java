@@ -0,0 +1,285 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.google.protobuf.ByteString;
+import com.okbasalman.grpc.v2.ColorCount;
+import com.okbasalman.grpc.v2.CreateProductRequest;
+import com.okbasalman.grpc.v2.Image;
+import com.okbasalman.grpc.v2.ImageInput;
+import com.okbasalman.grpc.v2.SearchProductsRequest;
+import com.okbasalman.grpc.v2.SearchProductsResponse;
+import com.okbasalman.grpc.v2.SeasonCount;
+import com.okbasalman.grpc.v2.SizeCount;
+import com.okbasalman.grpc.v2.UpdateProductRequest;
+import com.okbasalman.grpc.v2.Variant;
+import com.okbasalman.product_service.adapter.output.storage.Base64ImageCodec;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+import com.okbasalman.product_service.domain.dto.ProductVariantCreateDto;
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Conversions between the v2 gRPC messages and the domain model. Enums are mapped by value
+ * without parsing names; unspecified or unknown values are rejected as invalid arguments.
+ */
+public final class ProductGrpcV2Mapper {
+
+    private ProductGrpcV2Mapper() {
+    }
+
+    public static com.okbasalman.grpc.v2.Product mapToProduct(Product product) {
+        com.okbasalman.grpc.v2.Product.Builder response = com.okbasalman.grpc.v2.Product.newBuilder()
+                .setId(product.getId())
+                .setName(product.getName())
+                .setSeason(mapToSeason(product.getSeason()));
+        product.getVariants().forEach(variant -> response.addVariants(mapToVariant(variant)));
+        if (product.getDescription() != null) {
+            response.setDescription(product.getDescription());
+        }
+        if (product.getMinPrice() != null) {
+            response.setMinPriceCents(toCents(product.getMinPrice()));
+        }
+        if (product.getVersion() != null) {
+            response.setVersion(product.getVersion());
+        }
+        return response.build();
+    }
+
+    public static com.okbasalman.grpc.v2.Product mapToNotModifiedProduct(Long id, long version) {
+        return com.okbasalman.grpc.v2.Product.newBuilder()
+                .setId(id)
+                .setVersion(version)
+                .setNotModified(true)
+                .build();
+    }
+
+    private static Variant mapToVariant(ProductVariant variant) {
+        Variant.Builder response = Variant.newBuilder()
+                .setId(variant.getId())
+                .setPriceCents(toCents(variant.getPrice()))
+                .setStock(variant.getStock())
+                .setColor(variant.getColor())
+                .setSize(mapToSize(variant.getSize()));
+        variant.getImages().forEach(image -> response.addImages(mapToImage(image)));
+        return response.build();
+    }
+
+    // The domain carries image data as base64, so it is decoded once here instead of on the client.
+    private static Image mapToImage(ProductImage image) {
+        Image.Builder response = Image.newBuilder()
+                .setId(image.getId())
+                .setSizeBytes(image.getSizeBytes());
+        String contentType = image.getContentType();
+        if (image.getBase64Data() != null) {
+            Base64ImageCodec.DecodedImage decoded = Base64ImageCodec.decode(image.getBase64Data());
+            response.setData(ByteString.copyFrom(decoded.data()));
+            if (contentType == null) {
+                contentType = decoded.contentType();
+            }
+        }
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        return response.build();
+    }
+
+    public static ProductCreateDto mapToProductCreateDto(CreateProductRequest request) {
+        ProductCreateDto dto = new ProductCreateDto();
+        dto.setName(request.getName());
+        dto.setDescription(request.getDescription());
+        dto.setSeason(mapToSeason(request.getSeason()));
+        dto.setVariants(request.getVariantsList().stream()
+                .map(variantRequest -> {
+                    ProductVariantCreateDto variantDto = new ProductVariantCreateDto();
+                    variantDto.setPrice(fromCents(variantRequest.getPriceCents()));
+                    variantDto.setStock(variantRequest.getStock());
+                    variantDto.setColor(variantRequest.getColor());
+                    variantDto.setSize(mapToSize(variantRequest.getSize()));
+                    List<String> base64Images = new ArrayList<>();
+                    List<ProductImage> uploadedImages = new ArrayList<>();
+                    variantRequest.getImagesList().forEach(imageInput -> {
+                        ProductImage image = mapToProductImage(imageInput);
+                        if (image.getUploadId() != null) {
+                            uploadedImages.add(image);
+                        } else {
+                            base64Images.add(image.getBase64Data());
+                        }
+                    });
+                    variantDto.setBase64Images(base64Images);
+                    variantDto.setUploadedImages(uploadedImages);
+                    return variantDto;
+                }).collect(Collectors.toList()));
+        return dto;
+    }
+
+    public static Product mapToProduct(UpdateProductRequest request) {
+        Product product = new Product();
+        product.setId(request.getId());
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setSeason(mapToSeason(request.getSeason()));
+        if (request.hasExpectedVersion()) {
+            product.setVersion(request.getExpectedVersion());
+        }
+        product.setVariants(request.getVariantsList().stream()
+                .map(variantRequest -> {
+                    ProductVariant variant = new ProductVariant();
+                    variant.setId(variantRequest.getId());
+                    variant.setPrice(fromCents(variantRequest.getPriceCents()));
+                    variant.setStock(variantRequest.getStock());
+                    variant.setColor(variantRequest.getColor());
+                    variant.setSize(mapToSize(variantRequest.getSize()));
+                    variant.setImages(variantRequest.getImagesList().stream()
+                            .map(imageRequest -> {
+                                ProductImage image = imageRequest.hasImage()
+                                        ? mapToProductImage(imageRequest.getImage())
+                                        : new ProductImage();
+                                image.setId(imageRequest.getId());
+                                return image;
+                            })
+                            .collect(Collectors.toList()));
+                    return variant;
+                }).collect(Collectors.toList()));
+        return product;
+    }
+
+    // Inline data is handed to the domain as base64, as a data URI when the content type is given.
+    private static ProductImage mapToProductImage(ImageInput input) {
+        ProductImage image = new ProductImage();
+        String contentType = input.getContentType().isEmpty() ? null : input.getContentType();
+        switch (input.getSourceCase()) {
+            case DATA -> image.setBase64Data(Base64ImageCodec.encode(
+                    input.getData().toByteArray(), contentType, contentType != null));
+            case UPLOADID -> {
+                image.setUploadId(input.getUploadId());
+                image.setContentType(contentType);
+            }
+            default -> throw new IllegalArgumentException("Image data or an upload id is required.");
+        }
+        return image;
+    }
+
+    public static ProductSearchQueryDto mapToProductSearchQueryDto(SearchProductsRequest request) {
+        ProductSearchQueryDto query = new ProductSearchQueryDto();
+        query.setText(request.getText());
+        Set<Season> seasons = EnumSet.noneOf(Season.class);
+        request.getSeasonsList().forEach(season -> seasons.add(mapToSeason(season)));
+        query.setSeasons(seasons);
+        Set<Size> sizes = EnumSet.noneOf(Size.class);
+        request.getSizesList().forEach(size -> sizes.add(mapToSize(size)));
+        query.setSizes(sizes);
+        query.setColors(new LinkedHashSet<>(request.getColorsList()));
+        query.setMinPrice(request.hasMinPriceCents() ? fromCents(request.getMinPriceCents()) : null);
+        query.setMaxPrice(request.hasMaxPriceCents() ? fromCents(request.getMaxPriceCents()) : null);
+        query.setInStockOnly(request.getInStockOnly());
+        query.setAfterId(request.getAfterId());
+        query.setPageSize(request.getPageSize());
+        return query;
+    }
+
+    public static SearchProductsResponse mapToSearchProductsResponse(ProductSearchResultDto result) {
+        SearchProductsResponse.Builder response = SearchProductsResponse.newBuilder()
+                .addAllProductIds(result.getProductIds())
+                .setTotal(result.getTotal())
+                .setHasMore(result.isHasMore());
+        if (result.getNextAfterId() != null) {
+            response.setNextAfterId(result.getNextAfterId());
+        }
+        result.getSeasonCounts().forEach((season, count) -> response.addSeasons(SeasonCount.newBuilder()
+                .setSeason(mapToSeason(season))
+                .setCount(count)));
+        result.getSizeCounts().forEach((size, count) -> response.addSizes(SizeCount.newBuilder()
+                .setSize(mapToSize(size))
+                .setCount(count)));
+        result.getColorCounts().forEach((color, count) -> response.addColors(ColorCount.newBuilder()
+                .setColor(color)
+                .setCount(count)));
+        return response.build();
+    }
+
+    public static Projection mapToProjection(com.okbasalman.grpc.v2.Projection projection) {
+        return switch (projection) {
+            case FULL -> Projection.FULL;
+            case NO_IMAGES -> Projection.NO_IMAGES;
+            case SUMMARY -> Projection.SUMMARY;
+            case IMAGE_REFS -> Projection.IMAGE_REFS;
+            default -> throw new IllegalArgumentException("Unknown projection: " + projection);
+        };
+    }
+
+    public static ImageRendition mapToImageRendition(com.okbasalman.grpc.v2.ImageRendition rendition) {
+        return switch (rendition) {
+            case ORIGINAL -> ImageRendition.ORIGINAL;
+            case THUMBNAIL -> ImageRendition.THUMBNAIL;
+            case MEDIUM -> ImageRendition.MEDIUM;
+            default -> throw new IllegalArgumentException("Unknown image rendition: " + rendition);
+        };
+    }
+
+    private static Season mapToSeason(com.okbasalman.grpc.v2.Season season) {
+        return switch (season) {
+            case SUMMER -> Season.SUMMER;
+            case WINTER -> Season.WINTER;
+            case AUTUMN -> Season.AUTUMN;
+            case SPRING -> Season.SPRING;
+            default -> throw new IllegalArgumentException("A season is required.");
+        };
+    }
+
+    private static com.okbasalman.grpc.v2.Season mapToSeason(Season season) {
+        return switch (season) {
+            case SUMMER -> com.okbasalman.grpc.v2.Season.SUMMER;
+            case WINTER -> com.okbasalman.grpc.v2.Season.WINTER;
+            case AUTUMN -> com.okbasalman.grpc.v2.Season.AUTUMN;
+            case SPRING -> com.okbasalman.grpc.v2.Season.SPRING;
+        };
+    }
+
+    private static Size mapToSize(com.okbasalman.grpc.v2.Size size) {
+        return switch (size) {
+            case XS -> Size.XS;
+            case S -> Size.S;
+            case M -> Size.M;
+            case L -> Size.L;
+            case XL -> Size.XL;
+            case XXL -> Size.XXL;
+            default -> throw new IllegalArgumentException("A size is required.");
+        };
+    }
+
+    private static com.okbasalman.grpc.v2.Size mapToSize(Size size) {
+        return switch (size) {
+            case XS -> com.okbasalman.grpc.v2.Size.XS;
+            case S -> com.okbasalman.grpc.v2.Size.S;
+            case M -> com.okbasalman.grpc.v2.Size.M;
+            case L -> com.okbasalman.grpc.v2.Size.L;
+            case XL -> com.okbasalman.grpc.v2.Size.XL;
+            case XXL -> com.okbasalman.grpc.v2.Size.XXL;
+        };
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(ProductVariant.PRICE_SCALE).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Prices cannot be negative.");
+        }
+        return BigDecimal.valueOf(cents, ProductVariant.PRICE_SCALE);
+    }
+}
@@ -0,0 +1,95 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.ImportChunkResult;
+import com.okbasalman.grpc.ImportProductsResponse;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Buffers streamed {@link CreateProductRequest}s into fixed-size chunks and imports each chunk
+ * in its own transaction, so a bad chunk does not roll back the ones already imported.
+ * Requests that fail validation are counted against their chunk and skipped.
+ */
+class ProductImportObserver implements StreamObserver<CreateProductRequest> {
+
+    private final StreamObserver<ImportProductsResponse> responseObserver;
+    private final Function<CreateProductRequest, ProductCreateDto> mapper;
+    private final Function<List<ProductCreateDto>, List<Long>> importer;
+    private final int chunkSize;
+
+    private final ImportProductsResponse.Builder response = ImportProductsResponse.newBuilder();
+    private final List<ProductCreateDto> chunk = new ArrayList<>();
+    private int chunkFailed;
+    private String chunkError;
+
+    ProductImportObserver(StreamObserver<ImportProductsResponse> responseObserver,
+                          Function<CreateProductRequest, ProductCreateDto> mapper,
+                          Function<List<ProductCreateDto>, List<Long>> importer, int chunkSize) {
+        this.responseObserver = responseObserver;
+        this.mapper = mapper;
+        this.importer = importer;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void onNext(CreateProductRequest request) {
+        try {
+            chunk.add(mapper.apply(request));
+        } catch (IllegalArgumentException e) {
+            chunkFailed++;
+            if (chunkError == null) {
+                chunkError = e.getMessage();
+            }
+        }
+        if (chunk.size() + chunkFailed >= chunkSize) {
+            importChunk();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // The client went away; chunks imported so far stay committed.
+        chunk.clear();
+    }
+
+    @Override
+    public void onCompleted() {
+        if (!chunk.isEmpty() || chunkFailed > 0) {
+            importChunk();
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    private void importChunk() {
+        int imported = 0;
+        int failed = chunkFailed;
+        String error = chunkError;
+        if (!chunk.isEmpty()) {
+            try {
+                imported = importer.apply(chunk).size();
+            } catch (Exception e) {
+                failed += chunk.size();
+                error = e.getMessage();
+            }
+        }
+        ImportChunkResult.Builder result = ImportChunkResult.newBuilder()
+                .setChunk(response.getChunksCount())
+                .setImported(imported)
+                .setFailed(failed);
+        if (error != null) {
+            result.setError(error);
+        }
+        response.addChunks(result)
+                .setImported(response.getImported() + imported)
+                .setFailed(response.getFailed() + failed);
+        chunk.clear();
+        chunkFailed = 0;
+        chunkError = null;
+    }
+}
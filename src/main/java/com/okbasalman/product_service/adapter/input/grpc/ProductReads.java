@@ -0,0 +1,111 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The catalog reads behind both {@link ProductGrpcController} and {@link ProductGrpcV2Controller},
+ * which only differ in how the products are encoded.
+ * <p>
+ * A rendition replaces the image data of a FULL read, so those products are loaded without image
+ * data and the rendition is filled in afterwards, outside the read transaction.
+ * <p>
+ * The stock of hot variants is partly held in memory by the {@link HotStockLedger}, so every read
+ * and the search's in-stock filter add it here, and all of them report the same stock.
+ */
+final class ProductReads {
+
+    private final ProductUseCase productUseCase;
+    private final ProductLookupCoalescer productLookupCoalescer;
+    private final HotStockLedger hotStockLedger;
+
+    ProductReads(ProductUseCase productUseCase, ProductLookupCoalescer productLookupCoalescer,
+                 HotStockLedger hotStockLedger) {
+        this.productUseCase = productUseCase;
+        this.productLookupCoalescer = productLookupCoalescer;
+        this.hotStockLedger = hotStockLedger;
+    }
+
+    // Full originals are coalesced with concurrent lookups of the same product, waiting no longer than the call's deadline.
+    Product getProductById(Long id, Projection projection, ImageRendition rendition) {
+        if (projection == Projection.FULL && rendition == ImageRendition.ORIGINAL) {
+            Deadline deadline = Context.current().getDeadline();
+            return hotStockLedger.applyTo(deadline == null
+                    ? productLookupCoalescer.getProductById(id)
+                    : productLookupCoalescer.getProductById(id, Duration.ofNanos(deadline.timeRemaining(TimeUnit.NANOSECONDS))));
+        }
+        Product product = productUseCase.getProductById(id, loadProjection(projection, rendition));
+        return applyRendition(List.of(product), projection, rendition).get(0);
+    }
+
+    List<Product> getProductsByIds(List<Long> ids, Projection projection, ImageRendition rendition) {
+        return applyRendition(productUseCase.getProductsByIds(ids, loadProjection(projection, rendition)),
+                projection, rendition);
+    }
+
+    List<Product> getProductsPage(long afterId, int limit, Projection projection, ImageRendition rendition) {
+        return applyRendition(productUseCase.getProductsPage(afterId, limit, loadProjection(projection, rendition)),
+                projection, rendition);
+    }
+
+    ProductSearchResultDto searchProducts(ProductSearchQueryDto query) {
+        if (query.isInStockOnly()) {
+            query.setInStockVariantIds(hotStockLedger.inStockVariantIds());
+        }
+        return productUseCase.searchProducts(query);
+    }
+
+    // The product's version as the primary has it, for deciding whether a client's copy is current.
+    long currentVersion(Long id) {
+        Long version = productUseCase.getProductVersions(List.of(id)).get(id);
+        if (version == null) {
+            throw new RuntimeException("Product not found with ID: " + id);
+        }
+        return version;
+    }
+
+    // The ids whose known version is still current, with that version.
+    Map<Long, Long> unchangedVersions(List<Long> ids, Map<Long, Long> knownVersions) {
+        Map<Long, Long> unchanged = new HashMap<>();
+        if (knownVersions.isEmpty()) {
+            return unchanged;
+        }
+        List<Long> known = ids.stream()
+                .filter(knownVersions::containsKey)
+                .distinct()
+                .collect(Collectors.toList());
+        productUseCase.getProductVersions(known).forEach((id, version) -> {
+            if (version.equals(knownVersions.get(id))) {
+                unchanged.put(id, version);
+            }
+        });
+        return unchanged;
+    }
+
+    private static Projection loadProjection(Projection projection, ImageRendition rendition) {
+        return rendition.appliesTo(projection) ? Projection.IMAGE_REFS : projection;
+    }
+
+    private List<Product> applyRendition(List<Product> products, Projection projection, ImageRendition rendition) {
+        List<Product> rendered = rendition.appliesTo(projection)
+                ? productUseCase.applyImageRendition(products, rendition)
+                : products;
+        return rendered.stream().map(hotStockLedger::applyTo).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.product_service.adapter.output.cache.CacheEvictionGuard;
+import com.okbasalman.product_service.domain.event.CatalogSnapshotLoadedEvent;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache of serialized {@link ProductResponse} messages keyed by product id, bounded by
+ * encoded size. Evicted, and kept from caching reads of recently changed products, the same
+ * way as the domain product cache.
+ */
+public class ProductResponseCache implements MeterBinder {
+
+    private final Cache<Long, EncodedProductResponse> cache;
+    private final CacheEvictionGuard guard;
+    private final long maxWeightBytes;
+
+    public ProductResponseCache(long maxWeightBytes, Duration ttl, Duration replicaStaleness) {
+        this.maxWeightBytes = maxWeightBytes;
+        this.guard = new CacheEvictionGuard(replicaStaleness);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((Long id, EncodedProductResponse response) -> response.size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public EncodedProductResponse getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public EncodedProductResponse get(Long id, Function<Long, ProductResponse> loader) {
+        EncodedProductResponse cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long epoch = guard.epoch(id);
+        EncodedProductResponse encoded = EncodedProductResponse.of(loader.apply(id));
+        guard.put(cache, id, epoch, encoded);
+        return encoded;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product-responses");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @EventListener
+    public void evictOnChange(ProductChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void evictAfterCommit(ProductChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    // Encodes products from a catalog snapshot until the weight budget is used up.
+    @EventListener
+    public void warm(CatalogSnapshotLoadedEvent event) {
+        event.getChangedProductIds().forEach(this::evict);
+        long budget = maxWeightBytes;
+        for (Product product : event.getFullProducts()) {
+            EncodedProductResponse encoded = EncodedProductResponse.of(ProductGrpcMapper.mapToProductResponse(product));
+            budget -= encoded.size();
+            if (budget < 0) {
+                break;
+            }
+            guard.putIfAbsent(cache, product.getId(), encoded);
+        }
+    }
+
+    private void evict(Long id) {
+        guard.evict(cache, id);
+    }
+}
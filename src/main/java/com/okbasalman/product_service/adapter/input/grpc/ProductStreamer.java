@@ -0,0 +1,84 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.product_service.domain.model.Product;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Walks the catalog by keyset on product id and writes one {@link ProductResponse}
+ * per product while the transport is ready, so at most one batch is held in memory.
+ * All callbacks run on the call's serializing executor, so no locking is needed.
+ */
+class ProductStreamer {
+
+    interface PageLoader {
+        List<Product> load(Long afterId, int limit);
+    }
+
+    private final ServerCallStreamObserver<ProductResponse> observer;
+    private final PageLoader pageLoader;
+    private final Function<Product, ProductResponse> mapper;
+    private final int batchSize;
+
+    private final Deque<Product> buffer = new ArrayDeque<>();
+    private long afterId = 0;
+    private boolean exhausted;
+    private boolean finished;
+
+    ProductStreamer(ServerCallStreamObserver<ProductResponse> observer, PageLoader pageLoader,
+                    Function<Product, ProductResponse> mapper, int batchSize) {
+        this.observer = observer;
+        this.pageLoader = pageLoader;
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+    }
+
+    void start() {
+        observer.setOnCancelHandler(() -> finished = true);
+        observer.setOnReadyHandler(this::drain);
+        drain();
+    }
+
+    private void drain() {
+        try {
+            while (!finished && observer.isReady()) {
+                // set as soon as the client goes away or the deadline passes, unlike the cancel handler,
+                // which only runs once this callback returns
+                if (observer.isCancelled()) {
+                    finished = true;
+                    return;
+                }
+                if (buffer.isEmpty()) {
+                    if (exhausted) {
+                        finished = true;
+                        observer.onCompleted();
+                        return;
+                    }
+                    fetchNextBatch();
+                    continue;
+                }
+                observer.onNext(mapper.apply(buffer.poll()));
+            }
+        } catch (Exception e) {
+            finished = true;
+            observer.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    private void fetchNextBatch() {
+        List<Product> page = pageLoader.load(afterId, batchSize);
+        if (page.size() < batchSize) {
+            exhausted = true;
+        }
+        if (!page.isEmpty()) {
+            afterId = page.get(page.size() - 1).getId();
+        }
+        buffer.addAll(page);
+    }
+}
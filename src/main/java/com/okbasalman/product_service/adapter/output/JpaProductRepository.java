@@ -1,20 +1,56 @@
 package com.okbasalman.product_service.adapter.output;
 
+import com.okbasalman.product_service.adapter.output.entity.HotStockLeaseEntity;
 import com.okbasalman.product_service.adapter.output.entity.ProductEntity;
 import com.okbasalman.product_service.adapter.output.entity.ProductImageEntity;
 import com.okbasalman.product_service.adapter.output.entity.ProductVariantEntity;
+import com.okbasalman.product_service.adapter.output.entity.StockReservationEntity;
+import com.okbasalman.product_service.adapter.output.repository.HotStockLeaseRepository;
+import com.okbasalman.product_service.adapter.output.repository.HotStockLeaseView;
+import com.okbasalman.product_service.adapter.output.repository.ProductImageRepository;
 import com.okbasalman.product_service.adapter.output.repository.ProductRepository;
+import com.okbasalman.product_service.adapter.output.repository.ProductVersionView;
 import com.okbasalman.product_service.adapter.output.repository.ProductVariantRepository;
+import com.okbasalman.product_service.adapter.output.repository.StockLeaseView;
+import com.okbasalman.product_service.adapter.output.repository.StockLevelView;
+import com.okbasalman.product_service.adapter.output.repository.StockReservationRepository;
+import com.okbasalman.product_service.adapter.output.repository.StockReservationView;
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
 import com.okbasalman.product_service.domain.dto.DeleteProductResultDto;
 import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
+import com.okbasalman.product_service.domain.dto.StockLineResultDto;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent.ChangeType;
+import com.okbasalman.product_service.domain.event.ProductImagesStoredEvent;
+import com.okbasalman.product_service.domain.exception.StaleProductVersionException;
 import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.Projection;
 import com.okbasalman.product_service.domain.model.ProductImage;
 import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
 import com.okbasalman.product_service.domain.port.output.ProductRepositoryPort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Repository
@@ -22,189 +58,502 @@ public class JpaProductRepository implements ProductRepositoryPort {
 
     private final ProductRepository productRepository;
     private final ProductVariantRepository productVariantRepository;
+    private final ProductImageRepository productImageRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final HotStockLeaseRepository hotStockLeaseRepository;
+    private final ProductEntityMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public JpaProductRepository(ProductRepository productRepository, ProductVariantRepository productVariantRepository) {
+    public JpaProductRepository(ProductRepository productRepository, ProductVariantRepository productVariantRepository,
+                                ProductImageRepository productImageRepository,
+                                StockReservationRepository stockReservationRepository,
+                                HotStockLeaseRepository hotStockLeaseRepository, ImageStoragePort imageStorage,
+                                ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.productVariantRepository = productVariantRepository;
+        this.productImageRepository = productImageRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.hotStockLeaseRepository = hotStockLeaseRepository;
+        this.mapper = new ProductEntityMapper(imageStorage);
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public Product findById(Long id) {
         ProductEntity entity = productRepository.findByIdWithVariantsAndImages(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
-        return mapToProduct(entity);
+        return mapper.mapToProduct(entity);
+    }
+
+    @Override
+    public Product findById(Long id, Projection projection) {
+        if (projection == Projection.FULL) {
+            return findById(id);
+        }
+        return findAllByIds(List.of(id), projection).stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
+    }
+
+    @Override
+    public List<Product> findAllByIds(Collection<Long> ids, Projection projection) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return switch (projection) {
+            case SUMMARY -> productRepository.findSummariesByIdIn(ids).stream()
+                    .map(mapper::mapToProduct)
+                    .collect(Collectors.toList());
+            case NO_IMAGES -> mapper.mapToProducts(productRepository.findRowsByIdIn(ids),
+                    productVariantRepository.findRowsByProductIdIn(ids));
+            case IMAGE_REFS -> productRepository.findAllByIdInWithVariants(ids).stream()
+                    .map(entity -> mapper.mapToProduct(entity, false))
+                    .collect(Collectors.toList());
+            case FULL -> productRepository.findAllByIdInWithVariants(ids).stream()
+                    .map(mapper::mapToProduct)
+                    .collect(Collectors.toList());
+        };
+    }
+
+    @Override
+    public ProductImage findImage(Long imageId) {
+        return productImageRepository.findById(imageId)
+                .map(mapper::mapToProductImageRef)
+                .orElseThrow(() -> new RuntimeException("Product image not found with ID: " + imageId));
+    }
+
+    @Override
+    public Set<String> findReferencedImageHashes(Collection<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(productImageRepository.findReferencedContentHashes(contentHashes));
+    }
+
+    @Override
+    public Map<Long, Long> findVersions(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return productRepository.findVersionsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductVersionView::id, ProductVersionView::version));
     }
 
     @Override
     public List<Product> findAll() {
         return productRepository.findAllWithVariants().stream()
-                .map(this::mapToProduct)
+                .map(mapper::mapToProduct)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Product> findPage(Long afterId, int limit, Projection projection) {
+        if (projection == Projection.SUMMARY) {
+            return productRepository.findSummariesAfter(afterId, Limit.of(limit)).stream()
+                    .map(mapper::mapToProduct)
+                    .collect(Collectors.toList());
+        }
+        return findAllByIds(productRepository.findIdsAfter(afterId, Limit.of(limit)), projection);
+    }
+
     @Override
     public Product create(ProductCreateDto dto) {
-        ProductEntity productEntity = mapToProductEntity(dto);
+        ProductEntity productEntity = mapper.mapToProductEntity(dto);
         ProductEntity savedEntity = productRepository.save(productEntity);
-        return mapToProduct(savedEntity);
+        publishChange(savedEntity.getId(), ChangeType.CREATED);
+        publishImagesStored(List.of(savedEntity));
+        return mapper.mapToProduct(savedEntity);
+    }
+
+    @Override
+    public List<Long> createAll(List<ProductCreateDto> dtos) {
+        List<ProductEntity> savedEntities = productRepository.saveAll(dtos.stream()
+                .map(mapper::mapToProductEntity)
+                .collect(Collectors.toList()));
+        // flush inside the caller's transaction so the inserts go out as JDBC batches
+        productRepository.flush();
+        savedEntities.forEach(entity -> publishChange(entity.getId(), ChangeType.CREATED));
+        publishImagesStored(savedEntities);
+        return savedEntities.stream()
+                .map(ProductEntity::getId)
+                .collect(Collectors.toList());
     }
 
     @Override
     public DeleteProductResultDto deleteById(Long id) {
-        if (!productRepository.existsById(id)) {
+        Optional<ProductEntity> entity = productRepository.findByIdForUpdate(id);
+        if (entity.isEmpty()) {
             return new DeleteProductResultDto(false, "Product not found.");
         }
-        productRepository.deleteById(id);
+        productRepository.delete(entity.get());
+        publishChange(id, ChangeType.DELETED);
         return new DeleteProductResultDto(true, "Product deleted successfully.");
     }
 
     @Override
     public Product update(Product product) {
-        ProductEntity entity = productRepository.findById(product.getId())
+        ProductEntity entity = productRepository.findByIdForUpdate(product.getId())
                 .orElseThrow(() -> new RuntimeException("Product not found with ID: " + product.getId()));
+        // the row is locked, so nothing can change the version between this check and the commit
+        if (product.getVersion() != null && product.getVersion() != entity.getVersion()) {
+            throw new StaleProductVersionException(product.getId(), product.getVersion(), entity.getVersion());
+        }
 
-        
+        entity.setVersion(entity.getVersion() + 1);
         entity.setName(product.getName());
         entity.setDescription(product.getDescription());
         entity.setSeason(product.getSeason());
+        syncVariants(entity, product.getVariants() == null ? new ArrayList<>() : product.getVariants());
 
-        
-        entity.getVariants().clear();
-        entity.getVariants().addAll(mapProductVariantsToEntities(product.getVariants(), entity));
-
-        ProductEntity updatedEntity = productRepository.save(entity);
-        return mapToProduct(updatedEntity);
+        // the entity is managed, so flushing is enough to write the diff and assign ids to new rows
+        productRepository.flush();
+        publishChange(entity.getId(), ChangeType.UPDATED);
+        publishImagesStored(List.of(entity));
+        return mapper.mapToProduct(entity);
     }
 
     @Override
     public Product decreaseStock(Long productVariantId, int quantity) {
-        ProductVariantEntity variantEntity = productVariantRepository.findById(productVariantId)
-                .orElseThrow(() -> new RuntimeException("Product variant not found with ID: " + productVariantId));
+        StockLevel stockLevel = decreaseStockLevel(productVariantId, quantity);
+        return findById(stockLevel.getProductId());
+    }
 
-        if (variantEntity.getStock() < quantity) {
-            throw new RuntimeException("Insufficient stock for product variant ID: " + productVariantId);
+    @Override
+    public StockLevel decreaseStockLevel(Long productVariantId, int quantity) {
+        // bumping the version first also takes the product row lock before the variant row lock;
+        // a failed decrement throws and rolls the bump back
+        productRepository.incrementVersionByVariantId(productVariantId);
+        StockLevelView updated = productVariantRepository.decrementStock(productVariantId, quantity)
+                .orElseThrow(() -> productVariantRepository.existsById(productVariantId)
+                        ? new RuntimeException("Insufficient stock for product variant ID: " + productVariantId)
+                        : new RuntimeException("Product variant not found with ID: " + productVariantId));
+        publishChange(updated.getProductId(), ChangeType.STOCK_CHANGED);
+        return new StockLevel(updated.getId(), updated.getProductId(), updated.getStock());
+    }
+
+    @Override
+    public StockBatchResultDto decreaseStockBatch(List<StockLineDto> lines) {
+        Map<Long, Integer> requested = new TreeMap<>();
+        lines.forEach(line -> requested.merge(line.getProductVariantId(), line.getQuantity(), Integer::sum));
+
+        List<Long> productIds = productRepository.lockIdsByVariantIdIn(requested.keySet());
+        Map<Long, ProductVariantEntity> locked = productVariantRepository.findAllByIdInForUpdate(requested.keySet()).stream()
+                .collect(Collectors.toMap(ProductVariantEntity::getId, Function.identity()));
+
+        boolean success = requested.entrySet().stream()
+                .allMatch(entry -> locked.containsKey(entry.getKey()) && available(locked.get(entry.getKey())) >= entry.getValue());
+        if (success) {
+            requested.forEach((variantId, quantity) -> {
+                ProductVariantEntity variant = locked.get(variantId);
+                variant.setStock(variant.getStock() - quantity);
+            });
+            productRepository.incrementVersions(productIds);
+            productIds.forEach(productId -> publishChange(productId, ChangeType.STOCK_CHANGED));
         }
 
-        variantEntity.setStock(variantEntity.getStock() - quantity);
-        ProductVariantEntity updatedVariant = productVariantRepository.save(variantEntity);
-        
-        return mapToProduct(updatedVariant.getProduct());
+        List<StockLineResultDto> results = new ArrayList<>();
+        requested.forEach((variantId, quantity) -> {
+            ProductVariantEntity variant = locked.get(variantId);
+            if (variant == null) {
+                results.add(new StockLineResultDto(variantId, null, quantity, 0, false, false));
+            } else {
+                results.add(new StockLineResultDto(variantId, variant.getProduct().getId(), quantity,
+                        available(variant), true, success || available(variant) >= quantity));
+            }
+        });
+        return new StockBatchResultDto(success, results);
     }
 
-    //region Mappers
-    private Product mapToProduct(ProductEntity entity) {
-        Product product = new Product();
-        product.setId(entity.getId());
-        product.setName(entity.getName());
-        product.setDescription(entity.getDescription());
-        product.setSeason(entity.getSeason());
-        product.setVariants(mapToProductVariants(entity.getVariants()));
-        return product;
+    // Product reads report stock less what is reserved, so every write to reserved bumps the version
+    // and publishes a change like a decrement, taking the product row lock first. Updates rely on
+    // that lock to read reserved as it is.
+    @Override
+    public StockReservation reserveStock(Long productVariantId, int quantity, Instant expiresAt) {
+        productRepository.incrementVersionByVariantId(productVariantId);
+        StockLevelView available = productVariantRepository.reserveStock(productVariantId, quantity)
+                .orElseThrow(() -> productVariantRepository.existsById(productVariantId)
+                        ? new RuntimeException("Insufficient stock for product variant ID: " + productVariantId)
+                        : new RuntimeException("Product variant not found with ID: " + productVariantId));
+        publishChange(available.getProductId(), ChangeType.STOCK_CHANGED);
+        StockReservationEntity entity = new StockReservationEntity();
+        entity.setProductVariantId(productVariantId);
+        entity.setProductId(available.getProductId());
+        entity.setQuantity(quantity);
+        entity.setExpiresAt(expiresAt);
+        StockReservationEntity saved = stockReservationRepository.save(entity);
+        return new StockReservation(saved.getId(), productVariantId, saved.getProductId(), quantity, expiresAt,
+                available.getStock());
     }
 
-    private List<ProductVariant> mapToProductVariants(List<ProductVariantEntity> entities) {
-        if (entities == null) {
-            return new ArrayList<>();
+    @Override
+    public StockLevel commitReservation(Long reservationId) {
+        StockReservationView reservation = stockReservationRepository.deleteLiveById(reservationId, Instant.now())
+                .orElseThrow(() -> stockReservationRepository.existsById(reservationId)
+                        ? new RuntimeException("Stock reservation has expired: " + reservationId)
+                        : new RuntimeException("Stock reservation not found with ID: " + reservationId));
+        // same lock order as every other stock write: the product row, then the variant row
+        productRepository.incrementVersionByVariantId(reservation.getProductVariantId());
+        StockLevelView updated = productVariantRepository.commitReservedStock(reservation.getProductVariantId(), reservation.getQuantity())
+                .orElseThrow(() -> productVariantRepository.existsById(reservation.getProductVariantId())
+                        ? new RuntimeException("Insufficient stock for product variant ID: " + reservation.getProductVariantId())
+                        : new RuntimeException("Product variant not found with ID: " + reservation.getProductVariantId()));
+        publishChange(updated.getProductId(), ChangeType.STOCK_CHANGED);
+        return new StockLevel(updated.getId(), updated.getProductId(), updated.getStock());
+    }
+
+    @Override
+    public StockLevel releaseReservation(Long reservationId) {
+        StockReservationView reservation = stockReservationRepository.deleteReturningById(reservationId)
+                .orElseThrow(() -> new RuntimeException("Stock reservation not found with ID: " + reservationId));
+        productRepository.incrementVersionByVariantId(reservation.getProductVariantId());
+        Optional<StockLevelView> released = productVariantRepository.releaseReservedStock(
+                reservation.getProductVariantId(), reservation.getQuantity());
+        released.ifPresent(available -> publishChange(available.getProductId(), ChangeType.STOCK_CHANGED));
+        return released
+                .map(available -> new StockLevel(available.getId(), available.getProductId(), available.getStock()))
+                .orElseGet(() -> new StockLevel(reservation.getProductVariantId(), reservation.getProductId(), 0));
+    }
+
+    @Override
+    public int releaseExpiredReservations(Instant now, int limit) {
+        List<StockReservationView> expired = stockReservationRepository.deleteExpired(now, limit);
+        // one update per variant, in id order like the batch decrement, however many reservations it had
+        Map<Long, Integer> released = new TreeMap<>();
+        expired.forEach(reservation -> released.merge(reservation.getProductVariantId(), reservation.getQuantity(), Integer::sum));
+        releaseReservedStock(released);
+        return expired.size();
+    }
+
+    @Override
+    public BulkAdjustResultDto bulkAdjust(BulkAdjustDto adjustment, Long afterProductId, int limit) {
+        boolean anyProduct = adjustment.getProductIds() == null || adjustment.getProductIds().isEmpty();
+        List<Long> productIds;
+        if (anyProduct) {
+            // never bound when anyProduct is set, but IN () is not valid SQL
+            productIds = List.of(0L);
+        } else {
+            // only the ids after this chunk's start are bound, so later chunks bind fewer parameters
+            productIds = adjustment.getProductIds().stream()
+                    .filter(id -> id > afterProductId)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (productIds.isEmpty()) {
+                return new BulkAdjustResultDto(0, List.of());
+            }
         }
-        return entities.stream()
-                .map(this::mapToProductVariant)
-                .collect(Collectors.toList());
+        String season = adjustment.getSeason() == null ? null : adjustment.getSeason().name();
+        String size = adjustment.getSize() == null ? null : adjustment.getSize().name();
+        String color = adjustment.getColor();
+        BigDecimal amount = adjustment.getAmount();
+        List<Long> adjusted;
+        ChangeType type;
+        switch (adjustment.getOperation()) {
+            case PRICE_PERCENT, PRICE_DELTA -> {
+                boolean percent = adjustment.getOperation() == BulkAdjustDto.Operation.PRICE_PERCENT;
+                adjusted = productVariantRepository.adjustPrices(afterProductId, limit, anyProduct, productIds, season,
+                        size, color, adjustment.getMinPrice(), adjustment.getMaxPrice(),
+                        percent ? BigDecimal.ONE.add(amount.movePointLeft(2)) : BigDecimal.ONE,
+                        percent ? BigDecimal.ZERO : amount);
+                type = ChangeType.UPDATED;
+            }
+            default -> {
+                boolean set = adjustment.getOperation() == BulkAdjustDto.Operation.SET_STOCK;
+                adjusted = productVariantRepository.adjustStock(afterProductId, limit, anyProduct, productIds, season,
+                        size, color, adjustment.getMinPrice(), adjustment.getMaxPrice(), set ? 0 : 1, amount.intValueExact());
+                type = ChangeType.STOCK_CHANGED;
+            }
+        }
+        List<Long> adjustedProductIds = adjusted.stream().distinct().sorted().collect(Collectors.toList());
+        adjustedProductIds.forEach(productId -> publishChange(productId, type));
+        return new BulkAdjustResultDto(adjusted.size(), adjustedProductIds);
     }
 
-    private ProductVariant mapToProductVariant(ProductVariantEntity entity) {
-        ProductVariant variant = new ProductVariant();
-        variant.setId(entity.getId());
-        variant.setPrice(entity.getPrice());
-        variant.setStock(entity.getStock());
-        variant.setColor(entity.getColor());
-        variant.setSize(entity.getSize());
-        variant.setImages(mapToProductImages(entity.getImages()));
-        return variant;
+    // Like a reservation, a lease moves stock into reserved, so it changes what reads report.
+    @Override
+    public StockLease leaseStock(String owner, Long productVariantId, int quantity) {
+        productRepository.incrementVersionByVariantId(productVariantId);
+        StockLeaseView lease = productVariantRepository.leaseStock(productVariantId, quantity)
+                .orElseThrow(() -> new RuntimeException("Product variant not found with ID: " + productVariantId));
+        if (lease.getGranted() > 0) {
+            hotStockLeaseRepository.addLeased(owner, productVariantId, lease.getGranted(), Instant.now());
+            publishChange(lease.getProductId(), ChangeType.STOCK_CHANGED);
+        }
+        return new StockLease(productVariantId, lease.getProductId(), lease.getGranted(), lease.getStock(), 0);
     }
 
-    private List<ProductImage> mapToProductImages(List<ProductImageEntity> entities) {
-        if (entities == null) {
-            return new ArrayList<>();
+    @Override
+    public Optional<StockLevel> settleLeasedStock(String owner, Long productVariantId, long sold, long journalSequence) {
+        Optional<HotStockLeaseEntity> lease = hotStockLeaseRepository.findByOwnerAndProductVariantId(owner, productVariantId);
+        if (lease.isPresent() && lease.get().getJournalSequence() >= journalSequence) {
+            return Optional.empty();
         }
-        return entities.stream()
-                .map(this::mapToProductImage)
+        int quantity = Math.toIntExact(sold);
+        // never more than the lease still holds, or the sales would eat into other reservations
+        int leased = lease.map(entity -> Math.min(quantity, entity.getLeased())).orElse(0);
+        // product row, then variant row, then the lease row when the entity is flushed on commit
+        productRepository.incrementVersionByVariantId(productVariantId);
+        Optional<StockLevelView> settled = productVariantRepository.settleLeasedStock(productVariantId, quantity, leased);
+        lease.ifPresent(entity -> {
+            entity.setLeased(entity.getLeased() - leased);
+            entity.setJournalSequence(journalSequence);
+        });
+        settled.ifPresent(level -> publishChange(level.getProductId(), ChangeType.STOCK_CHANGED));
+        return settled.map(level -> new StockLevel(level.getId(), level.getProductId(), level.getStock()));
+    }
+
+    // The lease row is kept at zero rather than deleted, since it holds the settled journal sequence.
+    @Override
+    public void releaseLeasedStock(String owner, Long productVariantId, int quantity) {
+        hotStockLeaseRepository.findByOwnerAndProductVariantId(owner, productVariantId).ifPresent(lease -> {
+            int released = Math.min(quantity, lease.getLeased());
+            if (released > 0) {
+                productRepository.incrementVersionByVariantId(productVariantId);
+                productVariantRepository.releaseReservedStock(productVariantId, released)
+                        .ifPresent(level -> publishChange(level.getProductId(), ChangeType.STOCK_CHANGED));
+                lease.setLeased(lease.getLeased() - released);
+            }
+        });
+    }
+
+    @Override
+    public int renewStockLeases(String owner, Instant now) {
+        return hotStockLeaseRepository.renew(owner, now);
+    }
+
+    @Override
+    public int releaseExpiredStockLeases(Instant expiredBefore, int limit) {
+        List<HotStockLeaseView> expired = hotStockLeaseRepository.releaseExpired(expiredBefore, limit);
+        Map<Long, Integer> released = new TreeMap<>();
+        expired.forEach(lease -> released.merge(lease.getProductVariantId(), lease.getLeased(), Integer::sum));
+        releaseReservedStock(released);
+        return expired.size();
+    }
+
+    // Product rows first, in id order, then one update per variant in id order, like the batch decrement.
+    private void releaseReservedStock(Map<Long, Integer> releasedByVariant) {
+        if (releasedByVariant.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = productRepository.lockIdsByVariantIdIn(releasedByVariant.keySet());
+        productRepository.incrementVersions(productIds);
+        releasedByVariant.forEach(productVariantRepository::releaseReservedStock);
+        productIds.forEach(productId -> publishChange(productId, ChangeType.STOCK_CHANGED));
+    }
+
+    @Override
+    public List<StockLease> findStockLeases(String owner) {
+        return hotStockLeaseRepository.findByOwnerOrderByProductVariantId(owner).stream()
+                .map(lease -> new StockLease(lease.getProductVariantId(), null, lease.getLeased(), 0, lease.getJournalSequence()))
                 .collect(Collectors.toList());
     }
 
-    private ProductImage mapToProductImage(ProductImageEntity entity) {
-        ProductImage image = new ProductImage();
-        image.setId(entity.getId());
-        image.setBase64Data(entity.getBase64Data());
-        return image;
-    }
-
-    private ProductEntity mapToProductEntity(ProductCreateDto dto) {
-        ProductEntity productEntity = new ProductEntity();
-        productEntity.setName(dto.getName());
-        productEntity.setDescription(dto.getDescription());
-        productEntity.setSeason(dto.getSeason());
-        
-        List<ProductVariantEntity> variantEntities = dto.getVariants().stream()
-                .map(variantDto -> {
-                    ProductVariantEntity variantEntity = new ProductVariantEntity();
-                    variantEntity.setPrice(variantDto.getPrice());
-                    variantEntity.setStock(variantDto.getStock());
-                    variantEntity.setColor(variantDto.getColor());
-                    variantEntity.setSize(variantDto.getSize());
-                    
-                    List<ProductImageEntity> imageEntities = variantDto.getBase64Images().stream()
-                        .map(base64 -> {
-                            ProductImageEntity imageEntity = new ProductImageEntity();
-                            imageEntity.setBase64Data(base64);
-                            imageEntity.setProductVariant(variantEntity);
-                            return imageEntity;
-                        })
-                        .collect(Collectors.toList());
-                    
-                    variantEntity.setImages(imageEntities);
-                    variantEntity.setProduct(productEntity);
-                    return variantEntity;
-                })
+    private static int available(ProductVariantEntity variant) {
+        return variant.getStock() - variant.getReserved();
+    }
+
+    private void publishChange(Long productId, ChangeType type) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, type));
+    }
+
+    // Renditions are generated after commit; images that already have them are skipped there.
+    private void publishImagesStored(List<ProductEntity> entities) {
+        List<String> contentHashes = entities.stream()
+                .flatMap(entity -> entity.getVariants().stream())
+                .flatMap(variant -> variant.getImages().stream())
+                .map(ProductImageEntity::getContentHash)
+                .distinct()
                 .collect(Collectors.toList());
-        
-        productEntity.setVariants(variantEntities);
-        return productEntity;
+        if (!contentHashes.isEmpty()) {
+            eventPublisher.publishEvent(new ProductImagesStoredEvent(contentHashes));
+        }
     }
-    
-    private List<ProductVariantEntity> mapProductVariantsToEntities(List<ProductVariant> variants, ProductEntity productEntity) {
-        if (variants == null) {
-            return new ArrayList<>();
+
+    /**
+     * Applies the requested variants onto the loaded ones by id: known variants are updated in place,
+     * variants without an id are added and missing ones are removed. Unchanged rows produce no SQL.
+     * Requested stock is the stock available, as reads report it; what is reserved is kept on top.
+     * Every write to reserved takes the product row lock held here, so the loaded value is current.
+     */
+    private void syncVariants(ProductEntity productEntity, List<ProductVariant> variants) {
+        Map<Long, ProductVariantEntity> existing = productEntity.getVariants().stream()
+                .collect(Collectors.toMap(ProductVariantEntity::getId, Function.identity()));
+        Set<Long> retained = new HashSet<>();
+        List<ProductVariantEntity> added = new ArrayList<>();
+
+        for (ProductVariant variant : variants) {
+            if (variant.getStock() < 0) {
+                throw new IllegalArgumentException("Stock of product variant " + variant.getId() + " cannot be negative.");
+            }
+            ProductVariantEntity entity;
+            if (isNew(variant.getId())) {
+                entity = new ProductVariantEntity();
+                entity.setProduct(productEntity);
+                entity.setImages(new ArrayList<>());
+                added.add(entity);
+            } else {
+                entity = existing.get(variant.getId());
+                if (entity == null) {
+                    throw new RuntimeException("Product variant not found with ID: " + variant.getId());
+                }
+                retained.add(entity.getId());
+            }
+            entity.setPrice(variant.getPrice());
+            entity.setStock(variant.getStock() + entity.getReserved());
+            entity.setColor(variant.getColor());
+            entity.setSize(variant.getSize());
+            syncImages(entity, variant.getImages() == null ? new ArrayList<>() : variant.getImages());
         }
-        return variants.stream()
-                .map(variant -> {
-                    ProductVariantEntity entity = new ProductVariantEntity();
-                    entity.setId(variant.getId());
-                    entity.setPrice(variant.getPrice());
-                    entity.setStock(variant.getStock());
-                    entity.setColor(variant.getColor());
-                    entity.setSize(variant.getSize());
-                    entity.setProduct(productEntity);
-                    entity.setImages(mapProductImagesToEntities(variant.getImages(), entity));
-                    return entity;
-                })
-                .collect(Collectors.toList());
+
+        productEntity.getVariants().removeIf(entity -> !retained.contains(entity.getId()));
+        productEntity.getVariants().addAll(added);
     }
 
-    private List<ProductImageEntity> mapProductImagesToEntities(List<ProductImage> images, ProductVariantEntity variantEntity) {
-        if (images == null) {
-            return new ArrayList<>();
+    /**
+     * Same diff for images. An image sent with its id and no data is kept as it is, so unchanged
+     * images never have to be re-sent.
+     */
+    private void syncImages(ProductVariantEntity variantEntity, List<ProductImage> images) {
+        Map<Long, ProductImageEntity> existing = variantEntity.getImages().stream()
+                .collect(Collectors.toMap(ProductImageEntity::getId, Function.identity()));
+        Set<Long> retained = new HashSet<>();
+        List<ProductImageEntity> added = new ArrayList<>();
+
+        for (ProductImage image : images) {
+            boolean hasData = image.getBase64Data() != null && !image.getBase64Data().isEmpty();
+            boolean hasUpload = image.getUploadId() != null && !image.getUploadId().isEmpty();
+            if (isNew(image.getId())) {
+                if (!hasData && !hasUpload) {
+                    throw new IllegalArgumentException("Image data or an upload id is required for new images.");
+                }
+                ProductImageEntity entity = new ProductImageEntity();
+                storeImage(entity, image);
+                entity.setProductVariant(variantEntity);
+                added.add(entity);
+                continue;
+            }
+            ProductImageEntity entity = existing.get(image.getId());
+            if (entity == null) {
+                throw new RuntimeException("Product image not found with ID: " + image.getId());
+            }
+            if (hasData || hasUpload) {
+                storeImage(entity, image);
+            }
+            retained.add(entity.getId());
         }
-        return images.stream()
-                .map(image -> {
-                    ProductImageEntity entity = new ProductImageEntity();
-                    entity.setId(image.getId());
-                    entity.setBase64Data(image.getBase64Data());
-                    entity.setProductVariant(variantEntity);
-                    return entity;
-                })
-                .collect(Collectors.toList());
+
+        variantEntity.getImages().removeIf(entity -> !retained.contains(entity.getId()));
+        variantEntity.getImages().addAll(added);
     }
-    //endregion
 
-   
-}
\ No newline at end of file
+    private void storeImage(ProductImageEntity entity, ProductImage image) {
+        if (image.getUploadId() != null && !image.getUploadId().isEmpty()) {
+            mapper.attachUploadedImage(entity, image.getUploadId(), image.getContentType());
+        } else {
+            mapper.storeImage(entity, image.getBase64Data());
+        }
+    }
+
+    private static boolean isNew(Long id) {
+        return id == null || id == 0;
+    }
+}
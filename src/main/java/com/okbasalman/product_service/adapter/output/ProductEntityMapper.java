@@ -0,0 +1,207 @@
+package com.okbasalman.product_service.adapter.output;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductEntity;
+import com.okbasalman.product_service.adapter.output.entity.ProductImageEntity;
+import com.okbasalman.product_service.adapter.output.entity.ProductVariantEntity;
+import com.okbasalman.product_service.adapter.output.repository.ProductRowView;
+import com.okbasalman.product_service.adapter.output.repository.ProductSummaryView;
+import com.okbasalman.product_service.adapter.output.repository.ProductVariantRowView;
+import com.okbasalman.product_service.adapter.output.storage.Base64ImageCodec;
+import com.okbasalman.product_service.adapter.output.storage.Base64ImageCodec.DecodedImage;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.StoredImage;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Conversions between the JPA entities and the domain model. Image bytes are read from
+ * and written to the {@link ImageStoragePort}; the entities only hold their content hash.
+ * A variant's stock is what is available, its stored stock less what is reserved.
+ */
+public class ProductEntityMapper {
+
+    private final ImageStoragePort imageStorage;
+
+    public ProductEntityMapper(ImageStoragePort imageStorage) {
+        this.imageStorage = imageStorage;
+    }
+
+    public Product mapToProduct(ProductEntity entity) {
+        return mapToProduct(entity, true);
+    }
+
+    /**
+     * Without image data, images keep their id, size and content type and storage is not read.
+     */
+    public Product mapToProduct(ProductEntity entity, boolean withImageData) {
+        Product product = new Product();
+        product.setId(entity.getId());
+        product.setName(entity.getName());
+        product.setDescription(entity.getDescription());
+        product.setSeason(entity.getSeason());
+        product.setVariants(mapToProductVariants(entity.getVariants(), withImageData));
+        product.setMinPrice(minPrice(product.getVariants()));
+        product.setVersion(entity.getVersion());
+        return product;
+    }
+
+    public Product mapToProduct(ProductSummaryView view) {
+        Product product = new Product();
+        product.setId(view.id());
+        product.setName(view.name());
+        product.setSeason(view.season());
+        product.setVariants(new ArrayList<>());
+        product.setMinPrice(view.minPrice());
+        product.setVersion(view.version());
+        return product;
+    }
+
+    public List<Product> mapToProducts(List<ProductRowView> rows, List<ProductVariantRowView> variantRows) {
+        Map<Long, List<ProductVariant>> variantsByProduct = variantRows.stream()
+                .collect(Collectors.groupingBy(ProductVariantRowView::productId, Collectors.mapping(row -> {
+                    ProductVariant variant = new ProductVariant();
+                    variant.setId(row.id());
+                    variant.setPrice(row.price());
+                    variant.setStock(row.stock());
+                    variant.setColor(row.color());
+                    variant.setSize(row.size());
+                    variant.setImages(new ArrayList<>());
+                    return variant;
+                }, Collectors.toList())));
+        return rows.stream()
+                .map(row -> {
+                    Product product = new Product();
+                    product.setId(row.id());
+                    product.setName(row.name());
+                    product.setDescription(row.description());
+                    product.setSeason(row.season());
+                    product.setVariants(variantsByProduct.getOrDefault(row.id(), new ArrayList<>()));
+                    product.setMinPrice(minPrice(product.getVariants()));
+                    product.setVersion(row.version());
+                    return product;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private BigDecimal minPrice(List<ProductVariant> variants) {
+        return variants.stream()
+                .map(ProductVariant::getPrice)
+                .min(BigDecimal::compareTo)
+                .orElse(null);
+    }
+
+    private List<ProductVariant> mapToProductVariants(List<ProductVariantEntity> entities, boolean withImageData) {
+        if (entities == null) {
+            return new ArrayList<>();
+        }
+        return entities.stream()
+                .map(entity -> mapToProductVariant(entity, withImageData))
+                .collect(Collectors.toList());
+    }
+
+    private ProductVariant mapToProductVariant(ProductVariantEntity entity, boolean withImageData) {
+        ProductVariant variant = new ProductVariant();
+        variant.setId(entity.getId());
+        variant.setPrice(entity.getPrice());
+        variant.setStock(entity.getStock() - entity.getReserved());
+        variant.setColor(entity.getColor());
+        variant.setSize(entity.getSize());
+        variant.setImages(mapToProductImages(entity.getImages(), withImageData));
+        return variant;
+    }
+
+    private List<ProductImage> mapToProductImages(List<ProductImageEntity> entities, boolean withImageData) {
+        if (entities == null) {
+            return new ArrayList<>();
+        }
+        return entities.stream()
+                .map(entity -> withImageData ? mapToProductImage(entity) : mapToProductImageRef(entity))
+                .collect(Collectors.toList());
+    }
+
+    private ProductImage mapToProductImage(ProductImageEntity entity) {
+        ProductImage image = mapToProductImageRef(entity);
+        image.setBase64Data(Base64ImageCodec.encode(
+                imageStorage.load(entity.getContentHash()), entity.getContentType(), entity.isDataUri()));
+        return image;
+    }
+
+    public ProductImage mapToProductImageRef(ProductImageEntity entity) {
+        ProductImage image = new ProductImage();
+        image.setId(entity.getId());
+        image.setContentHash(entity.getContentHash());
+        image.setContentType(entity.getContentType());
+        image.setSizeBytes(entity.getSizeBytes());
+        return image;
+    }
+
+    public ProductEntity mapToProductEntity(ProductCreateDto dto) {
+        ProductEntity productEntity = new ProductEntity();
+        productEntity.setName(dto.getName());
+        productEntity.setDescription(dto.getDescription());
+        productEntity.setSeason(dto.getSeason());
+        
+        List<ProductVariantEntity> variantEntities = dto.getVariants().stream()
+                .map(variantDto -> {
+                    ProductVariantEntity variantEntity = new ProductVariantEntity();
+                    variantEntity.setPrice(variantDto.getPrice());
+                    variantEntity.setStock(variantDto.getStock());
+                    variantEntity.setColor(variantDto.getColor());
+                    variantEntity.setSize(variantDto.getSize());
+                    
+                    List<ProductImageEntity> imageEntities = variantDto.getBase64Images().stream()
+                        .map(base64 -> {
+                            ProductImageEntity imageEntity = new ProductImageEntity();
+                            storeImage(imageEntity, base64);
+                            imageEntity.setProductVariant(variantEntity);
+                            return imageEntity;
+                        })
+                        .collect(Collectors.toCollection(ArrayList::new));
+                    if (variantDto.getUploadedImages() != null) {
+                        variantDto.getUploadedImages().forEach(uploaded -> {
+                            ProductImageEntity imageEntity = new ProductImageEntity();
+                            attachUploadedImage(imageEntity, uploaded.getUploadId(), uploaded.getContentType());
+                            imageEntity.setProductVariant(variantEntity);
+                            imageEntities.add(imageEntity);
+                        });
+                    }
+                    
+                    variantEntity.setImages(imageEntities);
+                    variantEntity.setProduct(productEntity);
+                    return variantEntity;
+                })
+                .collect(Collectors.toList());
+        
+        productEntity.setVariants(variantEntities);
+        return productEntity;
+    }
+
+    public void storeImage(ProductImageEntity entity, String base64) {
+        DecodedImage decoded = Base64ImageCodec.decode(base64);
+        StoredImage stored = imageStorage.store(decoded.data());
+        entity.setContentHash(stored.getContentHash());
+        entity.setSizeBytes(stored.getSizeBytes());
+        entity.setContentType(decoded.contentType());
+        entity.setDataUri(decoded.dataUri());
+    }
+
+    /**
+     * Points the entity at a blob already written by an upload; the upload id is its content hash.
+     */
+    public void attachUploadedImage(ProductImageEntity entity, String uploadId, String contentType) {
+        StoredImage stored = imageStorage.find(uploadId)
+                .orElseThrow(() -> new IllegalArgumentException("No uploaded image with id: " + uploadId));
+        entity.setContentHash(stored.getContentHash());
+        entity.setSizeBytes(stored.getSizeBytes());
+        entity.setContentType(contentType == null || contentType.isEmpty() ? null : contentType);
+        entity.setDataUri(false);
+    }
+}
@@ -0,0 +1,60 @@
+package com.okbasalman.product_service.adapter.output.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps values read before a product changed out of a cache keyed by product id. A reader takes
+ * {@link #epoch} before it loads, and the value is only stored if no eviction for that id happened
+ * since and the product has not changed within the last replicaStaleness, when its load may have
+ * come from a replica that had not seen the change yet.
+ * <p>
+ * The check runs inside {@code asMap().compute}, so it is atomic with the eviction's invalidate:
+ * either the eviction is seen and nothing is stored, or the store happens first and is invalidated.
+ */
+public class CacheEvictionGuard {
+
+    private static final int EPOCH_STRIPES = 64;
+
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final Cache<Long, Boolean> recentlyChanged;
+
+    public CacheEvictionGuard(Duration replicaStaleness) {
+        this.recentlyChanged = Caffeine.newBuilder()
+                .expireAfterWrite(replicaStaleness)
+                .build();
+    }
+
+    public long epoch(Long id) {
+        return epochs.get(stripe(id));
+    }
+
+    // Stores a value loaded after epoch(id) returned epochBeforeLoad.
+    public <V> void put(Cache<Long, V> cache, Long id, long epochBeforeLoad, V value) {
+        cache.asMap().compute(id, (key, existing) -> canCache(id, epochBeforeLoad) ? value : existing);
+    }
+
+    // Stores a value that is older than any load since startup, such as one from a snapshot.
+    public <V> void putIfAbsent(Cache<Long, V> cache, Long id, V value) {
+        cache.asMap().compute(id, (key, existing) ->
+                existing == null && recentlyChanged.getIfPresent(id) == null ? value : existing);
+    }
+
+    // The epoch and the recent change are recorded before the invalidate, which the puts rely on.
+    public void evict(Cache<Long, ?> cache, Long id) {
+        epochs.incrementAndGet(stripe(id));
+        recentlyChanged.put(id, Boolean.TRUE);
+        cache.invalidate(id);
+    }
+
+    private boolean canCache(Long id, long epochBeforeLoad) {
+        return epochs.get(stripe(id)) == epochBeforeLoad && recentlyChanged.getIfPresent(id) == null;
+    }
+
+    private static int stripe(Long id) {
+        return (int) (id & (EPOCH_STRIPES - 1));
+    }
+}
@@ -0,0 +1,299 @@
+package com.okbasalman.product_service.adapter.output.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
+import com.okbasalman.product_service.domain.dto.DeleteProductResultDto;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
+import com.okbasalman.product_service.domain.event.CatalogSnapshotLoadedEvent;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
+import com.okbasalman.product_service.domain.port.output.ProductRepositoryPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of domain {@link Product}s in front of another {@link ProductRepositoryPort}.
+ * Writes pass straight through; entries are evicted from {@link ProductChangedEvent}s, once as soon
+ * as the change happens and again after the transaction commits.
+ */
+public class CachingProductRepository implements ProductRepositoryPort, MeterBinder {
+
+    private final ProductRepositoryPort delegate;
+    private final Cache<Long, Product> cache;
+    // Keeps loads that raced with a write, or that may have come from a lagging replica, out of the cache.
+    private final CacheEvictionGuard guard;
+    private final long maxWeightBytes;
+    private final int minWeight;
+
+    public CachingProductRepository(ProductRepositoryPort delegate, long maxSize, long maxWeightBytes, Duration ttl,
+                                    Duration replicaStaleness) {
+        this.delegate = delegate;
+        this.guard = new CacheEvictionGuard(replicaStaleness);
+        // Caffeine bounds either entry count or weight, not both. Giving every entry a weight of at
+        // least maxWeightBytes / maxSize enforces both limits with a single weight budget.
+        this.maxWeightBytes = maxWeightBytes;
+        this.minWeight = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxWeightBytes / maxSize));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((Long id, Product product) -> weigh(product))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Product findById(Long id) {
+        Product cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long epoch = guard.epoch(id);
+        Product product = delegate.findById(id);
+        guard.put(cache, id, epoch, product);
+        return product;
+    }
+
+    /**
+     * Narrower projections are derived from a cached full product when there is one,
+     * but are never cached themselves.
+     */
+    @Override
+    public Product findById(Long id, Projection projection) {
+        if (projection == Projection.FULL) {
+            return findById(id);
+        }
+        Product cached = cache.getIfPresent(id);
+        return cached != null ? projection.applyTo(cached) : delegate.findById(id, projection);
+    }
+
+    @Override
+    public List<Product> findAllByIds(Collection<Long> ids, Projection projection) {
+        Map<Long, Product> found = new LinkedHashMap<>();
+        cache.getAllPresent(ids).forEach((id, product) -> found.put(id, projection.applyTo(product)));
+        List<Long> missing = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            long[] epochsBefore = missing.stream().mapToLong(guard::epoch).toArray();
+            List<Product> loaded = delegate.findAllByIds(missing, projection);
+            loaded.forEach(product -> found.put(product.getId(), product));
+            for (int i = 0; projection == Projection.FULL && i < missing.size(); i++) {
+                Product product = found.get(missing.get(i));
+                if (product != null) {
+                    guard.put(cache, product.getId(), epochsBefore[i], product);
+                }
+            }
+        }
+        return ids.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Never answered from the cache: a cached product may be older than a change not yet evicted.
+    @Override
+    public Map<Long, Long> findVersions(Collection<Long> ids) {
+        return delegate.findVersions(ids);
+    }
+
+    @Override
+    public ProductImage findImage(Long imageId) {
+        return delegate.findImage(imageId);
+    }
+
+    @Override
+    public Set<String> findReferencedImageHashes(Collection<String> contentHashes) {
+        return delegate.findReferencedImageHashes(contentHashes);
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Product> findPage(Long afterId, int limit, Projection projection) {
+        return delegate.findPage(afterId, limit, projection);
+    }
+
+    @Override
+    public Product create(ProductCreateDto dto) {
+        return delegate.create(dto);
+    }
+
+    @Override
+    public List<Long> createAll(List<ProductCreateDto> dtos) {
+        return delegate.createAll(dtos);
+    }
+
+    @Override
+    public Product update(Product product) {
+        return delegate.update(product);
+    }
+
+    @Override
+    public DeleteProductResultDto deleteById(Long id) {
+        return delegate.deleteById(id);
+    }
+
+    @Override
+    public Product decreaseStock(Long productVariantId, int quantity) {
+        return delegate.decreaseStock(productVariantId, quantity);
+    }
+
+    @Override
+    public StockLevel decreaseStockLevel(Long productVariantId, int quantity) {
+        return delegate.decreaseStockLevel(productVariantId, quantity);
+    }
+
+    @Override
+    public StockBatchResultDto decreaseStockBatch(List<StockLineDto> lines) {
+        return delegate.decreaseStockBatch(lines);
+    }
+
+    @Override
+    public StockReservation reserveStock(Long productVariantId, int quantity, Instant expiresAt) {
+        return delegate.reserveStock(productVariantId, quantity, expiresAt);
+    }
+
+    @Override
+    public StockLevel commitReservation(Long reservationId) {
+        return delegate.commitReservation(reservationId);
+    }
+
+    @Override
+    public StockLevel releaseReservation(Long reservationId) {
+        return delegate.releaseReservation(reservationId);
+    }
+
+    @Override
+    public int releaseExpiredReservations(Instant now, int limit) {
+        return delegate.releaseExpiredReservations(now, limit);
+    }
+
+    @Override
+    public BulkAdjustResultDto bulkAdjust(BulkAdjustDto adjustment, Long afterProductId, int limit) {
+        return delegate.bulkAdjust(adjustment, afterProductId, limit);
+    }
+
+    @Override
+    public StockLease leaseStock(String owner, Long productVariantId, int quantity) {
+        return delegate.leaseStock(owner, productVariantId, quantity);
+    }
+
+    @Override
+    public Optional<StockLevel> settleLeasedStock(String owner, Long productVariantId, long sold, long journalSequence) {
+        return delegate.settleLeasedStock(owner, productVariantId, sold, journalSequence);
+    }
+
+    @Override
+    public void releaseLeasedStock(String owner, Long productVariantId, int quantity) {
+        delegate.releaseLeasedStock(owner, productVariantId, quantity);
+    }
+
+    @Override
+    public int renewStockLeases(String owner, Instant now) {
+        return delegate.renewStockLeases(owner, now);
+    }
+
+    @Override
+    public int releaseExpiredStockLeases(Instant expiredBefore, int limit) {
+        return delegate.releaseExpiredStockLeases(expiredBefore, limit);
+    }
+
+    @Override
+    public List<StockLease> findStockLeases(String owner) {
+        return delegate.findStockLeases(owner);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "products");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @EventListener
+    public void evictOnChange(ProductChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void evictAfterCommit(ProductChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    /**
+     * Fills the cache from a catalog snapshot until its weight budget is used up. Entries loaded
+     * since startup are newer than the snapshot and kept.
+     */
+    @EventListener
+    public void warm(CatalogSnapshotLoadedEvent event) {
+        event.getChangedProductIds().forEach(this::evict);
+        long budget = maxWeightBytes;
+        for (Product product : event.getFullProducts()) {
+            budget -= weigh(product);
+            if (budget < 0) {
+                break;
+            }
+            guard.putIfAbsent(cache, product.getId(), product);
+        }
+    }
+
+    private void evict(Long id) {
+        guard.evict(cache, id);
+    }
+
+    private int weigh(Product product) {
+        return Math.max(minWeight, estimateWeight(product));
+    }
+
+    private static int estimateWeight(Product product) {
+        long bytes = 64 + length(product.getName()) + length(product.getDescription());
+        for (ProductVariant variant : product.getVariants()) {
+            bytes += 64 + length(variant.getColor());
+            for (ProductImage image : variant.getImages()) {
+                bytes += 64 + length(image.getBase64Data());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,46 @@
+package com.okbasalman.product_service.adapter.output.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * Stock of a variant leased by one service instance for its hot stock counters. The same
+ * quantity is included in the variant's {@code reserved} column. {@code journalSequence} is the
+ * last journal sequence settled against the lease, which makes settling a segment idempotent.
+ * The owner renews {@code renewedAt} while it is serving, and a lease left unrenewed past its
+ * expiry is released by whichever instance sweeps it first.
+ */
+@Data
+@Entity
+@Table(name = "hot_stock_leases", uniqueConstraints = @UniqueConstraint(
+        name = "uk_hot_stock_leases_owner_variant", columnNames = {"owner", "product_variant_id"}))
+public class HotStockLeaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hot_stock_leases_seq")
+    @SequenceGenerator(name = "hot_stock_leases_seq", sequenceName = "hot_stock_leases_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "product_variant_id", nullable = false)
+    private Long productVariantId;
+
+    @Column(nullable = false)
+    private int leased;
+
+    @Column(name = "journal_sequence", nullable = false)
+    private long journalSequence;
+
+    @Column(name = "renewed_at", nullable = false)
+    private Instant renewedAt;
+}
@@ -0,0 +1,41 @@
+package com.okbasalman.product_service.adapter.output.entity;
+
+import java.time.Instant;
+
+import com.okbasalman.product_service.domain.event.ProductChangedEvent.ChangeType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Outbox row for one product change. Sequences are allocated one at a time so they
+ * follow insert order; readers still have to allow for gaps left by open transactions.
+ */
+@Data
+@Entity
+@Table(name = "product_changes", indexes = @Index(name = "idx_product_changes_changed_at", columnList = "changed_at"))
+public class ProductChangeEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_changes_seq")
+    @SequenceGenerator(name = "product_changes_seq", sequenceName = "product_changes_seq", allocationSize = 1)
+    private Long sequence;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
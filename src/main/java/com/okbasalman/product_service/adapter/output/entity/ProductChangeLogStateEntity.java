@@ -0,0 +1,25 @@
+package com.okbasalman.product_service.adapter.output.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * The single row of change log bookkeeping that has to survive the log itself.
+ * {@code purgedThrough} is the highest sequence ever purged: every change after it is still in
+ * the log, even when the log is empty.
+ */
+@Data
+@Entity
+@Table(name = "product_change_log_state")
+public class ProductChangeLogStateEntity {
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "purged_through", nullable = false)
+    private long purgedThrough;
+}
@@ -4,12 +4,14 @@ package com.okbasalman.product_service.adapter.output.entity;
 
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 
 import com.okbasalman.product_service.domain.model.Season;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,6 +19,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
@@ -25,7 +28,8 @@ import lombok.Data;
 @Table(name = "products")
 public class ProductEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -34,6 +38,11 @@ public class ProductEntity {
     @Enumerated(EnumType.STRING)
     private Season season;
 
+    // Bumped on every change to the product, its variants, images or stock. Not a JPA @Version:
+    // stock decrements bump it in SQL, and updates check it under a row lock instead.
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     @Fetch(FetchMode.SUBSELECT)
@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -17,12 +18,21 @@ import lombok.ToString;
 @Table(name = "product_images")
 public class ProductImageEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_images_seq")
+    @SequenceGenerator(name = "product_images_seq", sequenceName = "product_images_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
 
-    @Column(columnDefinition = "TEXT")
-    private String base64Data;
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "data_uri", nullable = false)
+    private boolean dataUri;
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
@@ -0,0 +1,40 @@
+package com.okbasalman.product_service.adapter.output.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Quantity of a variant held for a checkout until {@code expiresAt}. The variant's
+ * {@code reserved} column is the running total of these rows, so reads never sum them;
+ * the index on {@code expires_at} lets the sweeper find expired rows without a scan.
+ */
+@Data
+@Entity
+@Table(name = "stock_reservations", indexes = @Index(name = "idx_stock_reservations_expires_at", columnList = "expires_at"))
+public class StockReservationEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservations_seq")
+    @SequenceGenerator(name = "stock_reservations_seq", sequenceName = "stock_reservations_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_variant_id", nullable = false)
+    private Long productVariantId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
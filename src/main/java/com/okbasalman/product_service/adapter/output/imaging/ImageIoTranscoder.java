@@ -0,0 +1,107 @@
+package com.okbasalman.product_service.adapter.output.imaging;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.port.output.ImageTranscoderPort;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Scales images with the JDK's ImageIO. Large sources are subsampled while decoding, so a
+ * photo is never inflated to full resolution just to produce a small rendition. Opaque images
+ * are re-encoded as JPEG and images with transparency as PNG.
+ */
+public class ImageIoTranscoder implements ImageTranscoderPort {
+
+    private final float jpegQuality;
+
+    public ImageIoTranscoder(float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+    }
+
+    @Override
+    public Optional<Map<ImageRendition, byte[]>> transcode(InputStream original, List<ImageRendition> renditions) {
+        int largest = renditions.stream().mapToInt(ImageRendition::getMaxDimension).max().orElse(0);
+        try (ImageInputStream input = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            BufferedImage source;
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // keep at least twice the largest target size so the final scale still has detail to work with
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / Math.max(1, largest * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+
+            Map<ImageRendition, byte[]> encoded = new EnumMap<>(ImageRendition.class);
+            for (ImageRendition rendition : renditions) {
+                encoded.put(rendition, encode(scale(source, rendition.getMaxDimension())));
+            }
+            return Optional.of(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to transcode image", e);
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxDimension) {
+        boolean alpha = source.getColorModel().hasAlpha();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", bytes);
+            return bytes.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.okbasalman.product_service.adapter.output.imaging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.okbasalman.product_service.adapter.output.storage.Base64ImageCodec;
+import com.okbasalman.product_service.domain.event.ProductImagesStoredEvent;
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.port.output.ImageRenditionPort;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+import com.okbasalman.product_service.domain.port.output.ImageTranscoderPort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Generates the smaller renditions of every stored image on a bounded worker pool, after the
+ * write that stored it has committed, so writes never wait for image processing. Reads that
+ * find a rendition missing, because it is still queued or the queue was full, get the original
+ * and queue it again.
+ */
+@Slf4j
+public class ImageRenditionPipeline implements ImageRenditionPort {
+
+    private static final List<ImageRendition> GENERATED = Arrays.stream(ImageRendition.values())
+            .filter(rendition -> rendition != ImageRendition.ORIGINAL)
+            .toList();
+
+    private final ImageStoragePort storage;
+    private final ImageTranscoderPort transcoder;
+    private final ExecutorService workers;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // images the transcoder cannot decode, served as originals; one evicted is only tried again
+    private final Cache<String, Boolean> unsupported;
+
+    public ImageRenditionPipeline(ImageStoragePort storage, ImageTranscoderPort transcoder, ExecutorService workers,
+                                  long maxUnsupported) {
+        this.storage = storage;
+        this.transcoder = transcoder;
+        this.workers = workers;
+        this.unsupported = Caffeine.newBuilder()
+                .maximumSize(maxUnsupported)
+                .build();
+    }
+
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImagesStored(ProductImagesStoredEvent event) {
+        requestRenditions(event.getContentHashes());
+    }
+
+    @Override
+    public void requestRenditions(Collection<String> contentHashes) {
+        for (String contentHash : contentHashes) {
+            if (unsupported.getIfPresent(contentHash) != null || !pending.add(contentHash)) {
+                continue;
+            }
+            try {
+                workers.execute(() -> generate(contentHash));
+            } catch (RejectedExecutionException e) {
+                pending.remove(contentHash);
+                log.debug("Rendition queue is full; image {} will be queued again on its next read", contentHash);
+            }
+        }
+    }
+
+    @Override
+    public List<Product> applyTo(List<Product> products, ImageRendition rendition) {
+        List<String> missing = new ArrayList<>();
+        for (Product product : products) {
+            for (ProductVariant variant : product.getVariants()) {
+                for (ProductImage image : variant.getImages()) {
+                    Optional<byte[]> data = storage.loadRendition(image.getContentHash(), rendition);
+                    if (data.isPresent()) {
+                        image.setBase64Data(dataUri(data.get(), null));
+                    } else {
+                        missing.add(image.getContentHash());
+                        image.setBase64Data(dataUri(storage.load(image.getContentHash()), image.getContentType()));
+                    }
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            requestRenditions(missing);
+        }
+        return products;
+    }
+
+    private void generate(String contentHash) {
+        try {
+            List<ImageRendition> missing = GENERATED.stream()
+                    .filter(rendition -> !storage.hasRendition(contentHash, rendition))
+                    .toList();
+            if (missing.isEmpty()) {
+                return;
+            }
+            Optional<Map<ImageRendition, byte[]>> encoded;
+            try (InputStream original = storage.openStream(contentHash)) {
+                encoded = transcoder.transcode(original, missing);
+            }
+            if (encoded.isEmpty()) {
+                unsupported.put(contentHash, Boolean.TRUE);
+                return;
+            }
+            encoded.get().forEach((rendition, data) -> storage.storeRendition(contentHash, rendition, data));
+        } catch (Exception e) {
+            log.warn("Failed to generate renditions of image {}", contentHash, e);
+        } finally {
+            pending.remove(contentHash);
+        }
+    }
+
+    // Renditions change the format, so they always go out as data URIs that say which one it is.
+    private static String dataUri(byte[] data, String contentType) {
+        String type = contentType == null || contentType.isEmpty() ? Base64ImageCodec.sniffContentType(data) : contentType;
+        return Base64ImageCodec.encode(data, type, true);
+    }
+}
@@ -0,0 +1,60 @@
+package com.okbasalman.product_service.adapter.output.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Counts the SQL statements executed and rows read on behalf of one unit of work,
+ * typically one gRPC call. Work run through {@link #runWith} or {@link #callWith} is attributed
+ * to this counter; statements issued from other threads (e.g. the lookup coalescer) are not.
+ */
+public class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    public void runWith(Runnable work) {
+        callWith(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T callWith(Supplier<T> work) {
+        QueryCounter previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public long getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    static void statementExecuted() {
+        QueryCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.statements.incrementAndGet();
+        }
+    }
+
+    static void rowRead() {
+        QueryCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.rows.incrementAndGet();
+        }
+    }
+}
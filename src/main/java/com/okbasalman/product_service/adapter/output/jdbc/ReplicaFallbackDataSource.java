@@ -0,0 +1,49 @@
+package com.okbasalman.product_service.adapter.output.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out replica connections while the {@link ReplicaLagMonitor} considers the replica
+ * usable, and primary connections otherwise or when the replica refuses a connection.
+ */
+public class ReplicaFallbackDataSource extends DelegatingDataSource {
+
+    private final DataSource primary;
+    private final ReplicaLagMonitor monitor;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, ReplicaLagMonitor monitor) {
+        super(replica);
+        this.primary = primary;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!monitor.isUsable()) {
+            return primary.getConnection();
+        }
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            monitor.markUnavailable(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!monitor.isUsable()) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return super.getConnection(username, password);
+        } catch (SQLException e) {
+            monitor.markUnavailable(e);
+            return primary.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.okbasalman.product_service.adapter.output.jdbc;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls a Postgres replica for its replay lag and reports whether reads may go to it.
+ * A replica that fails the check or falls more than {@code maxLag} behind is skipped until
+ * a later check finds it healthy again. A server that is not in recovery counts as having
+ * no lag, so a plain second instance can stand in for a replica locally.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    // An idle primary writes no WAL, so an old replay timestamp only means lag while WAL is still being replayed.
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final DataSource replica;
+    private final ScheduledExecutorService executor;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource replica, ScheduledExecutorService executor, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.executor = executor;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+    }
+
+    public void start() {
+        check();
+        executor.scheduleWithFixedDelay(this::check, checkInterval.toNanos(), checkInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    // -1 while the replica is unreachable
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * How far behind the primary a read served by the replica can be: the lag allowed
+     * plus the time until the next check notices it has been exceeded.
+     */
+    public Duration maxStaleness() {
+        return maxLag.plus(checkInterval);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("product.datasource.replica.lag", this, ReplicaLagMonitor::lagMillis)
+                .baseUnit("milliseconds")
+                .description("Replay lag of the read replica, -1 while it is unreachable")
+                .register(registry);
+        Gauge.builder("product.datasource.replica.usable", this, monitor -> monitor.isUsable() ? 1 : 0)
+                .register(registry);
+    }
+
+    // Called when a connection attempt fails, so reads stop trying the replica before the next check.
+    public void markUnavailable(SQLException cause) {
+        if (usable) {
+            log.warn("Replica connection failed, reading from the primary until it recovers", cause);
+        }
+        usable = false;
+        lagMillis = -1;
+    }
+
+    private void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(LAG_QUERY)) {
+            result.next();
+            long lag = (long) result.getDouble(1);
+            boolean withinLimit = lag <= maxLag.toMillis();
+            if (withinLimit != usable) {
+                if (withinLimit) {
+                    log.info("Replica is {} ms behind, routing read-only transactions to it", lag);
+                } else {
+                    log.warn("Replica is {} ms behind, reading from the primary until it catches up", lag);
+                }
+            }
+            lagMillis = lag;
+            usable = withinLimit;
+        } catch (SQLException | RuntimeException e) {
+            if (usable) {
+                log.warn("Replica lag check failed, reading from the primary until it recovers", e);
+            }
+            usable = false;
+            lagMillis = -1;
+        }
+    }
+}
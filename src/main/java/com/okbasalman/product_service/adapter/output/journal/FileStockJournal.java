@@ -0,0 +1,341 @@
+package com.okbasalman.product_service.adapter.output.journal;
+
+import com.okbasalman.product_service.domain.model.JournaledSales;
+import com.okbasalman.product_service.domain.port.output.StockJournalPort;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of hot stock sales in numbered segment files. A single writer thread
+ * takes every sale queued since its last write, writes them together and forces them to disk
+ * with one fsync before releasing their callers, so the cost of an fsync is shared by all the
+ * sales that arrived while the previous one was in progress.
+ *
+ * <p>Each record is {@code sequence, variant id, quantity, CRC32C}. Reading a segment stops at
+ * the first short or corrupt record, which is where a crash interrupted the last write.
+ *
+ * <p>A segment is named after the first sequence it will hold and is created before anything is
+ * written to it, so the segment being written always records the next sequence even when it is
+ * empty and every older segment has been settled and deleted. Sequences therefore never go
+ * back after a restart, which settling relies on to skip what it has already applied.
+ */
+@Slf4j
+public class FileStockJournal implements StockJournalPort {
+
+    private static final int RECORD_SIZE = 24;
+    private static final int MAX_BATCH = 4096;
+    private static final String PREFIX = "sales-";
+    private static final String SUFFIX = ".journal";
+    private static final String IDENTITY = "identity";
+
+    private final Path directory;
+    private final ExecutorService writer;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    // closed segments not yet discarded, oldest first
+    private final Deque<Segment> closed = new ArrayDeque<>();
+
+    // owned by the writer thread once open() has returned
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_BATCH * RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private long nextSequence = 1;
+    private Path current;
+    private FileChannel channel;
+    private Map<Long, Long> currentSold = new HashMap<>();
+    private volatile boolean failed;
+
+    public FileStockJournal(Path directory, ExecutorService writer) {
+        this.directory = directory;
+        this.writer = writer;
+    }
+
+    @Override
+    public String identity() {
+        Path path = directory.resolve(IDENTITY);
+        try {
+            Files.createDirectories(directory);
+            if (!Files.exists(path)) {
+                Path created = Files.writeString(directory.resolve(IDENTITY + ".tmp"), UUID.randomUUID().toString());
+                Files.move(created, path, StandardCopyOption.ATOMIC_MOVE);
+                forceDirectory();
+            }
+            return Files.readString(path).trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the stock journal identity in " + directory, e);
+        }
+    }
+
+    @Override
+    public List<JournaledSales> open(long settledThrough) {
+        List<JournaledSales> recovered = new ArrayList<>();
+        nextSequence = Math.max(nextSequence, settledThrough + 1);
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = files.filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                        .sorted()
+                        .toList();
+            }
+            List<Path> empty = new ArrayList<>();
+            for (Path path : segments) {
+                nextSequence = Math.max(nextSequence, firstSequence(path));
+                JournaledSales sales = read(path);
+                if (sales.getSoldByVariant().isEmpty()) {
+                    empty.add(path);
+                    continue;
+                }
+                nextSequence = Math.max(nextSequence, sales.getLastSequence() + 1);
+                closed.add(new Segment(path, sales.getLastSequence()));
+                recovered.add(sales);
+            }
+            // the segment named after the next sequence is reused, so the high-water mark is never off disk
+            startSegment();
+            for (Path path : empty) {
+                if (!path.equals(current)) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the stock journal in " + directory, e);
+        }
+        writer.execute(this::writeLoop);
+        return recovered;
+    }
+
+    @Override
+    public void append(Long productVariantId, int quantity) {
+        Append append = new Append(productVariantId, quantity);
+        await(submit(append, append.done));
+    }
+
+    @Override
+    public Optional<JournaledSales> rotate() {
+        Rotate rotate = new Rotate();
+        return Optional.ofNullable(await(submit(rotate, rotate.done)));
+    }
+
+    @Override
+    public void discardThrough(long sequence) {
+        synchronized (closed) {
+            while (!closed.isEmpty() && closed.peekFirst().lastSequence() <= sequence) {
+                Path path = closed.pollFirst().path();
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Failed to delete settled stock journal segment {}", path, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        failed = true;
+        writer.shutdownNow();
+        queue.forEach(request -> request.fail(new IllegalStateException("The stock journal is closed.")));
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close the stock journal", e);
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Request request, CompletableFuture<T> done) {
+        if (failed) {
+            throw new IllegalStateException("The stock journal is unavailable after a write failure.");
+        }
+        queue.add(request);
+        if (failed) {
+            // the writer may have drained the queue for the last time between the check and the add
+            request.fail(new IllegalStateException("The stock journal is unavailable after a write failure."));
+        }
+        return done;
+    }
+
+    private static <T> T await(CompletableFuture<T> done) {
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the stock journal", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void writeLoop() {
+        List<Request> batch = new ArrayList<>(MAX_BATCH);
+        List<Append> written = new ArrayList<>(MAX_BATCH);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Request request : batch) {
+                    if (request instanceof Append append) {
+                        put(append);
+                        written.add(append);
+                    } else if (request instanceof Rotate rotate) {
+                        // sales queued before the rotation belong to the segment it closes
+                        flush(written);
+                        rotate.done.complete(closeSegment());
+                    }
+                }
+                flush(written);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                // nothing after a failed write can be trusted to be durable, so the journal stops taking sales
+                log.error("Stock journal write failed; hot stock is disabled until restart", e);
+                failed = true;
+                RuntimeException failure = new UncheckedIOException("Failed to write the stock journal",
+                        e instanceof IOException io ? io : new IOException(e));
+                batch.forEach(request -> request.fail(failure));
+                queue.forEach(request -> request.fail(failure));
+                return;
+            } finally {
+                batch.clear();
+                written.clear();
+            }
+        }
+    }
+
+    private void put(Append append) {
+        long sequence = nextSequence++;
+        int start = buffer.position();
+        buffer.putLong(sequence).putLong(append.productVariantId).putInt(append.quantity);
+        crc.reset();
+        crc.update(buffer.duplicate().position(start).limit(start + RECORD_SIZE - 4));
+        buffer.putInt((int) crc.getValue());
+        currentSold.merge(append.productVariantId, (long) append.quantity, Long::sum);
+    }
+
+    private void flush(List<Append> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        buffer.clear();
+        written.forEach(append -> append.done.complete(null));
+        written.clear();
+    }
+
+    private JournaledSales closeSegment() throws IOException {
+        if (currentSold.isEmpty()) {
+            return null;
+        }
+        channel.close();
+        JournaledSales sales = new JournaledSales(nextSequence - 1, currentSold);
+        synchronized (closed) {
+            closed.add(new Segment(current, nextSequence - 1));
+        }
+        currentSold = new HashMap<>();
+        startSegment();
+        return sales;
+    }
+
+    // Truncating drops a torn record left in an empty segment that is being reused.
+    private void startSegment() throws IOException {
+        current = directory.resolve(PREFIX + String.format("%020d", nextSequence) + SUFFIX);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        forceDirectory();
+    }
+
+    private void forceDirectory() throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Unexpected file in the stock journal: " + path, e);
+        }
+    }
+
+    private JournaledSales read(Path path) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path));
+        Map<Long, Long> sold = new HashMap<>();
+        long lastSequence = 0;
+        CRC32C check = new CRC32C();
+        while (records.remaining() >= RECORD_SIZE) {
+            int start = records.position();
+            check.reset();
+            check.update(records.duplicate().position(start).limit(start + RECORD_SIZE - 4));
+            long sequence = records.getLong();
+            long productVariantId = records.getLong();
+            int quantity = records.getInt();
+            if (records.getInt() != (int) check.getValue() || sequence <= lastSequence) {
+                log.warn("Stock journal segment {} ends in a torn record at byte {}", path, start);
+                break;
+            }
+            sold.merge(productVariantId, (long) quantity, Long::sum);
+            lastSequence = sequence;
+        }
+        return new JournaledSales(lastSequence, sold);
+    }
+
+    private record Segment(Path path, long lastSequence) {
+    }
+
+    private abstract static class Request {
+        abstract void fail(RuntimeException failure);
+    }
+
+    private static final class Append extends Request {
+        private final long productVariantId;
+        private final int quantity;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Append(long productVariantId, int quantity) {
+            this.productVariantId = productVariantId;
+            this.quantity = quantity;
+        }
+
+        @Override
+        void fail(RuntimeException failure) {
+            done.completeExceptionally(failure);
+        }
+    }
+
+    private static final class Rotate extends Request {
+        private final CompletableFuture<JournaledSales> done = new CompletableFuture<>();
+
+        @Override
+        void fail(RuntimeException failure) {
+            done.completeExceptionally(failure);
+        }
+    }
+}
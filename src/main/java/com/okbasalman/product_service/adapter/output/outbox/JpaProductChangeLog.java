@@ -0,0 +1,93 @@
+package com.okbasalman.product_service.adapter.output.outbox;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductChangeEntity;
+import com.okbasalman.product_service.adapter.output.repository.ProductChangeLogStateRepository;
+import com.okbasalman.product_service.adapter.output.repository.ProductChangeRepository;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.port.output.ProductChangeLogPort;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of product changes. Every {@link ProductChangedEvent} is written
+ * just before the transaction that caused it commits, so a change is in the log exactly
+ * when the product write is visible.
+ *
+ * <p>Reads are in read-write transactions on purpose. Spring Data would otherwise run them
+ * read-only, which sends them to the replica, where a lagging copy looks like a gap in the
+ * sequence to the change feed.
+ */
+@Repository
+public class JpaProductChangeLog implements ProductChangeLogPort {
+
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductChangeLogStateRepository productChangeLogStateRepository;
+
+    public JpaProductChangeLog(ProductChangeRepository productChangeRepository,
+                               ProductChangeLogStateRepository productChangeLogStateRepository) {
+        this.productChangeRepository = productChangeRepository;
+        this.productChangeLogStateRepository = productChangeLogStateRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void record(ProductChangedEvent event) {
+        ProductChangeEntity entity = new ProductChangeEntity();
+        entity.setProductId(event.getProductId());
+        entity.setChangeType(event.getType());
+        entity.setChangedAt(Instant.now());
+        productChangeRepository.save(entity);
+    }
+
+    @Override
+    @Transactional
+    public List<ProductChange> findAfter(long sequence, int limit) {
+        return productChangeRepository.findBySequenceGreaterThanOrderBySequence(sequence, Limit.of(limit)).stream()
+                .map(this::mapToProductChange)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public List<ProductChange> findBySequences(Collection<Long> sequences) {
+        return productChangeRepository.findBySequenceInOrderBySequence(sequences).stream()
+                .map(this::mapToProductChange)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public long latestSequence() {
+        return productChangeRepository.findMaxSequence();
+    }
+
+    @Override
+    @Transactional
+    public long purgedThrough() {
+        return productChangeLogStateRepository.findPurgedThrough();
+    }
+
+    // Purges by sequence rather than by time so that purgedThrough describes exactly what is gone.
+    @Override
+    @Transactional
+    public int deleteBefore(Instant cutoff) {
+        long through = productChangeRepository.findMaxSequenceChangedBefore(cutoff);
+        if (through == 0) {
+            return 0;
+        }
+        productChangeLogStateRepository.raisePurgedThrough(through);
+        return productChangeRepository.deleteThrough(through);
+    }
+
+    private ProductChange mapToProductChange(ProductChangeEntity entity) {
+        return new ProductChange(entity.getSequence(), entity.getProductId(), entity.getChangeType(), entity.getChangedAt());
+    }
+}
@@ -0,0 +1,47 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import com.okbasalman.product_service.adapter.output.entity.HotStockLeaseEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HotStockLeaseRepository extends JpaRepository<HotStockLeaseEntity, Long> {
+
+    Optional<HotStockLeaseEntity> findByOwnerAndProductVariantId(String owner, Long productVariantId);
+
+    List<HotStockLeaseEntity> findByOwnerOrderByProductVariantId(String owner);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO hot_stock_leases (id, owner, product_variant_id, leased, journal_sequence, renewed_at)
+            VALUES (nextval('hot_stock_leases_seq'), :owner, :productVariantId, :quantity, 0, :now)
+            ON CONFLICT (owner, product_variant_id)
+            DO UPDATE SET leased = hot_stock_leases.leased + EXCLUDED.leased, renewed_at = EXCLUDED.renewed_at
+            """, nativeQuery = true)
+    int addLeased(String owner, Long productVariantId, int quantity, Instant now);
+
+    @Modifying
+    @Query("UPDATE HotStockLeaseEntity l SET l.renewedAt = :now WHERE l.owner = :owner")
+    int renew(String owner, Instant now);
+
+    // Zeroes up to :limit expired leases and returns what each one held. SKIP LOCKED lets several
+    // instances sweep at once, as with expired reservations.
+    @Query(value = """
+            WITH expired AS (
+                SELECT id, leased FROM hot_stock_leases
+                WHERE leased > 0 AND renewed_at < :expiredBefore
+                ORDER BY renewed_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            UPDATE hot_stock_leases l SET leased = 0
+            FROM expired e WHERE l.id = e.id
+            RETURNING l.owner AS "owner", l.product_variant_id AS "productVariantId", e.leased AS "leased"
+            """, nativeQuery = true)
+    List<HotStockLeaseView> releaseExpired(Instant expiredBefore, int limit);
+}
@@ -0,0 +1,7 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+public interface HotStockLeaseView {
+    String getOwner();
+    Long getProductVariantId();
+    Integer getLeased();
+}
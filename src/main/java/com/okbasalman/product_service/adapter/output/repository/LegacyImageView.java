@@ -0,0 +1,6 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+public interface LegacyImageView {
+    Long getId();
+    String getBase64Data();
+}
@@ -0,0 +1,23 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductChangeLogStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductChangeLogStateRepository extends JpaRepository<ProductChangeLogStateEntity, Integer> {
+
+    @Query("SELECT COALESCE(MAX(s.purgedThrough), 0) FROM ProductChangeLogStateEntity s")
+    long findPurgedThrough();
+
+    // Never lowers the watermark, whatever order concurrent purges commit in.
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_change_log_state (id, purged_through) VALUES (1, :sequence)
+            ON CONFLICT (id) DO UPDATE
+            SET purged_through = GREATEST(product_change_log_state.purged_through, EXCLUDED.purged_through)
+            """, nativeQuery = true)
+    int raisePurgedThrough(long sequence);
+}
@@ -0,0 +1,30 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductChangeEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChangeEntity, Long> {
+
+    List<ProductChangeEntity> findBySequenceGreaterThanOrderBySequence(Long sequence, Limit limit);
+
+    List<ProductChangeEntity> findBySequenceInOrderBySequence(Collection<Long> sequences);
+
+    @Query("SELECT COALESCE(MAX(c.sequence), 0) FROM ProductChangeEntity c")
+    long findMaxSequence();
+
+    @Query("SELECT COALESCE(MAX(c.sequence), 0) FROM ProductChangeEntity c WHERE c.changedAt < :cutoff")
+    long findMaxSequenceChangedBefore(Instant cutoff);
+
+    @Modifying
+    @Query("DELETE FROM ProductChangeEntity c WHERE c.sequence <= :sequence")
+    int deleteThrough(long sequence);
+}
@@ -0,0 +1,39 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductImageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImageEntity, Long> {
+
+    @Query("SELECT DISTINCT i.contentHash FROM ProductImageEntity i WHERE i.contentHash IN :contentHashes")
+    List<String> findReferencedContentHashes(Collection<String> contentHashes);
+
+    // Images stored inline before the blob store existed; base64_data is not mapped, so these are native.
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM product_images WHERE content_hash IS NULL)", nativeQuery = true)
+    boolean existsLegacyImages();
+
+    // SKIP LOCKED lets instances starting together backfill different rows.
+    @Query(value = """
+            SELECT id AS "id", base64_data AS "base64Data" FROM product_images
+            WHERE content_hash IS NULL AND id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<LegacyImageView> findLegacyImages(long afterId, int limit);
+
+    @Modifying
+    @Query(value = """
+            UPDATE product_images
+            SET content_hash = :contentHash, size_bytes = :sizeBytes, content_type = :contentType, data_uri = :dataUri
+            WHERE id = :id
+            """, nativeQuery = true)
+    int setStoredImage(Long id, String contentHash, long sizeBytes, String contentType, boolean dataUri);
+}
@@ -1,10 +1,16 @@
 package com.okbasalman.product_service.adapter.output.repository;
 
 import com.okbasalman.product_service.adapter.output.entity.ProductEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +23,67 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long>{
 
     @Query("SELECT p FROM ProductEntity p LEFT JOIN FETCH p.variants")
     List<ProductEntity> findAllWithVariants();
-}
\ No newline at end of file
+
+    @Query("SELECT p.id FROM ProductEntity p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(Long afterId, Limit limit);
+
+    @Query("SELECT p FROM ProductEntity p LEFT JOIN FETCH p.variants WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductEntity> findAllByIdInWithVariants(Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.okbasalman.product_service.adapter.output.repository.ProductSummaryView(p.id, p.name, p.season, MIN(v.price), p.version)
+            FROM ProductEntity p LEFT JOIN p.variants v
+            WHERE p.id IN :ids
+            GROUP BY p.id, p.name, p.season, p.version
+            ORDER BY p.id
+            """)
+    List<ProductSummaryView> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.okbasalman.product_service.adapter.output.repository.ProductSummaryView(p.id, p.name, p.season, MIN(v.price), p.version)
+            FROM ProductEntity p LEFT JOIN p.variants v
+            WHERE p.id > :afterId
+            GROUP BY p.id, p.name, p.season, p.version
+            ORDER BY p.id
+            """)
+    List<ProductSummaryView> findSummariesAfter(Long afterId, Limit limit);
+
+    @Query("""
+            SELECT new com.okbasalman.product_service.adapter.output.repository.ProductRowView(p.id, p.name, p.description, p.season, p.version)
+            FROM ProductEntity p
+            WHERE p.id IN :ids
+            ORDER BY p.id
+            """)
+    List<ProductRowView> findRowsByIdIn(Collection<Long> ids);
+
+    // Writers lock the product row before any of its variant rows, so they cannot deadlock each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductEntity p WHERE p.id = :id")
+    Optional<ProductEntity> findByIdForUpdate(Long id);
+
+    @Query(value = """
+            SELECT id FROM products
+            WHERE id IN (SELECT product_id FROM product_variants WHERE id IN :variantIds)
+            ORDER BY id
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Long> lockIdsByVariantIdIn(Collection<Long> variantIds);
+
+    @Modifying
+    @Query(value = """
+            UPDATE products SET version = version + 1
+            WHERE id = (SELECT product_id FROM product_variants WHERE id = :variantId)
+            """, nativeQuery = true)
+    int incrementVersionByVariantId(Long variantId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductEntity p SET p.version = p.version + 1 WHERE p.id IN :ids")
+    int incrementVersions(Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.okbasalman.product_service.adapter.output.repository.ProductVersionView(p.id, p.version)
+            FROM ProductEntity p
+            WHERE p.id IN :ids
+            """)
+    List<ProductVersionView> findVersionsByIdIn(Collection<Long> ids);
+}
@@ -0,0 +1,6 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import com.okbasalman.product_service.domain.model.Season;
+
+public record ProductRowView(Long id, String name, String description, Season season, long version) {
+}
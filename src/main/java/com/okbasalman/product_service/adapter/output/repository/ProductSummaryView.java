@@ -0,0 +1,8 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import java.math.BigDecimal;
+
+import com.okbasalman.product_service.domain.model.Season;
+
+public record ProductSummaryView(Long id, String name, Season season, BigDecimal minPrice, long version) {
+}
@@ -2,8 +2,146 @@ package com.okbasalman.product_service.adapter.output.repository;
 
 import com.okbasalman.product_service.adapter.output.entity.ProductVariantEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ProductVariantRepository extends JpaRepository<ProductVariantEntity, Long> {
-}
\ No newline at end of file
+
+    @Query(value = """
+            UPDATE product_variants SET stock = stock - :quantity
+            WHERE id = :id AND stock - reserved >= :quantity
+            RETURNING id AS "id", product_id AS "productId", stock - reserved AS "stock"
+            """, nativeQuery = true)
+    Optional<StockLevelView> decrementStock(Long id, int quantity);
+
+    // Holds quantity without touching stock; "stock" in the result is what is still available.
+    @Query(value = """
+            UPDATE product_variants SET reserved = reserved + :quantity
+            WHERE id = :id AND stock - reserved >= :quantity
+            RETURNING id AS "id", product_id AS "productId", stock - reserved AS "stock"
+            """, nativeQuery = true)
+    Optional<StockLevelView> reserveStock(Long id, int quantity);
+
+    @Query(value = """
+            UPDATE product_variants SET stock = stock - :quantity, reserved = GREATEST(reserved - :quantity, 0)
+            WHERE id = :id AND stock >= :quantity
+            RETURNING id AS "id", product_id AS "productId", stock - reserved AS "stock"
+            """, nativeQuery = true)
+    Optional<StockLevelView> commitReservedStock(Long id, int quantity);
+
+    @Query(value = """
+            UPDATE product_variants SET reserved = GREATEST(reserved - :quantity, 0)
+            WHERE id = :id
+            RETURNING id AS "id", product_id AS "productId", stock - reserved AS "stock"
+            """, nativeQuery = true)
+    Optional<StockLevelView> releaseReservedStock(Long id, int quantity);
+
+    // Moves up to :quantity of the available stock into reserved; "granted" is how much it moved.
+    @Query(value = """
+            WITH available AS (
+                SELECT id, GREATEST(LEAST(:quantity, stock - reserved), 0) AS granted
+                FROM product_variants WHERE id = :id FOR UPDATE)
+            UPDATE product_variants v SET reserved = v.reserved + a.granted
+            FROM available a WHERE v.id = a.id
+            RETURNING v.id AS "id", v.product_id AS "productId", v.stock - v.reserved AS "stock", a.granted AS "granted"
+            """, nativeQuery = true)
+    Optional<StockLeaseView> leaseStock(Long id, int quantity);
+
+    // Unlike commitReservedStock this cannot refuse: the sales were acknowledged when they were journaled.
+    // Only :leased of them still come out of reserved; the rest were released when the lease expired.
+    @Query(value = """
+            UPDATE product_variants SET stock = stock - :quantity, reserved = GREATEST(reserved - :leased, 0)
+            WHERE id = :id
+            RETURNING id AS "id", product_id AS "productId", stock - reserved AS "stock"
+            """, nativeQuery = true)
+    Optional<StockLevelView> settleLeasedStock(Long id, int quantity, int leased);
+
+    // A chunk of up to :limit products with a matching variant is locked in id order and has its
+    // versions bumped before any variant is touched, like every other writer. Returns the product
+    // id of each adjusted variant. Like an update, it sets or adds to the stock available, so what
+    // is reserved is kept.
+    @Query(value = """
+            WITH locked AS (
+                SELECT p.id FROM products p
+                WHERE p.id > :afterProductId
+                  AND (:anyProduct OR p.id IN (:productIds))
+                  AND (CAST(:season AS text) IS NULL OR p.season = CAST(:season AS text))
+                  AND EXISTS (SELECT 1 FROM product_variants v
+                        WHERE v.product_id = p.id
+                          AND (CAST(:size AS text) IS NULL OR v.size = CAST(:size AS text))
+                          AND (CAST(:color AS text) IS NULL OR LOWER(TRIM(v.color)) = CAST(:color AS text))
+                          AND (CAST(:minPrice AS numeric) IS NULL OR v.price >= CAST(:minPrice AS numeric))
+                          AND (CAST(:maxPrice AS numeric) IS NULL OR v.price <= CAST(:maxPrice AS numeric)))
+                ORDER BY p.id
+                LIMIT :limit
+                FOR UPDATE OF p
+            ), bumped AS (
+                UPDATE products p SET version = p.version + 1 FROM locked WHERE p.id = locked.id
+            )
+            UPDATE product_variants v SET price = GREATEST(ROUND(CAST(v.price AS numeric) * CAST(:factor AS numeric) + CAST(:delta AS numeric), 2), 0)
+            FROM locked
+            WHERE v.product_id = locked.id
+              AND (CAST(:size AS text) IS NULL OR v.size = CAST(:size AS text))
+              AND (CAST(:color AS text) IS NULL OR LOWER(TRIM(v.color)) = CAST(:color AS text))
+              AND (CAST(:minPrice AS numeric) IS NULL OR v.price >= CAST(:minPrice AS numeric))
+              AND (CAST(:maxPrice AS numeric) IS NULL OR v.price <= CAST(:maxPrice AS numeric))
+            RETURNING v.product_id
+            """, nativeQuery = true)
+    List<Long> adjustPrices(Long afterProductId, int limit, boolean anyProduct, Collection<Long> productIds,
+                            String season, String size, String color, BigDecimal minPrice, BigDecimal maxPrice,
+                            BigDecimal factor, BigDecimal delta);
+
+    @Query(value = """
+            WITH locked AS (
+                SELECT p.id FROM products p
+                WHERE p.id > :afterProductId
+                  AND (:anyProduct OR p.id IN (:productIds))
+                  AND (CAST(:season AS text) IS NULL OR p.season = CAST(:season AS text))
+                  AND EXISTS (SELECT 1 FROM product_variants v
+                        WHERE v.product_id = p.id
+                          AND (CAST(:size AS text) IS NULL OR v.size = CAST(:size AS text))
+                          AND (CAST(:color AS text) IS NULL OR LOWER(TRIM(v.color)) = CAST(:color AS text))
+                          AND (CAST(:minPrice AS numeric) IS NULL OR v.price >= CAST(:minPrice AS numeric))
+                          AND (CAST(:maxPrice AS numeric) IS NULL OR v.price <= CAST(:maxPrice AS numeric)))
+                ORDER BY p.id
+                LIMIT :limit
+                FOR UPDATE OF p
+            ), bumped AS (
+                UPDATE products p SET version = p.version + 1 FROM locked WHERE p.id = locked.id
+            )
+            UPDATE product_variants v SET stock = v.reserved + GREATEST((v.stock - v.reserved) * :factor + :delta, 0)
+            FROM locked
+            WHERE v.product_id = locked.id
+              AND (CAST(:size AS text) IS NULL OR v.size = CAST(:size AS text))
+              AND (CAST(:color AS text) IS NULL OR LOWER(TRIM(v.color)) = CAST(:color AS text))
+              AND (CAST(:minPrice AS numeric) IS NULL OR v.price >= CAST(:minPrice AS numeric))
+              AND (CAST(:maxPrice AS numeric) IS NULL OR v.price <= CAST(:maxPrice AS numeric))
+            RETURNING v.product_id
+            """, nativeQuery = true)
+    List<Long> adjustStock(Long afterProductId, int limit, boolean anyProduct, Collection<Long> productIds,
+                           String season, String size, String color, BigDecimal minPrice, BigDecimal maxPrice,
+                           int factor, int delta);
+
+    // Rows are locked in id order so concurrent batches cannot deadlock each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM ProductVariantEntity v WHERE v.id IN :ids ORDER BY v.id")
+    List<ProductVariantEntity> findAllByIdInForUpdate(Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.okbasalman.product_service.adapter.output.repository.ProductVariantRowView(
+                v.product.id, v.id, v.price, v.stock - v.reserved, v.color, v.size)
+            FROM ProductVariantEntity v
+            WHERE v.product.id IN :productIds
+            ORDER BY v.id
+            """)
+    List<ProductVariantRowView> findRowsByProductIdIn(Collection<Long> productIds);
+}
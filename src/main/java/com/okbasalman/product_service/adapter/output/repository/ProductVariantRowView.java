@@ -0,0 +1,8 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import java.math.BigDecimal;
+
+import com.okbasalman.product_service.domain.model.Size;
+
+public record ProductVariantRowView(Long productId, Long id, BigDecimal price, int stock, String color, Size size) {
+}
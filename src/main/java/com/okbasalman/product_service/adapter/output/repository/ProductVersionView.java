@@ -0,0 +1,4 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+public record ProductVersionView(Long id, long version) {
+}
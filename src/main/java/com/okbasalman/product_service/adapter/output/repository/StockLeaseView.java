@@ -0,0 +1,8 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+public interface StockLeaseView {
+    Long getId();
+    Long getProductId();
+    Integer getStock();
+    Integer getGranted();
+}
@@ -0,0 +1,7 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+public interface StockLevelView {
+    Long getId();
+    Long getProductId();
+    Integer getStock();
+}
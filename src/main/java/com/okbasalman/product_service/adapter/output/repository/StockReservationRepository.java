@@ -0,0 +1,42 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+import com.okbasalman.product_service.adapter.output.entity.StockReservationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservationEntity, Long> {
+
+    // Deleting is the claim: of a commit, a release and the sweeper, only the one whose delete returns the row acts on it.
+    @Query(value = """
+            DELETE FROM stock_reservations
+            WHERE id = :id AND expires_at > :now
+            RETURNING id AS "id", product_variant_id AS "productVariantId", product_id AS "productId", quantity AS "quantity"
+            """, nativeQuery = true)
+    Optional<StockReservationView> deleteLiveById(Long id, Instant now);
+
+    @Query(value = """
+            DELETE FROM stock_reservations
+            WHERE id = :id
+            RETURNING id AS "id", product_variant_id AS "productVariantId", product_id AS "productId", quantity AS "quantity"
+            """, nativeQuery = true)
+    Optional<StockReservationView> deleteReturningById(Long id);
+
+    // SKIP LOCKED lets several instances sweep at once, each taking different rows.
+    @Query(value = """
+            DELETE FROM stock_reservations
+            WHERE id IN (
+                SELECT id FROM stock_reservations
+                WHERE expires_at <= :now
+                ORDER BY expires_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id AS "id", product_variant_id AS "productVariantId", product_id AS "productId", quantity AS "quantity"
+            """, nativeQuery = true)
+    List<StockReservationView> deleteExpired(Instant now, int limit);
+}
@@ -0,0 +1,8 @@
+package com.okbasalman.product_service.adapter.output.repository;
+
+public interface StockReservationView {
+    Long getId();
+    Long getProductVariantId();
+    Long getProductId();
+    Integer getQuantity();
+}
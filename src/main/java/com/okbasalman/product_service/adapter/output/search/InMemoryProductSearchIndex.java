@@ -0,0 +1,638 @@
+package com.okbasalman.product_service.adapter.output.search;
+
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+import com.okbasalman.product_service.domain.event.CatalogSnapshotLoadedEvent;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.port.output.ProductRepositoryPort;
+import com.okbasalman.product_service.domain.port.output.ProductSearchPort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search index over the whole catalog, without images. Products and variants get dense
+ * slots so every filter is a {@link BitSet}: product slots per season and name/description
+ * token, variant slots per size, color and in-stock, plus prices in cents sorted for range scans.
+ * Product slots follow product id order, so paging by id is a walk over the result bits.
+ *
+ * <p>Built from a catalog snapshot when there is one, otherwise once the application is ready,
+ * and then kept current from {@link ProductChangedEvent}s.
+ * Changed ids are reloaded in batches on a single updater thread after their transaction
+ * commits, so updates apply in order and never block the writer. Loads run in read-write
+ * transactions so they go to the primary: a reload from a lagging replica could index the
+ * version before the change and keep it until the product changes again.
+ */
+@Slf4j
+public class InMemoryProductSearchIndex implements ProductSearchPort {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final ProductRepositoryPort repository;
+    private final TransactionOperations primaryReads;
+    private final ExecutorService updater;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, IndexedProduct> products = new TreeMap<>();
+    private Postings postings = Postings.build(List.of());
+    private volatile boolean ready;
+
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Set<Long> pending = new LinkedHashSet<>();
+
+    public InMemoryProductSearchIndex(ProductRepositoryPort repository, TransactionOperations primaryReads,
+                                      ExecutorService updater) {
+        this.repository = repository;
+        this.primaryReads = primaryReads;
+        this.updater = updater;
+    }
+
+    @Override
+    public ProductSearchResultDto search(ProductSearchQueryDto query) {
+        if (!ready) {
+            throw new IllegalStateException("Search index is still loading.");
+        }
+        lock.readLock().lock();
+        try {
+            return postings.search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        updater.execute(() -> {
+            if (!ready) {
+                rebuild();
+            }
+        });
+    }
+
+    // Builds the index from a catalog snapshot instead of the database, then reads the products changed since.
+    @EventListener
+    public void loadFromSnapshot(CatalogSnapshotLoadedEvent event) {
+        if (!event.getProducts().isEmpty()) {
+            updater.execute(() -> replace(event.getProducts()));
+        }
+        markPending(event.getChangedProductIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        markPending(List.of(event.getProductId()));
+    }
+
+    private void markPending(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        boolean schedule;
+        pendingLock.lock();
+        try {
+            schedule = pending.isEmpty();
+            pending.addAll(ids);
+        } finally {
+            pendingLock.unlock();
+        }
+        if (schedule) {
+            updater.execute(this::applyPending);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            // retried on the next product change
+            log.error("Failed to load the search index", e);
+        }
+    }
+
+    private void load() {
+        List<Product> loaded = new ArrayList<>();
+        long afterId = 0;
+        List<Product> page;
+        do {
+            long after = afterId;
+            page = primaryReads.execute(status -> repository.findPage(after, LOAD_BATCH_SIZE, Projection.NO_IMAGES));
+            loaded.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == LOAD_BATCH_SIZE);
+        replace(loaded);
+    }
+
+    private void replace(Collection<Product> catalog) {
+        TreeMap<Long, IndexedProduct> loaded = new TreeMap<>();
+        catalog.forEach(product -> loaded.put(product.getId(), IndexedProduct.of(product)));
+
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            products.putAll(loaded);
+            postings = Postings.build(products.values());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Search index loaded {} products", loaded.size());
+    }
+
+    private void applyPending() {
+        List<Long> ids;
+        pendingLock.lock();
+        try {
+            ids = new ArrayList<>(pending);
+            pending = new LinkedHashSet<>();
+        } finally {
+            pendingLock.unlock();
+        }
+        if (!ready) {
+            rebuild();
+            return;
+        }
+        for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + LOAD_BATCH_SIZE));
+            try {
+                apply(batch, primaryReads.execute(status -> repository.findAllByIds(batch, Projection.NO_IMAGES)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh the search index for products {}", batch, e);
+            }
+        }
+    }
+
+    private void apply(List<Long> ids, List<Product> loaded) {
+        Map<Long, Product> byId = new HashMap<>();
+        loaded.forEach(product -> byId.put(product.getId(), product));
+        lock.writeLock().lock();
+        try {
+            boolean compact = false;
+            for (Long id : ids) {
+                Product product = byId.get(id);
+                if (product == null) {
+                    products.remove(id);
+                    postings.remove(id);
+                } else {
+                    IndexedProduct indexed = IndexedProduct.of(product);
+                    products.put(id, indexed);
+                    compact |= !postings.put(indexed);
+                }
+            }
+            if (compact || postings.needsCompaction()) {
+                postings = Postings.build(products.values());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String normalizeColor(String color) {
+        return color == null ? "" : color.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Query bounds are rounded inwards to whole cents; every stored price is a whole number of cents.
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(ProductVariant.PRICE_SCALE).setScale(0, rounding).longValueExact();
+    }
+
+    private record IndexedVariant(long id, long price, boolean inStock, Size size, String color) {
+    }
+
+    private record IndexedProduct(long id, Season season, Set<String> tokens, List<IndexedVariant> variants) {
+
+        static IndexedProduct of(Product product) {
+            Set<String> tokens = tokenize(product.getName());
+            tokens.addAll(tokenize(product.getDescription()));
+            List<IndexedVariant> variants = new ArrayList<>();
+            for (ProductVariant variant : product.getVariants()) {
+                variants.add(new IndexedVariant(variant.getId(), toCents(variant.getPrice(), RoundingMode.HALF_EVEN),
+                        variant.getStock() > 0, variant.getSize(), normalizeColor(variant.getColor())));
+            }
+            return new IndexedProduct(product.getId(), product.getSeason(), tokens, variants);
+        }
+    }
+
+    /**
+     * The slot-based structures. Slots are only ever appended; a changed product keeps its slot
+     * but gets fresh variant slots. Dead slots are dropped by rebuilding from the product map.
+     */
+    private static final class Postings {
+
+        private long[] productIds = new long[16];
+        private Season[] productSeasons = new Season[16];
+        private Set<String>[] productTokens = newTokenArray(16);
+        private int[][] productVariants = new int[16][];
+        private int productCount;
+        private final Map<Long, Integer> productSlots = new HashMap<>();
+        private final BitSet liveProducts = new BitSet();
+        private final Map<Season, BitSet> bySeason = new EnumMap<>(Season.class);
+        private final Map<String, BitSet> byToken = new HashMap<>();
+
+        private int[] variantProducts = new int[16];
+        private long[] variantIds = new long[16];
+        private Size[] variantSizes = new Size[16];
+        private String[] variantColors = new String[16];
+        private long[] variantPrices = new long[16];
+        private int variantCount;
+        private int liveVariantCount;
+        private final BitSet liveVariants = new BitSet();
+        private final Map<Long, Integer> variantSlots = new HashMap<>();
+        private final BitSet inStock = new BitSet();
+        private final Map<Size, BitSet> bySize = new EnumMap<>(Size.class);
+        private final Map<String, BitSet> byColor = new HashMap<>();
+        private final PriceIndex prices = new PriceIndex();
+        private boolean building;
+
+        // Prices are appended unsorted and sorted once at the end, rather than inserted in order one by one.
+        static Postings build(Collection<IndexedProduct> products) {
+            Postings postings = new Postings();
+            postings.building = true;
+            products.forEach(postings::put);
+            postings.prices.sort();
+            postings.building = false;
+            return postings;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Set<String>[] newTokenArray(int length) {
+            return new Set[length];
+        }
+
+        boolean needsCompaction() {
+            int deadVariants = variantCount - liveVariantCount;
+            return deadVariants > 1024 && deadVariants > liveVariantCount;
+        }
+
+        /**
+         * Returns false when the product had to be appended out of id order,
+         * in which case the caller rebuilds to restore the ordering.
+         */
+        boolean put(IndexedProduct product) {
+            Integer existing = productSlots.get(product.id());
+            int slot;
+            boolean ordered = true;
+            if (existing != null) {
+                slot = existing;
+                clearProduct(slot);
+            } else {
+                ordered = productCount == 0 || productIds[productCount - 1] < product.id();
+                slot = productCount++;
+                ensureProductCapacity(productCount);
+                productSlots.put(product.id(), slot);
+            }
+            productIds[slot] = product.id();
+            productSeasons[slot] = product.season();
+            productTokens[slot] = product.tokens();
+            liveProducts.set(slot);
+            bySeason.computeIfAbsent(product.season(), season -> new BitSet()).set(slot);
+            product.tokens().forEach(token -> byToken.computeIfAbsent(token, t -> new BitSet()).set(slot));
+
+            int[] variantSlots = new int[product.variants().size()];
+            for (int i = 0; i < variantSlots.length; i++) {
+                variantSlots[i] = addVariant(slot, product.variants().get(i));
+            }
+            productVariants[slot] = variantSlots;
+            return ordered;
+        }
+
+        void remove(Long id) {
+            Integer slot = productSlots.remove(id);
+            if (slot != null) {
+                clearProduct(slot);
+                liveProducts.clear(slot);
+            }
+        }
+
+        private void clearProduct(int slot) {
+            bySeason.get(productSeasons[slot]).clear(slot);
+            for (String token : productTokens[slot]) {
+                BitSet bits = byToken.get(token);
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    byToken.remove(token);
+                }
+            }
+            for (int variant : productVariants[slot]) {
+                liveVariants.clear(variant);
+                variantSlots.remove(variantIds[variant]);
+                inStock.clear(variant);
+                bySize.get(variantSizes[variant]).clear(variant);
+                byColor.get(variantColors[variant]).clear(variant);
+                prices.remove(variantPrices[variant], variant);
+                liveVariantCount--;
+            }
+        }
+
+        private int addVariant(int productSlot, IndexedVariant variant) {
+            int slot = variantCount++;
+            ensureVariantCapacity(variantCount);
+            variantProducts[slot] = productSlot;
+            variantIds[slot] = variant.id();
+            variantSizes[slot] = variant.size();
+            variantColors[slot] = variant.color();
+            variantPrices[slot] = variant.price();
+            liveVariants.set(slot);
+            variantSlots.put(variant.id(), slot);
+            liveVariantCount++;
+            if (variant.inStock()) {
+                inStock.set(slot);
+            }
+            bySize.computeIfAbsent(variant.size(), size -> new BitSet()).set(slot);
+            byColor.computeIfAbsent(variant.color(), color -> new BitSet()).set(slot);
+            if (building) {
+                prices.append(variant.price(), slot);
+            } else {
+                prices.add(variant.price(), slot);
+            }
+            return slot;
+        }
+
+        ProductSearchResultDto search(ProductSearchQueryDto query) {
+            BitSet matchingProducts = (BitSet) liveProducts.clone();
+            if (query.getSeasons() != null && !query.getSeasons().isEmpty()) {
+                matchingProducts.and(union(bySeason, query.getSeasons()));
+            }
+            for (String token : tokenize(query.getText())) {
+                BitSet bits = byToken.get(token);
+                if (bits == null) {
+                    matchingProducts.clear();
+                    break;
+                }
+                matchingProducts.and(bits);
+            }
+
+            BitSet matchingVariants = (BitSet) liveVariants.clone();
+            if (query.getSizes() != null && !query.getSizes().isEmpty()) {
+                matchingVariants.and(union(bySize, query.getSizes()));
+            }
+            if (query.getColors() != null && !query.getColors().isEmpty()) {
+                Set<String> colors = new LinkedHashSet<>();
+                query.getColors().forEach(color -> colors.add(normalizeColor(color)));
+                matchingVariants.and(union(byColor, colors));
+            }
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                matchingVariants.and(prices.range(
+                        query.getMinPrice() != null ? toCents(query.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE,
+                        query.getMaxPrice() != null ? toCents(query.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE));
+            }
+            if (query.isInStockOnly()) {
+                BitSet available = inStock;
+                if (query.getInStockVariantIds() != null && !query.getInStockVariantIds().isEmpty()) {
+                    available = (BitSet) inStock.clone();
+                    for (Long id : query.getInStockVariantIds()) {
+                        Integer variant = variantSlots.get(id);
+                        if (variant != null) {
+                            available.set(variant);
+                        }
+                    }
+                }
+                matchingVariants.and(available);
+            }
+
+            // A product matches through any variant that passed every variant filter;
+            // size and color facets count products through those same variants.
+            BitSet result = new BitSet();
+            Map<Size, BitSet> sizeFacets = new EnumMap<>(Size.class);
+            Map<String, BitSet> colorFacets = new HashMap<>();
+            for (int variant = matchingVariants.nextSetBit(0); variant >= 0; variant = matchingVariants.nextSetBit(variant + 1)) {
+                int product = variantProducts[variant];
+                if (matchingProducts.get(product)) {
+                    result.set(product);
+                    sizeFacets.computeIfAbsent(variantSizes[variant], size -> new BitSet()).set(product);
+                    colorFacets.computeIfAbsent(variantColors[variant], color -> new BitSet()).set(product);
+                }
+            }
+
+            Map<Season, Integer> seasonCounts = new EnumMap<>(Season.class);
+            bySeason.forEach((season, bits) -> {
+                BitSet intersection = (BitSet) result.clone();
+                intersection.and(bits);
+                if (!intersection.isEmpty()) {
+                    seasonCounts.put(season, intersection.cardinality());
+                }
+            });
+            Map<Size, Integer> sizeCounts = new EnumMap<>(Size.class);
+            sizeFacets.forEach((size, bits) -> sizeCounts.put(size, bits.cardinality()));
+            Map<String, Integer> colorCounts = new LinkedHashMap<>();
+            colorFacets.entrySet().stream()
+                    .sorted(Map.Entry.<String, BitSet>comparingByValue((a, b) -> b.cardinality() - a.cardinality())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .forEach(entry -> colorCounts.put(entry.getKey(), entry.getValue().cardinality()));
+
+            List<Long> page = new ArrayList<>();
+            int start = firstSlotAfter(query.getAfterId() != null ? query.getAfterId() : 0);
+            int slot = result.nextSetBit(start);
+            while (slot >= 0 && page.size() < query.getPageSize()) {
+                page.add(productIds[slot]);
+                slot = result.nextSetBit(slot + 1);
+            }
+            boolean hasMore = slot >= 0;
+            Long nextAfterId = page.isEmpty() ? null : page.get(page.size() - 1);
+            return new ProductSearchResultDto(page, result.cardinality(), hasMore, nextAfterId,
+                    seasonCounts, sizeCounts, colorCounts);
+        }
+
+        private int firstSlotAfter(long afterId) {
+            int index = Arrays.binarySearch(productIds, 0, productCount, afterId);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        private static <K> BitSet union(Map<K, BitSet> postings, Collection<K> keys) {
+            BitSet union = new BitSet();
+            for (K key : keys) {
+                BitSet bits = postings.get(key);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            return union;
+        }
+
+        private void ensureProductCapacity(int count) {
+            if (count > productIds.length) {
+                int length = Math.max(count, productIds.length * 2);
+                productIds = Arrays.copyOf(productIds, length);
+                productSeasons = Arrays.copyOf(productSeasons, length);
+                productTokens = Arrays.copyOf(productTokens, length);
+                productVariants = Arrays.copyOf(productVariants, length);
+            }
+        }
+
+        private void ensureVariantCapacity(int count) {
+            if (count > variantProducts.length) {
+                int length = Math.max(count, variantProducts.length * 2);
+                variantProducts = Arrays.copyOf(variantProducts, length);
+                variantSizes = Arrays.copyOf(variantSizes, length);
+                variantColors = Arrays.copyOf(variantColors, length);
+                variantPrices = Arrays.copyOf(variantPrices, length);
+                variantIds = Arrays.copyOf(variantIds, length);
+            }
+        }
+    }
+
+    /**
+     * Variant slots ordered by price, so a price range is one binary search plus a scan.
+     */
+    private static final class PriceIndex {
+
+        private long[] prices = new long[16];
+        private int[] slots = new int[16];
+        private int size;
+        private boolean sorted = true;
+
+        void add(long price, int slot) {
+            sort();
+            grow();
+            int index = upperBound(price);
+            System.arraycopy(prices, index, prices, index + 1, size - index);
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            prices[index] = price;
+            slots[index] = slot;
+            size++;
+        }
+
+        // Adds without keeping the order; sort() must run before the next lookup.
+        void append(long price, int slot) {
+            grow();
+            prices[size] = price;
+            slots[size] = slot;
+            size++;
+            sorted = false;
+        }
+
+        // A stable bottom-up merge sort by price, so equal prices stay in slot order.
+        void sort() {
+            if (sorted) {
+                return;
+            }
+            long[] fromPrices = prices;
+            int[] fromSlots = slots;
+            long[] toPrices = new long[prices.length];
+            int[] toSlots = new int[slots.length];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size; low += 2 * width) {
+                    int middle = Math.min(low + width, size);
+                    int high = Math.min(low + 2 * width, size);
+                    int left = low;
+                    int right = middle;
+                    for (int out = low; out < high; out++) {
+                        if (left < middle && (right >= high || fromPrices[left] <= fromPrices[right])) {
+                            toPrices[out] = fromPrices[left];
+                            toSlots[out] = fromSlots[left++];
+                        } else {
+                            toPrices[out] = fromPrices[right];
+                            toSlots[out] = fromSlots[right++];
+                        }
+                    }
+                }
+                long[] swapPrices = fromPrices;
+                fromPrices = toPrices;
+                toPrices = swapPrices;
+                int[] swapSlots = fromSlots;
+                fromSlots = toSlots;
+                toSlots = swapSlots;
+            }
+            prices = fromPrices;
+            slots = fromSlots;
+            sorted = true;
+        }
+
+        void remove(long price, int slot) {
+            sort();
+            for (int index = lowerBound(price); index < size && prices[index] == price; index++) {
+                if (slots[index] == slot) {
+                    System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                    System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        BitSet range(long min, long max) {
+            sort();
+            BitSet bits = new BitSet();
+            for (int index = lowerBound(min); index < size && prices[index] <= max; index++) {
+                bits.set(slots[index]);
+            }
+            return bits;
+        }
+
+        private void grow() {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+        }
+
+        private int lowerBound(long price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int upperBound(long price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
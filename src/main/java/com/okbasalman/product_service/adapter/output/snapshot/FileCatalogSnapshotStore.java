@@ -0,0 +1,314 @@
+package com.okbasalman.product_service.adapter.output.snapshot;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.okbasalman.grpc.CatalogSnapshotRecord;
+import com.okbasalman.product_service.adapter.input.grpc.ProductGrpcMapper;
+import com.okbasalman.product_service.domain.model.CatalogSnapshot;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotEntry;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotPort;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotReader;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Catalog snapshot in a single local file: a fixed header of {@code magic, format, watermark,
+ * created at, product count}, then one length-delimited {@link CatalogSnapshotRecord} per product.
+ * The file is memory-mapped to load it, so records are parsed straight from the page cache.
+ * A new snapshot is written next to the old one and moved over it once complete. When it is
+ * rewritten, unchanged records are copied over as bytes with only their product id decoded.
+ */
+@Slf4j
+public class FileCatalogSnapshotStore implements CatalogSnapshotPort {
+
+    private static final int MAGIC = 0x50534E50;
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 28;
+    private static final int COUNT_OFFSET = 24;
+    // CatalogSnapshotRecord.product and ProductResponse.id
+    private static final int PRODUCT_FIELD = 1;
+    private static final int ID_FIELD = 1;
+
+    private final Path path;
+
+    public FileCatalogSnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Optional<CatalogSnapshot> load() {
+        Optional<FileSnapshotReader> opened = map();
+        if (opened.isEmpty()) {
+            return Optional.empty();
+        }
+        FileSnapshotReader reader = opened.get();
+        try {
+            List<Product> products = new ArrayList<>(reader.count);
+            for (CatalogSnapshotEntry entry = reader.next(); entry != null; entry = reader.next()) {
+                products.add(entry.getProduct());
+            }
+            return Optional.of(new CatalogSnapshot(reader.watermark, reader.createdAt, products));
+        } catch (RuntimeException e) {
+            // a snapshot is only an optimization; starting cold is always correct
+            log.warn("Failed to read catalog snapshot {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<CatalogSnapshotReader> open() {
+        return map().map(CatalogSnapshotReader.class::cast);
+    }
+
+    // The mapping stays valid after the channel is closed, and after a new snapshot is moved over the file.
+    private Optional<FileSnapshotReader> map() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                log.warn("Ignoring catalog snapshot {} of {} bytes", path, size);
+                return Optional.empty();
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT) {
+                log.warn("Ignoring catalog snapshot {} in an unknown format", path);
+                return Optional.empty();
+            }
+            long watermark = mapped.getLong();
+            Instant createdAt = Instant.ofEpochMilli(mapped.getLong());
+            int count = mapped.getInt();
+            return Optional.of(new FileSnapshotReader(watermark, createdAt, count, mapped.slice()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read catalog snapshot {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public CatalogSnapshotWriter startWrite(long watermark) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            return new FileSnapshotWriter(Files.createTempFile(parent, "catalog", ".tmp"), watermark);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start catalog snapshot", e);
+        }
+    }
+
+    private static Product mapToProduct(CatalogSnapshotRecord record) {
+        Product product = ProductGrpcMapper.mapToProduct(record.getProduct());
+        Iterator<String> contentHashes = record.getImageContentHashesList().iterator();
+        for (ProductVariant variant : product.getVariants()) {
+            for (ProductImage image : variant.getImages()) {
+                String contentHash = contentHashes.hasNext() ? contentHashes.next() : "";
+                image.setContentHash(contentHash.isEmpty() ? null : contentHash);
+            }
+        }
+        return product;
+    }
+
+    private static CatalogSnapshotRecord mapToRecord(Product product) {
+        CatalogSnapshotRecord.Builder record = CatalogSnapshotRecord.newBuilder()
+                .setProduct(ProductGrpcMapper.mapToProductResponse(product));
+        for (ProductVariant variant : product.getVariants()) {
+            for (ProductImage image : variant.getImages()) {
+                record.addImageContentHashes(image.getContentHash() == null ? "" : image.getContentHash());
+            }
+        }
+        return record.build();
+    }
+
+    // Reads the length prefix of each record and decodes nothing but the product id inside it.
+    private static final class FileSnapshotReader implements CatalogSnapshotReader {
+
+        private final long watermark;
+        private final Instant createdAt;
+        private final int count;
+        private final ByteBuffer records;
+        private int read;
+
+        private FileSnapshotReader(long watermark, Instant createdAt, int count, ByteBuffer records) {
+            this.watermark = watermark;
+            this.createdAt = createdAt;
+            this.count = count;
+            this.records = records;
+        }
+
+        @Override
+        public long getWatermark() {
+            return watermark;
+        }
+
+        @Override
+        public CatalogSnapshotEntry next() {
+            if (read == count) {
+                return null;
+            }
+            try {
+                int size = readLength(records);
+                ByteBuffer bytes = records.slice(records.position(), size);
+                records.position(records.position() + size);
+                read++;
+                return new FileSnapshotEntry(productId(bytes), bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read catalog snapshot record", e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        // the varint written by writeUInt32NoTag
+        private static int readLength(ByteBuffer buffer) {
+            int length = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                length |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return length;
+                }
+            }
+            throw new IllegalStateException("Malformed record length in catalog snapshot");
+        }
+
+        private static Long productId(ByteBuffer bytes) throws IOException {
+            CodedInputStream input = CodedInputStream.newInstance(bytes.duplicate());
+            for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+                if (WireFormat.getTagFieldNumber(tag) != PRODUCT_FIELD) {
+                    input.skipField(tag);
+                    continue;
+                }
+                int limit = input.pushLimit(input.readRawVarint32());
+                for (int productTag = input.readTag(); productTag != 0; productTag = input.readTag()) {
+                    if (WireFormat.getTagFieldNumber(productTag) == ID_FIELD) {
+                        return input.readInt64();
+                    }
+                    input.skipField(productTag);
+                }
+                input.popLimit(limit);
+            }
+            // proto3 leaves out a zero id
+            return 0L;
+        }
+    }
+
+    private record FileSnapshotEntry(Long productId, ByteBuffer bytes) implements CatalogSnapshotEntry {
+
+        @Override
+        public Long getProductId() {
+            return productId;
+        }
+
+        @Override
+        public int getSize() {
+            return bytes.remaining();
+        }
+
+        @Override
+        public Product getProduct() {
+            try {
+                return mapToProduct(CatalogSnapshotRecord.parseFrom(bytes.duplicate()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read catalog snapshot record", e);
+            }
+        }
+    }
+
+    private final class FileSnapshotWriter implements CatalogSnapshotWriter {
+
+        private final Path tmp;
+        private final FileChannel channel;
+        private final CodedOutputStream output;
+        private int count;
+
+        private FileSnapshotWriter(Path tmp, long watermark) throws IOException {
+            this.tmp = tmp;
+            this.channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT)
+                    .putLong(watermark)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(0)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            this.output = CodedOutputStream.newInstance(Channels.newOutputStream(channel), 64 * 1024);
+        }
+
+        @Override
+        public void write(Product product) {
+            CatalogSnapshotRecord record = mapToRecord(product);
+            try {
+                output.writeUInt32NoTag(record.getSerializedSize());
+                record.writeTo(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write catalog snapshot", e);
+            }
+            count++;
+        }
+
+        @Override
+        public void copy(CatalogSnapshotEntry entry) {
+            if (!(entry instanceof FileSnapshotEntry fileEntry)) {
+                throw new IllegalArgumentException("Only records of a catalog snapshot file can be copied.");
+            }
+            try {
+                output.writeUInt32NoTag(fileEntry.getSize());
+                output.writeRawBytes(fileEntry.bytes().duplicate());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write catalog snapshot", e);
+            }
+            count++;
+        }
+
+        @Override
+        public void complete() {
+            try {
+                output.flush();
+                ByteBuffer countBuffer = ByteBuffer.allocate(4).putInt(count).flip();
+                channel.write(countBuffer, COUNT_OFFSET);
+                channel.force(true);
+                channel.close();
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                abort();
+                throw new UncheckedIOException("Failed to complete catalog snapshot", e);
+            }
+        }
+
+        @Override
+        public void abort() {
+            try {
+                channel.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                // the temporary file is left behind; the next snapshot does not read it
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.okbasalman.product_service.adapter.output.storage;
+
+import java.util.Base64;
+
+/**
+ * Converts between the base64 strings carried by the API and raw image bytes.
+ * Accepts both plain base64 and {@code data:<type>;base64,} URIs, and remembers
+ * which form was used so reads hand back what clients uploaded.
+ */
+public final class Base64ImageCodec {
+
+    private static final String DATA_URI_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64,";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private Base64ImageCodec() {
+    }
+
+    public static DecodedImage decode(String base64) {
+        if (base64.startsWith(DATA_URI_PREFIX)) {
+            int marker = base64.indexOf(BASE64_MARKER);
+            if (marker < 0) {
+                throw new IllegalArgumentException("Only base64 data URIs are supported for images.");
+            }
+            String contentType = base64.substring(DATA_URI_PREFIX.length(), marker);
+            byte[] data = Base64.getMimeDecoder().decode(base64.substring(marker + BASE64_MARKER.length()));
+            return new DecodedImage(data, contentType.isEmpty() ? sniffContentType(data) : contentType, true);
+        }
+        byte[] data = Base64.getMimeDecoder().decode(base64);
+        return new DecodedImage(data, sniffContentType(data), false);
+    }
+
+    public static String encode(byte[] data, String contentType, boolean dataUri) {
+        String base64 = Base64.getEncoder().encodeToString(data);
+        return dataUri ? DATA_URI_PREFIX + contentType + BASE64_MARKER + base64 : base64;
+    }
+
+    public static String sniffContentType(byte[] data) {
+        if (startsWith(data, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(data, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(data, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(data, 'R', 'I', 'F', 'F') && data.length >= 12
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        return DEFAULT_CONTENT_TYPE;
+    }
+
+    private static boolean startsWith(byte[] data, int... magic) {
+        if (data.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((data[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public record DecodedImage(byte[] data, String contentType, boolean dataUri) {
+    }
+}
@@ -0,0 +1,303 @@
+package com.okbasalman.product_service.adapter.output.storage;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.StoredImage;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+import com.okbasalman.product_service.domain.port.output.ImageUpload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed blob store on the local filesystem. Blobs are keyed by the
+ * SHA-256 of their bytes and laid out as {@code root/ab/cd/abcd...}, so
+ * identical images are written once no matter how many variants use them.
+ * Renditions sit next to their original as {@code abcd....thumbnail} and so on.
+ * <p>
+ * A blob's modification time is when it was last stored or found, which is what the sweep of
+ * unreferenced blobs goes by. Every instance reads blobs written by the others, so the root
+ * has to be on a volume they all share.
+ */
+public class FileSystemImageStorage implements ImageStoragePort {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public FileSystemImageStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public StoredImage store(byte[] data) {
+        String contentHash = HexFormat.of().formatHex(sha256().digest(data));
+        Path target = pathFor(contentHash);
+        if (touch(target)) {
+            return new StoredImage(contentHash, data.length);
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+            try {
+                Files.write(tmp, data);
+                moveIntoPlace(tmp, target);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image " + contentHash, e);
+        }
+        return new StoredImage(contentHash, data.length);
+    }
+
+    @Override
+    public byte[] load(String contentHash) {
+        try {
+            return Files.readAllBytes(pathFor(contentHash));
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Image not found with hash: " + contentHash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image " + contentHash, e);
+        }
+    }
+
+    @Override
+    public ImageUpload startUpload() {
+        try {
+            Files.createDirectories(root);
+            return new FileUpload(Files.createTempFile(root, "upload", ".tmp"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start image upload", e);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String contentHash) {
+        try {
+            return Files.newInputStream(pathFor(contentHash));
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Image not found with hash: " + contentHash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image " + contentHash, e);
+        }
+    }
+
+    @Override
+    public Optional<StoredImage> find(String contentHash) {
+        Path path = pathFor(contentHash);
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return Optional.of(new StoredImage(contentHash, Files.size(path)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image " + contentHash, e);
+        }
+    }
+
+    @Override
+    public boolean hasRendition(String contentHash, ImageRendition rendition) {
+        return Files.exists(renditionPathFor(contentHash, rendition));
+    }
+
+    @Override
+    public void storeRendition(String contentHash, ImageRendition rendition, byte[] data) {
+        Path target = renditionPathFor(contentHash, rendition);
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+            try {
+                Files.write(tmp, data);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store " + rendition + " of image " + contentHash, e);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> loadRendition(String contentHash, ImageRendition rendition) {
+        try {
+            return Optional.of(Files.readAllBytes(renditionPathFor(contentHash, rendition)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + rendition + " of image " + contentHash, e);
+        }
+    }
+
+    @Override
+    public Stream<String> findBlobsModifiedBefore(Instant cutoff) {
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+        FileTime before = FileTime.from(cutoff);
+        try {
+            return Files.find(root, 3, (path, attributes) -> attributes.isRegularFile()
+                            && CONTENT_HASH.matcher(path.getFileName().toString()).matches()
+                            && attributes.lastModifiedTime().compareTo(before) < 0)
+                    .map(path -> path.getFileName().toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list images", e);
+        }
+    }
+
+    /**
+     * The blob is moved aside before its time is checked, so a store racing with the delete either
+     * touched it first and it is moved back, or finds it gone and writes it again.
+     */
+    @Override
+    public boolean deleteIfModifiedBefore(String contentHash, Instant cutoff) {
+        Path target = pathFor(contentHash);
+        Path deleting = target.resolveSibling(contentHash + ".deleting");
+        try {
+            try {
+                Files.move(target, deleting, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            if (Files.getLastModifiedTime(deleting).compareTo(FileTime.from(cutoff)) >= 0) {
+                moveIntoPlace(deleting, target);
+                Files.deleteIfExists(deleting);
+                return false;
+            }
+            for (ImageRendition rendition : ImageRendition.values()) {
+                if (rendition != ImageRendition.ORIGINAL) {
+                    Files.deleteIfExists(renditionPathFor(contentHash, rendition));
+                }
+            }
+            Files.delete(deleting);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete image " + contentHash, e);
+        }
+    }
+
+    // Marks an existing blob as stored now; false when there is none.
+    private static boolean touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update image " + path.getFileName(), e);
+        }
+    }
+
+    private Path renditionPathFor(String contentHash, ImageRendition rendition) {
+        if (rendition == ImageRendition.ORIGINAL) {
+            return pathFor(contentHash);
+        }
+        return pathFor(contentHash).resolveSibling(contentHash + "." + rendition.name().toLowerCase(Locale.ROOT));
+    }
+
+    // Hashes come from clients when they reference an upload, so they are checked before touching the filesystem.
+    private Path pathFor(String contentHash) {
+        if (contentHash == null || !CONTENT_HASH.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Invalid image content hash: " + contentHash);
+        }
+        return root.resolve(contentHash.substring(0, 2))
+                .resolve(contentHash.substring(2, 4))
+                .resolve(contentHash);
+    }
+
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // another writer stored the same content first
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Appends each chunk to a temporary file while hashing it, then moves the file
+     * to its content-addressed path, so only one chunk is ever held in memory.
+     */
+    private final class FileUpload implements ImageUpload {
+
+        private final Path tmp;
+        private final FileChannel channel;
+        private final MessageDigest digest = sha256();
+        private long size;
+
+        private FileUpload(Path tmp) throws IOException {
+            this.tmp = tmp;
+            this.channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) {
+            digest.update(chunk.duplicate());
+            size += chunk.remaining();
+            try {
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write image upload", e);
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public StoredImage complete() {
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(contentHash);
+            try {
+                channel.close();
+                if (!touch(target)) {
+                    Files.createDirectories(target.getParent());
+                    moveIntoPlace(tmp, target);
+                }
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                abort();
+                throw new UncheckedIOException("Failed to store image " + contentHash, e);
+            }
+            return new StoredImage(contentHash, size);
+        }
+
+        @Override
+        public void abort() {
+            try {
+                channel.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                // the temporary file is left behind; nothing references it
+            }
+        }
+    }
+}
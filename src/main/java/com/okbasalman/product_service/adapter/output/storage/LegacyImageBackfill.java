@@ -0,0 +1,74 @@
+package com.okbasalman.product_service.adapter.output.storage;
+
+import com.okbasalman.product_service.adapter.output.repository.LegacyImageView;
+import com.okbasalman.product_service.adapter.output.repository.ProductImageRepository;
+import com.okbasalman.product_service.adapter.output.storage.Base64ImageCodec.DecodedImage;
+import com.okbasalman.product_service.domain.model.StoredImage;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+/**
+ * Moves images stored inline in {@code product_images.base64_data} into the blob store and
+ * points their rows at the blob. Runs on startup, before the gRPC server takes calls, a batch
+ * per transaction; once every row has a content hash it is a single query. The column itself
+ * is only dropped by {@code db/product_images_drop_base64.sql}, which refuses to while any row
+ * is left. A row that does not decode is logged and left for that script to report.
+ */
+@Slf4j
+public class LegacyImageBackfill {
+
+    private final ProductImageRepository imageRepository;
+    private final ImageStoragePort imageStorage;
+    private final TransactionOperations transactions;
+    private final int batchSize;
+
+    public LegacyImageBackfill(ProductImageRepository imageRepository, ImageStoragePort imageStorage,
+                               TransactionOperations transactions, int batchSize) {
+        this.imageRepository = imageRepository;
+        this.imageStorage = imageStorage;
+        this.transactions = transactions;
+        this.batchSize = batchSize;
+    }
+
+    public void run() {
+        if (!imageRepository.existsLegacyImages()) {
+            return;
+        }
+        long afterId = 0;
+        int total = 0;
+        List<LegacyImageView> batch;
+        do {
+            long from = afterId;
+            batch = transactions.execute(status -> {
+                List<LegacyImageView> images = imageRepository.findLegacyImages(from, batchSize);
+                images.forEach(this::backfill);
+                return images;
+            });
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+                total += batch.size();
+            }
+        } while (batch.size() == batchSize);
+        log.info("Moved {} inline images to the blob store", total);
+    }
+
+    private void backfill(LegacyImageView image) {
+        if (image.getBase64Data() == null) {
+            log.warn("Image {} has no data to move to the blob store", image.getId());
+            return;
+        }
+        DecodedImage decoded;
+        try {
+            decoded = Base64ImageCodec.decode(image.getBase64Data());
+        } catch (IllegalArgumentException e) {
+            log.warn("Image {} is not valid base64 and was left inline: {}", image.getId(), e.getMessage());
+            return;
+        }
+        StoredImage stored = imageStorage.store(decoded.data());
+        imageRepository.setStoredImage(image.getId(), stored.getContentHash(), stored.getSizeBytes(),
+                decoded.contentType(), decoded.dataUri());
+    }
+}
@@ -1,16 +1,354 @@
 package com.okbasalman.product_service.config;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.grpc.server.ServerBuilderCustomizer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.okbasalman.product_service.adapter.input.grpc.ConcurrencyLimitInterceptor;
+import com.okbasalman.product_service.adapter.input.grpc.GrpcMetricsInterceptor;
+import com.okbasalman.product_service.adapter.input.grpc.InFlightLimitInterceptor;
+import com.okbasalman.product_service.adapter.input.grpc.ProductResponseCache;
+import com.okbasalman.product_service.adapter.input.metrics.PrometheusScrapeServer;
+import com.okbasalman.product_service.adapter.output.JpaProductRepository;
+import com.okbasalman.product_service.adapter.output.cache.CachingProductRepository;
+import com.okbasalman.product_service.adapter.output.imaging.ImageIoTranscoder;
+import com.okbasalman.product_service.adapter.output.imaging.ImageRenditionPipeline;
+import com.okbasalman.product_service.adapter.output.jdbc.QueryCountingDataSource;
+import com.okbasalman.product_service.adapter.output.journal.FileStockJournal;
+import com.okbasalman.product_service.adapter.output.jdbc.ReplicaFallbackDataSource;
+import com.okbasalman.product_service.adapter.output.jdbc.ReplicaLagMonitor;
+import com.okbasalman.product_service.adapter.output.search.InMemoryProductSearchIndex;
+import com.okbasalman.product_service.adapter.output.snapshot.FileCatalogSnapshotStore;
+import com.okbasalman.product_service.adapter.output.repository.ProductImageRepository;
+import com.okbasalman.product_service.adapter.output.storage.FileSystemImageStorage;
+import com.okbasalman.product_service.adapter.output.storage.LegacyImageBackfill;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotPort;
+import com.okbasalman.product_service.domain.port.output.ImageRenditionPort;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+import com.okbasalman.product_service.domain.port.output.ProductChangeLogPort;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
 import com.okbasalman.product_service.domain.port.output.ProductRepositoryPort;
+import com.okbasalman.product_service.domain.port.output.ProductSearchPort;
+import com.okbasalman.product_service.domain.service.CatalogSnapshotter;
+import com.okbasalman.product_service.domain.service.HotStockLeaseSweeper;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ImageBlobSweeper;
+import com.okbasalman.product_service.domain.service.ProductChangeFeed;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
 import com.okbasalman.product_service.domain.service.ProductService;
+import com.okbasalman.product_service.domain.service.StockReservationSweeper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.grpc.ServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
 
 @Configuration
 public class ProductServiceConfig {
 
     @Bean
-    public ProductService productService(ProductRepositoryPort repositoryPort){
-        return new ProductService(repositoryPort);
+    public ProductService productService(ProductRepositoryPort repositoryPort, ProductSearchPort productSearchPort,
+                                         ImageStoragePort imageStorage, ImageRenditionPort imageRenditionPort){
+        return new ProductService(repositoryPort, productSearchPort, imageStorage, imageRenditionPort);
+    }
+
+    @Bean
+    public InMemoryProductSearchIndex productSearchIndex(JpaProductRepository jpaProductRepository,
+                                                         PlatformTransactionManager transactionManager){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("product-search-index-");
+        threadFactory.setDaemon(true);
+        // the JPA repository rather than the cache, and not read-only, so the index always reads the primary
+        return new InMemoryProductSearchIndex(jpaProductRepository, new TransactionTemplate(transactionManager),
+                Executors.newSingleThreadExecutor(threadFactory));
+    }
+
+    @Bean(destroyMethod = "stop")
+    public ProductLookupCoalescer productLookupCoalescer(ProductUseCase productUseCase,
+                                                        @Value("${product.lookup.coalesce-window}") Duration window,
+                                                        @Value("${product.lookup.max-batch-size}") int maxBatchSize,
+                                                        @Value("${product.lookup.threads}") int threads,
+                                                        @Value("${product.lookup.max-wait}") Duration maxWait){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("product-lookup-");
+        threadFactory.setDaemon(true);
+        return new ProductLookupCoalescer(ids -> productUseCase.getProductsByIds(ids, Projection.FULL),
+                Executors.newScheduledThreadPool(threads, threadFactory), window, maxBatchSize, maxWait);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "product.grpc.executor", havingValue = "virtual")
+    public ExecutorService grpcVirtualThreadExecutor(){
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-call-", 0).factory());
+    }
+
+    // Calls block on JDBC for most of their life, so they run on virtual threads and the
+    // Hikari pool, not the executor, decides how many of them reach the database at once; the
+    // InFlightLimitInterceptor bounds how many wait. VirtualThreadPinningTest fails if the
+    // in-process paths of a call pin their carrier while blocked.
+    @Bean
+    @ConditionalOnProperty(name = "product.grpc.executor", havingValue = "virtual")
+    public <T extends ServerBuilder<T>> ServerBuilderCustomizer<T> grpcVirtualThreadCustomizer(ExecutorService grpcVirtualThreadExecutor){
+        return serverBuilder -> serverBuilder.executor(grpcVirtualThreadExecutor);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ProductChangeFeed productChangeFeed(ProductChangeLogPort changeLog,
+                                               @Value("${product.changes.poll-interval}") Duration pollInterval,
+                                               @Value("${product.changes.gap-timeout}") Duration gapTimeout,
+                                               @Value("${product.changes.gap-recheck}") Duration gapRecheck,
+                                               @Value("${product.changes.batch-size}") int batchSize,
+                                               @Value("${product.changes.buffer-size}") int bufferSize,
+                                               @Value("${product.changes.retention}") Duration retention,
+                                               @Value("${product.changes.watcher-threads}") int watcherThreads){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("product-change-feed-");
+        threadFactory.setDaemon(true);
+        CustomizableThreadFactory watcherThreadFactory = new CustomizableThreadFactory("product-change-watchers-");
+        watcherThreadFactory.setDaemon(true);
+        return new ProductChangeFeed(changeLog, Executors.newSingleThreadScheduledExecutor(threadFactory),
+                Executors.newFixedThreadPool(watcherThreads, watcherThreadFactory),
+                pollInterval, gapTimeout, gapRecheck, batchSize, bufferSize, retention);
+    }
+
+    @Bean
+    public CatalogSnapshotPort catalogSnapshotStore(@Value("${product.snapshot.path}") String path){
+        return new FileCatalogSnapshotStore(Path.of(path));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CatalogSnapshotter catalogSnapshotter(ProductUseCase productUseCase, CatalogSnapshotPort catalogSnapshotStore,
+                                                 ProductChangeFeed productChangeFeed, ProductChangeLogPort changeLog,
+                                                 ApplicationEventPublisher eventPublisher,
+                                                 PlatformTransactionManager transactionManager,
+                                                 @Value("${product.snapshot.interval}") Duration interval,
+                                                 @Value("${product.snapshot.max-image-bytes}") long maxImageBytes){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("catalog-snapshot-");
+        threadFactory.setDaemon(true);
+        // not read-only, so the snapshot is read from the primary and holds every change up to its watermark
+        return new CatalogSnapshotter(productUseCase, catalogSnapshotStore, productChangeFeed, changeLog, eventPublisher,
+                new TransactionTemplate(transactionManager), Executors.newSingleThreadScheduledExecutor(threadFactory),
+                interval, maxImageBytes);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StockReservationSweeper stockReservationSweeper(ProductUseCase productUseCase,
+                                                           @Value("${product.stock.reservations.sweep-interval}") Duration interval,
+                                                           @Value("${product.stock.reservations.sweep-batch-size}") int batchSize){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("stock-reservation-sweeper-");
+        threadFactory.setDaemon(true);
+        return new StockReservationSweeper(productUseCase, Executors.newSingleThreadScheduledExecutor(threadFactory),
+                interval, batchSize);
+    }
+
+    // With no hot variants configured the ledger starts and stops without opening a journal. Without a
+    // configured owner, leases are held under the journal's identity, which survives restarts and
+    // rescheduling along with the journal volume; a hostname would strand the leases of a moved pod.
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public HotStockLedger hotStockLedger(ProductUseCase productUseCase,
+                                         @Value("${product.stock.hot.variant-ids}") Set<Long> variantIds,
+                                         @Value("${product.stock.hot.owner}") String owner,
+                                         @Value("${product.stock.hot.journal-path}") String journalPath,
+                                         @Value("${product.stock.hot.lease-size}") int leaseSize,
+                                         @Value("${product.stock.hot.flush-interval}") Duration flushInterval,
+                                         @Value("${product.stock.hot.lease-expiry}") Duration leaseExpiry){
+        CustomizableThreadFactory journalThreadFactory = new CustomizableThreadFactory("hot-stock-journal-");
+        journalThreadFactory.setDaemon(true);
+        CustomizableThreadFactory flusherThreadFactory = new CustomizableThreadFactory("hot-stock-flusher-");
+        flusherThreadFactory.setDaemon(true);
+        FileStockJournal journal = new FileStockJournal(Path.of(journalPath),
+                Executors.newSingleThreadExecutor(journalThreadFactory));
+        return new HotStockLedger(productUseCase, journal, Executors.newSingleThreadScheduledExecutor(flusherThreadFactory),
+                variantIds, owner.isBlank() ? journal.identity() : owner, leaseSize, flushInterval, leaseExpiry,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public HotStockLeaseSweeper hotStockLeaseSweeper(ProductUseCase productUseCase,
+                                                     @Value("${product.stock.hot.sweep-interval}") Duration interval,
+                                                     @Value("${product.stock.hot.lease-expiry}") Duration leaseExpiry,
+                                                     @Value("${product.stock.reservations.sweep-batch-size}") int batchSize){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("hot-stock-lease-sweeper-");
+        threadFactory.setDaemon(true);
+        return new HotStockLeaseSweeper(productUseCase, Executors.newSingleThreadScheduledExecutor(threadFactory),
+                interval, leaseExpiry, batchSize);
+    }
+
+    @Bean
+    public ImageStoragePort imageStorage(@Value("${product.images.storage-path}") String storagePath){
+        return new FileSystemImageStorage(Path.of(storagePath));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ImageBlobSweeper imageBlobSweeper(ProductUseCase productUseCase, ImageStoragePort imageStorage,
+                                             @Value("${product.images.sweep.interval}") Duration interval,
+                                             @Value("${product.images.sweep.grace}") Duration grace,
+                                             @Value("${product.images.sweep.batch-size}") int batchSize){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("image-blob-sweeper-");
+        threadFactory.setDaemon(true);
+        return new ImageBlobSweeper(productUseCase, imageStorage, Executors.newSingleThreadScheduledExecutor(threadFactory),
+                interval, grace, batchSize);
+    }
+
+    // Runs while the context starts, so no call reads an image before it has been moved to the blob store.
+    @Bean(initMethod = "run")
+    public LegacyImageBackfill legacyImageBackfill(ProductImageRepository productImageRepository,
+                                                   ImageStoragePort imageStorage,
+                                                   PlatformTransactionManager transactionManager,
+                                                   @Value("${product.images.backfill-batch-size}") int batchSize){
+        return new LegacyImageBackfill(productImageRepository, imageStorage, new TransactionTemplate(transactionManager),
+                batchSize);
+    }
+
+    // A fixed pool with a bounded queue: a burst of uploads queues up to queueCapacity images and
+    // the rest are picked up again when they are first read, instead of piling up in memory.
+    @Bean(destroyMethod = "stop")
+    public ImageRenditionPipeline imageRenditionPipeline(ImageStoragePort imageStorage,
+                                                         @Value("${product.images.renditions.threads}") int threads,
+                                                         @Value("${product.images.renditions.queue-capacity}") int queueCapacity,
+                                                         @Value("${product.images.renditions.jpeg-quality}") float jpegQuality,
+                                                         @Value("${product.images.renditions.max-unsupported}") long maxUnsupported){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("image-renditions-");
+        threadFactory.setDaemon(true);
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        return new ImageRenditionPipeline(imageStorage, new ImageIoTranscoder(jpegQuality), workers,
+                maxUnsupported);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "product.cache.enabled", havingValue = "true")
+    public CachingProductRepository cachingProductRepository(JpaProductRepository jpaProductRepository,
+                                                             @Value("${product.cache.max-size}") long maxSize,
+                                                             @Value("${product.cache.max-weight-bytes}") long maxWeightBytes,
+                                                             @Value("${product.cache.ttl}") Duration ttl,
+                                                             @Value("${product.datasource.replica.enabled}") boolean replicaEnabled,
+                                                             @Value("${product.datasource.replica.max-lag}") Duration maxLag,
+                                                             @Value("${product.datasource.replica.check-interval}") Duration checkInterval){
+        return new CachingProductRepository(jpaProductRepository, maxSize, maxWeightBytes, ttl,
+                replicaStaleness(replicaEnabled, maxLag, checkInterval));
+    }
+
+    @Bean
+    public ProductResponseCache productResponseCache(@Value("${product.response-cache.max-weight-bytes}") long maxWeightBytes,
+                                                     @Value("${product.response-cache.ttl}") Duration ttl,
+                                                     @Value("${product.datasource.replica.enabled}") boolean replicaEnabled,
+                                                     @Value("${product.datasource.replica.max-lag}") Duration maxLag,
+                                                     @Value("${product.datasource.replica.check-interval}") Duration checkInterval){
+        return new ProductResponseCache(maxWeightBytes, ttl, replicaStaleness(replicaEnabled, maxLag, checkInterval));
+    }
+
+    // With a replica, reads may lag writes by up to this long; the caches hold off caching a changed product for as long.
+    private static Duration replicaStaleness(boolean replicaEnabled, Duration maxLag, Duration checkInterval){
+        return replicaEnabled ? maxLag.plus(checkInterval) : Duration.ZERO;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "product.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "product.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("product.datasource.replica.pool")
+    public HikariDataSource replicaDataSource(){
+        return new HikariDataSource();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "product.datasource.replica.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${product.datasource.replica.max-lag}") Duration maxLag,
+                                               @Value("${product.datasource.replica.check-interval}") Duration checkInterval){
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-monitor-");
+        threadFactory.setDaemon(true);
+        return new ReplicaLagMonitor(replicaDataSource, Executors.newSingleThreadScheduledExecutor(threadFactory),
+                maxLag, checkInterval);
+    }
+
+    // The lazy proxy fetches the real connection on the first statement, once the transaction's
+    // read-only flag is known, and takes it from the replica for read-only transactions.
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "product.datasource.replica.enabled", havingValue = "true")
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor){
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryDataSource);
+        routing.setReadOnlyDataSource(new ReplicaFallbackDataSource(replicaDataSource, primaryDataSource, replicaLagMonitor));
+        return routing;
+    }
+
+    @Bean
+    @GlobalServerInterceptor
+    public GrpcMetricsInterceptor grpcMetricsInterceptor(MeterRegistry meterRegistry){
+        return new GrpcMetricsInterceptor(meterRegistry);
+    }
+
+    @Bean
+    @GlobalServerInterceptor
+    public InFlightLimitInterceptor inFlightLimitInterceptor(MeterRegistry meterRegistry,
+                                                             @Value("${product.grpc.max-in-flight}") int maxInFlight){
+        return new InFlightLimitInterceptor(meterRegistry, maxInFlight);
+    }
+
+    @Bean
+    @GlobalServerInterceptor
+    @ConditionalOnProperty(name = "product.grpc.concurrency-limit.enabled", havingValue = "true")
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor(MeterRegistry meterRegistry,
+                                                                   @Value("${product.grpc.concurrency-limit.initial}") int initialLimit,
+                                                                   @Value("${product.grpc.concurrency-limit.min}") int minLimit,
+                                                                   @Value("${product.grpc.concurrency-limit.max}") int maxLimit){
+        return new ConcurrencyLimitInterceptor(meterRegistry, initialLimit, minLimit, maxLimit);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "product.metrics.enabled", havingValue = "true")
+    public PrometheusScrapeServer prometheusScrapeServer(PrometheusMeterRegistry registry,
+                                                         @Value("${product.metrics.port}") int port,
+                                                         @Value("${product.metrics.path}") String path){
+        return new PrometheusScrapeServer(registry, port, path);
+    }
+
+    // Counts statements and rows per gRPC call; see GrpcMetricsInterceptor. The routing proxy only
+    // hands out connections of the pools, which are wrapped already, so it is left alone.
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)
+                        && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
     }
 }
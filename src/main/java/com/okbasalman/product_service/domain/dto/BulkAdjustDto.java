@@ -0,0 +1,33 @@
+package com.okbasalman.product_service.domain.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One price or stock change applied to every variant matching the filter. Null filter
+ * fields and an empty id list do not filter; size, color and price apply to each variant.
+ * The amount is a percentage or a price delta for price operations, and whole units for stock.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkAdjustDto {
+
+    public enum Operation { PRICE_PERCENT, PRICE_DELTA, SET_STOCK, ADD_STOCK }
+
+    private Season season;
+    private Size size;
+    private String color;
+    private List<Long> productIds;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Operation operation;
+    private BigDecimal amount;
+}
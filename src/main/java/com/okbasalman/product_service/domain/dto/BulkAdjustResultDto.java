@@ -0,0 +1,16 @@
+package com.okbasalman.product_service.domain.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkAdjustResultDto {
+    private int adjustedVariants;
+    // in id order; the last one is where the next chunk starts
+    private List<Long> adjustedProductIds;
+}
@@ -0,0 +1,32 @@
+package com.okbasalman.product_service.domain.dto;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Empty sets and null bounds do not filter. Size, color, price and stock must all hold
+ * for the same variant; a product matches when at least one of its variants does.
+ * inStockVariantIds are in stock whatever the index holds, for stock served from memory.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchQueryDto {
+    private String text;
+    private Set<Season> seasons;
+    private Set<Size> sizes;
+    private Set<String> colors;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private boolean inStockOnly;
+    private Set<Long> inStockVariantIds;
+    private Long afterId;
+    private int pageSize;
+}
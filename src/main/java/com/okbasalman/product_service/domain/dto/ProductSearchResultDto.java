@@ -0,0 +1,28 @@
+package com.okbasalman.product_service.domain.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of matching product ids in ascending order, plus the number of matching
+ * products per season, size and color across all pages.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResultDto {
+    private List<Long> productIds;
+    private int total;
+    private boolean hasMore;
+    private Long nextAfterId;
+    private Map<Season, Integer> seasonCounts;
+    private Map<Size, Integer> sizeCounts;
+    private Map<String, Integer> colorCounts;
+}
@@ -1,7 +1,9 @@
 package com.okbasalman.product_service.domain.dto;
 
+import java.math.BigDecimal;
 import java.util.List;
 
+import com.okbasalman.product_service.domain.model.ProductImage;
 import com.okbasalman.product_service.domain.model.Size;
 
 import lombok.AllArgsConstructor;
@@ -12,9 +14,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class ProductVariantCreateDto {
-    private double price;
+    private BigDecimal price;
     private int stock;
     private String color;
     private Size size;
     private List<String> base64Images;
+    // images sent with UploadImage, by uploadId and contentType
+    private List<ProductImage> uploadedImages;
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.okbasalman.product_service.domain.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockBatchResultDto {
+    private boolean success;
+    private List<StockLineResultDto> lines;
+}
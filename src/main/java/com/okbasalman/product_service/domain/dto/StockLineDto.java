@@ -0,0 +1,13 @@
+package com.okbasalman.product_service.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLineDto {
+    private Long productVariantId;
+    private int quantity;
+}
@@ -0,0 +1,18 @@
+package com.okbasalman.product_service.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLineResultDto {
+    private Long productVariantId;
+    private Long productId;
+    private int requested;
+    // stock after the decrement on success, otherwise the stock that was available
+    private int stock;
+    private boolean found;
+    private boolean sufficient;
+}
@@ -0,0 +1,21 @@
+package com.okbasalman.product_service.domain.event;
+
+import java.util.List;
+import java.util.Set;
+
+import com.okbasalman.product_service.domain.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CatalogSnapshotLoadedEvent {
+
+    // products unchanged since the snapshot was taken; some may have been written without image data
+    private List<Product> products;
+    // the products written with their image data, as the product caches hold them
+    private List<Product> fullProducts;
+    // products changed since the snapshot was taken, to be dropped and read again
+    private Set<Long> changedProductIds;
+}
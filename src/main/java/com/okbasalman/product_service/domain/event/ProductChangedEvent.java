@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED, STOCK_CHANGED }
+
+    private Long productId;
+    private ChangeType type;
+}
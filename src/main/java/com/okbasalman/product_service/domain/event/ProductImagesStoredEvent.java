@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductImagesStoredEvent {
+
+    // content hashes of the images a write stored or attached
+    private List<String> contentHashes;
+}
@@ -0,0 +1,12 @@
+package com.okbasalman.product_service.domain.exception;
+
+/**
+ * Thrown when a product lookup does not complete within the caller's timeout. The lookup
+ * itself may still complete for the other callers waiting on it.
+ */
+public class ProductLookupTimeoutException extends RuntimeException {
+
+    public ProductLookupTimeoutException(Long productId) {
+        super("Timed out waiting for product with ID: " + productId);
+    }
+}
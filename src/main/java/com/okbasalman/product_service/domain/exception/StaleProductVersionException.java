@@ -0,0 +1,19 @@
+package com.okbasalman.product_service.domain.exception;
+
+/**
+ * Thrown when a write names the product version it was based on and the product
+ * has been changed since.
+ */
+public class StaleProductVersionException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public StaleProductVersionException(Long productId, long expectedVersion, long currentVersion) {
+        super("Product " + productId + " is at version " + currentVersion + ", not " + expectedVersion + ".");
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
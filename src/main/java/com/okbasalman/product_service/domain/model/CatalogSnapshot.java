@@ -0,0 +1,18 @@
+package com.okbasalman.product_service.domain.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogSnapshot {
+    // every change up to this product change log sequence is reflected in the products
+    private long watermark;
+    private Instant createdAt;
+    private List<Product> products;
+}
@@ -0,0 +1,28 @@
+package com.okbasalman.product_service.domain.model;
+
+/**
+ * Sizes an image can be read at. Everything but {@link #ORIGINAL} is generated in the
+ * background after the image is stored, scaled to fit {@code maxDimension} on its longest side.
+ */
+public enum ImageRendition {
+    ORIGINAL(0),
+    THUMBNAIL(200),
+    MEDIUM(800);
+
+    private final int maxDimension;
+
+    ImageRendition(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Only full products carry image data, so narrower projections ignore the rendition.
+     */
+    public boolean appliesTo(Projection projection) {
+        return this != ORIGINAL && projection == Projection.FULL;
+    }
+}
@@ -0,0 +1,18 @@
+package com.okbasalman.product_service.domain.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hot stock sales recorded in one journal segment, totalled per variant.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournaledSales {
+    private long lastSequence;
+    private Map<Long, Long> soldByVariant;
+}
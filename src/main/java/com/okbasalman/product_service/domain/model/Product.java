@@ -1,7 +1,6 @@
 package com.okbasalman.product_service.domain.model;
 
-
-
+import java.math.BigDecimal;
 import java.util.List;
 
 import lombok.AllArgsConstructor;
@@ -16,5 +15,7 @@ public class Product {
     private String name;
     private String description;
     private Season season;
-    private List<ProductVariant> variants; 
+    private List<ProductVariant> variants;
+    private BigDecimal minPrice;
+    private Long version;
 }
\ No newline at end of file
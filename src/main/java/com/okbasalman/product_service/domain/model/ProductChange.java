@@ -0,0 +1,19 @@
+package com.okbasalman.product_service.domain.model;
+
+import java.time.Instant;
+
+import com.okbasalman.product_service.domain.event.ProductChangedEvent.ChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductChange {
+    private long sequence;
+    private Long productId;
+    private ChangeType type;
+    private Instant changedAt;
+}
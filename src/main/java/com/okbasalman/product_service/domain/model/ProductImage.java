@@ -10,4 +10,14 @@ import lombok.NoArgsConstructor;
 public class ProductImage {
     private Long id;
     private String base64Data;
+    private String contentHash;
+    private String contentType;
+    private long sizeBytes;
+    // set on writes that attach an image sent with UploadImage instead of base64Data
+    private String uploadId;
+
+    public ProductImage(Long id, String base64Data) {
+        this.id = id;
+        this.base64Data = base64Data;
+    }
 }
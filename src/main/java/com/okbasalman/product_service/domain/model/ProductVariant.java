@@ -1,15 +1,19 @@
 package com.okbasalman.product_service.domain.model;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import lombok.Data;
 
 @Data
 public class ProductVariant {
+    // prices are exact to the cent; the v2 API sends them as integer cents
+    public static final int PRICE_SCALE = 2;
+
     private Long id;
-    private double price;
+    private BigDecimal price;
     private int stock;
     private String color;
     private Size size;
     private List<ProductImage> images;
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.okbasalman.product_service.domain.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * How much of a product a read needs. Repositories push this down into their queries so
+ * that data a caller does not need is never loaded.
+ */
+public enum Projection {
+    // every variant with its images
+    FULL,
+    // every variant, without images
+    NO_IMAGES,
+    // every variant with the id, size and content type of its images, but not their data
+    IMAGE_REFS,
+    // id, name, season, version and the lowest variant price only
+    SUMMARY;
+
+    /**
+     * Narrows an already loaded full product to this projection.
+     */
+    public Product applyTo(Product full) {
+        Product product = new Product();
+        product.setId(full.getId());
+        product.setName(full.getName());
+        product.setSeason(full.getSeason());
+        product.setMinPrice(full.getMinPrice());
+        product.setVersion(full.getVersion());
+        switch (this) {
+            case FULL -> {
+                return full;
+            }
+            case NO_IMAGES -> {
+                product.setDescription(full.getDescription());
+                product.setVariants(copyVariants(full.getVariants(), false));
+            }
+            case IMAGE_REFS -> {
+                product.setDescription(full.getDescription());
+                product.setVariants(copyVariants(full.getVariants(), true));
+            }
+            case SUMMARY -> product.setVariants(new ArrayList<>());
+        }
+        return product;
+    }
+
+    private static List<ProductVariant> copyVariants(List<ProductVariant> variants, boolean withImageRefs) {
+        return variants.stream()
+                .map(variant -> {
+                    ProductVariant copy = new ProductVariant();
+                    copy.setId(variant.getId());
+                    copy.setPrice(variant.getPrice());
+                    copy.setStock(variant.getStock());
+                    copy.setColor(variant.getColor());
+                    copy.setSize(variant.getSize());
+                    copy.setImages(withImageRefs ? imageRefs(variant.getImages()) : new ArrayList<>());
+                    return copy;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static List<ProductImage> imageRefs(List<ProductImage> images) {
+        return images.stream()
+                .map(image -> {
+                    ProductImage ref = new ProductImage();
+                    ref.setId(image.getId());
+                    ref.setContentHash(image.getContentHash());
+                    ref.setContentType(image.getContentType());
+                    ref.setSizeBytes(image.getSizeBytes());
+                    return ref;
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,23 @@
+package com.okbasalman.product_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of a variant held by one service instance for its in-memory hot stock counters.
+ * Leased stock counts as reserved, so other writers cannot sell it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLease {
+    private Long productVariantId;
+    private Long productId;
+    // leased by this call, or held in total when listing leases
+    private int quantity;
+    // the variant's stock available in the database, so without what is reserved or leased
+    private int stock;
+    // last journal sequence whose sales have been settled against this lease
+    private long journalSequence;
+}
@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLevel {
+    private Long productVariantId;
+    private Long productId;
+    private int stock;
+}
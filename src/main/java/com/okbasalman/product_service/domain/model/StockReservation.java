@@ -0,0 +1,20 @@
+package com.okbasalman.product_service.domain.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockReservation {
+    private Long id;
+    private Long productVariantId;
+    private Long productId;
+    private int quantity;
+    private Instant expiresAt;
+    // stock left for other reservations and decrements once this one is held
+    private int availableStock;
+}
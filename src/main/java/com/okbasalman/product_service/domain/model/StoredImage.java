@@ -0,0 +1,13 @@
+package com.okbasalman.product_service.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredImage {
+    private String contentHash;
+    private long sizeBytes;
+}
@@ -1,16 +1,60 @@
 package com.okbasalman.product_service.domain.port.input;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
 import com.okbasalman.product_service.domain.dto.DeleteProductResultDto;
 import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
+import com.okbasalman.product_service.domain.model.ImageRendition;
 import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
+import com.okbasalman.product_service.domain.port.output.ImageUpload;
 
 public interface ProductUseCase {
     Product createProduct(ProductCreateDto dto);
+    List<Long> importProducts(List<ProductCreateDto> dtos);
     List<Product> getAllProducts();
+    List<Product> getProductsPage(Long afterId, int limit, Projection projection);
     Product getProductById(Long id);
+    Product getProductById(Long id, Projection projection);
+    List<Product> getProductsByIds(List<Long> ids, Projection projection);
+    Map<Long, Long> getProductVersions(List<Long> ids);
+    ProductSearchResultDto searchProducts(ProductSearchQueryDto query);
     Product updateProduct(Product product);
     DeleteProductResultDto deleteProduct(Long id);
     Product decreaseStock(Long productVariantId, int quantity);
+    StockLevel decreaseStockLevel(Long productVariantId, int quantity);
+    StockBatchResultDto decreaseStockBatch(List<StockLineDto> lines);
+    StockReservation reserveStock(Long productVariantId, int quantity, Duration ttl);
+    StockLevel commitReservation(Long reservationId);
+    StockLevel releaseReservation(Long reservationId);
+    int releaseExpiredReservations(int limit);
+    BulkAdjustResultDto bulkAdjust(BulkAdjustDto adjustment, Long afterProductId, int limit);
+    StockLease leaseStock(String owner, Long productVariantId, int quantity);
+    Optional<StockLevel> settleLeasedStock(String owner, Long productVariantId, long sold, long journalSequence);
+    void releaseLeasedStock(String owner, Long productVariantId, int quantity);
+    void renewStockLeases(String owner);
+    int releaseExpiredStockLeases(Duration expiry, int limit);
+    List<StockLease> getStockLeases(String owner);
+    ImageUpload startImageUpload();
+    ProductImage getImage(Long imageId);
+    InputStream openImage(String contentHash);
+    // Deletes those of the given blobs that no image points at and that were not stored again since modifiedBefore.
+    int deleteUnreferencedImages(List<String> contentHashes, Instant modifiedBefore);
+    // Fills in image data at the given rendition for products read with Projection.IMAGE_REFS.
+    List<Product> applyImageRendition(List<Product> products, ImageRendition rendition);
 }
@@ -0,0 +1,15 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import com.okbasalman.product_service.domain.model.Product;
+
+/**
+ * One product's record in a catalog snapshot. Only the id is decoded up front.
+ */
+public interface CatalogSnapshotEntry {
+
+    Long getProductId();
+    // Encoded size of the record, which bounds the image data it holds.
+    int getSize();
+    // Decodes the whole product.
+    Product getProduct();
+}
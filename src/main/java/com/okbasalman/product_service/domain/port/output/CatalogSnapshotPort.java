@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.util.Optional;
+
+import com.okbasalman.product_service.domain.model.CatalogSnapshot;
+
+public interface CatalogSnapshotPort {
+
+    // Empty when there is no snapshot or it cannot be read.
+    Optional<CatalogSnapshot> load();
+    // The same snapshot record by record, for rewriting it. Empty when load() would be.
+    Optional<CatalogSnapshotReader> open();
+    CatalogSnapshotWriter startWrite(long watermark);
+}
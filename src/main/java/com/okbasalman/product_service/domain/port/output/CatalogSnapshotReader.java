@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.port.output;
+
+/**
+ * The records of a catalog snapshot, read one at a time in product id order without
+ * decoding the products.
+ */
+public interface CatalogSnapshotReader extends AutoCloseable {
+
+    long getWatermark();
+    // The next record, or null after the last one.
+    CatalogSnapshotEntry next();
+    @Override
+    void close();
+}
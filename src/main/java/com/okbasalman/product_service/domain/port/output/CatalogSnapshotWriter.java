@@ -0,0 +1,16 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import com.okbasalman.product_service.domain.model.Product;
+
+/**
+ * A catalog snapshot being written product by product. It replaces the previous
+ * snapshot only once {@link #complete()} is called.
+ */
+public interface CatalogSnapshotWriter {
+
+    void write(Product product);
+    // Writes a record of the snapshot being replaced as it is, without encoding it again.
+    void copy(CatalogSnapshotEntry entry);
+    void complete();
+    void abort();
+}
@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.Product;
+
+public interface ImageRenditionPort {
+
+    // Fills in image data for products loaded with Projection.IMAGE_REFS.
+    List<Product> applyTo(List<Product> products, ImageRendition rendition);
+    void requestRenditions(Collection<String> contentHashes);
+}
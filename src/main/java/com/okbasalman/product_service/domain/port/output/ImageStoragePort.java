@@ -0,0 +1,35 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.model.StoredImage;
+
+/**
+ * Blobs are written before the transaction that references them commits, so they are never
+ * deleted right away: unreferenced blobs are swept once they have not been stored or found
+ * for a grace period. Storing or finding a blob that already exists counts as writing it again.
+ */
+public interface ImageStoragePort {
+
+    StoredImage store(byte[] data);
+    byte[] load(String contentHash);
+
+    // For images too large to hold in memory: bytes are written as they arrive and read back as a stream.
+    ImageUpload startUpload();
+    InputStream openStream(String contentHash);
+    Optional<StoredImage> find(String contentHash);
+
+    // Renditions are stored next to the original, under its content hash.
+    boolean hasRendition(String contentHash, ImageRendition rendition);
+    void storeRendition(String contentHash, ImageRendition rendition, byte[] data);
+    Optional<byte[]> loadRendition(String contentHash, ImageRendition rendition);
+
+    // Blobs last stored or found before the cutoff. The stream has to be closed.
+    Stream<String> findBlobsModifiedBefore(Instant cutoff);
+    // Deletes the blob and its renditions, unless it has been stored or found again since the cutoff.
+    boolean deleteIfModifiedBefore(String contentHash, Instant cutoff);
+}
@@ -0,0 +1,14 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+
+public interface ImageTranscoderPort {
+
+    // Encoded bytes for each rendition, or empty when the image format cannot be decoded.
+    Optional<Map<ImageRendition, byte[]>> transcode(InputStream original, List<ImageRendition> renditions);
+}
@@ -0,0 +1,17 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.nio.ByteBuffer;
+
+import com.okbasalman.product_service.domain.model.StoredImage;
+
+/**
+ * An image being written to storage chunk by chunk. Its content hash, and so its key,
+ * is only known once {@link #complete()} is called; until then nothing is visible.
+ */
+public interface ImageUpload {
+
+    void write(ByteBuffer chunk);
+    long size();
+    StoredImage complete();
+    void abort();
+}
@@ -0,0 +1,19 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import com.okbasalman.product_service.domain.model.ProductChange;
+
+public interface ProductChangeLogPort {
+
+    List<ProductChange> findAfter(long sequence, int limit);
+    // those of the given sequences that are in the log
+    List<ProductChange> findBySequences(Collection<Long> sequences);
+    long latestSequence();
+    // the highest sequence purged so far; every change after it is still in the log
+    long purgedThrough();
+    // purges changes made before the cutoff and raises purgedThrough in the same transaction
+    int deleteBefore(Instant cutoff);
+}
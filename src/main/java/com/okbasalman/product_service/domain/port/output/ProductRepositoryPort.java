@@ -1,18 +1,62 @@
 package com.okbasalman.product_service.domain.port.output;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
 import com.okbasalman.product_service.domain.dto.DeleteProductResultDto;
 import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
 import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
 
 public interface ProductRepositoryPort {
 
     Product create(ProductCreateDto dto);
+    List<Long> createAll(List<ProductCreateDto> dtos);
     Product findById(Long id);
+    Product findById(Long id, Projection projection);
+    List<Product> findAllByIds(Collection<Long> ids, Projection projection);
+    // current version of each product that exists, by id
+    Map<Long, Long> findVersions(Collection<Long> ids);
+    // image metadata only, without its data
+    ProductImage findImage(Long imageId);
+    // the given content hashes that some image still points at
+    Set<String> findReferencedImageHashes(Collection<String> contentHashes);
     List<Product> findAll();
+    List<Product> findPage(Long afterId, int limit, Projection projection);
     Product update(Product product);
     DeleteProductResultDto deleteById(Long id);
     Product decreaseStock(Long productVariantId, int quantity);
+    StockLevel decreaseStockLevel(Long productVariantId, int quantity);
+    StockBatchResultDto decreaseStockBatch(List<StockLineDto> lines);
+    StockReservation reserveStock(Long productVariantId, int quantity, Instant expiresAt);
+    // the variant's stock after the decrement
+    StockLevel commitReservation(Long reservationId);
+    // the variant's available stock after the release
+    StockLevel releaseReservation(Long reservationId);
+    // releases up to limit reservations that expired before now and returns how many it released
+    int releaseExpiredReservations(Instant now, int limit);
+    // Adjusts the next chunk of up to limit matching products after afterProductId.
+    BulkAdjustResultDto bulkAdjust(BulkAdjustDto adjustment, Long afterProductId, int limit);
+    // Hot stock leases, held per owning instance. Settling is skipped when the lease has already
+    // settled up to journalSequence.
+    StockLease leaseStock(String owner, Long productVariantId, int quantity);
+    Optional<StockLevel> settleLeasedStock(String owner, Long productVariantId, long sold, long journalSequence);
+    void releaseLeasedStock(String owner, Long productVariantId, int quantity);
+    int renewStockLeases(String owner, Instant now);
+    // releases up to limit leases last renewed before expiredBefore and returns how many it released
+    int releaseExpiredStockLeases(Instant expiredBefore, int limit);
+    List<StockLease> findStockLeases(String owner);
 }
@@ -0,0 +1,9 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+
+public interface ProductSearchPort {
+
+    ProductSearchResultDto search(ProductSearchQueryDto query);
+}
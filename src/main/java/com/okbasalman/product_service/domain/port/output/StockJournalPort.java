@@ -0,0 +1,26 @@
+package com.okbasalman.product_service.domain.port.output;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.okbasalman.product_service.domain.model.JournaledSales;
+
+/**
+ * Durable record of hot stock sales between the moment they are acknowledged and the
+ * moment they are settled in the database.
+ */
+public interface StockJournalPort {
+
+    // Stays the same across restarts for as long as the journal does; hot stock leases are held under it.
+    String identity();
+    // Opens the journal for writing and returns the segments a previous run left behind, oldest first.
+    // New sequences start above settledThrough and above anything the journal has ever written.
+    List<JournaledSales> open(long settledThrough);
+    // Returns once the sale is on disk.
+    void append(Long productVariantId, int quantity);
+    // Closes the segment being written and returns its sales, or nothing if it has none.
+    Optional<JournaledSales> rotate();
+    // Deletes closed segments whose sales are all at or below this sequence.
+    void discardThrough(long sequence);
+    void close();
+}
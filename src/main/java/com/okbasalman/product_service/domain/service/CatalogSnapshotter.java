@@ -0,0 +1,288 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.okbasalman.product_service.domain.event.CatalogSnapshotLoadedEvent;
+import com.okbasalman.product_service.domain.model.CatalogSnapshot;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotEntry;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotPort;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotReader;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotWriter;
+import com.okbasalman.product_service.domain.port.output.ProductChangeLogPort;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a local snapshot of the whole catalog and warms the caches and the search index from it
+ * on startup, before the service reports itself ready. Every {@code interval} the previous
+ * snapshot is rewritten with the products changed since it, and only those are read from the
+ * database; the catalog is read in full only when there is no usable snapshot yet. The snapshot
+ * records the change feed's settled watermark it was taken at and is read from the primary, so
+ * it reflects every change up to that mark, including skipped ones that may still commit late.
+ * Products changed after it are left out of the warm-up and read again instead. Changes committed
+ * while warming up are looked up once more afterwards, so a product written in between is never
+ * left cached at its snapshot state.
+ *
+ * <p>Image data is written until {@code maxImageBytes} is reached and the remaining products
+ * only with image references. Those are still indexed but not cached, and keep only their
+ * references until they change, even if the budget frees up in the meantime.
+ */
+@Slf4j
+public class CatalogSnapshotter {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final ProductUseCase productUseCase;
+    private final CatalogSnapshotPort snapshots;
+    private final ProductChangeFeed changeFeed;
+    private final ProductChangeLogPort changeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations primaryReads;
+    private final ScheduledExecutorService executor;
+    private final Duration interval;
+    private final long maxImageBytes;
+
+    public CatalogSnapshotter(ProductUseCase productUseCase, CatalogSnapshotPort snapshots, ProductChangeFeed changeFeed,
+                              ProductChangeLogPort changeLog, ApplicationEventPublisher eventPublisher,
+                              TransactionOperations primaryReads, ScheduledExecutorService executor, Duration interval,
+                              long maxImageBytes) {
+        this.productUseCase = productUseCase;
+        this.snapshots = snapshots;
+        this.changeFeed = changeFeed;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
+        this.primaryReads = primaryReads;
+        this.executor = executor;
+        this.interval = interval;
+        this.maxImageBytes = maxImageBytes;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::write, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmFromSnapshot() {
+        try {
+            Optional<CatalogSnapshot> loaded = snapshots.load();
+            if (loaded.isEmpty()) {
+                return;
+            }
+            CatalogSnapshot snapshot = loaded.get();
+            if (!changeFeed.canResumeFrom(snapshot.getWatermark())) {
+                log.info("Catalog snapshot taken at {} is older than the product change log; starting cold",
+                        snapshot.getCreatedAt());
+                return;
+            }
+            Set<Long> changed = changedSince(snapshot.getWatermark());
+            List<Product> products = new ArrayList<>();
+            List<Product> fullProducts = new ArrayList<>();
+            for (Product product : snapshot.getProducts()) {
+                if (changed.contains(product.getId())) {
+                    continue;
+                }
+                products.add(product);
+                if (hasImageData(product)) {
+                    fullProducts.add(product);
+                }
+            }
+            eventPublisher.publishEvent(new CatalogSnapshotLoadedEvent(products, fullProducts, changed));
+            Set<Long> changedWhileWarming = changedSince(snapshot.getWatermark());
+            changedWhileWarming.removeAll(changed);
+            if (!changedWhileWarming.isEmpty()) {
+                eventPublisher.publishEvent(new CatalogSnapshotLoadedEvent(List.of(), List.of(), changedWhileWarming));
+            }
+            log.info("Warmed up from the catalog snapshot taken at {}: {} products, {} changed since",
+                    snapshot.getCreatedAt(), products.size(), changed.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to warm up from the catalog snapshot; starting cold", e);
+        }
+    }
+
+    private Set<Long> changedSince(long watermark) {
+        Set<Long> changed = new LinkedHashSet<>();
+        long after = watermark;
+        List<ProductChange> changes;
+        do {
+            changes = changeLog.findAfter(after, PAGE_SIZE);
+            changes.forEach(change -> changed.add(change.getProductId()));
+            if (!changes.isEmpty()) {
+                after = changes.get(changes.size() - 1).getSequence();
+            }
+        } while (changes.size() == PAGE_SIZE);
+        return changed;
+    }
+
+    private void write() {
+        try {
+            long watermark = changeFeed.settledWatermark();
+            Optional<CatalogSnapshotReader> opened = snapshots.open();
+            if (opened.isEmpty()) {
+                writeAll(watermark);
+                return;
+            }
+            try (CatalogSnapshotReader previous = opened.get()) {
+                if (changeFeed.canResumeFrom(previous.getWatermark())) {
+                    writeChanges(previous, watermark);
+                } else {
+                    writeAll(watermark);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to write the catalog snapshot, retrying in {}", interval, e);
+        }
+    }
+
+    private void writeAll(long watermark) {
+        SnapshotOutput output = new SnapshotOutput(snapshots.startWrite(watermark));
+        try {
+            long afterId = 0;
+            List<Product> page;
+            do {
+                long after = afterId;
+                // once the image budget is used up, image data is not even loaded
+                Projection projection = output.imagesFull() ? Projection.IMAGE_REFS : Projection.FULL;
+                page = primaryReads.execute(status -> productUseCase.getProductsPage(after, PAGE_SIZE, projection));
+                page.forEach(output::write);
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+            output.complete();
+        } catch (RuntimeException e) {
+            output.abort();
+            throw e;
+        }
+        log.debug("Wrote a catalog snapshot of {} products up to change {}", output.count, watermark);
+    }
+
+    /**
+     * Rewrites the previous snapshot with only the products changed since it from the database,
+     * so the catalog and its images are not read in full every interval. The previous snapshot is
+     * streamed record by record and only the ids are decoded; unchanged records are copied as they
+     * are. Nothing is written when nothing changed.
+     */
+    private void writeChanges(CatalogSnapshotReader previous, long watermark) {
+        Set<Long> changedIds = new TreeSet<>(changedSince(previous.getWatermark()));
+        if (changedIds.isEmpty()) {
+            return;
+        }
+        TreeMap<Long, Product> changed = new TreeMap<>();
+        List<Long> ids = List.copyOf(changedIds);
+        for (int from = 0; from < ids.size(); from += PAGE_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + PAGE_SIZE));
+            primaryReads.execute(status -> productUseCase.getProductsByIds(chunk, Projection.FULL))
+                    .forEach(product -> changed.put(product.getId(), product));
+        }
+
+        SnapshotOutput output = new SnapshotOutput(snapshots.startWrite(watermark));
+        try {
+            // both are in id order; products changed since are replaced, or left out when deleted
+            Iterator<Product> updates = changed.values().iterator();
+            Product update = updates.hasNext() ? updates.next() : null;
+            for (CatalogSnapshotEntry entry = previous.next(); entry != null; entry = previous.next()) {
+                while (update != null && update.getId() < entry.getProductId()) {
+                    output.write(update);
+                    update = updates.hasNext() ? updates.next() : null;
+                }
+                if (!changedIds.contains(entry.getProductId())) {
+                    output.copy(entry);
+                }
+            }
+            while (update != null) {
+                output.write(update);
+                update = updates.hasNext() ? updates.next() : null;
+            }
+            output.complete();
+        } catch (RuntimeException e) {
+            output.abort();
+            throw e;
+        }
+        log.debug("Wrote a catalog snapshot of {} products up to change {}, {} of them read again",
+                output.count, watermark, changed.size());
+    }
+
+    private static boolean hasImageData(Product product) {
+        return product.getVariants().stream()
+                .flatMap(variant -> variant.getImages().stream())
+                .allMatch(image -> image.getBase64Data() != null);
+    }
+
+    private static long imageBytes(Product product) {
+        return product.getVariants().stream()
+                .flatMap(variant -> variant.getImages().stream())
+                .map(ProductImage::getBase64Data)
+                .filter(data -> data != null)
+                .mapToLong(String::length)
+                .sum();
+    }
+
+    // Writes image data until maxImageBytes is reached and only image references after that.
+    private final class SnapshotOutput {
+
+        private final CatalogSnapshotWriter writer;
+        private long imageBytes;
+        private int count;
+
+        private SnapshotOutput(CatalogSnapshotWriter writer) {
+            this.writer = writer;
+        }
+
+        boolean imagesFull() {
+            return imageBytes >= maxImageBytes;
+        }
+
+        void write(Product product) {
+            if (imagesFull()) {
+                writer.write(Projection.IMAGE_REFS.applyTo(product));
+            } else {
+                writer.write(product);
+                imageBytes += imageBytes(product);
+            }
+            count++;
+        }
+
+        // A copied record counts against the budget with its whole size, as its images are not decoded.
+        void copy(CatalogSnapshotEntry entry) {
+            if (imagesFull()) {
+                writer.write(Projection.IMAGE_REFS.applyTo(entry.getProduct()));
+            } else {
+                writer.copy(entry);
+                imageBytes += entry.getSize();
+            }
+            count++;
+        }
+
+        void complete() {
+            writer.complete();
+        }
+
+        void abort() {
+            writer.abort();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Returns the stock leased by hot stock owners that stopped renewing their leases, such as an
+ * instance that was rescheduled without its journal. Runs on every instance whether or not it
+ * serves hot variants itself; like {@link StockReservationSweeper} it keeps going while full
+ * batches come back.
+ */
+@Slf4j
+public class HotStockLeaseSweeper {
+
+    private final ProductUseCase productUseCase;
+    private final ScheduledExecutorService executor;
+    private final Duration interval;
+    private final Duration leaseExpiry;
+    private final int batchSize;
+
+    public HotStockLeaseSweeper(ProductUseCase productUseCase, ScheduledExecutorService executor,
+                                Duration interval, Duration leaseExpiry, int batchSize) {
+        this.productUseCase = productUseCase;
+        this.executor = executor;
+        this.interval = interval;
+        this.leaseExpiry = leaseExpiry;
+        this.batchSize = batchSize;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::sweep, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            int total = 0;
+            int released;
+            do {
+                released = productUseCase.releaseExpiredStockLeases(leaseExpiry, batchSize);
+                total += released;
+            } while (released == batchSize && !Thread.currentThread().isInterrupted());
+            if (total > 0) {
+                log.warn("Released {} hot stock leases not renewed for {}", total, leaseExpiry);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to release expired hot stock leases", e);
+        }
+    }
+}
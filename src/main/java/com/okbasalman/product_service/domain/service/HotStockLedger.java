@@ -0,0 +1,306 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.okbasalman.product_service.domain.model.JournaledSales;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.port.output.StockJournalPort;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves stock decrements of a few designated hot variants from memory. Each hot variant
+ * leases a block of its stock in the database, which counts as reserved so no other writer
+ * can sell it, and hands it out from a {@link StripedStockCounter}. A sale is acknowledged once
+ * it is in the local journal; a background task settles journaled sales into the variant's
+ * stock every {@code flushInterval} and keeps the leases topped up. A hot variant's stock is what
+ * is available in the database, which leaves out the lease, plus what its counter still holds.
+ *
+ * <p>On start, sales a previous run journaled but did not settle are settled and its leases
+ * returned. Settling is keyed by journal sequence, so a segment settled just before a crash
+ * is not applied twice, and each segment remembers which variants it has settled so a retry
+ * after a partial failure only settles the rest.
+ *
+ * <p>Leases are held under an owner that must outlive the process, normally the journal's own
+ * identity, and are renewed on every flush. Another instance releases leases left unrenewed for
+ * {@code leaseExpiry}, so the ledger stops selling from memory once half of that has passed
+ * without a renewal and returns what its counters hold; it serves again after the next renewal.
+ */
+@Slf4j
+public class HotStockLedger {
+
+    private final ProductUseCase productUseCase;
+    private final StockJournalPort journal;
+    private final ScheduledExecutorService executor;
+    private final String owner;
+    private final int leaseSize;
+    private final Duration flushInterval;
+    private final long renewalTimeoutNanos;
+
+    private final Map<Long, HotVariant> variants = new TreeMap<>();
+    // closed journal segments whose sales are not settled yet, oldest first
+    private final Deque<UnsettledSales> unsettled = new ArrayDeque<>();
+    private volatile boolean running;
+    private volatile long renewedAt;
+
+    public HotStockLedger(ProductUseCase productUseCase, StockJournalPort journal, ScheduledExecutorService executor,
+                          Collection<Long> variantIds, String owner, int leaseSize, Duration flushInterval,
+                          Duration leaseExpiry, int stripes) {
+        if (leaseExpiry.compareTo(flushInterval.multipliedBy(4)) < 0) {
+            throw new IllegalArgumentException("The hot stock lease expiry must be at least four flush intervals.");
+        }
+        this.productUseCase = productUseCase;
+        this.journal = journal;
+        this.executor = executor;
+        this.owner = owner;
+        this.leaseSize = leaseSize;
+        this.flushInterval = flushInterval;
+        this.renewalTimeoutNanos = leaseExpiry.toNanos() / 2;
+        variantIds.forEach(id -> variants.put(id, new HotVariant(id, new StripedStockCounter(stripes))));
+    }
+
+    public void start() {
+        // the database remembers how far settling got even if the journal directory was lost
+        long settledThrough = productUseCase.getStockLeases(owner).stream()
+                .mapToLong(StockLease::getJournalSequence)
+                .max()
+                .orElse(0);
+        List<JournaledSales> recovered = journal.open(settledThrough);
+        recover(recovered);
+        if (variants.isEmpty()) {
+            journal.close();
+            executor.shutdown();
+            return;
+        }
+        renewedAt = System.nanoTime();
+        running = true;
+        executor.scheduleWithFixedDelay(this::flush, 0, flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        log.info("Serving stock of hot variants {} from memory", variants.keySet());
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(flushInterval.toMillis() * 2, TimeUnit.MILLISECONDS);
+            journal.rotate().ifPresent(sales -> unsettled.add(new UnsettledSales(sales)));
+            settle();
+            variants.values().forEach(variant -> {
+                variant.unreleased += variant.counter.drainAll();
+                release(variant);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // whatever is left is settled and released from the journal on the next start
+            log.warn("Failed to settle hot stock on shutdown", e);
+        } finally {
+            journal.close();
+        }
+    }
+
+    public boolean isHot(Long productVariantId) {
+        return serving() && variants.containsKey(productVariantId);
+    }
+
+    /**
+     * Decrements a hot variant's stock without touching the database. The returned stock is
+     * what its counter holds plus what was available in the database at the last lease or settle.
+     */
+    public StockLevel decreaseStockLevel(Long productVariantId, int quantity) {
+        HotVariant variant = variants.get(productVariantId);
+        if (variant == null || !serving()) {
+            throw new IllegalStateException("Product variant " + productVariantId + " is not served from hot stock.");
+        }
+        // once the database has run dry, takers fail from memory until the next flush finds new stock
+        if (!variant.counter.tryTake(quantity,
+                shortfall -> variant.exhausted || !serving() ? 0 : lease(variant, Math.max(shortfall, leaseSize)))) {
+            throw new RuntimeException("Insufficient stock for product variant ID: " + productVariantId);
+        }
+        try {
+            journal.append(productVariantId, quantity);
+        } catch (RuntimeException e) {
+            variant.counter.add(quantity);
+            running = false;
+            throw e;
+        }
+        return variant.stockLevel();
+    }
+
+    // Adds what the counters hold to the stock of hot variants, which the database reports as leased.
+    // Returns a copy when anything is added, since the product may be shared with the product cache.
+    public Product applyTo(Product product) {
+        if (product.getVariants().stream().noneMatch(productVariant -> held(productVariant.getId()) > 0)) {
+            return product;
+        }
+        Product overlaid = new Product(product.getId(), product.getName(), product.getDescription(), product.getSeason(),
+                new ArrayList<>(), product.getMinPrice(), product.getVersion());
+        product.getVariants().forEach(productVariant -> {
+            int held = held(productVariant.getId());
+            if (held == 0) {
+                overlaid.getVariants().add(productVariant);
+                return;
+            }
+            ProductVariant copy = new ProductVariant();
+            copy.setId(productVariant.getId());
+            copy.setPrice(productVariant.getPrice());
+            copy.setStock(productVariant.getStock() + held);
+            copy.setColor(productVariant.getColor());
+            copy.setSize(productVariant.getSize());
+            copy.setImages(productVariant.getImages());
+            overlaid.getVariants().add(copy);
+        });
+        return overlaid;
+    }
+
+    // Hot variants whose counters hold stock, so they are in stock whatever the database reports.
+    public Set<Long> inStockVariantIds() {
+        return variants.values().stream()
+                .filter(variant -> variant.counter.available() > 0)
+                .map(variant -> variant.id)
+                .collect(Collectors.toSet());
+    }
+
+    private int held(Long productVariantId) {
+        HotVariant variant = variants.get(productVariantId);
+        return variant == null ? 0 : variant.counter.available();
+    }
+
+    private boolean serving() {
+        return running && System.nanoTime() - renewedAt < renewalTimeoutNanos;
+    }
+
+    private void flush() {
+        try {
+            journal.rotate().ifPresent(sales -> unsettled.add(new UnsettledSales(sales)));
+            settle();
+        } catch (RuntimeException e) {
+            log.warn("Failed to settle hot stock, retrying in {}", flushInterval, e);
+        }
+        try {
+            productUseCase.renewStockLeases(owner);
+            renewedAt = System.nanoTime();
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew hot stock leases, retrying in {}", flushInterval, e);
+        }
+        boolean serving = serving();
+        variants.values().forEach(variant -> {
+            try {
+                if (!serving) {
+                    // the leases may be released by another instance soon, so nothing more is sold from them
+                    variant.unreleased += variant.counter.drainAll();
+                }
+                release(variant);
+                if (serving) {
+                    variant.counter.replenish(leaseSize, shortfall -> lease(variant, shortfall));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to update the stock lease of hot variant {}", variant.id, e);
+            }
+        });
+    }
+
+    private void settle() {
+        while (!unsettled.isEmpty()) {
+            UnsettledSales sales = unsettled.peekFirst();
+            Iterator<Map.Entry<Long, Long>> remaining = sales.soldByVariant.entrySet().iterator();
+            while (remaining.hasNext()) {
+                Map.Entry<Long, Long> sold = remaining.next();
+                Optional<StockLevel> settled = productUseCase.settleLeasedStock(owner, sold.getKey(), sold.getValue(),
+                        sales.lastSequence);
+                HotVariant variant = variants.get(sold.getKey());
+                if (variant != null) {
+                    settled.ifPresent(level -> variant.databaseStock = level.getStock());
+                }
+                remaining.remove();
+            }
+            unsettled.pollFirst();
+            journal.discardThrough(sales.lastSequence);
+        }
+    }
+
+    // Units drained from a counter stay leased until they are released here.
+    private void release(HotVariant variant) {
+        if (variant.unreleased > 0) {
+            productUseCase.releaseLeasedStock(owner, variant.id, variant.unreleased);
+            variant.unreleased = 0;
+        }
+    }
+
+    private void recover(List<JournaledSales> recovered) {
+        for (JournaledSales sales : recovered) {
+            new TreeMap<>(sales.getSoldByVariant()).forEach((productVariantId, sold) ->
+                    productUseCase.settleLeasedStock(owner, productVariantId, sold, sales.getLastSequence()));
+        }
+        // whatever is still leased after settling was never sold
+        productUseCase.getStockLeases(owner).forEach(lease -> {
+            if (lease.getQuantity() > 0) {
+                productUseCase.releaseLeasedStock(owner, lease.getProductVariantId(), lease.getQuantity());
+            }
+        });
+        if (!recovered.isEmpty()) {
+            long lastSequence = recovered.get(recovered.size() - 1).getLastSequence();
+            journal.discardThrough(lastSequence);
+            log.info("Settled hot stock sales journaled before the last shutdown, up to sequence {}", lastSequence);
+        }
+    }
+
+    private int lease(HotVariant variant, int quantity) {
+        StockLease lease = productUseCase.leaseStock(owner, variant.id, quantity);
+        variant.productId = lease.getProductId();
+        variant.databaseStock = lease.getStock();
+        variant.exhausted = lease.getQuantity() < quantity;
+        return lease.getQuantity();
+    }
+
+    private static final class HotVariant {
+        private final Long id;
+        private final StripedStockCounter counter;
+        private volatile Long productId;
+        // available in the database besides the lease, as of the last lease or settle
+        private volatile int databaseStock;
+        private volatile boolean exhausted;
+        // only touched by the flusher
+        private int unreleased;
+
+        private HotVariant(Long id, StripedStockCounter counter) {
+            this.id = id;
+            this.counter = counter;
+        }
+
+        private StockLevel stockLevel() {
+            return new StockLevel(id, productId, databaseStock + counter.available());
+        }
+    }
+
+    private static final class UnsettledSales {
+        private final long lastSequence;
+        // variants not settled yet; each is removed as soon as its settle commits
+        private final Map<Long, Long> soldByVariant;
+
+        private UnsettledSales(JournaledSales sales) {
+            this.lastSequence = sales.getLastSequence();
+            this.soldByVariant = new TreeMap<>(sales.getSoldByVariant());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes image blobs that no image row points at any more: those of replaced images, deleted
+ * products, rolled-back creates and uploads never attached to a product. A blob is only a
+ * candidate once it has not been stored or found for the grace period, so one written for a
+ * transaction that has not committed yet is left alone; the grace period has to be longer than
+ * any such transaction and than clients take to attach an upload. Runs on every instance, a
+ * batch of blobs per transaction.
+ */
+@Slf4j
+public class ImageBlobSweeper {
+
+    private final ProductUseCase productUseCase;
+    private final ImageStoragePort imageStorage;
+    private final ScheduledExecutorService executor;
+    private final Duration interval;
+    private final Duration grace;
+    private final int batchSize;
+
+    public ImageBlobSweeper(ProductUseCase productUseCase, ImageStoragePort imageStorage,
+                            ScheduledExecutorService executor, Duration interval, Duration grace, int batchSize) {
+        this.productUseCase = productUseCase;
+        this.imageStorage = imageStorage;
+        this.executor = executor;
+        this.interval = interval;
+        this.grace = grace;
+        this.batchSize = batchSize;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::sweep, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    void sweep() {
+        Instant cutoff = Instant.now().minus(grace);
+        int deleted = 0;
+        try (Stream<String> blobs = imageStorage.findBlobsModifiedBefore(cutoff)) {
+            Iterator<String> iterator = blobs.iterator();
+            List<String> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    deleted += productUseCase.deleteUnreferencedImages(batch, cutoff);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete unreferenced images", e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced images", deleted);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.port.output.ProductChangeLogPort;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tails the product change log for every watcher at once. One poller reads new rows,
+ * keeps the most recent ones in memory and wakes subscribers, which then read from
+ * memory or, when resuming from further back, from the log itself.
+ *
+ * <p>Sequences are allocated before commit, so a lower sequence can become visible after
+ * a higher one. The feed only publishes up to the first missing sequence (the watermark)
+ * and waits for the gap to fill; a gap still open after {@code gapTimeout} is assumed to
+ * be a rolled-back transaction and skipped. Skipped sequences are still looked up for
+ * {@code gapRecheck} in case the transaction was only slow: a change that shows up late is
+ * handed to subscribers, which make watchers that have already read past it resync.
+ *
+ * <p>Subscribers are notified on {@code notifier} rather than on the poller, since a watcher
+ * that has fallen behind the in-memory buffer catches up from the log.
+ */
+@Slf4j
+public class ProductChangeFeed {
+
+    public interface Subscriber {
+        void onChangesAvailable();
+        // A change at or below the watermark committed after it was skipped.
+        void onLateChange(long sequence);
+    }
+
+    private final ProductChangeLogPort changeLog;
+    private final ScheduledExecutorService executor;
+    private final ExecutorService notifier;
+    private final Duration pollInterval;
+    private final long gapTimeoutNanos;
+    private final long gapRecheckNanos;
+    private final int batchSize;
+    private final int bufferSize;
+    private final Duration retention;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableMap<Long, ProductChange> recent = new TreeMap<>();
+    private final Map<Long, Long> gapsFirstSeen = new HashMap<>();
+    // skipped sequence -> when it was skipped; only changed by the poller
+    private final NavigableMap<Long, Long> skipped = new ConcurrentSkipListMap<>();
+    private volatile long watermark;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public ProductChangeFeed(ProductChangeLogPort changeLog, ScheduledExecutorService executor, ExecutorService notifier,
+                             Duration pollInterval, Duration gapTimeout, Duration gapRecheck, int batchSize,
+                             int bufferSize, Duration retention) {
+        this.changeLog = changeLog;
+        this.executor = executor;
+        this.notifier = notifier;
+        this.pollInterval = pollInterval;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.gapRecheckNanos = gapRecheck.toNanos();
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.retention = retention;
+    }
+
+    public void start() {
+        watermark = changeLog.latestSequence();
+        executor.scheduleWithFixedDelay(this::poll, pollInterval.toNanos(), pollInterval.toNanos(), TimeUnit.NANOSECONDS);
+        executor.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+        notifier.shutdownNow();
+    }
+
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public long watermark() {
+        return watermark;
+    }
+
+    /**
+     * The watermark, or just below the oldest skipped sequence that may still commit late if that
+     * is lower. Everything read after taking it reflects every change up to it, so reading the log
+     * after it later also finds the late ones.
+     */
+    public long settledWatermark() {
+        long upTo = watermark;
+        Map.Entry<Long, Long> oldestSkipped = skipped.firstEntry();
+        return oldestSkipped == null ? upTo : Math.min(upTo, oldestSkipped.getKey() - 1);
+    }
+
+    /**
+     * Whether every change after {@code sequence} is still in the log, i.e. a watcher
+     * can resume from it without missing anything.
+     */
+    public boolean canResumeFrom(long sequence) {
+        return sequence >= changeLog.purgedThrough();
+    }
+
+    /**
+     * Up to {@code limit} published changes after {@code afterSequence}, in sequence order.
+     */
+    public List<ProductChange> read(long afterSequence, int limit) {
+        long upTo = watermark;
+        if (afterSequence >= upTo) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            if (!recent.isEmpty() && afterSequence >= recent.firstKey() - 1) {
+                List<ProductChange> changes = new ArrayList<>();
+                for (ProductChange change : recent.tailMap(afterSequence, false).values()) {
+                    if (change.getSequence() > upTo || changes.size() == limit) {
+                        break;
+                    }
+                    changes.add(change);
+                }
+                return changes;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return changeLog.findAfter(afterSequence, limit).stream()
+                .filter(change -> change.getSequence() <= upTo)
+                .toList();
+    }
+
+    private void poll() {
+        try {
+            boolean advanced = false;
+            List<ProductChange> changes;
+            do {
+                changes = changeLog.findAfter(watermark, batchSize);
+                if (!accept(changes)) {
+                    break;
+                }
+                advanced = true;
+            } while (changes.size() == batchSize);
+            if (advanced) {
+                notifySubscribers(Subscriber::onChangesAvailable);
+            }
+            recheckSkipped();
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll the product change log", e);
+        }
+    }
+
+    private void recheckSkipped() {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        skipped.values().removeIf(skippedAt -> now - skippedAt > gapRecheckNanos);
+        if (skipped.isEmpty()) {
+            return;
+        }
+        for (ProductChange change : changeLog.findBySequences(List.copyOf(skipped.keySet()))) {
+            long sequence = change.getSequence();
+            skipped.remove(sequence);
+            log.warn("Product change sequence {} committed after it was skipped; watchers past it have to resync", sequence);
+            lock.lock();
+            try {
+                // readers served from memory would otherwise never see it
+                if (!recent.isEmpty() && sequence > recent.firstKey()) {
+                    recent.put(sequence, change);
+                }
+            } finally {
+                lock.unlock();
+            }
+            notifySubscribers(subscriber -> subscriber.onLateChange(sequence));
+        }
+    }
+
+    private void notifySubscribers(Consumer<Subscriber> notification) {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                notifier.execute(() -> notification.accept(subscriber));
+            } catch (RejectedExecutionException e) {
+                // stopping
+                return;
+            }
+        }
+    }
+
+    private boolean accept(List<ProductChange> changes) {
+        lock.lock();
+        try {
+            long next = watermark + 1;
+            long now = System.nanoTime();
+            for (ProductChange change : changes) {
+                while (change.getSequence() > next) {
+                    long firstSeen = gapsFirstSeen.computeIfAbsent(next, sequence -> now);
+                    if (now - firstSeen < gapTimeoutNanos) {
+                        return publish(next - 1);
+                    }
+                    log.warn("Skipping product change sequence {} after waiting for it to commit", next);
+                    gapsFirstSeen.remove(next);
+                    skipped.put(next, now);
+                    next++;
+                }
+                gapsFirstSeen.remove(next);
+                recent.put(change.getSequence(), change);
+                next = change.getSequence() + 1;
+            }
+            return publish(next - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean publish(long upTo) {
+        if (upTo == watermark) {
+            return false;
+        }
+        watermark = upTo;
+        while (recent.size() > bufferSize) {
+            recent.pollFirstEntry();
+        }
+        return true;
+    }
+
+    private void purge() {
+        try {
+            int deleted = changeLog.deleteBefore(Instant.now().minus(retention));
+            if (deleted > 0) {
+                log.info("Purged {} product changes older than {}", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge the product change log", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.okbasalman.product_service.domain.exception.ProductLookupTimeoutException;
+import com.okbasalman.product_service.domain.model.Product;
+
+/**
+ * Merges single-product lookups that arrive within a short window into one batched load,
+ * and lets concurrent lookups of the same id share a single result. Callers block outside
+ * of any transaction; each batch runs in its own.
+ * <p>
+ * A caller waits at most until its own timeout, or maxWait when it has none. Giving up does not
+ * cancel the shared load, which the other callers of that id may still be waiting on; the caller
+ * gets a {@link ProductLookupTimeoutException}.
+ */
+public class ProductLookupCoalescer {
+
+    private final Function<List<Long>, List<Product>> batchLoader;
+    private final ScheduledExecutorService executor;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, CompletableFuture<Product>> inFlight = new HashMap<>();
+    private Map<Long, CompletableFuture<Product>> pending = new LinkedHashMap<>();
+
+    public ProductLookupCoalescer(Function<List<Long>, List<Product>> batchLoader, ScheduledExecutorService executor,
+                                  Duration window, int maxBatchSize, Duration maxWait) {
+        this.batchLoader = batchLoader;
+        this.executor = executor;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Product getProductById(Long id) {
+        return getProductById(id, maxWait);
+    }
+
+    public Product getProductById(Long id, Duration timeout) {
+        long timeoutNanos = Math.min(timeout.toNanos(), maxWait.toNanos());
+        try {
+            // a copy, so timing out only fails this caller's future and not the shared one
+            return lookup(id).copy().orTimeout(timeoutNanos, TimeUnit.NANOSECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new ProductLookupTimeoutException(id);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Product> lookup(Long id) {
+        Map<Long, CompletableFuture<Product>> fullBatch = null;
+        CompletableFuture<Product> future;
+        lock.lock();
+        try {
+            future = inFlight.get(id);
+            if (future == null) {
+                future = pending.get(id);
+            }
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = takePending();
+            } else if (pending.size() == 1) {
+                Map<Long, CompletableFuture<Product>> batch = pending;
+                executor.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (fullBatch != null) {
+            Map<Long, CompletableFuture<Product>> batch = fullBatch;
+            executor.execute(() -> load(batch));
+        }
+        return future;
+    }
+
+    private void flush(Map<Long, CompletableFuture<Product>> batch) {
+        lock.lock();
+        try {
+            // the batch may already have been sent early because it filled up
+            if (pending != batch) {
+                return;
+            }
+            takePending();
+        } finally {
+            lock.unlock();
+        }
+        load(batch);
+    }
+
+    private Map<Long, CompletableFuture<Product>> takePending() {
+        Map<Long, CompletableFuture<Product>> batch = pending;
+        pending = new LinkedHashMap<>();
+        inFlight.putAll(batch);
+        return batch;
+    }
+
+    private void load(Map<Long, CompletableFuture<Product>> batch) {
+        try {
+            Map<Long, Product> loaded = new HashMap<>();
+            batchLoader.apply(new ArrayList<>(batch.keySet())).forEach(product -> loaded.put(product.getId(), product));
+            batch.forEach((id, future) -> {
+                Product product = loaded.get(id);
+                if (product != null) {
+                    future.complete(product);
+                } else {
+                    future.completeExceptionally(new RuntimeException("Product not found with ID: " + id));
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            lock.lock();
+            try {
+                batch.keySet().forEach(inFlight::remove);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,43 +1,110 @@
 package com.okbasalman.product_service.domain.service;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
 import com.okbasalman.product_service.domain.dto.DeleteProductResultDto;
 import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchResultDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
+import com.okbasalman.product_service.domain.model.ImageRendition;
 import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
 import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.port.output.ImageRenditionPort;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+import com.okbasalman.product_service.domain.port.output.ImageUpload;
 import com.okbasalman.product_service.domain.port.output.ProductRepositoryPort;
+import com.okbasalman.product_service.domain.port.output.ProductSearchPort;
 
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
+// Reads run in read-only transactions: Hibernate skips dirty checking and flushing for them, and
+// when a replica is configured they are served from it.
 public class ProductService implements ProductUseCase{
 
     private final ProductRepositoryPort productRepositoryPort;
+    private final ProductSearchPort productSearchPort;
+    private final ImageStoragePort imageStoragePort;
+    private final ImageRenditionPort imageRenditionPort;
 
-    public ProductService(ProductRepositoryPort productRepositoryPort){
+    public ProductService(ProductRepositoryPort productRepositoryPort, ProductSearchPort productSearchPort,
+                          ImageStoragePort imageStoragePort, ImageRenditionPort imageRenditionPort){
         this.productRepositoryPort = productRepositoryPort;
+        this.productSearchPort = productSearchPort;
+        this.imageStoragePort = imageStoragePort;
+        this.imageRenditionPort = imageRenditionPort;
     }
     
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Product getProductById(Long id) {
         return productRepositoryPort.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Product getProductById(Long id, Projection projection) {
+        return productRepositoryPort.findById(id, projection);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByIds(List<Long> ids, Projection projection) {
+        return productRepositoryPort.findAllByIds(ids, projection);
+    }
+
+    // Not read-only, so versions come from the primary: they decide whether a client's copy is still current.
     @Override
     @Transactional
+    public Map<Long, Long> getProductVersions(List<Long> ids) {
+        return productRepositoryPort.findVersions(ids);
+    }
+
+    @Override
+    public ProductSearchResultDto searchProducts(ProductSearchQueryDto query) {
+        return productSearchPort.search(query);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productRepositoryPort.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> getProductsPage(Long afterId, int limit, Projection projection) {
+        return productRepositoryPort.findPage(afterId, limit, projection);
+    }
+
     @Override
     @Transactional
     public Product createProduct(ProductCreateDto dto){
         return productRepositoryPort.create(dto);
     }
 
+    @Override
+    @Transactional
+    public List<Long> importProducts(List<ProductCreateDto> dtos){
+        return productRepositoryPort.createAll(dtos);
+    }
+
     @Override
     @Transactional
     public Product updateProduct(Product product){
@@ -55,4 +122,120 @@ public class ProductService implements ProductUseCase{
     public Product decreaseStock(Long productVariantId, int quantity){
         return productRepositoryPort.decreaseStock(productVariantId, quantity);
     }
+
+    @Override
+    @Transactional
+    public StockLevel decreaseStockLevel(Long productVariantId, int quantity){
+        return productRepositoryPort.decreaseStockLevel(productVariantId, quantity);
+    }
+
+    @Override
+    @Transactional
+    public StockBatchResultDto decreaseStockBatch(List<StockLineDto> lines){
+        return productRepositoryPort.decreaseStockBatch(lines);
+    }
+
+    @Override
+    @Transactional
+    public StockReservation reserveStock(Long productVariantId, int quantity, Duration ttl){
+        return productRepositoryPort.reserveStock(productVariantId, quantity, Instant.now().plus(ttl));
+    }
+
+    @Override
+    @Transactional
+    public StockLevel commitReservation(Long reservationId){
+        return productRepositoryPort.commitReservation(reservationId);
+    }
+
+    @Override
+    @Transactional
+    public StockLevel releaseReservation(Long reservationId){
+        return productRepositoryPort.releaseReservation(reservationId);
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpiredReservations(int limit){
+        return productRepositoryPort.releaseExpiredReservations(Instant.now(), limit);
+    }
+
+    @Override
+    @Transactional
+    public BulkAdjustResultDto bulkAdjust(BulkAdjustDto adjustment, Long afterProductId, int limit){
+        return productRepositoryPort.bulkAdjust(adjustment, afterProductId, limit);
+    }
+
+    @Override
+    @Transactional
+    public StockLease leaseStock(String owner, Long productVariantId, int quantity){
+        return productRepositoryPort.leaseStock(owner, productVariantId, quantity);
+    }
+
+    @Override
+    @Transactional
+    public Optional<StockLevel> settleLeasedStock(String owner, Long productVariantId, long sold, long journalSequence){
+        return productRepositoryPort.settleLeasedStock(owner, productVariantId, sold, journalSequence);
+    }
+
+    @Override
+    @Transactional
+    public void releaseLeasedStock(String owner, Long productVariantId, int quantity){
+        productRepositoryPort.releaseLeasedStock(owner, productVariantId, quantity);
+    }
+
+    @Override
+    @Transactional
+    public void renewStockLeases(String owner){
+        productRepositoryPort.renewStockLeases(owner, Instant.now());
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpiredStockLeases(Duration expiry, int limit){
+        return productRepositoryPort.releaseExpiredStockLeases(Instant.now().minus(expiry), limit);
+    }
+
+    // Read from the primary: leases are only ever read back to settle or release them.
+    @Override
+    @Transactional
+    public List<StockLease> getStockLeases(String owner){
+        return productRepositoryPort.findStockLeases(owner);
+    }
+
+    @Override
+    public ImageUpload startImageUpload(){
+        return imageStoragePort.startUpload();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductImage getImage(Long imageId){
+        return productRepositoryPort.findImage(imageId);
+    }
+
+    @Override
+    public InputStream openImage(String contentHash){
+        return imageStoragePort.openStream(contentHash);
+    }
+
+    // Not read-only, so references come from the primary: a blob referenced by a row the replica
+    // has not seen yet must not be deleted.
+    @Override
+    @Transactional
+    public int deleteUnreferencedImages(List<String> contentHashes, Instant modifiedBefore){
+        Set<String> referenced = productRepositoryPort.findReferencedImageHashes(contentHashes);
+        int deleted = 0;
+        for (String contentHash : contentHashes) {
+            if (!referenced.contains(contentHash) && imageStoragePort.deleteIfModifiedBefore(contentHash, modifiedBefore)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // Not transactional: it only reads image files, so it should not hold a connection while doing so.
+    @Override
+    public List<Product> applyImageRendition(List<Product> products, ImageRendition rendition){
+        return imageRenditionPort.applyTo(products, rendition);
+    }
 }
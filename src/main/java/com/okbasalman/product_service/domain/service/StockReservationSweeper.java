@@ -0,0 +1,55 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Returns the stock held by expired reservations. Each pass releases them a batch at a time,
+ * one short transaction per batch, and keeps going while full batches come back so a backlog
+ * after downtime drains at once instead of one batch per interval.
+ */
+@Slf4j
+public class StockReservationSweeper {
+
+    private final ProductUseCase productUseCase;
+    private final ScheduledExecutorService executor;
+    private final Duration interval;
+    private final int batchSize;
+
+    public StockReservationSweeper(ProductUseCase productUseCase, ScheduledExecutorService executor,
+                                   Duration interval, int batchSize) {
+        this.productUseCase = productUseCase;
+        this.executor = executor;
+        this.interval = interval;
+        this.batchSize = batchSize;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::sweep, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            int total = 0;
+            int released;
+            do {
+                released = productUseCase.releaseExpiredReservations(batchSize);
+                total += released;
+            } while (released == batchSize && !Thread.currentThread().isInterrupted());
+            if (total > 0) {
+                log.debug("Released {} expired stock reservations", total);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to release expired stock reservations", e);
+        }
+    }
+}
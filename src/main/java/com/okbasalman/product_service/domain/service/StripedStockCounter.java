@@ -0,0 +1,128 @@
+package com.okbasalman.product_service.domain.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Available units of one variant spread over several independently updated stripes, so
+ * concurrent takers rarely touch the same memory. A take is a single CAS on a random
+ * stripe. When that stripe is short, the taker locks the counter, gathers every stripe's
+ * units, takes its share, optionally tops the counter up, and spreads the rest out again.
+ * Units are never created or lost by rebalancing, so the counter cannot oversell.
+ */
+class StripedStockCounter {
+
+    // one stripe per 64-byte cache line
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+    StripedStockCounter(int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+    }
+
+    /**
+     * Takes {@code quantity} units. When the counter holds fewer, {@code refill} is called with
+     * the shortfall under the rebalance lock and returns how many units it added.
+     */
+    boolean tryTake(int quantity, IntUnaryOperator refill) {
+        int cell = ThreadLocalRandom.current().nextInt(stripes) * PADDING;
+        int available = cells.get(cell);
+        while (available >= quantity) {
+            int witness = cells.compareAndExchange(cell, available, available - quantity);
+            if (witness == available) {
+                return true;
+            }
+            available = witness;
+        }
+        return takeRebalancing(quantity, refill);
+    }
+
+    void add(int quantity) {
+        cells.getAndAdd(ThreadLocalRandom.current().nextInt(stripes) * PADDING, quantity);
+    }
+
+    int available() {
+        int total = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            total += cells.get(stripe * PADDING);
+        }
+        return total;
+    }
+
+    /**
+     * Tops the counter up to {@code target} units through {@code refill} when it has fallen
+     * below half of that, so takers rarely have to wait for a refill themselves.
+     */
+    void replenish(int target, IntUnaryOperator refill) {
+        rebalanceLock.lock();
+        try {
+            int total = drain();
+            try {
+                if (total < target / 2) {
+                    total += refill.applyAsInt(target - total);
+                }
+            } finally {
+                spread(total);
+            }
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    // Empties the counter and returns what it held.
+    int drainAll() {
+        rebalanceLock.lock();
+        try {
+            return drain();
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    private boolean takeRebalancing(int quantity, IntUnaryOperator refill) {
+        rebalanceLock.lock();
+        try {
+            int total = drain();
+            int taken = 0;
+            try {
+                if (total < quantity) {
+                    total += refill.applyAsInt(quantity - total);
+                }
+                if (total >= quantity) {
+                    taken = quantity;
+                }
+            } finally {
+                // a failed refill must not lose the units already gathered
+                spread(total - taken);
+            }
+            return taken > 0;
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    private int drain() {
+        int total = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            total += cells.getAndSet(stripe * PADDING, 0);
+        }
+        return total;
+    }
+
+    private void spread(int total) {
+        int share = total / stripes;
+        int remainder = total % stripes;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            int units = share + (stripe < remainder ? 1 : 0);
+            if (units > 0) {
+                cells.getAndAdd(stripe * PADDING, units);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+-- Hot stock leases (see HotStockLeaseEntity). The schema is not generated by Hibernate, so this
+-- has to be applied before hot variants are configured. Safe to run again.
+
+CREATE SEQUENCE IF NOT EXISTS hot_stock_leases_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS hot_stock_leases (
+    id                 bigint       NOT NULL PRIMARY KEY,
+    owner              varchar(128) NOT NULL,
+    product_variant_id bigint       NOT NULL REFERENCES product_variants (id) ON DELETE CASCADE,
+    leased             integer      NOT NULL CHECK (leased >= 0),
+    journal_sequence   bigint       NOT NULL,
+    renewed_at         timestamp(6) with time zone NOT NULL
+);
+
+-- for tables created before leases were renewed
+ALTER TABLE hot_stock_leases ADD COLUMN IF NOT EXISTS renewed_at timestamp(6) with time zone NOT NULL DEFAULT now();
+ALTER TABLE hot_stock_leases ALTER COLUMN renewed_at DROP DEFAULT;
+
+-- the ON CONFLICT target of HotStockLeaseRepository.addLeased
+CREATE UNIQUE INDEX IF NOT EXISTS uk_hot_stock_leases_owner_variant
+    ON hot_stock_leases (owner, product_variant_id);
+
+-- the expired lease sweep
+CREATE INDEX IF NOT EXISTS ix_hot_stock_leases_renewed_at
+    ON hot_stock_leases (renewed_at) WHERE leased > 0;
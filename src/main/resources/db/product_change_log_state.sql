@@ -0,0 +1,14 @@
+-- Change log bookkeeping (see ProductChangeLogStateEntity). Apply after product_changes.sql. Safe to run again.
+
+CREATE TABLE IF NOT EXISTS product_change_log_state (
+    id             integer NOT NULL PRIMARY KEY,
+    purged_through bigint  NOT NULL
+);
+
+-- An existing log has been purged up to just below its oldest change, or up to the last
+-- sequence handed out when it is empty.
+INSERT INTO product_change_log_state (id, purged_through)
+SELECT 1, COALESCE(
+        (SELECT MIN(sequence) - 1 FROM product_changes),
+        (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM product_changes_seq))
+ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,15 @@
+-- Product change outbox (see ProductChangeEntity and JpaProductChangeLog). Sequences are taken one
+-- at a time so they follow insert order. Apply before product_change_log_state.sql, which reads
+-- them. Safe to run again.
+
+CREATE SEQUENCE IF NOT EXISTS product_changes_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS product_changes (
+    sequence    bigint      NOT NULL PRIMARY KEY,
+    product_id  bigint      NOT NULL,
+    change_type varchar(16) NOT NULL,
+    changed_at  timestamp(6) with time zone NOT NULL
+);
+
+-- the retention purge
+CREATE INDEX IF NOT EXISTS idx_product_changes_changed_at ON product_changes (changed_at);
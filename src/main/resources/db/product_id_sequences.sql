@@ -0,0 +1,21 @@
+-- Id sequences for products, variants and images (see ProductEntity, ProductVariantEntity and
+-- ProductImageEntity). The ids used to come from identity columns; Hibernate now takes them from
+-- these sequences in blocks of 50, handing out the 50 values up to each nextval. Each sequence is
+-- moved past the highest id already stored, and never moved back, so running this again while
+-- the service is up cannot hand out a block twice. Safe to run again.
+
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS product_variants_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS product_images_seq START WITH 1 INCREMENT BY 50;
+
+-- inserts now always carry an id, so the identity defaults go
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE product_variants ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE product_images ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('products_seq', GREATEST(MAX(id), (SELECT last_value FROM products_seq)))
+FROM products HAVING MAX(id) IS NOT NULL;
+SELECT setval('product_variants_seq', GREATEST(MAX(id), (SELECT last_value FROM product_variants_seq)))
+FROM product_variants HAVING MAX(id) IS NOT NULL;
+SELECT setval('product_images_seq', GREATEST(MAX(id), (SELECT last_value FROM product_images_seq)))
+FROM product_images HAVING MAX(id) IS NOT NULL;
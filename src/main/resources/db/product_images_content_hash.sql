@@ -0,0 +1,12 @@
+-- Image blobs (see ProductImageEntity and FileSystemImageStorage). Rows now point at a blob by its
+-- content hash instead of holding base64_data. This only adds the columns: existing rows are moved
+-- to the blob store by LegacyImageBackfill when the service starts, and base64_data is dropped
+-- afterwards by product_images_drop_base64.sql. Safe to run again.
+
+ALTER TABLE product_images ADD COLUMN IF NOT EXISTS content_hash varchar(64);
+ALTER TABLE product_images ADD COLUMN IF NOT EXISTS size_bytes bigint;
+ALTER TABLE product_images ADD COLUMN IF NOT EXISTS content_type varchar(100);
+ALTER TABLE product_images ADD COLUMN IF NOT EXISTS data_uri boolean NOT NULL DEFAULT false;
+
+-- the reference check of the unreferenced blob sweep (see ImageBlobSweeper)
+CREATE INDEX IF NOT EXISTS idx_product_images_content_hash ON product_images (content_hash);
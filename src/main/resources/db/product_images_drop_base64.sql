@@ -0,0 +1,18 @@
+-- Drops the inline image data once every row points at a blob (see product_images_content_hash.sql).
+-- Fails, changing nothing, while LegacyImageBackfill has rows left; the ids are in its warnings.
+-- Safe to run again.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'product_images'
+                 AND column_name = 'base64_data') THEN
+        IF EXISTS (SELECT 1 FROM product_images WHERE content_hash IS NULL) THEN
+            RAISE EXCEPTION 'product_images still has rows without a content_hash; let the backfill finish first';
+        END IF;
+        ALTER TABLE product_images ALTER COLUMN content_hash SET NOT NULL;
+        ALTER TABLE product_images ALTER COLUMN size_bytes SET NOT NULL;
+        ALTER TABLE product_images DROP COLUMN base64_data;
+    END IF;
+END
+$$;
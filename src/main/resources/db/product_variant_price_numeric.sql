@@ -0,0 +1,15 @@
+-- Variant prices were created as double precision; ProductVariantEntity maps them as numeric(12,2),
+-- which bulk price adjustments round in. Stored prices are rounded to the cent on the way over.
+-- Safe to run again: the column is only altered while it is still double precision.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'product_variants'
+                 AND column_name = 'price'
+                 AND data_type = 'double precision') THEN
+        ALTER TABLE product_variants
+            ALTER COLUMN price TYPE numeric(12, 2) USING ROUND(CAST(price AS numeric), 2);
+    END IF;
+END
+$$;
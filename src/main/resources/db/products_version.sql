@@ -0,0 +1,4 @@
+-- Product versions (see ProductEntity.version). Existing products start at 0; every write bumps
+-- the column in SQL from then on. Safe to run again.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
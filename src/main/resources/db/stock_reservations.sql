@@ -0,0 +1,18 @@
+-- Stock reservations (see StockReservationEntity). product_variants.reserved is the running total
+-- of a variant's live reservations and hot stock leases; reads report stock less reserved. Safe to
+-- run again.
+
+ALTER TABLE product_variants ADD COLUMN IF NOT EXISTS reserved integer NOT NULL DEFAULT 0 CHECK (reserved >= 0);
+
+CREATE SEQUENCE IF NOT EXISTS stock_reservations_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id                 bigint  NOT NULL PRIMARY KEY,
+    product_variant_id bigint  NOT NULL REFERENCES product_variants (id) ON DELETE CASCADE,
+    product_id         bigint  NOT NULL,
+    quantity           integer NOT NULL CHECK (quantity > 0),
+    expires_at         timestamp(6) with time zone NOT NULL
+);
+
+-- the expired reservation sweep
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_expires_at ON stock_reservations (expires_at);
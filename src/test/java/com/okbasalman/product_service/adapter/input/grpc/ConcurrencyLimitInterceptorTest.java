@@ -0,0 +1,110 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private static final MethodDescriptor<String, String> METHOD = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("products.ProductService/GetProductById")
+            .setRequestMarshaller(marshaller())
+            .setResponseMarshaller(marshaller())
+            .build();
+
+    // a limit of one permit, so a second call is only admitted once the first has released it
+    private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(new SimpleMeterRegistry(), 1, 1, 1);
+    // calls as the handler sees them, wrapped by the interceptor
+    private final List<ServerCall<String, String>> started = new ArrayList<>();
+    private ServerCallHandler<String, String> handler;
+    private ServerCall.Listener<String> handlerListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        handlerListener = mock(ServerCall.Listener.class);
+        handler = (call, headers) -> {
+            started.add(call);
+            return handlerListener;
+        };
+    }
+
+    @Test
+    void aCancelledCallKeepsItsPermitUntilTheHandlerCloses() {
+        ServerCall.Listener<String> first = interceptor.interceptCall(newCall(), new Metadata(), handler);
+        first.onHalfClose();
+        first.onCancel();
+
+        ServerCall<String, String> rejected = newCall();
+        interceptor.interceptCall(rejected, new Metadata(), handler);
+        assertThat(closeStatus(rejected).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+
+        started.get(0).close(Status.OK, new Metadata());
+
+        ServerCall<String, String> admitted = newCall();
+        interceptor.interceptCall(admitted, new Metadata(), handler);
+        verify(admitted, never()).close(any(), any());
+    }
+
+    @Test
+    void aSynchronousHandlerReleasesWhenItReturns() {
+        ServerCallHandler<String, String> closingHandler = (call, headers) -> new ServerCall.Listener<String>() {
+            @Override
+            public void onHalfClose() {
+                call.close(Status.OK, new Metadata());
+            }
+        };
+        ServerCall.Listener<String> first = interceptor.interceptCall(newCall(), new Metadata(), closingHandler);
+        first.onHalfClose();
+
+        ServerCall<String, String> admitted = newCall();
+        interceptor.interceptCall(admitted, new Metadata(), handler);
+        verify(admitted, never()).close(any(), any());
+    }
+
+    @Test
+    void aCallCancelledBeforeItsHandlerRanReleasesRightAway() {
+        ServerCall.Listener<String> first = interceptor.interceptCall(newCall(), new Metadata(), handler);
+        first.onCancel();
+
+        ServerCall<String, String> admitted = newCall();
+        interceptor.interceptCall(admitted, new Metadata(), handler);
+        verify(admitted, never()).close(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<String, String> newCall() {
+        ServerCall<String, String> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(METHOD);
+        return call;
+    }
+
+    private static Status closeStatus(ServerCall<String, String> call) {
+        ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+        verify(call).close(status.capture(), any());
+        return status.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MethodDescriptor.Marshaller<String> marshaller() {
+        return mock(MethodDescriptor.Marshaller.class);
+    }
+}
@@ -0,0 +1,52 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+
+class EncodedProductResponseMarshallerTest {
+
+    private static final ByteString BYTES = ByteString.copyFromUtf8("an encoded product response");
+
+    @Test
+    void drainsTheEncodedBytesInOneWrite() throws Exception {
+        InputStream stream = EncodedProductResponseMarshaller.INSTANCE.stream(new EncodedProductResponse(BYTES, 3));
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        assertThat(stream).isInstanceOf(KnownLength.class);
+        assertThat(stream.available()).isEqualTo(BYTES.size());
+        assertThat(((Drainable) stream).drainTo(target)).isEqualTo(BYTES.size());
+
+        assertThat(target.toByteArray()).isEqualTo(BYTES.toByteArray());
+        assertThat(stream.available()).isZero();
+    }
+
+    @Test
+    void drainsWhatIsLeftAfterAPartialRead() throws Exception {
+        InputStream stream = EncodedProductResponseMarshaller.INSTANCE.stream(new EncodedProductResponse(BYTES, 3));
+        byte[] head = new byte[3];
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        assertThat(stream.read(head, 0, head.length)).isEqualTo(3);
+        assertThat(((Drainable) stream).drainTo(target)).isEqualTo(BYTES.size() - 3);
+
+        assertThat(ByteString.copyFrom(head).concat(ByteString.copyFrom(target.toByteArray()))).isEqualTo(BYTES);
+    }
+
+    @Test
+    void theSameResponseCanBeStreamedAgain() throws Exception {
+        EncodedProductResponse response = new EncodedProductResponse(BYTES, 3);
+        EncodedProductResponseMarshaller.INSTANCE.stream(response).readAllBytes();
+
+        assertThat(EncodedProductResponseMarshaller.INSTANCE.stream(response).readAllBytes())
+                .isEqualTo(BYTES.toByteArray());
+    }
+}
@@ -0,0 +1,122 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.StringValue;
+import com.okbasalman.product_service.adapter.output.jdbc.QueryCountingDataSource;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GrpcMetricsInterceptorTest {
+
+    private static final String METHOD = "products.ProductService/GetProductById";
+    private static final StringValue REQUEST = StringValue.of("request");
+    private static final EncodedProductResponse RESPONSE =
+            new EncodedProductResponse(ByteString.copyFromUtf8("a longer encoded response"), 1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GrpcMetricsInterceptor interceptor = new GrpcMetricsInterceptor(registry);
+
+    @Test
+    void recordsLatencyByStatusAndThePayloadSizes() {
+        ServerCall.Listener<StringValue> listener = interceptor.interceptCall(newCall(), new Metadata(),
+                respondingHandler(() -> {
+                }));
+
+        listener.onMessage(REQUEST);
+        listener.onHalfClose();
+
+        assertThat(registry.get("product.grpc.server.calls").tags("method", METHOD, "status", "OK").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("product.grpc.server.request.size").tag("method", METHOD).summary().totalAmount())
+                .isEqualTo(REQUEST.getSerializedSize());
+        assertThat(registry.get("product.grpc.server.response.size").tag("method", METHOD).summary().totalAmount())
+                .isEqualTo(RESPONSE.size());
+    }
+
+    @Test
+    void attributesTheStatementsRunByTheHandlerToTheCall() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+        DataSource dataSource = new QueryCountingDataSource(target);
+
+        ServerCall.Listener<StringValue> listener = interceptor.interceptCall(newCall(), new Metadata(),
+                respondingHandler(() -> {
+                    try (Connection counted = dataSource.getConnection()) {
+                        counted.prepareStatement("UPDATE products SET version = version + 1").executeUpdate();
+                        counted.prepareStatement("SELECT * FROM products").executeQuery();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        listener.onMessage(REQUEST);
+        listener.onHalfClose();
+
+        assertThat(registry.get("product.grpc.server.sql.statements").tag("method", METHOD).summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void aCancelledCallIsRecordedOnce() {
+        // the transport closes a cancelled call as well
+        ServerCallHandler<StringValue, EncodedProductResponse> handler = (call, headers) -> new ServerCall.Listener<>() {
+            @Override
+            public void onCancel() {
+                call.close(Status.CANCELLED, new Metadata());
+            }
+        };
+        ServerCall.Listener<StringValue> listener = interceptor.interceptCall(newCall(), new Metadata(), handler);
+
+        listener.onCancel();
+
+        assertThat(registry.find("product.grpc.server.calls").tag("method", METHOD).timers())
+                .singleElement()
+                .satisfies(timer -> {
+                    assertThat(timer.getId().getTag("status")).isEqualTo("CANCELLED");
+                    assertThat(timer.count()).isEqualTo(1);
+                });
+    }
+
+    // Runs work while handling the request, then sends RESPONSE and closes with OK.
+    private static ServerCallHandler<StringValue, EncodedProductResponse> respondingHandler(Runnable work) {
+        return (call, headers) -> new ServerCall.Listener<>() {
+            @Override
+            public void onHalfClose() {
+                work.run();
+                call.sendMessage(RESPONSE);
+                call.close(Status.OK, new Metadata());
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<StringValue, EncodedProductResponse> newCall() {
+        ServerCall<StringValue, EncodedProductResponse> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(MethodDescriptor.<StringValue, EncodedProductResponse>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(METHOD)
+                .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .setResponseMarshaller(EncodedProductResponseMarshaller.INSTANCE)
+                .build());
+        return call;
+    }
+}
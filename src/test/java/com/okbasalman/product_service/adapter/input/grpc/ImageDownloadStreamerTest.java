@@ -0,0 +1,127 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.grpc.ImageChunk;
+import com.okbasalman.product_service.domain.model.ProductImage;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+class ImageDownloadStreamerTest {
+
+    private ServerCallStreamObserver<ImageChunk> observer;
+    private final List<ImageChunk> sent = new ArrayList<>();
+    private TrackingStream content;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        observer = mock(ServerCallStreamObserver.class);
+        doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(observer).onNext(any());
+    }
+
+    @Test
+    void sendsTheImageInChunksWithItsMetadataOnTheFirst() {
+        when(observer.isReady()).thenReturn(true);
+
+        streamer(1, 2, 3, 4, 5).start();
+
+        assertThat(sent).extracting(chunk -> chunk.getChunk().toByteArray())
+                .containsExactly(new byte[] {1, 2}, new byte[] {3, 4}, new byte[] {5});
+        assertThat(sent.get(0).getSizeBytes()).isEqualTo(5);
+        assertThat(sent.get(0).getContentType()).isEqualTo("image/png");
+        assertThat(sent.get(1).getSizeBytes()).isZero();
+        assertThat(sent.get(1).getContentType()).isEmpty();
+        verify(observer).onCompleted();
+        assertThat(content.closed).isTrue();
+    }
+
+    @Test
+    void anImageThatFillsTheLastChunkSendsNoEmptyOne() {
+        when(observer.isReady()).thenReturn(true);
+
+        streamer(1, 2, 3, 4).start();
+
+        assertThat(sent).hasSize(2);
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void waitsForTheTransportToBeReadyAgain() {
+        when(observer.isReady()).thenReturn(true, false);
+
+        streamer(1, 2, 3, 4, 5).start();
+
+        assertThat(sent).hasSize(1);
+        verify(observer, never()).onCompleted();
+
+        when(observer.isReady()).thenReturn(true);
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(observer).setOnReadyHandler(onReady.capture());
+        onReady.getValue().run();
+
+        assertThat(sent).hasSize(3);
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void aCancelledDownloadClosesTheImageAndSendsNoMore() {
+        when(observer.isReady()).thenReturn(true, false);
+
+        streamer(1, 2, 3, 4, 5).start();
+
+        ArgumentCaptor<Runnable> onCancel = ArgumentCaptor.forClass(Runnable.class);
+        verify(observer).setOnCancelHandler(onCancel.capture());
+        onCancel.getValue().run();
+        assertThat(content.closed).isTrue();
+
+        when(observer.isReady()).thenReturn(true);
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(observer).setOnReadyHandler(onReady.capture());
+        onReady.getValue().run();
+
+        assertThat(sent).hasSize(1);
+        verify(observer, never()).onCompleted();
+    }
+
+    // An image of the given bytes, read two at a time.
+    private ImageDownloadStreamer streamer(int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        ProductImage image = new ProductImage();
+        image.setContentType("image/png");
+        image.setSizeBytes(data.length);
+        content = new TrackingStream(data);
+        return new ImageDownloadStreamer(observer, image, content, 2);
+    }
+
+    private static final class TrackingStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        private TrackingStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
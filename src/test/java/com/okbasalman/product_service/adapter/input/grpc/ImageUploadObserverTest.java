@@ -0,0 +1,108 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.protobuf.ByteString;
+import com.okbasalman.grpc.UploadImageRequest;
+import com.okbasalman.grpc.UploadImageResponse;
+import com.okbasalman.product_service.adapter.output.storage.FileSystemImageStorage;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+class ImageUploadObserverTest {
+
+    private Path root;
+    private FileSystemImageStorage storage;
+    private StreamObserver<UploadImageResponse> responseObserver;
+    private ImageUploadObserver upload;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        root = Files.createTempDirectory("images");
+        storage = new FileSystemImageStorage(root);
+        responseObserver = mock(StreamObserver.class);
+        upload = new ImageUploadObserver(responseObserver, storage::startUpload, 4);
+    }
+
+    @Test
+    void storesTheChunksAndAnswersWithTheContentHash() {
+        upload.onNext(chunk("image/png", 1, 2));
+        upload.onNext(chunk("", 3));
+        upload.onCompleted();
+
+        ArgumentCaptor<UploadImageResponse> response = ArgumentCaptor.forClass(UploadImageResponse.class);
+        verify(responseObserver).onNext(response.capture());
+        verify(responseObserver).onCompleted();
+        assertThat(response.getValue().getUploadId()).isEqualTo(storage.store(new byte[] {1, 2, 3}).getContentHash());
+        assertThat(response.getValue().getSizeBytes()).isEqualTo(3);
+        assertThat(response.getValue().getContentType()).isEqualTo("image/png");
+        assertThat(storage.load(response.getValue().getUploadId())).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void anImageOverTheLimitIsRejectedAndDiscarded() throws Exception {
+        upload.onNext(chunk("image/png", 1, 2, 3));
+        upload.onNext(chunk("", 4, 5));
+        upload.onCompleted();
+
+        assertThat(status()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        verify(responseObserver, never()).onNext(any());
+        verify(responseObserver, never()).onCompleted();
+        assertThat(files()).isZero();
+    }
+
+    @Test
+    void anUploadWithoutDataIsRejected() {
+        upload.onCompleted();
+
+        assertThat(status()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        verify(responseObserver, never()).onNext(any());
+    }
+
+    @Test
+    void aClientThatGoesAwayLeavesNothingBehind() throws Exception {
+        upload.onNext(chunk("image/png", 1, 2));
+        upload.onError(Status.CANCELLED.asRuntimeException());
+
+        assertThat(files()).isZero();
+        verify(responseObserver, never()).onNext(any());
+        verify(responseObserver, never()).onError(any());
+    }
+
+    private Status.Code status() {
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        return Status.fromThrowable(error.getValue()).getCode();
+    }
+
+    private long files() throws Exception {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static UploadImageRequest chunk(String contentType, int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        return UploadImageRequest.newBuilder()
+                .setContentType(contentType)
+                .setChunk(ByteString.copyFrom(data))
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InFlightLimitInterceptorTest {
+
+    private final InFlightLimitInterceptor interceptor = new InFlightLimitInterceptor(new SimpleMeterRegistry(), 1);
+    @SuppressWarnings("unchecked")
+    private final ServerCallHandler<String, String> handler = (call, headers) -> mock(ServerCall.Listener.class);
+
+    @Test
+    void rejectsUnaryCallsOverTheCapUntilOneCompletes() {
+        ServerCall.Listener<String> first = interceptor.interceptCall(newCall(MethodDescriptor.MethodType.UNARY),
+                new Metadata(), handler);
+
+        ServerCall<String, String> rejected = newCall(MethodDescriptor.MethodType.UNARY);
+        interceptor.interceptCall(rejected, new Metadata(), handler);
+        assertThat(closeStatus(rejected).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+
+        first.onComplete();
+
+        ServerCall<String, String> admitted = newCall(MethodDescriptor.MethodType.UNARY);
+        interceptor.interceptCall(admitted, new Metadata(), handler);
+        verify(admitted, never()).close(any(), any());
+    }
+
+    @Test
+    void aCancelledCallReturnsItsPermitOnce() {
+        ServerCall.Listener<String> first = interceptor.interceptCall(newCall(MethodDescriptor.MethodType.UNARY),
+                new Metadata(), handler);
+        first.onCancel();
+        first.onComplete();
+
+        interceptor.interceptCall(newCall(MethodDescriptor.MethodType.UNARY), new Metadata(), handler);
+        ServerCall<String, String> rejected = newCall(MethodDescriptor.MethodType.UNARY);
+        interceptor.interceptCall(rejected, new Metadata(), handler);
+        assertThat(closeStatus(rejected).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+    }
+
+    @Test
+    void streamingCallsAreNotCounted() {
+        interceptor.interceptCall(newCall(MethodDescriptor.MethodType.SERVER_STREAMING), new Metadata(), handler);
+
+        ServerCall<String, String> admitted = newCall(MethodDescriptor.MethodType.UNARY);
+        interceptor.interceptCall(admitted, new Metadata(), handler);
+        verify(admitted, never()).close(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<String, String> newCall(MethodDescriptor.MethodType type) {
+        ServerCall<String, String> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(MethodDescriptor.<String, String>newBuilder()
+                .setType(type)
+                .setFullMethodName("products.ProductService/GetProductById")
+                .setRequestMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .setResponseMarshaller(mock(MethodDescriptor.Marshaller.class))
+                .build());
+        return call;
+    }
+
+    private static Status closeStatus(ServerCall<String, String> call) {
+        ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+        verify(call).close(status.capture(), any());
+        return status.getValue();
+    }
+}
@@ -0,0 +1,137 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.grpc.BulkAdjustFilter;
+import com.okbasalman.grpc.BulkAdjustRequest;
+import com.okbasalman.grpc.BulkAdjustResponse;
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ProductChangeFeed;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+class ProductGrpcControllerTest {
+
+    private ProductUseCase productUseCase;
+    private ProductGrpcController controller;
+    private StreamObserver<BulkAdjustResponse> responseObserver;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productUseCase = mock(ProductUseCase.class);
+        controller = new ProductGrpcController(productUseCase, mock(ProductResponseCache.class),
+                mock(ProductLookupCoalescer.class), mock(ProductChangeFeed.class), mock(HotStockLedger.class));
+        responseObserver = mock(StreamObserver.class);
+    }
+
+    @Test
+    void bulkAdjustmentsRunChunkByChunkUntilAShortOne() {
+        when(productUseCase.bulkAdjust(any(), eq(0L), eq(500))).thenReturn(result(1, 500));
+        when(productUseCase.bulkAdjust(any(), eq(500L), eq(500))).thenReturn(result(501, 502));
+
+        controller.bulkAdjust(BulkAdjustRequest.newBuilder().setAddStock(3).build(), responseObserver);
+
+        ArgumentCaptor<BulkAdjustResponse> response = ArgumentCaptor.forClass(BulkAdjustResponse.class);
+        verify(responseObserver).onNext(response.capture());
+        verify(responseObserver).onCompleted();
+        assertThat(response.getValue().getAdjustedProducts()).isEqualTo(502);
+        assertThat(response.getValue().getAdjustedVariants()).isEqualTo(2 * 502);
+    }
+
+    @Test
+    void bulkAdjustmentsPassTheFilterAndAmountAsGiven() {
+        when(productUseCase.bulkAdjust(any(), anyLong(), anyInt())).thenReturn(result(1, 0));
+
+        controller.bulkAdjust(BulkAdjustRequest.newBuilder()
+                .setFilter(BulkAdjustFilter.newBuilder()
+                        .setSeason("WINTER")
+                        .setSize("M")
+                        .setColor(" Navy ")
+                        .addProductIds(4L)
+                        .setMinPrice(10.5))
+                .setPricePercent(-12.5)
+                .build(), responseObserver);
+
+        ArgumentCaptor<BulkAdjustDto> adjustment = ArgumentCaptor.forClass(BulkAdjustDto.class);
+        verify(productUseCase).bulkAdjust(adjustment.capture(), eq(0L), eq(500));
+        assertThat(adjustment.getValue().getSeason()).isEqualTo(Season.WINTER);
+        assertThat(adjustment.getValue().getSize()).isEqualTo(Size.M);
+        assertThat(adjustment.getValue().getColor()).isEqualTo("navy");
+        assertThat(adjustment.getValue().getProductIds()).containsExactly(4L);
+        assertThat(adjustment.getValue().getMinPrice()).isEqualByComparingTo("10.5");
+        assertThat(adjustment.getValue().getMaxPrice()).isNull();
+        assertThat(adjustment.getValue().getOperation()).isEqualTo(BulkAdjustDto.Operation.PRICE_PERCENT);
+        assertThat(adjustment.getValue().getAmount()).isEqualByComparingTo(new BigDecimal("-12.5"));
+    }
+
+    @Test
+    void bulkAdjustmentsWithoutAnAdjustmentAreRejected() {
+        controller.bulkAdjust(BulkAdjustRequest.getDefaultInstance(), responseObserver);
+
+        assertRejected();
+    }
+
+    @Test
+    void bulkPriceCutsOfAHundredPercentOrMoreAreRejected() {
+        controller.bulkAdjust(BulkAdjustRequest.newBuilder().setPricePercent(-100).build(), responseObserver);
+
+        assertRejected();
+    }
+
+    @Test
+    void bulkStockCannotBeSetBelowZero() {
+        controller.bulkAdjust(BulkAdjustRequest.newBuilder().setSetStock(-1).build(), responseObserver);
+
+        assertRejected();
+    }
+
+    @Test
+    void bulkAdjustmentsOfTooManyProductIdsAreRejected() {
+        List<Long> ids = LongStream.rangeClosed(1, 10_001).boxed().collect(Collectors.toList());
+
+        controller.bulkAdjust(BulkAdjustRequest.newBuilder()
+                .setFilter(BulkAdjustFilter.newBuilder().addAllProductIds(ids))
+                .setAddStock(1)
+                .build(), responseObserver);
+
+        assertRejected();
+    }
+
+    private void assertRejected() {
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        assertThat(Status.fromThrowable(error.getValue()).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        verify(productUseCase, never()).bulkAdjust(any(), anyLong(), anyInt());
+    }
+
+    // Products first..last adjusted, two variants each; none when last is before first.
+    private static BulkAdjustResultDto result(long first, long last) {
+        List<Long> ids = LongStream.rangeClosed(first, last).boxed().collect(Collectors.toList());
+        return new BulkAdjustResultDto(2 * ids.size(), ids);
+    }
+}
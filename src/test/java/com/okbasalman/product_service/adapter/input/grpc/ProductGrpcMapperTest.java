@@ -0,0 +1,23 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class ProductGrpcMapperTest {
+
+    @Test
+    void v1PricesAreKeptToTheCent() {
+        assertThat(ProductGrpcMapper.mapToPrice(19.99)).isEqualTo(new BigDecimal("19.99"));
+        assertThat(ProductGrpcMapper.mapToPrice(0.1 + 0.2)).isEqualTo(new BigDecimal("0.30"));
+        assertThat(ProductGrpcMapper.mapToPrice(5)).isEqualTo(new BigDecimal("5.00"));
+    }
+
+    @Test
+    void halfCentsRoundToTheEvenCent() {
+        assertThat(ProductGrpcMapper.mapToPrice(0.125)).isEqualTo(new BigDecimal("0.12"));
+        assertThat(ProductGrpcMapper.mapToPrice(0.135)).isEqualTo(new BigDecimal("0.14"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.grpc.v2.GetProductByIdRequest;
+import com.okbasalman.grpc.v2.GetProductsByIdsRequest;
+import com.okbasalman.grpc.v2.ImageRendition;
+import com.okbasalman.grpc.v2.Product;
+import com.okbasalman.grpc.v2.ProductList;
+import com.okbasalman.grpc.v2.Projection;
+import com.okbasalman.product_service.domain.exception.ProductLookupTimeoutException;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+class ProductGrpcV2ControllerTest {
+
+    private final ProductUseCase productUseCase = mock(ProductUseCase.class);
+    private final ProductLookupCoalescer coalescer = mock(ProductLookupCoalescer.class);
+    private final HotStockLedger hotStockLedger = mock(HotStockLedger.class);
+    private final ProductGrpcV2Controller controller = new ProductGrpcV2Controller(productUseCase, coalescer,
+            hotStockLedger);
+
+    @BeforeEach
+    void setUp() {
+        when(hotStockLedger.applyTo(any(com.okbasalman.product_service.domain.model.Product.class)))
+                .then(returnsFirstArg());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aLookupThatTimesOutFailsWithDeadlineExceeded() {
+        when(coalescer.getProductById(1L)).thenThrow(new ProductLookupTimeoutException(1L));
+        StreamObserver<Product> responseObserver = mock(StreamObserver.class);
+
+        controller.getProductById(GetProductByIdRequest.newBuilder()
+                .setId(1L)
+                .setProjection(Projection.FULL)
+                .setRendition(ImageRendition.ORIGINAL)
+                .build(), responseObserver);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        assertThat(Status.fromThrowable(error.getValue()).getCode()).isEqualTo(Status.Code.DEADLINE_EXCEEDED);
+    }
+
+    @Test
+    void aCurrentVersionIsAnsweredWithoutLoadingTheProduct() {
+        when(productUseCase.getProductVersions(List.of(1L))).thenReturn(Map.of(1L, 3L));
+
+        Product response = getProductById(GetProductByIdRequest.newBuilder()
+                .setId(1L)
+                .setIfVersion(3L)
+                .setProjection(Projection.FULL)
+                .setRendition(ImageRendition.ORIGINAL)
+                .build());
+
+        assertThat(response.getNotModified()).isTrue();
+        assertThat(response.getVersion()).isEqualTo(3L);
+        assertThat(response.getVariantsList()).isEmpty();
+        verify(coalescer, never()).getProductById(any());
+    }
+
+    @Test
+    void aChangedVersionIsAnsweredWithTheProduct() {
+        when(productUseCase.getProductVersions(List.of(1L))).thenReturn(Map.of(1L, 4L));
+        when(coalescer.getProductById(1L)).thenReturn(product(1L, 4L));
+
+        Product response = getProductById(GetProductByIdRequest.newBuilder()
+                .setId(1L)
+                .setIfVersion(3L)
+                .setProjection(Projection.FULL)
+                .setRendition(ImageRendition.ORIGINAL)
+                .build());
+
+        assertThat(response.getNotModified()).isFalse();
+        assertThat(response.getVersion()).isEqualTo(4L);
+        assertThat(response.getName()).isEqualTo("Coat");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onlyProductsWhoseKnownVersionIsStaleAreLoaded() {
+        when(productUseCase.getProductVersions(List.of(1L, 2L))).thenReturn(Map.of(1L, 3L, 2L, 6L));
+        when(productUseCase.getProductsByIds(List.of(2L, 5L), com.okbasalman.product_service.domain.model.Projection.FULL))
+                .thenReturn(List.of(product(2L, 6L), product(5L, 1L)));
+        StreamObserver<ProductList> responseObserver = mock(StreamObserver.class);
+
+        controller.getProductsByIds(GetProductsByIdsRequest.newBuilder()
+                .addAllIds(List.of(1L, 2L, 5L))
+                .putKnownVersions(1L, 3L)
+                .putKnownVersions(2L, 5L)
+                .setProjection(Projection.FULL)
+                .setRendition(ImageRendition.ORIGINAL)
+                .build(), responseObserver);
+
+        ArgumentCaptor<ProductList> response = ArgumentCaptor.forClass(ProductList.class);
+        verify(responseObserver).onNext(response.capture());
+        assertThat(response.getValue().getProductsList())
+                .extracting(Product::getId, Product::getVersion, Product::getNotModified)
+                .containsExactly(
+                        tuple(1L, 3L, true),
+                        tuple(2L, 6L, false),
+                        tuple(5L, 1L, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Product getProductById(GetProductByIdRequest request) {
+        StreamObserver<Product> responseObserver = mock(StreamObserver.class);
+        controller.getProductById(request, responseObserver);
+        ArgumentCaptor<Product> response = ArgumentCaptor.forClass(Product.class);
+        verify(responseObserver).onNext(response.capture());
+        return response.getValue();
+    }
+
+    private static com.okbasalman.product_service.domain.model.Product product(Long id, long version) {
+        com.okbasalman.product_service.domain.model.Product product = new com.okbasalman.product_service.domain.model.Product();
+        product.setId(id);
+        product.setName("Coat");
+        product.setSeason(Season.WINTER);
+        product.setMinPrice(new BigDecimal("99.00"));
+        product.setVersion(version);
+        product.setVariants(new ArrayList<>());
+        return product;
+    }
+}
@@ -0,0 +1,108 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.okbasalman.grpc.v2.CreateProductRequest;
+import com.okbasalman.grpc.v2.SearchProductsRequest;
+import com.okbasalman.grpc.v2.VariantCreate;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+
+class ProductGrpcV2MapperTest {
+
+    @Test
+    void centsBecomeExactPricesAndBackWithoutDrift() {
+        // none of these is exact as a double
+        for (long cents : new long[] {1, 10, 29, 57, 1999, 999_999_999_99L}) {
+            ProductCreateDto dto = ProductGrpcV2Mapper.mapToProductCreateDto(createRequest(cents));
+            BigDecimal price = dto.getVariants().get(0).getPrice();
+
+            assertThat(price.unscaledValue().longValueExact()).isEqualTo(cents);
+            assertThat(price.scale()).isEqualTo(ProductVariant.PRICE_SCALE);
+            assertThat(ProductGrpcV2Mapper.mapToProduct(product(price)).getVariants(0).getPriceCents()).isEqualTo(cents);
+        }
+    }
+
+    @Test
+    void theLowestPriceIsSentInCents() {
+        Product product = product(new BigDecimal("19.99"));
+        product.setMinPrice(new BigDecimal("19.99"));
+
+        assertThat(ProductGrpcV2Mapper.mapToProduct(product).getMinPriceCents()).isEqualTo(1999);
+    }
+
+    @Test
+    void negativePricesAreRejected() {
+        assertThatThrownBy(() -> ProductGrpcV2Mapper.mapToProductCreateDto(createRequest(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void aPriceFinerThanACentIsNeverRoundedOnTheWayOut() {
+        assertThatThrownBy(() -> ProductGrpcV2Mapper.mapToProduct(product(new BigDecimal("1.005"))))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void searchPriceBoundsAreCentsAndOptional() {
+        ProductSearchQueryDto query = ProductGrpcV2Mapper.mapToProductSearchQueryDto(SearchProductsRequest.newBuilder()
+                .setMinPriceCents(500)
+                .build());
+
+        assertThat(query.getMinPrice()).isEqualTo(new BigDecimal("5.00"));
+        assertThat(query.getMaxPrice()).isNull();
+    }
+
+    @Test
+    void enumsMapByValueAndUnspecifiedOnesAreRejected() {
+        ProductCreateDto dto = ProductGrpcV2Mapper.mapToProductCreateDto(createRequest(100));
+
+        assertThat(dto.getSeason()).isEqualTo(Season.WINTER);
+        assertThat(dto.getVariants().get(0).getSize()).isEqualTo(Size.XL);
+        assertThatThrownBy(() -> ProductGrpcV2Mapper.mapToProductCreateDto(createRequest(100).toBuilder()
+                .setSeason(com.okbasalman.grpc.v2.Season.SEASON_UNSPECIFIED)
+                .build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductGrpcV2Mapper.mapToProductCreateDto(createRequest(100).toBuilder()
+                .setVariants(0, createRequest(100).getVariants(0).toBuilder()
+                        .setSize(com.okbasalman.grpc.v2.Size.SIZE_UNSPECIFIED))
+                .build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CreateProductRequest createRequest(long priceCents) {
+        return CreateProductRequest.newBuilder()
+                .setName("Coat")
+                .setSeason(com.okbasalman.grpc.v2.Season.WINTER)
+                .addVariants(VariantCreate.newBuilder()
+                        .setPriceCents(priceCents)
+                        .setColor("navy")
+                        .setSize(com.okbasalman.grpc.v2.Size.XL))
+                .build();
+    }
+
+    private static Product product(BigDecimal price) {
+        ProductVariant variant = new ProductVariant();
+        variant.setId(10L);
+        variant.setPrice(price);
+        variant.setColor("navy");
+        variant.setSize(Size.XL);
+        variant.setImages(List.of());
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Coat");
+        product.setSeason(Season.WINTER);
+        product.setVariants(List.of(variant));
+        return product;
+    }
+}
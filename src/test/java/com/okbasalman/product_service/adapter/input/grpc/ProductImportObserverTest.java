@@ -0,0 +1,102 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.grpc.CreateProductRequest;
+import com.okbasalman.grpc.ImportChunkResult;
+import com.okbasalman.grpc.ImportProductsResponse;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+
+import io.grpc.stub.StreamObserver;
+
+class ProductImportObserverTest {
+
+    @SuppressWarnings("unchecked")
+    private final StreamObserver<ImportProductsResponse> responseObserver = mock(StreamObserver.class);
+    private final List<List<String>> imported = new ArrayList<>();
+
+    @Test
+    void importsEveryFullChunkAndWhatIsLeftAtTheEnd() {
+        ProductImportObserver observer = observer(this::ids);
+
+        send(observer, "a", "b", "c", "d", "e");
+
+        assertThat(imported).containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e"));
+        ImportProductsResponse response = response();
+        assertThat(response.getImported()).isEqualTo(5);
+        assertThat(response.getFailed()).isZero();
+        assertThat(response.getChunksList()).extracting(ImportChunkResult::getChunk).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void invalidRequestsAreSkippedAndCountedAgainstTheirChunk() {
+        ProductImportObserver observer = observer(this::ids);
+
+        send(observer, "a", "", "b");
+
+        assertThat(imported).containsExactly(List.of("a"), List.of("b"));
+        ImportProductsResponse response = response();
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getChunks(0).getFailed()).isEqualTo(1);
+        assertThat(response.getChunks(0).getError()).isEqualTo("Product name is required.");
+    }
+
+    @Test
+    void aChunkThatFailsToImportLeavesTheOthersImported() {
+        ProductImportObserver observer = observer(chunk -> {
+            if (chunk.get(0).getName().equals("a")) {
+                throw new IllegalStateException("duplicate key");
+            }
+            return ids(chunk);
+        });
+
+        send(observer, "a", "b", "c");
+
+        ImportProductsResponse response = response();
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getChunks(0).getError()).isEqualTo("duplicate key");
+        assertThat(response.getChunks(1).getImported()).isEqualTo(1);
+    }
+
+    private ProductImportObserver observer(Function<List<ProductCreateDto>, List<Long>> importer) {
+        return new ProductImportObserver(responseObserver, request -> {
+            if (request.getName().isEmpty()) {
+                throw new IllegalArgumentException("Product name is required.");
+            }
+            ProductCreateDto dto = new ProductCreateDto();
+            dto.setName(request.getName());
+            return dto;
+        }, importer, 2);
+    }
+
+    private List<Long> ids(List<ProductCreateDto> chunk) {
+        imported.add(chunk.stream().map(ProductCreateDto::getName).collect(Collectors.toList()));
+        return chunk.stream().map(dto -> 1L).collect(Collectors.toList());
+    }
+
+    private static void send(ProductImportObserver observer, String... names) {
+        for (String name : names) {
+            observer.onNext(CreateProductRequest.newBuilder().setName(name).build());
+        }
+        observer.onCompleted();
+    }
+
+    private ImportProductsResponse response() {
+        ArgumentCaptor<ImportProductsResponse> response = ArgumentCaptor.forClass(ImportProductsResponse.class);
+        verify(responseObserver).onNext(response.capture());
+        verify(responseObserver).onCompleted();
+        return response.getValue();
+    }
+}
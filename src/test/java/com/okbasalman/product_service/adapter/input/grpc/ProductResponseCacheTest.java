@@ -0,0 +1,59 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+
+class ProductResponseCacheTest {
+
+    private final ProductResponseCache cache = new ProductResponseCache(1 << 20, Duration.ofMinutes(10), Duration.ZERO);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void encodesAProductOnceAndServesTheBytesAfterwards() {
+        EncodedProductResponse first = cache.get(1L, this::load);
+        EncodedProductResponse second = cache.get(1L, this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThat(second.getVersion()).isEqualTo(3);
+        assertThat(second.getBytes()).isEqualTo(load(1L).toByteString());
+    }
+
+    @Test
+    void aChangeEvictsTheEncodedResponse() {
+        cache.get(1L, this::load);
+
+        cache.evictAfterCommit(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.UPDATED));
+
+        assertThat(cache.getIfPresent(1L)).isNull();
+        cache.get(1L, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void aLoadThatRacedWithAChangeIsNotCached() {
+        EncodedProductResponse encoded = cache.get(1L, id -> {
+            cache.evictOnChange(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.UPDATED));
+            return load(id);
+        });
+
+        assertThat(encoded.getVersion()).isEqualTo(3);
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+
+    private ProductResponse load(Long id) {
+        loads.incrementAndGet();
+        return ProductResponse.newBuilder()
+                .setId(id)
+                .setName("Coat")
+                .setVersion(3)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.okbasalman.product_service.adapter.input.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.grpc.ProductResponse;
+import com.okbasalman.product_service.domain.model.Product;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+class ProductStreamerTest {
+
+    private ServerCallStreamObserver<ProductResponse> observer;
+    private final List<Long> loadedAfter = new ArrayList<>();
+    private final List<Long> sent = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        observer = mock(ServerCallStreamObserver.class);
+    }
+
+    @Test
+    void walksTheCatalogByKeysetAndCompletesAfterAShortPage() {
+        when(observer.isReady()).thenReturn(true);
+
+        streamer(5).start();
+
+        assertThat(loadedAfter).containsExactly(0L, 2L, 4L);
+        assertThat(sent).containsExactly(1L, 2L, 3L, 4L, 5L);
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void aFullLastPageIsFollowedByAnEmptyOne() {
+        when(observer.isReady()).thenReturn(true);
+
+        streamer(4).start();
+
+        assertThat(loadedAfter).containsExactly(0L, 2L, 4L);
+        assertThat(sent).containsExactly(1L, 2L, 3L, 4L);
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void waitsForTheTransportToBeReadyAgain() {
+        when(observer.isReady()).thenReturn(true, true, false);
+
+        streamer(5).start();
+
+        assertThat(sent).containsExactly(1L);
+        verify(observer, never()).onCompleted();
+
+        when(observer.isReady()).thenReturn(true);
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(observer).setOnReadyHandler(onReady.capture());
+        onReady.getValue().run();
+
+        assertThat(sent).containsExactly(1L, 2L, 3L, 4L, 5L);
+        verify(observer).onCompleted();
+    }
+
+    @Test
+    void stopsOnceTheCallIsCancelled() {
+        when(observer.isReady()).thenReturn(true);
+        when(observer.isCancelled()).thenReturn(false, false, true);
+
+        streamer(5).start();
+
+        assertThat(sent).containsExactly(1L);
+        verify(observer, never()).onCompleted();
+        verify(observer, never()).onError(any());
+    }
+
+    @Test
+    void aFailedPageEndsTheStreamWithAnError() {
+        when(observer.isReady()).thenReturn(true);
+        ProductStreamer streamer = new ProductStreamer(observer, (afterId, limit) -> {
+            throw new IllegalStateException("connection lost");
+        }, product -> ProductResponse.getDefaultInstance(), 2);
+
+        streamer.start();
+
+        verify(observer).onError(any());
+        verify(observer, never()).onCompleted();
+        verify(observer, never()).onNext(any());
+    }
+
+    // A catalog of products with ids 1..size, read two at a time.
+    private ProductStreamer streamer(int size) {
+        return new ProductStreamer(observer, (afterId, limit) -> {
+            loadedAfter.add(afterId);
+            return LongStream.rangeClosed(afterId + 1, Math.min(afterId + limit, size))
+                    .mapToObj(ProductStreamerTest::product)
+                    .collect(Collectors.toList());
+        }, product -> {
+            sent.add(product.getId());
+            return ProductResponse.getDefaultInstance();
+        }, 2);
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,641 @@
+package com.okbasalman.product_service.adapter.output;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.okbasalman.product_service.adapter.output.entity.ProductEntity;
+import com.okbasalman.product_service.adapter.output.entity.ProductImageEntity;
+import com.okbasalman.product_service.adapter.output.entity.ProductVariantEntity;
+import com.okbasalman.product_service.adapter.output.entity.StockReservationEntity;
+import com.okbasalman.product_service.adapter.output.repository.HotStockLeaseRepository;
+import com.okbasalman.product_service.adapter.output.repository.ProductImageRepository;
+import com.okbasalman.product_service.adapter.output.repository.ProductRepository;
+import com.okbasalman.product_service.adapter.output.repository.ProductRowView;
+import com.okbasalman.product_service.adapter.output.repository.ProductSummaryView;
+import com.okbasalman.product_service.adapter.output.repository.ProductVariantRepository;
+import com.okbasalman.product_service.adapter.output.repository.ProductVariantRowView;
+import com.okbasalman.product_service.adapter.output.repository.StockLevelView;
+import com.okbasalman.product_service.adapter.output.repository.StockReservationRepository;
+import com.okbasalman.product_service.adapter.output.repository.StockReservationView;
+import com.okbasalman.product_service.domain.dto.BulkAdjustDto;
+import com.okbasalman.product_service.domain.dto.BulkAdjustResultDto;
+import com.okbasalman.product_service.domain.dto.ProductCreateDto;
+import com.okbasalman.product_service.domain.dto.StockBatchResultDto;
+import com.okbasalman.product_service.domain.dto.StockLineDto;
+import com.okbasalman.product_service.domain.dto.StockLineResultDto;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.exception.StaleProductVersionException;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.model.StockReservation;
+import com.okbasalman.product_service.domain.port.output.ImageStoragePort;
+
+class JpaProductRepositoryTest {
+
+    private static final Long PRODUCT = 1L;
+    private static final Long VARIANT = 10L;
+
+    private ProductRepository productRepository;
+    private ProductVariantRepository productVariantRepository;
+    private StockReservationRepository stockReservationRepository;
+    private ImageStoragePort imageStorage;
+    private ApplicationEventPublisher eventPublisher;
+    private JpaProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productVariantRepository = mock(ProductVariantRepository.class);
+        stockReservationRepository = mock(StockReservationRepository.class);
+        imageStorage = mock(ImageStoragePort.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        repository = new JpaProductRepository(productRepository, productVariantRepository,
+                mock(ProductImageRepository.class), stockReservationRepository, mock(HotStockLeaseRepository.class),
+                imageStorage, eventPublisher);
+    }
+
+    @Test
+    void decrementTakesTheProductLockFirstAndReturnsTheStockLeft() {
+        when(productVariantRepository.decrementStock(VARIANT, 3)).thenReturn(Optional.of(level(VARIANT, 7)));
+
+        StockLevel level = repository.decreaseStockLevel(VARIANT, 3);
+
+        assertThat(level.getProductVariantId()).isEqualTo(VARIANT);
+        assertThat(level.getProductId()).isEqualTo(PRODUCT);
+        assertThat(level.getStock()).isEqualTo(7);
+        InOrder order = inOrder(productRepository, productVariantRepository);
+        order.verify(productRepository).incrementVersionByVariantId(VARIANT);
+        order.verify(productVariantRepository).decrementStock(VARIANT, 3);
+        // the update is its own check, so a successful one never looks the variant up
+        verify(productVariantRepository, never()).existsById(any());
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(ProductChangedEvent.ChangeType.STOCK_CHANGED);
+    }
+
+    @Test
+    void decrementOfMoreThanIsAvailableFailsWithoutPublishing() {
+        when(productVariantRepository.decrementStock(VARIANT, 3)).thenReturn(Optional.empty());
+        when(productVariantRepository.existsById(VARIANT)).thenReturn(true);
+
+        assertThatThrownBy(() -> repository.decreaseStockLevel(VARIANT, 3))
+                .hasMessage("Insufficient stock for product variant ID: " + VARIANT);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void decrementOfAnUnknownVariantFails() {
+        when(productVariantRepository.decrementStock(VARIANT, 3)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> repository.decreaseStockLevel(VARIANT, 3))
+                .hasMessage("Product variant not found with ID: " + VARIANT);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void batchDecrementsEveryLineWhenAllFit() {
+        ProductVariantEntity coat = variantEntity(VARIANT, 10, 4);
+        ProductVariantEntity scarf = variantEntity(11L, 5, 0);
+        when(productRepository.lockIdsByVariantIdIn(any())).thenReturn(List.of(PRODUCT));
+        when(productVariantRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(coat, scarf));
+
+        StockBatchResultDto result = repository.decreaseStockBatch(List.of(
+                new StockLineDto(VARIANT, 2), new StockLineDto(11L, 5), new StockLineDto(VARIANT, 1)));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(coat.getStock()).isEqualTo(7);
+        assertThat(scarf.getStock()).isZero();
+        // lines for the same variant are merged and reported once, with the stock left available
+        assertThat(result.getLines()).containsExactly(
+                new StockLineResultDto(VARIANT, PRODUCT, 3, 3, true, true),
+                new StockLineResultDto(11L, PRODUCT, 5, 0, true, true));
+        InOrder order = inOrder(productRepository, productVariantRepository);
+        order.verify(productRepository).lockIdsByVariantIdIn(any());
+        order.verify(productVariantRepository).findAllByIdInForUpdate(any());
+        order.verify(productRepository).incrementVersions(List.of(PRODUCT));
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void batchChangesNothingWhenOneLineDoesNotFit() {
+        ProductVariantEntity coat = variantEntity(VARIANT, 10, 4);
+        ProductVariantEntity scarf = variantEntity(11L, 5, 0);
+        when(productRepository.lockIdsByVariantIdIn(any())).thenReturn(List.of(PRODUCT));
+        when(productVariantRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(coat, scarf));
+
+        StockBatchResultDto result = repository.decreaseStockBatch(List.of(
+                new StockLineDto(VARIANT, 7), new StockLineDto(11L, 5)));
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(coat.getStock()).isEqualTo(10);
+        assertThat(scarf.getStock()).isEqualTo(5);
+        assertThat(result.getLines()).containsExactly(
+                new StockLineResultDto(VARIANT, PRODUCT, 7, 6, true, false),
+                new StockLineResultDto(11L, PRODUCT, 5, 5, true, true));
+        verify(productRepository, never()).incrementVersions(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void batchWithAnUnknownVariantChangesNothing() {
+        ProductVariantEntity coat = variantEntity(VARIANT, 10, 0);
+        when(productRepository.lockIdsByVariantIdIn(any())).thenReturn(List.of(PRODUCT));
+        when(productVariantRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(coat));
+
+        StockBatchResultDto result = repository.decreaseStockBatch(List.of(
+                new StockLineDto(VARIANT, 1), new StockLineDto(99L, 1)));
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(coat.getStock()).isEqualTo(10);
+        assertThat(result.getLines()).contains(new StockLineResultDto(99L, null, 1, 0, false, false));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void readsWithoutImagesGroupTheVariantRowsUnderTheirProducts() {
+        when(productRepository.findRowsByIdIn(List.of(PRODUCT, 2L))).thenReturn(List.of(
+                new ProductRowView(PRODUCT, "Coat", "Warm", Season.WINTER, 3),
+                new ProductRowView(2L, "Scarf", null, Season.WINTER, 1)));
+        when(productVariantRepository.findRowsByProductIdIn(List.of(PRODUCT, 2L))).thenReturn(List.of(
+                new ProductVariantRowView(PRODUCT, VARIANT, new BigDecimal("99.00"), 4, "black", Size.M),
+                new ProductVariantRowView(PRODUCT, 11L, new BigDecimal("89.00"), 2, "grey", Size.L)));
+
+        List<Product> products = repository.findAllByIds(List.of(PRODUCT, 2L), Projection.NO_IMAGES);
+
+        assertThat(products).extracting(Product::getId).containsExactly(PRODUCT, 2L);
+        assertThat(products.get(0).getVariants()).extracting(ProductVariant::getId).containsExactly(VARIANT, 11L);
+        assertThat(products.get(0).getMinPrice()).isEqualByComparingTo("89.00");
+        assertThat(products.get(1).getVariants()).isEmpty();
+        verify(productRepository, never()).findAllByIdInWithVariants(any());
+    }
+
+    @Test
+    void summaryPagesComeFromTheSummaryQueryAlone() {
+        when(productRepository.findSummariesAfter(eq(5L), any())).thenReturn(List.of(
+                new ProductSummaryView(6L, "Coat", Season.WINTER, new BigDecimal("89.00"), 3)));
+
+        List<Product> page = repository.findPage(5L, 10, Projection.SUMMARY);
+
+        assertThat(page).singleElement().satisfies(product -> {
+            assertThat(product.getMinPrice()).isEqualByComparingTo("89.00");
+            assertThat(product.getVariants()).isEmpty();
+        });
+        verify(productRepository, never()).findIdsAfter(any(), any());
+        verify(productRepository, never()).findAllByIdInWithVariants(any());
+    }
+
+    @Test
+    void reserveHoldsStockUntilTheReservationExpires() {
+        Instant expiresAt = Instant.parse("2026-01-01T00:00:00Z");
+        when(productVariantRepository.reserveStock(VARIANT, 3)).thenReturn(Optional.of(level(VARIANT, 7)));
+        when(stockReservationRepository.save(any())).thenAnswer(invocation -> {
+            StockReservationEntity entity = invocation.getArgument(0);
+            entity.setId(100L);
+            return entity;
+        });
+
+        StockReservation reservation = repository.reserveStock(VARIANT, 3, expiresAt);
+
+        assertThat(reservation.getId()).isEqualTo(100L);
+        assertThat(reservation.getQuantity()).isEqualTo(3);
+        assertThat(reservation.getExpiresAt()).isEqualTo(expiresAt);
+        assertThat(reservation.getAvailableStock()).isEqualTo(7);
+        // reads report the stock available, so reserving changes the product like a decrement
+        InOrder order = inOrder(productRepository, productVariantRepository);
+        order.verify(productRepository).incrementVersionByVariantId(VARIANT);
+        order.verify(productVariantRepository).reserveStock(VARIANT, 3);
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(ProductChangedEvent.ChangeType.STOCK_CHANGED);
+    }
+
+    @Test
+    void reserveFailsWhenTooLittleIsAvailable() {
+        when(productVariantRepository.reserveStock(VARIANT, 3)).thenReturn(Optional.empty());
+        when(productVariantRepository.existsById(VARIANT)).thenReturn(true);
+
+        assertThatThrownBy(() -> repository.reserveStock(VARIANT, 3, Instant.now()))
+                .hasMessage("Insufficient stock for product variant ID: " + VARIANT);
+        verify(stockReservationRepository, never()).save(any());
+    }
+
+    @Test
+    void commitTakesTheProductLockBeforeTheVariantAndPublishesTheStockChange() {
+        when(stockReservationRepository.deleteLiveById(any(), any())).thenReturn(Optional.of(reservation(100L, 3)));
+        when(productVariantRepository.commitReservedStock(VARIANT, 3)).thenReturn(Optional.of(level(VARIANT, 5)));
+
+        StockLevel level = repository.commitReservation(100L);
+
+        assertThat(level.getStock()).isEqualTo(5);
+        InOrder order = inOrder(productRepository, productVariantRepository);
+        order.verify(productRepository).incrementVersionByVariantId(VARIANT);
+        order.verify(productVariantRepository).commitReservedStock(VARIANT, 3);
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(ProductChangedEvent.ChangeType.STOCK_CHANGED);
+    }
+
+    @Test
+    void commitOfAnExpiredReservationFails() {
+        when(stockReservationRepository.deleteLiveById(any(), any())).thenReturn(Optional.empty());
+        when(stockReservationRepository.existsById(100L)).thenReturn(true);
+
+        assertThatThrownBy(() -> repository.commitReservation(100L))
+                .hasMessage("Stock reservation has expired: 100");
+        verify(productVariantRepository, never()).commitReservedStock(any(), anyInt());
+    }
+
+    @Test
+    void releaseReturnsTheReservedStock() {
+        when(stockReservationRepository.deleteReturningById(100L)).thenReturn(Optional.of(reservation(100L, 3)));
+        when(productVariantRepository.releaseReservedStock(VARIANT, 3)).thenReturn(Optional.of(level(VARIANT, 10)));
+
+        assertThat(repository.releaseReservation(100L).getStock()).isEqualTo(10);
+    }
+
+    @Test
+    void expiredReservationsAreReleasedOncePerVariant() {
+        when(stockReservationRepository.deleteExpired(any(), eq(50)))
+                .thenReturn(List.of(reservation(100L, 3), reservation(101L, 2)));
+
+        when(productRepository.lockIdsByVariantIdIn(anyCollection())).thenReturn(List.of(PRODUCT));
+
+        assertThat(repository.releaseExpiredReservations(Instant.now(), 50)).isEqualTo(2);
+        InOrder order = inOrder(productRepository, productVariantRepository);
+        order.verify(productRepository).lockIdsByVariantIdIn(anyCollection());
+        order.verify(productRepository).incrementVersions(List.of(PRODUCT));
+        order.verify(productVariantRepository).releaseReservedStock(VARIANT, 5);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void readsReportStockLessWhatIsReserved() {
+        ProductEntity entity = productEntity(10, 4);
+
+        Product product = new ProductEntityMapper(mock(ImageStoragePort.class)).mapToProduct(entity);
+
+        assertThat(product.getVariants()).singleElement().extracting(ProductVariant::getStock).isEqualTo(6);
+    }
+
+    @Test
+    void updateSetsTheStockAvailableAndKeepsWhatIsReserved() {
+        ProductEntity entity = productEntity(10, 4);
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+
+        Product updated = repository.update(product(8));
+
+        assertThat(entity.getVariants().get(0).getStock()).isEqualTo(12);
+        assertThat(updated.getVariants()).singleElement().extracting(ProductVariant::getStock).isEqualTo(8);
+    }
+
+    @Test
+    void sendingBackTheStockReadLeavesTheStoredStockAlone() {
+        ProductEntity entity = productEntity(10, 4);
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+
+        repository.update(product(6));
+
+        assertThat(entity.getVariants().get(0).getStock()).isEqualTo(10);
+    }
+
+    @Test
+    void updateCannotSetNegativeStock() {
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(productEntity(10, 4)));
+
+        assertThatThrownBy(() -> repository.update(product(-1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot be negative");
+        verify(productRepository, never()).flush();
+    }
+
+    @Test
+    void importFlushesEveryProductAtOnceAndPublishesEachCreate() {
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<ProductEntity> entities = new ArrayList<>(invocation.getArgument(0));
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setId(100L + i);
+            }
+            return entities;
+        });
+        ProductCreateDto coat = new ProductCreateDto("Coat", null, Season.WINTER, List.of());
+        ProductCreateDto scarf = new ProductCreateDto("Scarf", null, Season.WINTER, List.of());
+
+        List<Long> ids = repository.createAll(List.of(coat, scarf));
+
+        assertThat(ids).containsExactly(100L, 101L);
+        InOrder order = inOrder(productRepository);
+        order.verify(productRepository).saveAll(any());
+        order.verify(productRepository).flush();
+        verify(productRepository, never()).save(any());
+        ArgumentCaptor<ProductChangedEvent> events = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(ProductChangedEvent::getProductId).containsExactly(100L, 101L);
+    }
+
+    @Test
+    void updateBasedOnTheCurrentVersionBumpsIt() {
+        ProductEntity entity = productEntity(10, 0);
+        entity.setVersion(3);
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+        Product product = product(10);
+        product.setVersion(3L);
+
+        Product updated = repository.update(product);
+
+        assertThat(entity.getVersion()).isEqualTo(4);
+        assertThat(updated.getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void updateBasedOnAnOlderVersionIsRejected() {
+        ProductEntity entity = productEntity(10, 0);
+        entity.setVersion(4);
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+        Product product = product(8);
+        product.setVersion(3L);
+
+        assertThatThrownBy(() -> repository.update(product))
+                .isInstanceOfSatisfying(StaleProductVersionException.class,
+                        e -> assertThat(e.getCurrentVersion()).isEqualTo(4));
+        assertThat(entity.getVersion()).isEqualTo(4);
+        assertThat(entity.getVariants().get(0).getStock()).isEqualTo(10);
+        verify(productRepository, never()).flush();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateWithoutAVersionOverwritesWhateverIsStored() {
+        ProductEntity entity = productEntity(10, 0);
+        entity.setVersion(4);
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+
+        repository.update(product(8));
+
+        assertThat(entity.getVersion()).isEqualTo(5);
+        assertThat(entity.getVariants().get(0).getStock()).isEqualTo(8);
+    }
+
+    @Test
+    void updateChangesKnownVariantsInPlaceAddsNewOnesAndDropsTheRest() {
+        ProductEntity entity = productEntity(10, 0);
+        ProductVariantEntity kept = entity.getVariants().get(0);
+        ProductVariantEntity dropped = variantEntity(11L, 5, 0);
+        entity.getVariants().add(dropped);
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+        Product product = product(5);
+        product.getVariants().get(0).setPrice(new BigDecimal("79.00"));
+        ProductVariant added = new ProductVariant();
+        added.setPrice(new BigDecimal("59.00"));
+        added.setStock(3);
+        added.setColor("red");
+        added.setSize(Size.S);
+        product.setVariants(List.of(product.getVariants().get(0), added));
+
+        repository.update(product);
+
+        assertThat(entity.getVariants()).hasSize(2).contains(kept).doesNotContain(dropped);
+        assertThat(kept.getPrice()).isEqualByComparingTo("79.00");
+        assertThat(kept.getStock()).isEqualTo(5);
+        assertThat(entity.getVariants().get(1).getId()).isNull();
+        assertThat(entity.getVariants().get(1).getProduct()).isSameAs(entity);
+        verify(productRepository).flush();
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    void anImageSentBackWithoutDataIsKeptAsItIs() {
+        ProductEntity entity = productEntity(10, 0);
+        ProductImageEntity image = imageEntity(entity.getVariants().get(0));
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(entity));
+        when(imageStorage.load("abc")).thenReturn(new byte[] {1, 2});
+        Product product = product(10);
+        ProductImage ref = new ProductImage();
+        ref.setId(100L);
+        product.getVariants().get(0).setImages(List.of(ref));
+
+        repository.update(product);
+
+        assertThat(entity.getVariants().get(0).getImages()).containsExactly(image);
+        assertThat(image.getContentHash()).isEqualTo("abc");
+        verify(imageStorage, never()).store(any());
+    }
+
+    @Test
+    void updateOfAVariantOfAnotherProductFails() {
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(productEntity(10, 0)));
+        Product product = product(10);
+        product.getVariants().get(0).setId(99L);
+
+        assertThatThrownBy(() -> repository.update(product))
+                .hasMessage("Product variant not found with ID: 99");
+        verify(productRepository, never()).flush();
+    }
+
+    @Test
+    void aNewImageNeedsDataOrAnUpload() {
+        when(productRepository.findByIdForUpdate(PRODUCT)).thenReturn(Optional.of(productEntity(10, 0)));
+        Product product = product(10);
+        product.getVariants().get(0).setImages(List.of(new ProductImage()));
+
+        assertThatThrownBy(() -> repository.update(product))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Image data or an upload id is required for new images.");
+    }
+
+    private static ProductEntity productEntity(int stock, int reserved) {
+        ProductEntity product = new ProductEntity();
+        product.setId(PRODUCT);
+        product.setName("Coat");
+        product.setSeason(Season.WINTER);
+        ProductVariantEntity variant = new ProductVariantEntity();
+        variant.setId(VARIANT);
+        variant.setProduct(product);
+        variant.setPrice(new BigDecimal("99.00"));
+        variant.setStock(stock);
+        variant.setReserved(reserved);
+        variant.setColor("black");
+        variant.setSize(Size.M);
+        variant.setImages(new ArrayList<>());
+        product.setVariants(new ArrayList<>(List.of(variant)));
+        return product;
+    }
+
+    private static ProductImageEntity imageEntity(ProductVariantEntity variant) {
+        ProductImageEntity image = new ProductImageEntity();
+        image.setId(100L);
+        image.setContentHash("abc");
+        image.setSizeBytes(2);
+        image.setContentType("image/png");
+        image.setProductVariant(variant);
+        variant.getImages().add(image);
+        return image;
+    }
+
+    private static ProductVariantEntity variantEntity(Long id, int stock, int reserved) {
+        ProductVariantEntity variant = productEntity(stock, reserved).getVariants().get(0);
+        variant.setId(id);
+        return variant;
+    }
+
+    @Test
+    void bulkPriceAdjustmentsKeepTheAmountExact() {
+        when(productVariantRepository.adjustPrices(any(), anyInt(), eq(true), anyCollection(), any(), any(), any(),
+                any(), any(), any(), any())).thenReturn(List.of(PRODUCT));
+        BulkAdjustDto adjustment = new BulkAdjustDto();
+        adjustment.setOperation(BulkAdjustDto.Operation.PRICE_PERCENT);
+        adjustment.setAmount(BigDecimal.valueOf(10.1));
+
+        repository.bulkAdjust(adjustment, 0L, 100);
+
+        verify(productVariantRepository).adjustPrices(eq(0L), eq(100), eq(true), anyCollection(), any(), any(), any(),
+                any(), any(), eq(new BigDecimal("1.101")), eq(BigDecimal.ZERO));
+    }
+
+    @Test
+    void bulkAdjustmentsOnlyBindTheIdsNotYetPassed() {
+        when(productVariantRepository.adjustStock(any(), anyInt(), eq(false), anyCollection(), any(), any(), any(),
+                any(), any(), anyInt(), anyInt())).thenReturn(List.of(7L));
+        BulkAdjustDto adjustment = new BulkAdjustDto();
+        adjustment.setOperation(BulkAdjustDto.Operation.ADD_STOCK);
+        adjustment.setAmount(BigDecimal.ONE);
+        adjustment.setProductIds(List.of(3L, 9L, 5L, 7L, 9L));
+
+        repository.bulkAdjust(adjustment, 5L, 100);
+
+        verify(productVariantRepository).adjustStock(eq(5L), eq(100), eq(false), eq(List.of(9L, 7L)), any(), any(),
+                any(), any(), any(), eq(1), eq(1));
+    }
+
+    @Test
+    void bulkAdjustmentsPastTheLastIdRunNoQuery() {
+        BulkAdjustDto adjustment = new BulkAdjustDto();
+        adjustment.setOperation(BulkAdjustDto.Operation.ADD_STOCK);
+        adjustment.setAmount(BigDecimal.ONE);
+        adjustment.setProductIds(List.of(3L, 5L));
+
+        assertThat(repository.bulkAdjust(adjustment, 5L, 100).getAdjustedProductIds()).isEmpty();
+        verify(productVariantRepository, never()).adjustStock(any(), anyInt(), anyBoolean(), anyCollection(), any(),
+                any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void bulkStockAdjustmentsPublishOneChangePerProductInIdOrder() {
+        // one row per adjusted variant, holding its product id
+        when(productVariantRepository.adjustStock(any(), anyInt(), eq(true), anyCollection(), any(), any(), any(),
+                any(), any(), anyInt(), anyInt())).thenReturn(List.of(9L, 7L, 9L));
+        BulkAdjustDto adjustment = new BulkAdjustDto();
+        adjustment.setSeason(Season.WINTER);
+        adjustment.setSize(Size.M);
+        adjustment.setOperation(BulkAdjustDto.Operation.SET_STOCK);
+        adjustment.setAmount(BigDecimal.valueOf(5));
+
+        BulkAdjustResultDto result = repository.bulkAdjust(adjustment, 0L, 100);
+
+        assertThat(result.getAdjustedVariants()).isEqualTo(3);
+        assertThat(result.getAdjustedProductIds()).containsExactly(7L, 9L);
+        verify(productVariantRepository).adjustStock(eq(0L), eq(100), eq(true), anyCollection(), eq("WINTER"), eq("M"),
+                any(), any(), any(), eq(0), eq(5));
+        ArgumentCaptor<ProductChangedEvent> events = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(ProductChangedEvent::getProductId).containsExactly(7L, 9L);
+        assertThat(events.getAllValues()).extracting(ProductChangedEvent::getType)
+                .containsOnly(ProductChangedEvent.ChangeType.STOCK_CHANGED);
+    }
+
+    @Test
+    void bulkPriceDeltasAreAddedAsGiven() {
+        when(productVariantRepository.adjustPrices(any(), anyInt(), eq(true), anyCollection(), any(), any(), any(),
+                any(), any(), any(), any())).thenReturn(List.of(PRODUCT));
+        BulkAdjustDto adjustment = new BulkAdjustDto();
+        adjustment.setOperation(BulkAdjustDto.Operation.PRICE_DELTA);
+        adjustment.setAmount(new BigDecimal("-2.50"));
+
+        repository.bulkAdjust(adjustment, 0L, 100);
+
+        verify(productVariantRepository).adjustPrices(eq(0L), eq(100), eq(true), anyCollection(), any(), any(), any(),
+                any(), any(), eq(BigDecimal.ONE), eq(new BigDecimal("-2.50")));
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(ProductChangedEvent.ChangeType.UPDATED);
+    }
+
+    private static Product product(int stock) {
+        ProductVariant variant = new ProductVariant();
+        variant.setId(VARIANT);
+        variant.setPrice(new BigDecimal("99.00"));
+        variant.setStock(stock);
+        variant.setColor("black");
+        variant.setSize(Size.M);
+        variant.setImages(new ArrayList<>());
+        Product product = new Product();
+        product.setId(PRODUCT);
+        product.setName("Coat");
+        product.setSeason(Season.WINTER);
+        product.setVariants(List.of(variant));
+        return product;
+    }
+
+    private static StockLevelView level(Long id, int stock) {
+        return new StockLevelView() {
+            public Long getId() {
+                return id;
+            }
+
+            public Long getProductId() {
+                return PRODUCT;
+            }
+
+            public Integer getStock() {
+                return stock;
+            }
+        };
+    }
+
+    private static StockReservationView reservation(Long id, int quantity) {
+        return new StockReservationView() {
+            public Long getId() {
+                return id;
+            }
+
+            public Long getProductVariantId() {
+                return VARIANT;
+            }
+
+            public Long getProductId() {
+                return PRODUCT;
+            }
+
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.okbasalman.product_service.adapter.output.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+class CacheEvictionGuardTest {
+
+    private final Cache<Long, String> cache = Caffeine.newBuilder().build();
+
+    @Test
+    void storesALoadNothingRacedWith() {
+        CacheEvictionGuard guard = new CacheEvictionGuard(Duration.ZERO);
+
+        guard.put(cache, 1L, guard.epoch(1L), "v1");
+
+        assertThat(cache.getIfPresent(1L)).isEqualTo("v1");
+    }
+
+    @Test
+    void dropsALoadThatStartedBeforeAnEviction() {
+        CacheEvictionGuard guard = new CacheEvictionGuard(Duration.ZERO);
+        long epoch = guard.epoch(1L);
+
+        guard.evict(cache, 1L);
+        guard.put(cache, 1L, epoch, "v1");
+
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    void keepsRecentlyChangedProductsOut() {
+        CacheEvictionGuard guard = new CacheEvictionGuard(Duration.ofMinutes(1));
+        guard.evict(cache, 1L);
+
+        guard.put(cache, 1L, guard.epoch(1L), "v1");
+        guard.putIfAbsent(cache, 1L, "snapshot");
+
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    void snapshotValuesDoNotReplaceLoadedOnes() {
+        CacheEvictionGuard guard = new CacheEvictionGuard(Duration.ZERO);
+        guard.put(cache, 1L, guard.epoch(1L), "loaded");
+
+        guard.putIfAbsent(cache, 1L, "snapshot");
+
+        assertThat(cache.getIfPresent(1L)).isEqualTo("loaded");
+    }
+
+    // Every write bumps the version and then evicts; whatever is left cached must be the latest version.
+    @Test
+    void neverKeepsAValueOlderThanTheLastEviction() throws Exception {
+        CacheEvictionGuard guard = new CacheEvictionGuard(Duration.ZERO);
+        AtomicLong version = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> writer = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20_000; i++) {
+                    version.incrementAndGet();
+                    guard.evict(cache, 1L);
+                }
+                return null;
+            });
+            for (int reader = 0; reader < 3; reader++) {
+                executor.submit(() -> {
+                    start.await();
+                    while (!writer.isDone()) {
+                        long epoch = guard.epoch(1L);
+                        guard.put(cache, 1L, epoch, "v" + version.get());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        String cached = cache.getIfPresent(1L);
+        assertThat(cached == null || cached.equals("v" + version.get())).isTrue();
+    }
+}
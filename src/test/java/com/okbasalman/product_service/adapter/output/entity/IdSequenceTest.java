@@ -0,0 +1,41 @@
+package com.okbasalman.product_service.adapter.output.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * Hibernate hands out allocationSize ids per nextval, so a sequence that steps by less than that
+ * hands out the same ids to two instances.
+ */
+class IdSequenceTest {
+
+    @Test
+    void everySequenceStepsByItsAllocationSize() throws Exception {
+        String migration = migration();
+        for (Class<?> entity : List.of(ProductEntity.class, ProductVariantEntity.class, ProductImageEntity.class)) {
+            SequenceGenerator generator = entity.getDeclaredField("id").getAnnotation(SequenceGenerator.class);
+
+            Matcher increment = Pattern.compile("CREATE SEQUENCE IF NOT EXISTS " + generator.sequenceName()
+                    + " START WITH 1 INCREMENT BY (\\d+);").matcher(migration);
+
+            assertThat(increment.find()).as(generator.sequenceName()).isTrue();
+            assertThat(Integer.parseInt(increment.group(1))).as(generator.sequenceName())
+                    .isEqualTo(generator.allocationSize());
+        }
+    }
+
+    private static String migration() throws Exception {
+        try (InputStream sql = IdSequenceTest.class.getResourceAsStream("/db/product_id_sequences.sql")) {
+            return new String(sql.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.okbasalman.product_service.adapter.output.imaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.okbasalman.product_service.adapter.output.storage.FileSystemImageStorage;
+import com.okbasalman.product_service.domain.model.ImageRendition;
+import com.okbasalman.product_service.domain.port.output.ImageTranscoderPort;
+
+class ImageRenditionPipelineTest {
+
+    private FileSystemImageStorage storage;
+    private ExecutorService workers;
+    private final AtomicInteger transcoded = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new FileSystemImageStorage(Files.createTempDirectory("images"));
+        workers = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(workers).execute(any(Runnable.class));
+    }
+
+    @Test
+    void storesTheRenditionsOfADecodableImage() {
+        String contentHash = storage.store(new byte[] {1}).getContentHash();
+        ImageRenditionPipeline pipeline = pipeline((original, renditions) -> {
+            transcoded.incrementAndGet();
+            return Optional.of(Map.of(ImageRendition.THUMBNAIL, new byte[] {2}));
+        });
+
+        pipeline.requestRenditions(List.of(contentHash));
+
+        assertThat(storage.loadRendition(contentHash, ImageRendition.THUMBNAIL)).hasValueSatisfying(
+                data -> assertThat(data).containsExactly(2));
+    }
+
+    @Test
+    void doesNotTranscodeAnUndecodableImageAgain() {
+        String contentHash = storage.store(new byte[] {1}).getContentHash();
+        ImageRenditionPipeline pipeline = pipeline((original, renditions) -> {
+            transcoded.incrementAndGet();
+            return Optional.empty();
+        });
+
+        pipeline.requestRenditions(List.of(contentHash));
+        pipeline.requestRenditions(List.of(contentHash));
+
+        assertThat(transcoded).hasValue(1);
+        assertThat(storage.hasRendition(contentHash, ImageRendition.THUMBNAIL)).isFalse();
+    }
+
+    private ImageRenditionPipeline pipeline(ImageTranscoderPort transcoder) {
+        return new ImageRenditionPipeline(storage, transcoder, workers, 100);
+    }
+}
@@ -0,0 +1,98 @@
+package com.okbasalman.product_service.adapter.output.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryCountingDataSourceTest {
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, true, false);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(statement.executeBatch()).thenReturn(new int[] {1, 1, 1});
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new QueryCountingDataSource(target);
+    }
+
+    @Test
+    void countsStatementsAndRowsReadForTheCurrentCounter() {
+        QueryCounter counter = new QueryCounter();
+
+        counter.runWith(() -> query("SELECT * FROM products"));
+
+        assertThat(counter.getStatements()).isEqualTo(1);
+        assertThat(counter.getRows()).isEqualTo(2);
+    }
+
+    @Test
+    void aBatchIsOneStatement() {
+        QueryCounter counter = new QueryCounter();
+
+        counter.runWith(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.prepareStatement("INSERT INTO products VALUES (?)").executeBatch();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(counter.getStatements()).isEqualTo(1);
+        assertThat(counter.getRows()).isZero();
+    }
+
+    @Test
+    void workOutsideACounterIsNotAttributed() {
+        QueryCounter counter = new QueryCounter();
+
+        query("SELECT * FROM products");
+        counter.runWith(() -> {
+        });
+
+        assertThat(counter.getStatements()).isZero();
+        assertThat(counter.getRows()).isZero();
+    }
+
+    @Test
+    void aNestedCounterHandsBackToTheOuterOne() {
+        QueryCounter outer = new QueryCounter();
+        QueryCounter inner = new QueryCounter();
+
+        outer.runWith(() -> {
+            inner.runWith(() -> query("SELECT 1"));
+            query("SELECT 2");
+        });
+
+        assertThat(inner.getStatements()).isEqualTo(1);
+        assertThat(outer.getStatements()).isEqualTo(1);
+    }
+
+    private void query(String sql) {
+        try (Connection connection = dataSource.getConnection()) {
+            ResultSet rows = connection.prepareStatement(sql).executeQuery();
+            while (rows.next()) {
+                // read every row
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.okbasalman.product_service.adapter.output.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+class ReplicaFallbackDataSourceTest {
+
+    private DataSource replica;
+    private DataSource primary;
+    private Connection replicaConnection;
+    private Connection primaryConnection;
+    private ReplicaLagMonitor monitor;
+    private ReplicaFallbackDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        replicaConnection = mock(Connection.class);
+        primaryConnection = mock(Connection.class);
+        replica = mock(DataSource.class);
+        primary = mock(DataSource.class);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        monitor = mock(ReplicaLagMonitor.class);
+        dataSource = new ReplicaFallbackDataSource(replica, primary, monitor);
+    }
+
+    @Test
+    void readsComeFromTheReplicaWhileItIsUsable() throws Exception {
+        when(monitor.isUsable()).thenReturn(true);
+
+        assertThat(dataSource.getConnection()).isSameAs(replicaConnection);
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void readsComeFromThePrimaryWhileTheReplicaIsBehind() throws Exception {
+        when(monitor.isUsable()).thenReturn(false);
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void aRefusedReplicaConnectionFallsBackToThePrimary() throws Exception {
+        SQLException refused = new SQLException("connection refused");
+        when(monitor.isUsable()).thenReturn(true);
+        when(replica.getConnection()).thenThrow(refused);
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        verify(monitor).markUnavailable(refused);
+    }
+
+    @Test
+    void onlyReadOnlyTransactionsAreRoutedToTheReplica() throws Exception {
+        when(monitor.isUsable()).thenReturn(true);
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(dataSource);
+
+        try (Connection read = routing.getConnection()) {
+            read.setReadOnly(true);
+            read.createStatement();
+        }
+        verify(replicaConnection).createStatement();
+        verify(primaryConnection, never()).createStatement();
+
+        try (Connection write = routing.getConnection()) {
+            write.createStatement();
+        }
+        verify(primaryConnection).createStatement();
+    }
+}
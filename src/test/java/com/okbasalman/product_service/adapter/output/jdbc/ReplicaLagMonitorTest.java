@@ -0,0 +1,86 @@
+package com.okbasalman.product_service.adapter.output.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicaLagMonitorTest {
+
+    private DataSource replica;
+    private ResultSet result;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        result = mock(ResultSet.class);
+        when(result.next()).thenReturn(true);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(result);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        replica = mock(DataSource.class);
+        when(replica.getConnection()).thenReturn(connection);
+        // start() checks once right away; the scheduled checks are left to the mocked executor.
+        monitor = new ReplicaLagMonitor(replica, mock(ScheduledExecutorService.class), Duration.ofSeconds(1),
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    void aReplicaWithinTheAllowedLagIsUsable() throws Exception {
+        when(result.getDouble(1)).thenReturn(250.0);
+
+        monitor.start();
+
+        assertThat(monitor.isUsable()).isTrue();
+        assertThat(monitor.lagMillis()).isEqualTo(250);
+    }
+
+    @Test
+    void aReplicaTooFarBehindIsSkipped() throws Exception {
+        when(result.getDouble(1)).thenReturn(1500.0);
+
+        monitor.start();
+
+        assertThat(monitor.isUsable()).isFalse();
+        assertThat(monitor.lagMillis()).isEqualTo(1500);
+    }
+
+    @Test
+    void anUnreachableReplicaIsSkipped() throws Exception {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        monitor.start();
+
+        assertThat(monitor.isUsable()).isFalse();
+        assertThat(monitor.lagMillis()).isEqualTo(-1);
+    }
+
+    @Test
+    void aFailedConnectionStopsReadsBeforeTheNextCheck() throws Exception {
+        when(result.getDouble(1)).thenReturn(0.0);
+        monitor.start();
+
+        monitor.markUnavailable(new SQLException("connection refused"));
+
+        assertThat(monitor.isUsable()).isFalse();
+        assertThat(monitor.lagMillis()).isEqualTo(-1);
+    }
+
+    @Test
+    void readsMayLagByTheAllowedLagPlusACheckInterval() {
+        assertThat(monitor.maxStaleness()).isEqualTo(Duration.ofSeconds(6));
+    }
+}
@@ -0,0 +1,165 @@
+package com.okbasalman.product_service.adapter.output.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.okbasalman.product_service.domain.model.JournaledSales;
+
+class FileStockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<FileStockJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.forEach(FileStockJournal::close);
+    }
+
+    @Test
+    void rotateReturnsTheSalesOfTheClosedSegment() {
+        FileStockJournal journal = open(0);
+        journal.append(1L, 2);
+        journal.append(2L, 1);
+        journal.append(1L, 3);
+
+        JournaledSales sales = journal.rotate().orElseThrow();
+
+        assertThat(sales.getLastSequence()).isEqualTo(3);
+        assertThat(sales.getSoldByVariant()).isEqualTo(Map.of(1L, 5L, 2L, 1L));
+        assertThat(journal.rotate()).isEmpty();
+    }
+
+    @Test
+    void restartRecoversSegmentsThatWereNotDiscarded() {
+        FileStockJournal journal = open(0);
+        journal.append(1L, 2);
+        journal.rotate();
+        journal.append(1L, 4);
+        journal.close();
+
+        FileStockJournal reopened = new FileStockJournal(directory, Executors.newSingleThreadExecutor());
+        List<JournaledSales> recovered = reopened.open(0);
+        opened.add(reopened);
+
+        assertThat(recovered).extracting(JournaledSales::getLastSequence).containsExactly(1L, 2L);
+        assertThat(recovered).extracting(JournaledSales::getSoldByVariant)
+                .containsExactly(Map.of(1L, 2L), Map.of(1L, 4L));
+        reopened.append(1L, 1);
+        assertThat(reopened.rotate().orElseThrow().getLastSequence()).isEqualTo(3);
+    }
+
+    @Test
+    void sequencesContinueAfterEverySegmentWasSettled() throws IOException {
+        FileStockJournal journal = open(0);
+        journal.append(1L, 1);
+        journal.append(1L, 1);
+        journal.discardThrough(journal.rotate().orElseThrow().getLastSequence());
+        journal.close();
+
+        for (int restart = 0; restart < 2; restart++) {
+            FileStockJournal reopened = open(0);
+            assertThat(reopened.rotate()).isEmpty();
+            reopened.close();
+        }
+        FileStockJournal reopened = open(0);
+        reopened.append(1L, 1);
+
+        assertThat(reopened.rotate().orElseThrow().getLastSequence()).isEqualTo(3);
+        assertThat(segments()).hasSize(2);
+    }
+
+    @Test
+    void sequencesStartAboveWhatWasSettledWhenTheJournalIsLost() {
+        FileStockJournal journal = open(41);
+        journal.append(1L, 1);
+
+        assertThat(journal.rotate().orElseThrow().getLastSequence()).isEqualTo(42);
+    }
+
+    @Test
+    void tornTailIsIgnoredAndLaterSequencesFollowTheLastGoodRecord() throws IOException {
+        FileStockJournal journal = open(0);
+        journal.append(1L, 2);
+        journal.append(1L, 3);
+        journal.close();
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        FileStockJournal reopened = new FileStockJournal(directory, Executors.newSingleThreadExecutor());
+        List<JournaledSales> recovered = reopened.open(0);
+        opened.add(reopened);
+        reopened.append(2L, 1);
+
+        assertThat(recovered).singleElement().satisfies(sales -> {
+            assertThat(sales.getLastSequence()).isEqualTo(2);
+            assertThat(sales.getSoldByVariant()).isEqualTo(Map.of(1L, 5L));
+        });
+        assertThat(reopened.rotate().orElseThrow().getLastSequence()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentAppendsAreAllJournaled() throws Exception {
+        FileStockJournal journal = open(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> appenders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long productVariantId = i % 2;
+                appenders.add(executor.submit(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        journal.append(productVariantId, 1);
+                    }
+                }));
+            }
+            for (Future<?> appender : appenders) {
+                appender.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        JournaledSales sales = journal.rotate().orElseThrow();
+
+        assertThat(sales.getLastSequence()).isEqualTo(2000);
+        assertThat(sales.getSoldByVariant()).isEqualTo(Map.of(0L, 1000L, 1L, 1000L));
+    }
+
+    @Test
+    void identityIsKeptAcrossRestarts() {
+        String identity = new FileStockJournal(directory, Executors.newSingleThreadExecutor()).identity();
+
+        assertThat(identity).isNotBlank();
+        assertThat(new FileStockJournal(directory, Executors.newSingleThreadExecutor()).identity()).isEqualTo(identity);
+    }
+
+    private FileStockJournal open(long settledThrough) {
+        FileStockJournal journal = new FileStockJournal(directory, Executors.newSingleThreadExecutor());
+        journal.open(settledThrough);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.okbasalman.product_service.adapter.output.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.okbasalman.product_service.domain.dto.ProductSearchQueryDto;
+import com.okbasalman.product_service.domain.event.ProductChangedEvent;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.port.output.ProductRepositoryPort;
+
+class InMemoryProductSearchIndexTest {
+
+    private ProductRepositoryPort repository;
+    private final List<Product> catalog = new ArrayList<>();
+    private InMemoryProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProductRepositoryPort.class);
+        when(repository.findPage(anyLong(), anyInt(), any(Projection.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return catalog.stream().filter(product -> product.getId() > afterId).limit(limit).collect(Collectors.toList());
+        });
+        when(repository.findAllByIds(anyList(), any(Projection.class))).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return catalog.stream().filter(product -> ids.contains(product.getId())).collect(Collectors.toList());
+        });
+        ExecutorService updater = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(updater).execute(any(Runnable.class));
+        index = new InMemoryProductSearchIndex(repository, TransactionOperations.withoutTransaction(), updater);
+    }
+
+    @Test
+    void rebuildFindsPricesLoadedOutOfOrder() {
+        List<Long> cents = LongStream.rangeClosed(1, 2_000).boxed().collect(Collectors.toList());
+        Collections.shuffle(cents, new Random(42));
+        for (int i = 0; i < cents.size(); i++) {
+            catalog.add(product(i + 1L, cents.get(i)));
+        }
+        index.buildOnStartup();
+
+        List<Long> matching = index.search(query(new BigDecimal("5.00"), new BigDecimal("5.10"))).getProductIds();
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < cents.size(); i++) {
+            if (cents.get(i) >= 500 && cents.get(i) <= 510) {
+                expected.add(i + 1L);
+            }
+        }
+        assertThat(matching).isEqualTo(expected);
+    }
+
+    @Test
+    void changesAfterTheRebuildKeepThePricesOrdered() {
+        catalog.add(product(1L, 300));
+        catalog.add(product(2L, 100));
+        index.buildOnStartup();
+
+        catalog.add(product(3L, 200));
+        index.onProductChanged(new ProductChangedEvent(3L, ProductChangedEvent.ChangeType.CREATED));
+
+        assertThat(index.search(query(new BigDecimal("1.50"), new BigDecimal("2.50"))).getProductIds()).containsExactly(3L);
+        assertThat(index.search(query(null, new BigDecimal("2.00"))).getProductIds()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void zeroBoundsFilter() {
+        catalog.add(product(1L, 0));
+        catalog.add(product(2L, 100));
+        index.buildOnStartup();
+
+        assertThat(index.search(query(null, BigDecimal.ZERO)).getProductIds()).containsExactly(1L);
+        assertThat(index.search(query(BigDecimal.ZERO, null)).getProductIds()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void variantsInStockInMemoryPassTheInStockFilter() {
+        catalog.add(product(1L, 100));
+        catalog.add(product(2L, 100));
+        catalog.get(0).getVariants().get(0).setStock(0);
+        catalog.get(1).getVariants().get(0).setStock(0);
+        index.buildOnStartup();
+        ProductSearchQueryDto query = query(null, null);
+        query.setInStockOnly(true);
+
+        assertThat(index.search(query).getProductIds()).isEmpty();
+
+        query.setInStockVariantIds(Set.of(2L, 99L));
+        assertThat(index.search(query).getProductIds()).containsExactly(2L);
+    }
+
+    private static ProductSearchQueryDto query(BigDecimal minPrice, BigDecimal maxPrice) {
+        ProductSearchQueryDto query = new ProductSearchQueryDto();
+        query.setSeasons(Set.of());
+        query.setSizes(Set.of());
+        query.setColors(Set.of());
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setPageSize(10_000);
+        return query;
+    }
+
+    private static Product product(Long id, long cents) {
+        ProductVariant variant = new ProductVariant();
+        variant.setId(id);
+        variant.setPrice(BigDecimal.valueOf(cents, 2));
+        variant.setStock(1);
+        variant.setColor("black");
+        variant.setSize(Size.M);
+        variant.setImages(List.of());
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setSeason(Season.SUMMER);
+        product.setVariants(List.of(variant));
+        product.setVersion(1L);
+        return product;
+    }
+}
@@ -0,0 +1,86 @@
+package com.okbasalman.product_service.adapter.output.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.okbasalman.product_service.domain.model.ImageRendition;
+
+class FileSystemImageStorageTest {
+
+    private static final Instant CUTOFF = Instant.now().minus(Duration.ofHours(1));
+
+    private Path root;
+    private FileSystemImageStorage storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        root = Files.createTempDirectory("images");
+        storage = new FileSystemImageStorage(root);
+    }
+
+    @Test
+    void listsOnlyBlobsUntouchedSinceTheCutoff() throws Exception {
+        String old = storage.store(new byte[] {1}).getContentHash();
+        storage.store(new byte[] {2});
+        storage.storeRendition(old, ImageRendition.THUMBNAIL, new byte[] {3});
+        age(old);
+
+        assertThat(blobsBefore(CUTOFF)).containsExactly(old);
+    }
+
+    @Test
+    void deletesAnOldBlobWithItsRenditions() throws Exception {
+        String contentHash = storage.store(new byte[] {1}).getContentHash();
+        storage.storeRendition(contentHash, ImageRendition.THUMBNAIL, new byte[] {3});
+        age(contentHash);
+
+        assertThat(storage.deleteIfModifiedBefore(contentHash, CUTOFF)).isTrue();
+
+        assertThat(storage.find(contentHash)).isEmpty();
+        assertThat(storage.hasRendition(contentHash, ImageRendition.THUMBNAIL)).isFalse();
+    }
+
+    @Test
+    void keepsABlobStoredAgainSinceTheCutoff() throws Exception {
+        String contentHash = storage.store(new byte[] {1}).getContentHash();
+        age(contentHash);
+        storage.store(new byte[] {1});
+
+        assertThat(storage.deleteIfModifiedBefore(contentHash, CUTOFF)).isFalse();
+
+        assertThat(storage.load(contentHash)).containsExactly(1);
+        assertThat(blobsBefore(Instant.now().plusSeconds(1))).containsExactly(contentHash);
+    }
+
+    @Test
+    void findingAnUploadKeepsItFromTheSweep() throws Exception {
+        String contentHash = storage.store(new byte[] {1}).getContentHash();
+        age(contentHash);
+
+        storage.find(contentHash);
+
+        assertThat(blobsBefore(CUTOFF)).isEmpty();
+    }
+
+    private void age(String contentHash) throws Exception {
+        Path path = root.resolve(contentHash.substring(0, 2)).resolve(contentHash.substring(2, 4)).resolve(contentHash);
+        Files.setLastModifiedTime(path, FileTime.from(CUTOFF.minus(Duration.ofHours(1))));
+    }
+
+    private List<String> blobsBefore(Instant cutoff) {
+        try (Stream<String> blobs = storage.findBlobsModifiedBefore(cutoff)) {
+            return blobs.collect(Collectors.toList());
+        }
+    }
+}
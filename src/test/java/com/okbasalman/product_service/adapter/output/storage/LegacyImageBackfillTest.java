@@ -0,0 +1,90 @@
+package com.okbasalman.product_service.adapter.output.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.okbasalman.product_service.adapter.output.repository.LegacyImageView;
+import com.okbasalman.product_service.adapter.output.repository.ProductImageRepository;
+import com.okbasalman.product_service.domain.model.StoredImage;
+
+class LegacyImageBackfillTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+
+    private ProductImageRepository imageRepository;
+    private FileSystemImageStorage imageStorage;
+    private LegacyImageBackfill backfill;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        imageRepository = mock(ProductImageRepository.class);
+        when(imageRepository.existsLegacyImages()).thenReturn(true);
+        imageStorage = new FileSystemImageStorage(Files.createTempDirectory("images"));
+        backfill = new LegacyImageBackfill(imageRepository, imageStorage, TransactionOperations.withoutTransaction(), 2);
+    }
+
+    @Test
+    void movesInlineImagesToTheBlobStore() {
+        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG);
+        when(imageRepository.findLegacyImages(0L, 2)).thenReturn(List.of(image(1L, dataUri)));
+
+        backfill.run();
+
+        StoredImage stored = imageStorage.store(PNG);
+        assertThat(imageStorage.load(stored.getContentHash())).isEqualTo(PNG);
+        verify(imageRepository).setStoredImage(1L, stored.getContentHash(), PNG.length, "image/png", true);
+    }
+
+    @Test
+    void skipsPastImagesThatDoNotDecode() {
+        String plain = Base64.getEncoder().encodeToString(PNG);
+        when(imageRepository.findLegacyImages(0L, 2)).thenReturn(List.of(image(1L, "not base64!"), image(2L, plain)));
+        when(imageRepository.findLegacyImages(2L, 2)).thenReturn(List.of(image(3L, plain)));
+
+        backfill.run();
+
+        verify(imageRepository, never()).setStoredImage(eq(1L), anyString(), anyLong(), anyString(), anyBoolean());
+        verify(imageRepository).setStoredImage(eq(2L), anyString(), eq((long) PNG.length), eq("image/png"), eq(false));
+        verify(imageRepository).setStoredImage(eq(3L), anyString(), eq((long) PNG.length), eq("image/png"), eq(false));
+    }
+
+    @Test
+    void doesNothingOnceEveryImageIsMoved() {
+        when(imageRepository.existsLegacyImages()).thenReturn(false);
+
+        backfill.run();
+
+        verify(imageRepository, never()).findLegacyImages(anyLong(), anyInt());
+    }
+
+    private static LegacyImageView image(Long id, String base64Data) {
+        return new LegacyImageView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getBase64Data() {
+                return base64Data;
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package com.okbasalman.product_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.okbasalman.product_service.adapter.output.journal.FileStockJournal;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.service.HotStockLedger;
+import com.okbasalman.product_service.domain.service.ProductLookupCoalescer;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * gRPC calls run on virtual threads (see ProductServiceConfig). A virtual thread that blocks
+ * inside a monitor pins its carrier, and with a few carriers a handful of such calls stall every
+ * other call. These run the in-process paths a call blocks on from many virtual threads and fail
+ * on any jdk.VirtualThreadPinned event. JDBC itself is not covered: pgjdbc 42.7 and HikariCP 6
+ * lock with ReentrantLock rather than synchronized.
+ */
+class VirtualThreadPinningTest {
+
+    private static final Long VARIANT = 10L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void blockingInsideAMonitorIsReported() throws Exception {
+        Object monitor = new Object();
+
+        List<RecordedEvent> pinned = pinnedEvents(8, () -> {
+            synchronized (monitor) {
+                Thread.sleep(20);
+            }
+            return null;
+        });
+
+        assertThat(pinned).isNotEmpty();
+    }
+
+    @Test
+    void coalescedLookupsDoNotPin() throws Exception {
+        ProductLookupCoalescer coalescer = new ProductLookupCoalescer(ids -> {
+            sleep();
+            return ids.stream().map(VirtualThreadPinningTest::product).toList();
+        }, Executors.newScheduledThreadPool(2), Duration.ofMillis(1), 16, Duration.ofSeconds(10));
+        AtomicLong next = new AtomicLong();
+        try {
+            List<RecordedEvent> pinned = pinnedEvents(200, () -> coalescer.getProductById(next.incrementAndGet() % 20));
+
+            assertThat(pinned).isEmpty();
+        } finally {
+            coalescer.stop();
+        }
+    }
+
+    // Refills lease from the database under the counter's lock, and every sale waits for the journal.
+    @Test
+    void hotStockSalesDoNotPin() throws Exception {
+        ProductUseCase productUseCase = mock(ProductUseCase.class);
+        when(productUseCase.getStockLeases("owner")).thenReturn(List.of());
+        when(productUseCase.leaseStock(eq("owner"), anyLong(), anyInt())).thenAnswer(invocation -> {
+            sleep();
+            return new StockLease(VARIANT, 1L, invocation.getArgument(2), 0, 0);
+        });
+        HotStockLedger ledger = new HotStockLedger(productUseCase,
+                new FileStockJournal(directory, Executors.newSingleThreadExecutor()), mock(ScheduledExecutorService.class),
+                List.of(VARIANT), "owner", 10, Duration.ofSeconds(1), Duration.ofSeconds(30), 4);
+        ledger.start();
+        try {
+            List<RecordedEvent> pinned = pinnedEvents(200, () -> ledger.decreaseStockLevel(VARIANT, 1));
+
+            assertThat(pinned).isEmpty();
+        } finally {
+            ledger.stop();
+        }
+    }
+
+    private static List<RecordedEvent> pinnedEvents(int calls, Callable<?> call) throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < calls; i++) {
+                    futures.add(executor.submit(call));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            // waits until every recorded event has been handed to onEvent
+            recording.stop();
+        }
+        return pinned;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+}
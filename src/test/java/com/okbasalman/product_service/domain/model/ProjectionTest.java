@@ -0,0 +1,87 @@
+package com.okbasalman.product_service.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ProjectionTest {
+
+    @Test
+    void fullIsTheProductAsLoaded() {
+        Product full = product();
+
+        assertThat(Projection.FULL.applyTo(full)).isSameAs(full);
+    }
+
+    @Test
+    void noImagesKeepsEveryVariantWithoutItsImages() {
+        Product product = Projection.NO_IMAGES.applyTo(product());
+
+        assertThat(product.getDescription()).isEqualTo("Warm");
+        assertThat(product.getVariants()).singleElement().satisfies(variant -> {
+            assertThat(variant.getStock()).isEqualTo(4);
+            assertThat(variant.getImages()).isEmpty();
+        });
+    }
+
+    @Test
+    void imageRefsKeepTheImagesWithoutTheirData() {
+        Product product = Projection.IMAGE_REFS.applyTo(product());
+
+        assertThat(product.getVariants().get(0).getImages()).singleElement().satisfies(image -> {
+            assertThat(image.getId()).isEqualTo(100L);
+            assertThat(image.getContentHash()).isEqualTo("abc");
+            assertThat(image.getContentType()).isEqualTo("image/png");
+            assertThat(image.getBase64Data()).isNull();
+        });
+    }
+
+    @Test
+    void summaryKeepsTheHeaderAndTheLowestPrice() {
+        Product product = Projection.SUMMARY.applyTo(product());
+
+        assertThat(product.getId()).isEqualTo(1L);
+        assertThat(product.getName()).isEqualTo("Coat");
+        assertThat(product.getMinPrice()).isEqualByComparingTo("99.00");
+        assertThat(product.getVersion()).isEqualTo(3L);
+        assertThat(product.getDescription()).isNull();
+        assertThat(product.getVariants()).isEmpty();
+    }
+
+    @Test
+    void narrowingLeavesTheFullProductAlone() {
+        Product full = product();
+
+        Projection.NO_IMAGES.applyTo(full);
+
+        assertThat(full.getVariants().get(0).getImages()).hasSize(1);
+    }
+
+    private static Product product() {
+        ProductImage image = new ProductImage();
+        image.setId(100L);
+        image.setContentHash("abc");
+        image.setContentType("image/png");
+        image.setBase64Data("data:image/png;base64,AQI=");
+        ProductVariant variant = new ProductVariant();
+        variant.setId(10L);
+        variant.setPrice(new BigDecimal("99.00"));
+        variant.setStock(4);
+        variant.setColor("black");
+        variant.setSize(Size.M);
+        variant.setImages(new ArrayList<>(List.of(image)));
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Coat");
+        product.setDescription("Warm");
+        product.setSeason(Season.WINTER);
+        product.setMinPrice(new BigDecimal("99.00"));
+        product.setVersion(3L);
+        product.setVariants(new ArrayList<>(List.of(variant)));
+        return product;
+    }
+}
@@ -0,0 +1,253 @@
+package com.okbasalman.product_service.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.okbasalman.product_service.domain.event.ProductChangedEvent.ChangeType;
+import com.okbasalman.product_service.domain.model.CatalogSnapshot;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.model.ProductImage;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.Projection;
+import com.okbasalman.product_service.domain.model.Season;
+import com.okbasalman.product_service.domain.model.Size;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotEntry;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotPort;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotReader;
+import com.okbasalman.product_service.domain.port.output.CatalogSnapshotWriter;
+import com.okbasalman.product_service.domain.port.output.ProductChangeLogPort;
+
+class CatalogSnapshotterTest {
+
+    private final InMemorySnapshots snapshots = new InMemorySnapshots();
+    private final List<ProductChange> changes = new ArrayList<>();
+    private ProductUseCase productUseCase;
+    private ProductChangeFeed changeFeed;
+    private Runnable write;
+
+    @BeforeEach
+    void setUp() {
+        productUseCase = mock(ProductUseCase.class);
+        changeFeed = mock(ProductChangeFeed.class);
+        when(changeFeed.settledWatermark()).thenReturn(20L);
+        when(changeFeed.canResumeFrom(anyLong())).thenReturn(true);
+        ProductChangeLogPort changeLog = mock(ProductChangeLogPort.class);
+        when(changeLog.findAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return changes.stream().filter(change -> change.getSequence() > after).collect(Collectors.toList());
+        });
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        CatalogSnapshotter snapshotter = new CatalogSnapshotter(productUseCase, snapshots, changeFeed, changeLog,
+                mock(ApplicationEventPublisher.class), TransactionOperations.withoutTransaction(), executor,
+                Duration.ofMinutes(5), 1_000);
+        snapshotter.start();
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleWithFixedDelay(task.capture(), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        write = task.getValue();
+    }
+
+    @Test
+    void theFirstSnapshotReadsTheWholeCatalog() {
+        when(productUseCase.getProductsPage(0L, 100, Projection.FULL)).thenReturn(List.of(product(1L, "a"), product(2L, "b")));
+
+        write.run();
+
+        assertThat(snapshots.current.getWatermark()).isEqualTo(20L);
+        assertThat(snapshots.current.getProducts()).extracting(Product::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void laterSnapshotsOnlyReadTheProductsChangedSince() {
+        snapshots.current = new CatalogSnapshot(10L, Instant.now(), List.of(product(1L, "a"), product(2L, "b"), product(4L, "d")));
+        changes.add(new ProductChange(11L, 2L, ChangeType.UPDATED, Instant.now()));
+        changes.add(new ProductChange(12L, 3L, ChangeType.CREATED, Instant.now()));
+        changes.add(new ProductChange(13L, 4L, ChangeType.DELETED, Instant.now()));
+        when(productUseCase.getProductsByIds(List.of(2L, 3L, 4L), Projection.FULL))
+                .thenReturn(List.of(product(2L, "b2"), product(3L, "c")));
+
+        write.run();
+
+        verify(productUseCase, never()).getProductsPage(anyLong(), anyInt(), any());
+        assertThat(snapshots.current.getWatermark()).isEqualTo(20L);
+        assertThat(snapshots.current.getProducts()).extracting(Product::getName).containsExactly("a", "b2", "c");
+    }
+
+    @Test
+    void unchangedProductsAreCopiedWithoutDecodingThem() {
+        snapshots.current = new CatalogSnapshot(10L, Instant.now(), List.of(product(1L, "a"), product(2L, "b")));
+        changes.add(new ProductChange(11L, 2L, ChangeType.UPDATED, Instant.now()));
+        when(productUseCase.getProductsByIds(List.of(2L), Projection.FULL)).thenReturn(List.of(product(2L, "b2")));
+
+        write.run();
+
+        assertThat(snapshots.current.getProducts()).extracting(Product::getName).containsExactly("a", "b2");
+        assertThat(snapshots.decoded.get()).isZero();
+    }
+
+    @Test
+    void nothingIsWrittenWhenNothingChanged() {
+        CatalogSnapshot previous = new CatalogSnapshot(10L, Instant.now(), List.of(product(1L, "a")));
+        snapshots.current = previous;
+
+        write.run();
+
+        assertThat(snapshots.current).isSameAs(previous);
+        verify(productUseCase, never()).getProductsByIds(anyList(), any());
+    }
+
+    @Test
+    void imagesPastTheBudgetAreWrittenAsReferences() {
+        snapshots.current = new CatalogSnapshot(10L, Instant.now(), List.of(withImage(1L, 800), withImage(2L, 800)));
+        changes.add(new ProductChange(11L, 3L, ChangeType.CREATED, Instant.now()));
+        when(productUseCase.getProductsByIds(List.of(3L), Projection.FULL)).thenReturn(List.of(withImage(3L, 800)));
+
+        write.run();
+
+        assertThat(snapshots.current.getProducts()).extracting(product ->
+                product.getVariants().get(0).getImages().get(0).getBase64Data() != null).containsExactly(true, true, false);
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setSeason(Season.SUMMER);
+        product.setVariants(new ArrayList<>());
+        product.setVersion(1L);
+        return product;
+    }
+
+    private static Product withImage(Long id, int imageBytes) {
+        ProductImage image = new ProductImage();
+        image.setId(id);
+        image.setBase64Data("x".repeat(imageBytes));
+        ProductVariant variant = new ProductVariant();
+        variant.setId(id);
+        variant.setPrice(BigDecimal.ONE);
+        variant.setColor("black");
+        variant.setSize(Size.M);
+        variant.setImages(List.of(image));
+        Product product = product(id, "p" + id);
+        product.setVariants(List.of(variant));
+        return product;
+    }
+
+    private static long imageBytes(Product product) {
+        return product.getVariants().stream()
+                .flatMap(variant -> variant.getImages().stream())
+                .mapToLong(image -> image.getBase64Data() == null ? 0 : image.getBase64Data().length())
+                .sum();
+    }
+
+    // Entries are sized by their image data, and count how often a whole product is decoded.
+    private static final class InMemorySnapshots implements CatalogSnapshotPort {
+        private CatalogSnapshot current;
+        private final AtomicInteger decoded = new AtomicInteger();
+
+        @Override
+        public Optional<CatalogSnapshot> load() {
+            return Optional.ofNullable(current);
+        }
+
+        @Override
+        public Optional<CatalogSnapshotReader> open() {
+            if (current == null) {
+                return Optional.empty();
+            }
+            CatalogSnapshot snapshot = current;
+            Iterator<Product> products = snapshot.getProducts().iterator();
+            return Optional.of(new CatalogSnapshotReader() {
+                @Override
+                public long getWatermark() {
+                    return snapshot.getWatermark();
+                }
+
+                @Override
+                public CatalogSnapshotEntry next() {
+                    return products.hasNext() ? new Entry(products.next()) : null;
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+
+        @Override
+        public CatalogSnapshotWriter startWrite(long watermark) {
+            List<Product> written = new ArrayList<>();
+            return new CatalogSnapshotWriter() {
+                @Override
+                public void write(Product product) {
+                    written.add(product);
+                }
+
+                @Override
+                public void copy(CatalogSnapshotEntry entry) {
+                    written.add(((Entry) entry).product);
+                }
+
+                @Override
+                public void complete() {
+                    current = new CatalogSnapshot(watermark, Instant.now(), written);
+                }
+
+                @Override
+                public void abort() {
+                }
+            };
+        }
+
+        private final class Entry implements CatalogSnapshotEntry {
+            private final Product product;
+
+            private Entry(Product product) {
+                this.product = product;
+            }
+
+            @Override
+            public Long getProductId() {
+                return product.getId();
+            }
+
+            @Override
+            public int getSize() {
+                return (int) imageBytes(product);
+            }
+
+            @Override
+            public Product getProduct() {
+                decoded.incrementAndGet();
+                return product;
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.okbasalman.product_service.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.product_service.adapter.output.journal.FileStockJournal;
+import com.okbasalman.product_service.domain.model.Product;
+import com.okbasalman.product_service.domain.model.ProductVariant;
+import com.okbasalman.product_service.domain.model.StockLease;
+import com.okbasalman.product_service.domain.model.StockLevel;
+import com.okbasalman.product_service.domain.port.input.ProductUseCase;
+
+class HotStockLedgerTest {
+
+    private static final String OWNER = "instance-1";
+    private static final Long VARIANT = 10L;
+    private static final Long OTHER_VARIANT = 11L;
+    private static final Long PRODUCT = 1L;
+
+    @TempDir
+    Path directory;
+
+    private ProductUseCase productUseCase;
+    // stock each variant has available in the "database", which leases take from
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final List<HotStockLedger> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productUseCase = mock(ProductUseCase.class);
+        when(productUseCase.getStockLeases(OWNER)).thenReturn(List.of());
+        when(productUseCase.leaseStock(eq(OWNER), anyLong(), anyInt())).thenAnswer(invocation -> {
+            Long productVariantId = invocation.getArgument(1);
+            int requested = invocation.getArgument(2);
+            AtomicInteger stock = available(productVariantId);
+            int granted = Math.max(0, Math.min(requested, stock.getAndAdd(-requested)));
+            if (granted < requested) {
+                stock.addAndGet(requested - granted);
+            }
+            return new StockLease(productVariantId, PRODUCT, granted, stock.get(), 0);
+        });
+        // settling takes the sales out of both stock and the lease, so what is available stays the same
+        when(productUseCase.settleLeasedStock(eq(OWNER), anyLong(), anyLong(), anyLong())).thenAnswer(invocation ->
+                Optional.of(new StockLevel(invocation.getArgument(1), PRODUCT, available(invocation.getArgument(1)).get())));
+    }
+
+    @AfterEach
+    void stopLedgers() {
+        started.forEach(HotStockLedger::stop);
+    }
+
+    @Test
+    void concurrentSalesNeverExceedTheLeasedStock() throws Exception {
+        available(VARIANT).set(500);
+        HotStockLedger ledger = start(List.of(VARIANT), Duration.ofSeconds(30)).ledger();
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> sellers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sellers.add(executor.submit(() -> {
+                    go.await();
+                    for (int j = 0; j < 100; j++) {
+                        try {
+                            ledger.decreaseStockLevel(VARIANT, 1);
+                            sold.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            // out of stock
+                        }
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> seller : sellers) {
+                seller.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sold.get()).isEqualTo(500);
+        assertThatThrownBy(() -> ledger.decreaseStockLevel(VARIANT, 1)).hasMessageContaining("Insufficient stock");
+    }
+
+    @Test
+    void retryAfterAPartialSettleOnlySettlesTheRest() {
+        Started hot = start(List.of(VARIANT, OTHER_VARIANT), Duration.ofSeconds(30));
+        hot.ledger().decreaseStockLevel(VARIANT, 2);
+        hot.ledger().decreaseStockLevel(OTHER_VARIANT, 3);
+        doThrow(new IllegalStateException("connection reset"))
+                .doAnswer(invocation -> Optional.of(new StockLevel(OTHER_VARIANT, PRODUCT, 500)))
+                .when(productUseCase).settleLeasedStock(eq(OWNER), eq(OTHER_VARIANT), anyLong(), anyLong());
+
+        hot.flush().run();
+        hot.flush().run();
+
+        verify(productUseCase, times(1)).settleLeasedStock(OWNER, VARIANT, 2, 2);
+        verify(productUseCase, times(2)).settleLeasedStock(OWNER, OTHER_VARIANT, 3, 2);
+        assertThat(hot.ledger().decreaseStockLevel(VARIANT, 1).getStock()).isEqualTo(997);
+        assertThat(hot.ledger().decreaseStockLevel(OTHER_VARIANT, 1).getStock()).isEqualTo(996);
+    }
+
+    @Test
+    void restartSettlesJournaledSalesAndReturnsTheLeases() {
+        Started hot = start(List.of(VARIANT), Duration.ofSeconds(30));
+        hot.ledger().decreaseStockLevel(VARIANT, 4);
+        // a crash: nothing is settled or released
+        hot.journal().close();
+        started.remove(hot.ledger());
+        when(productUseCase.getStockLeases(OWNER)).thenReturn(List.of(new StockLease(VARIANT, null, 496, 0, 0)));
+
+        start(List.of(VARIANT), Duration.ofSeconds(30));
+
+        verify(productUseCase).settleLeasedStock(OWNER, VARIANT, 4, 1);
+        verify(productUseCase).releaseLeasedStock(OWNER, VARIANT, 496);
+    }
+
+    @Test
+    void sequencesStayAboveWhatWasSettledAfterARestart() {
+        Started first = start(List.of(VARIANT), Duration.ofSeconds(30));
+        first.ledger().decreaseStockLevel(VARIANT, 1);
+        first.flush().run();
+        first.ledger().stop();
+        started.remove(first.ledger());
+        when(productUseCase.getStockLeases(OWNER)).thenReturn(List.of(new StockLease(VARIANT, null, 0, 0, 1)));
+
+        Started second = start(List.of(VARIANT), Duration.ofSeconds(30));
+        second.ledger().decreaseStockLevel(VARIANT, 1);
+        second.flush().run();
+
+        verify(productUseCase).settleLeasedStock(OWNER, VARIANT, 1, 1);
+        verify(productUseCase).settleLeasedStock(OWNER, VARIANT, 1, 2);
+    }
+
+    @Test
+    void stopsSellingWhenTheLeasesCannotBeRenewed() throws InterruptedException {
+        Started hot = start(List.of(VARIANT), Duration.ofMillis(40));
+        hot.ledger().decreaseStockLevel(VARIANT, 1);
+        doThrow(new IllegalStateException("database unreachable")).when(productUseCase).renewStockLeases(OWNER);
+
+        Thread.sleep(30);
+        hot.flush().run();
+
+        assertThat(hot.ledger().isHot(VARIANT)).isFalse();
+        assertThatThrownBy(() -> hot.ledger().decreaseStockLevel(VARIANT, 1)).isInstanceOf(IllegalStateException.class);
+        verify(productUseCase).releaseLeasedStock(OWNER, VARIANT, 499);
+
+        doThrow(new IllegalStateException("still unreachable")).doNothing().when(productUseCase).renewStockLeases(OWNER);
+        hot.flush().run();
+        hot.flush().run();
+
+        assertThat(hot.ledger().isHot(VARIANT)).isTrue();
+        verify(productUseCase, times(2)).leaseStock(OWNER, VARIANT, 500);
+    }
+
+    @Test
+    void readsAddWhatTheCounterHoldsToTheStockAvailableInTheDatabase() {
+        Started hot = start(List.of(VARIANT), Duration.ofSeconds(30));
+        Product product = product(VARIANT, 20);
+
+        assertThat(hot.ledger().applyTo(product)).isSameAs(product);
+        assertThat(hot.ledger().inStockVariantIds()).isEmpty();
+
+        // leases 500, so the database reports 500 fewer available
+        hot.ledger().decreaseStockLevel(VARIANT, 3);
+
+        assertThat(hot.ledger().applyTo(product).getVariants().get(0).getStock()).isEqualTo(517);
+        assertThat(product.getVariants().get(0).getStock()).isEqualTo(20);
+        assertThat(hot.ledger().inStockVariantIds()).containsExactly(VARIANT);
+    }
+
+    private AtomicInteger available(Long productVariantId) {
+        return available.computeIfAbsent(productVariantId, id -> new AtomicInteger(1_000));
+    }
+
+    private static Product product(Long productVariantId, int stock) {
+        ProductVariant variant = new ProductVariant();
+        variant.setId(productVariantId);
+        variant.setStock(stock);
+        Product product = new Product();
+        product.setId(PRODUCT);
+        product.setVariants(List.of(variant));
+        return product;
+    }
+
+    private Started start(List<Long> variantIds, Duration leaseExpiry) {
+        FileStockJournal journal = new FileStockJournal(directory, Executors.newSingleThreadExecutor());
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        HotStockLedger ledger = new HotStockLedger(productUseCase, journal, executor, variantIds, OWNER, 500,
+                Duration.ofMillis(10), leaseExpiry, 4);
+        ledger.start();
+        started.add(ledger);
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleWithFixedDelay(flush.capture(), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        return new Started(ledger, journal, flush.getValue());
+    }
+
+    private record Started(HotStockLedger ledger, FileStockJournal journal, Runnable flush) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.okbasalman.product_service.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.okbasalman.product_service.domain.event.ProductChangedEvent.ChangeType;
+import com.okbasalman.product_service.domain.model.ProductChange;
+import com.okbasalman.product_service.domain.port.output.ProductChangeLogPort;
+
+class ProductChangeFeedTest {
+
+    private final InMemoryChangeLog changeLog = new InMemoryChangeLog();
+    private final QueuedExecutor notifier = new QueuedExecutor();
+    private final List<String> notifications = new ArrayList<>();
+    private ProductChangeFeed feed;
+    private Runnable poll;
+
+    @BeforeEach
+    void setUp() {
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        feed = new ProductChangeFeed(changeLog, executor, notifier, Duration.ofMillis(200), Duration.ZERO,
+                Duration.ofMinutes(10), 100, 1_000, Duration.ofDays(7));
+        feed.start();
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleWithFixedDelay(task.capture(), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        poll = task.getValue();
+        feed.subscribe(new ProductChangeFeed.Subscriber() {
+            @Override
+            public void onChangesAvailable() {
+                notifications.add("changes");
+            }
+
+            @Override
+            public void onLateChange(long sequence) {
+                notifications.add("late " + sequence);
+            }
+        });
+    }
+
+    @Test
+    void subscribersAreNotifiedOffThePoller() {
+        changeLog.add(1);
+
+        poll.run();
+
+        assertThat(notifications).isEmpty();
+        notifier.runAll();
+        assertThat(notifications).containsExactly("changes");
+        assertThat(feed.read(0, 10)).extracting(ProductChange::getSequence).containsExactly(1L);
+    }
+
+    @Test
+    void aSkippedSequenceThatCommitsLateIsReported() {
+        changeLog.add(1);
+        changeLog.add(3);
+        poll.run();
+        // the gap timeout is zero, so 2 has already been skipped
+        assertThat(feed.watermark()).isEqualTo(3);
+
+        changeLog.add(2);
+        poll.run();
+        notifier.runAll();
+
+        assertThat(notifications).containsExactly("changes", "late 2");
+        assertThat(feed.read(1, 10)).extracting(ProductChange::getSequence).containsExactly(2L, 3L);
+        poll.run();
+        notifier.runAll();
+        assertThat(notifications).hasSize(2);
+    }
+
+    @Test
+    void theSettledWatermarkStaysBelowSkippedSequencesUntilTheyCommit() {
+        changeLog.add(1);
+        changeLog.add(3);
+        poll.run();
+        assertThat(feed.watermark()).isEqualTo(3);
+        assertThat(feed.settledWatermark()).isEqualTo(1);
+
+        changeLog.add(2);
+        poll.run();
+
+        assertThat(feed.settledWatermark()).isEqualTo(3);
+    }
+
+    @Test
+    void resumingIsRefusedFromBeforeThePurgeWatermarkEvenWhenTheLogIsEmpty() {
+        changeLog.add(1);
+        changeLog.add(2);
+        changeLog.deleteBefore(Instant.MAX);
+
+        assertThat(feed.canResumeFrom(0)).isFalse();
+        assertThat(feed.canResumeFrom(1)).isFalse();
+        assertThat(feed.canResumeFrom(2)).isTrue();
+    }
+
+    private static final class InMemoryChangeLog implements ProductChangeLogPort {
+        private final TreeMap<Long, ProductChange> changes = new TreeMap<>();
+        private long purgedThrough;
+
+        void add(long sequence) {
+            changes.put(sequence, new ProductChange(sequence, sequence, ChangeType.UPDATED, Instant.now()));
+        }
+
+        @Override
+        public List<ProductChange> findAfter(long sequence, int limit) {
+            return changes.tailMap(sequence, false).values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public List<ProductChange> findBySequences(Collection<Long> sequences) {
+            return sequences.stream().map(changes::get).filter(change -> change != null).toList();
+        }
+
+        @Override
+        public long latestSequence() {
+            return changes.isEmpty() ? 0 : changes.lastKey();
+        }
+
+        @Override
+        public long purgedThrough() {
+            return purgedThrough;
+        }
+
+        @Override
+        public int deleteBefore(Instant cutoff) {
+            int deleted = changes.size();
+            if (!changes.isEmpty()) {
+                purgedThrough = Math.max(purgedThrough, changes.lastKey());
+            }
+            changes.clear();
+            return deleted;
+        }
+    }
+
+    private static final class QueuedExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            List<Runnable> queued = new ArrayList<>(tasks);
+            tasks.clear();
+            queued.forEach(Runnable::run);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
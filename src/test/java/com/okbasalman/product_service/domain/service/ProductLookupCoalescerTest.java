@@ -0,0 +1,59 @@
+package com.okbasalman.product_service.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.okbasalman.product_service.domain.exception.ProductLookupTimeoutException;
+import com.okbasalman.product_service.domain.model.Product;
+
+class ProductLookupCoalescerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ProductLookupCoalescer coalescer = new ProductLookupCoalescer(ids -> {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ids.stream().map(ProductLookupCoalescerTest::product).toList();
+    }, Executors.newScheduledThreadPool(1), Duration.ofMillis(1), 100, Duration.ofSeconds(10));
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        coalescer.stop();
+    }
+
+    @Test
+    void aCallerGivesUpAfterItsTimeout() {
+        assertThatThrownBy(() -> coalescer.getProductById(1L, Duration.ofMillis(20)))
+                .isInstanceOf(ProductLookupTimeoutException.class);
+    }
+
+    @Test
+    void timingOutDoesNotFailTheOtherCallersOfTheSameProduct() throws Exception {
+        CompletableFuture<Product> patient = CompletableFuture.supplyAsync(() -> coalescer.getProductById(1L));
+        assertThatThrownBy(() -> coalescer.getProductById(1L, Duration.ofMillis(20)))
+                .isInstanceOf(ProductLookupTimeoutException.class);
+
+        release.countDown();
+
+        assertThat(patient.get(10, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+}
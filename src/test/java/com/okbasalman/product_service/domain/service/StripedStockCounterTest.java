@@ -0,0 +1,106 @@
+package com.okbasalman.product_service.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class StripedStockCounterTest {
+
+    @Test
+    void concurrentTakersNeverTakeMoreThanWasRefilled() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(8);
+        AtomicInteger stock = new AtomicInteger(10_000);
+        AtomicInteger taken = new AtomicInteger();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> takers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                takers.add(executor.submit(() -> {
+                    start.await();
+                    // each refill hands out at most 100 units of what is left
+                    while (counter.tryTake(3, shortfall -> {
+                        int granted = Math.min(Math.max(shortfall, 100), stock.get());
+                        stock.addAndGet(-granted);
+                        return granted;
+                    })) {
+                        taken.addAndGet(3);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> taker : takers) {
+                taker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(taken.get()).isEqualTo(9_999);
+        assertThat(taken.get() + counter.available() + stock.get()).isEqualTo(10_000);
+    }
+
+    @Test
+    void refillIsAskedForTheShortfallOnly() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(2);
+        List<Integer> requested = new ArrayList<>();
+
+        boolean taken = counter.tryTake(5, shortfall -> {
+            requested.add(shortfall);
+            return shortfall;
+        });
+
+        assertThat(taken).isTrue();
+        assertThat(requested).containsExactly(3);
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    void failedTakeKeepsWhatTheCounterHeld() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(2);
+
+        assertThat(counter.tryTake(5, shortfall -> 1)).isFalse();
+        assertThat(counter.available()).isEqualTo(3);
+    }
+
+    @Test
+    void failingRefillDoesNotLoseUnits() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(2);
+
+        assertThatThrownBy(() -> counter.tryTake(5, shortfall -> {
+            throw new IllegalStateException("database unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(counter.available()).isEqualTo(2);
+    }
+
+    @Test
+    void replenishOnlyTopsUpBelowHalfTheTarget() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(60);
+        counter.replenish(100, shortfall -> {
+            throw new AssertionError("refilled above half the target");
+        });
+        assertThat(counter.available()).isEqualTo(60);
+
+        assertThat(counter.tryTake(20, shortfall -> 0)).isTrue();
+        counter.replenish(100, shortfall -> shortfall);
+        assertThat(counter.available()).isEqualTo(100);
+        assertThat(counter.drainAll()).isEqualTo(100);
+        assertThat(counter.available()).isZero();
+    }
+}